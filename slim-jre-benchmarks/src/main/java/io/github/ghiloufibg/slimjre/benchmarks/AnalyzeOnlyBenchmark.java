@@ -0,0 +1,34 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import io.github.ghiloufibg.slimjre.config.AnalysisResult;
+import io.github.ghiloufibg.slimjre.config.DependencyEngineMode;
+import io.github.ghiloufibg.slimjre.core.SlimJre;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks the complete analysis pipeline with all scanners enabled and no cache. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class AnalyzeOnlyBenchmark {
+
+  @Param({"JDEPS", "BYTECODE"})
+  public DependencyEngineMode dependencyEngine;
+
+  @Benchmark
+  public AnalysisResult analyzeOnly(Workload workload) {
+    return new SlimJre().analyzeOnly(workload.jars(), true, true, dependencyEngine);
+  }
+}
@@ -0,0 +1,272 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates synthetic classpaths of arbitrary size with a known set of required JDK modules.
+ *
+ * <p>Every class instantiates {@code java.util.ArrayList}, and is additionally given each {@link
+ * ScannerPattern} emitted in bytecode with the probability configured in the {@link ClasspathSpec}.
+ * Resource patterns are added to a JAR with their probability per JAR. The placement is drawn from
+ * a random generator seeded by the spec, and all entries carry a fixed timestamp, so the same spec
+ * always produces byte-identical JARs.
+ *
+ * <p>Classpaths can be packaged as Spring Boot style fat JARs or as WARs to measure nested JAR
+ * handling on the same content.
+ */
+public final class ClasspathGenerator {
+
+  /** Local timestamp of all generated entries, for byte-identical output in any time zone. */
+  private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+  private static final String REFLECTIVE_TARGET = "java.sql.DriverManager";
+  private static final String NATIVE_IMAGE_TARGET = "javax.naming.InitialContext";
+  private static final String SCRIPT_ENGINE_FACTORY = "javax.script.ScriptEngineFactory";
+
+  private ClasspathGenerator() {}
+
+  /**
+   * Writes the JARs of a spec to a directory.
+   *
+   * <p>JARs are written in parallel; their content does not depend on the order of writing.
+   *
+   * @param spec classpath shape
+   * @param directory target directory, created if missing
+   * @return the generated classpath and its ground truth
+   * @throws IOException if a JAR cannot be written
+   */
+  public static GeneratedClasspath generate(ClasspathSpec spec, Path directory) throws IOException {
+    Files.createDirectories(directory);
+
+    // Seeds are split sequentially, so each JAR's content is independent of thread scheduling
+    SplittableRandom root = new SplittableRandom(spec.seed());
+    List<SplittableRandom> randoms = new ArrayList<>(spec.jarCount());
+    for (int j = 0; j < spec.jarCount(); j++) {
+      randoms.add(root.split());
+    }
+
+    List<Map<ScannerPattern, Integer>> counts;
+    try {
+      counts =
+          IntStream.range(0, spec.jarCount())
+              .parallel()
+              .mapToObj(j -> writeJar(spec, directory, j, randoms.get(j)))
+              .toList();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    List<Path> jars = new ArrayList<>(spec.jarCount());
+    Map<ScannerPattern, Integer> occurrences = new EnumMap<>(ScannerPattern.class);
+    for (int j = 0; j < spec.jarCount(); j++) {
+      jars.add(directory.resolve(jarName(j)));
+      counts.get(j).forEach((pattern, count) -> occurrences.merge(pattern, count, Integer::sum));
+    }
+    return new GeneratedClasspath(spec, jars, occurrences);
+  }
+
+  /**
+   * Packages JARs as stored libraries of a Spring Boot style fat JAR.
+   *
+   * @param target fat JAR to write
+   * @param libraries JARs to place under BOOT-INF/lib/
+   * @return the fat JAR
+   * @throws IOException if the fat JAR cannot be written
+   */
+  public static Path fatJar(Path target, List<Path> libraries) throws IOException {
+    // Spring Boot stores nested JARs uncompressed
+    return archive(target, "BOOT-INF/lib/", libraries, ZipEntry.STORED);
+  }
+
+  /**
+   * Packages JARs as compressed libraries of a WAR.
+   *
+   * @param target WAR to write
+   * @param libraries JARs to place under WEB-INF/lib/
+   * @return the WAR
+   * @throws IOException if the WAR cannot be written
+   */
+  public static Path war(Path target, List<Path> libraries) throws IOException {
+    return archive(target, "WEB-INF/lib/", libraries, ZipEntry.DEFLATED);
+  }
+
+  private static Map<ScannerPattern, Integer> writeJar(
+      ClasspathSpec spec, Path directory, int jarIndex, SplittableRandom random) {
+    Map<ScannerPattern, Integer> counts = new EnumMap<>(ScannerPattern.class);
+    String packageName = String.format("com/example/lib%04d", jarIndex);
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+
+    try (OutputStream out = Files.newOutputStream(directory.resolve(jarName(jarIndex)));
+        JarOutputStream jos = new JarOutputStream(out)) {
+      put(jos, "META-INF/MANIFEST.MF", manifestBytes(manifest));
+
+      for (int c = 0; c < spec.classesPerJar(); c++) {
+        String className = String.format("%s/Type%04d", packageName, c);
+        List<ScannerPattern> patterns = new ArrayList<>();
+        for (ScannerPattern pattern : ScannerPattern.values()) {
+          // Always draw, so densities of one pattern do not shift the placement of the others
+          if (pattern.perClass() && random.nextDouble() < spec.density(pattern)) {
+            patterns.add(pattern);
+            counts.merge(pattern, 1, Integer::sum);
+          }
+        }
+        put(jos, className + ".class", classWith(className, patterns));
+      }
+
+      String firstClass = (packageName + "/Type0000").replace('/', '.');
+      if (random.nextDouble() < spec.density(ScannerPattern.SERVICE_FILE)) {
+        put(jos, "META-INF/services/" + SCRIPT_ENGINE_FACTORY, utf8(firstClass + "\n"));
+        counts.merge(ScannerPattern.SERVICE_FILE, 1, Integer::sum);
+      }
+      if (random.nextDouble() < spec.density(ScannerPattern.NATIVE_IMAGE_METADATA)) {
+        put(
+            jos,
+            String.format(
+                "META-INF/native-image/com.example/lib%04d/reflect-config.json", jarIndex),
+            utf8("[\n  {\n    \"name\": \"" + NATIVE_IMAGE_TARGET + "\"\n  }\n]\n"));
+        counts.merge(ScannerPattern.NATIVE_IMAGE_METADATA, 1, Integer::sum);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return counts;
+  }
+
+  private static Path archive(Path target, String prefix, List<Path> libraries, int method)
+      throws IOException {
+    try (OutputStream out = Files.newOutputStream(target);
+        JarOutputStream jos = new JarOutputStream(out)) {
+      JarEntry directory = new JarEntry(prefix);
+      directory.setTimeLocal(ENTRY_TIME);
+      jos.putNextEntry(directory);
+      jos.closeEntry();
+
+      for (Path library : libraries) {
+        byte[] bytes = Files.readAllBytes(library);
+        JarEntry entry = new JarEntry(prefix + library.getFileName());
+        entry.setTimeLocal(ENTRY_TIME);
+        if (method == ZipEntry.STORED) {
+          CRC32 crc = new CRC32();
+          crc.update(bytes);
+          entry.setMethod(ZipEntry.STORED);
+          entry.setSize(bytes.length);
+          entry.setCompressedSize(bytes.length);
+          entry.setCrc(crc.getValue());
+        }
+        jos.putNextEntry(entry);
+        jos.write(bytes);
+        jos.closeEntry();
+      }
+    }
+    return target;
+  }
+
+  /** Creates a class whose single method runs the plain baseline plus the given patterns. */
+  private static byte[] classWith(String className, List<ScannerPattern> patterns) {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+    MethodVisitor mv =
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+    mv.visitCode();
+    mv.visitTypeInsn(Opcodes.NEW, "java/util/ArrayList");
+    mv.visitInsn(Opcodes.DUP);
+    mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
+    mv.visitInsn(Opcodes.POP);
+    for (ScannerPattern pattern : patterns) {
+      emit(mv, pattern);
+    }
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+
+  private static void emit(MethodVisitor mv, ScannerPattern pattern) {
+    switch (pattern) {
+      case CLASS_FOR_NAME -> {
+        mv.visitLdcInsn(REFLECTIVE_TARGET);
+        mv.visitMethodInsn(
+            Opcodes.INVOKESTATIC,
+            "java/lang/Class",
+            "forName",
+            "(Ljava/lang/String;)Ljava/lang/Class;",
+            false);
+      }
+      case SSL_CONTEXT ->
+          mv.visitMethodInsn(
+              Opcodes.INVOKESTATIC,
+              "javax/net/ssl/SSLContext",
+              "getDefault",
+              "()Ljavax/net/ssl/SSLContext;",
+              false);
+      case LOCALE_FIELD ->
+          mv.visitFieldInsn(Opcodes.GETSTATIC, "java/util/Locale", "FRENCH", "Ljava/util/Locale;");
+      case ZIP_FILESYSTEM -> {
+        mv.visitInsn(Opcodes.ACONST_NULL);
+        mv.visitMethodInsn(
+            Opcodes.INVOKESTATIC,
+            "java/nio/file/FileSystems",
+            "newFileSystem",
+            "(Ljava/nio/file/Path;)Ljava/nio/file/FileSystem;",
+            false);
+      }
+      case JMX_REMOTE -> {
+        mv.visitInsn(Opcodes.ACONST_NULL);
+        mv.visitMethodInsn(
+            Opcodes.INVOKESTATIC,
+            "javax/management/remote/JMXConnectorFactory",
+            "connect",
+            "(Ljavax/management/remote/JMXServiceURL;)Ljavax/management/remote/JMXConnector;",
+            false);
+      }
+      default -> throw new IllegalArgumentException(pattern + " is not a bytecode pattern");
+    }
+    mv.visitInsn(Opcodes.POP);
+  }
+
+  private static void put(JarOutputStream jos, String name, byte[] content) throws IOException {
+    JarEntry entry = new JarEntry(name);
+    entry.setTimeLocal(ENTRY_TIME);
+    jos.putNextEntry(entry);
+    jos.write(content);
+    jos.closeEntry();
+  }
+
+  private static byte[] manifestBytes(Manifest manifest) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    manifest.write(bytes);
+    return bytes.toByteArray();
+  }
+
+  private static byte[] utf8(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String jarName(int jarIndex) {
+    return String.format("lib-%04d.jar", jarIndex);
+  }
+}
@@ -0,0 +1,110 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Shape of a synthetic classpath generated by {@link ClasspathGenerator}.
+ *
+ * @param jarCount number of JARs
+ * @param classesPerJar number of classes in each JAR
+ * @param seed seed of the pseudo-random pattern placement; equal specs produce identical JARs
+ * @param densities probability of each pattern per class or per JAR, see {@link
+ *     ScannerPattern#perClass()}
+ */
+public record ClasspathSpec(
+    int jarCount, int classesPerJar, long seed, Map<ScannerPattern, Double> densities) {
+
+  /** Default seed, so that runs are comparable unless a seed is chosen explicitly. */
+  public static final long DEFAULT_SEED = 42L;
+
+  public ClasspathSpec {
+    if (jarCount < 1) {
+      throw new IllegalArgumentException("jarCount must be positive");
+    }
+    if (classesPerJar < 1) {
+      throw new IllegalArgumentException("classesPerJar must be positive");
+    }
+    EnumMap<ScannerPattern, Double> copy = new EnumMap<>(ScannerPattern.class);
+    for (ScannerPattern pattern : ScannerPattern.values()) {
+      double density = densities.getOrDefault(pattern, 0.0);
+      if (density < 0.0 || density > 1.0) {
+        throw new IllegalArgumentException(
+            "Density of " + pattern + " must be between 0 and 1: " + density);
+      }
+      copy.put(pattern, density);
+    }
+    densities = Map.copyOf(copy);
+  }
+
+  /**
+   * Returns the reference scale workload: 1,000 JARs of 500 classes, i.e. 500,000 classes, with
+   * default pattern densities.
+   */
+  public static ClasspathSpec large() {
+    return builder().jarCount(1_000).classesPerJar(500).build();
+  }
+
+  /** Returns the density of a pattern. */
+  public double density(ScannerPattern pattern) {
+    return densities.get(pattern);
+  }
+
+  /** Returns the total number of classes. */
+  public long classCount() {
+    return (long) jarCount * classesPerJar;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** Builder for ClasspathSpec. */
+  public static class Builder {
+    private int jarCount = 100;
+    private int classesPerJar = 100;
+    private long seed = DEFAULT_SEED;
+    private final Map<ScannerPattern, Double> densities = new EnumMap<>(ScannerPattern.class);
+
+    private Builder() {
+      // Sparse, as in real applications: most classes match no pattern at all
+      densities.put(ScannerPattern.CLASS_FOR_NAME, 0.01);
+      densities.put(ScannerPattern.SSL_CONTEXT, 0.002);
+      densities.put(ScannerPattern.LOCALE_FIELD, 0.001);
+      densities.put(ScannerPattern.ZIP_FILESYSTEM, 0.001);
+      densities.put(ScannerPattern.JMX_REMOTE, 0.0005);
+      densities.put(ScannerPattern.SERVICE_FILE, 0.05);
+      densities.put(ScannerPattern.NATIVE_IMAGE_METADATA, 0.02);
+    }
+
+    public Builder jarCount(int jarCount) {
+      this.jarCount = jarCount;
+      return this;
+    }
+
+    public Builder classesPerJar(int classesPerJar) {
+      this.classesPerJar = classesPerJar;
+      return this;
+    }
+
+    public Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    public Builder density(ScannerPattern pattern, double density) {
+      this.densities.put(pattern, density);
+      return this;
+    }
+
+    /** Sets all densities to zero, for workloads containing only plain classes. */
+    public Builder noPatterns() {
+      this.densities.clear();
+      return this;
+    }
+
+    public ClasspathSpec build() {
+      return new ClasspathSpec(jarCount, classesPerJar, seed, densities);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Locates the JARs built by the {@code slim-jre-examples} modules.
+ *
+ * <p>The examples directory is taken from the {@code slimjre.examples.dir} system property, or
+ * searched for in the working directory and its parent, so benchmarks can be started from the
+ * repository root as well as from this module.
+ */
+final class ExampleArtifacts {
+
+  static final String EXAMPLES_DIR_PROPERTY = "slimjre.examples.dir";
+
+  private static final String SPRING_BOOT_APP = "spring-boot-hello";
+
+  private ExampleArtifacts() {}
+
+  /**
+   * Returns the main JAR of every example that has been built.
+   *
+   * @return example JARs in name order
+   * @throws IllegalStateException if no example has been built
+   */
+  static List<Path> jars() throws IOException {
+    Path examplesDir = examplesDirectory();
+    try (Stream<Path> apps = Files.list(examplesDir)) {
+      List<Path> jars =
+          apps.filter(Files::isDirectory)
+              .sorted()
+              .map(ExampleArtifacts::mainJar)
+              .flatMap(Optional::stream)
+              .toList();
+      if (jars.isEmpty()) {
+        throw notBuilt(examplesDir);
+      }
+      return jars;
+    }
+  }
+
+  /**
+   * Returns the Spring Boot fat JAR of the {@code spring-boot-hello} example.
+   *
+   * @return the fat JAR
+   * @throws IllegalStateException if the example has not been built
+   */
+  static Path springBootFatJar() {
+    Path examplesDir = examplesDirectory();
+    return mainJar(examplesDir.resolve(SPRING_BOOT_APP)).orElseThrow(() -> notBuilt(examplesDir));
+  }
+
+  private static Optional<Path> mainJar(Path appDir) {
+    Path target = appDir.resolve("target");
+    if (!Files.isDirectory(target)) {
+      return Optional.empty();
+    }
+    try (Stream<Path> files = Files.list(target)) {
+      return files
+          .filter(Files::isRegularFile)
+          .filter(f -> isMainJar(f.getFileName().toString()))
+          .sorted()
+          .findFirst();
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static boolean isMainJar(String fileName) {
+    return fileName.endsWith(".jar")
+        && !fileName.endsWith("-sources.jar")
+        && !fileName.endsWith("-javadoc.jar")
+        && !fileName.endsWith("-tests.jar");
+  }
+
+  private static Path examplesDirectory() {
+    String configured = System.getProperty(EXAMPLES_DIR_PROPERTY);
+    if (configured != null && !configured.isBlank()) {
+      return Path.of(configured).toAbsolutePath().normalize();
+    }
+    for (Path candidate : List.of(Path.of("slim-jre-examples"), Path.of("../slim-jre-examples"))) {
+      if (Files.isDirectory(candidate)) {
+        return candidate.toAbsolutePath().normalize();
+      }
+    }
+    throw new IllegalStateException(
+        "slim-jre-examples not found; run from the repository root or set -D"
+            + EXAMPLES_DIR_PROPERTY);
+  }
+
+  private static IllegalStateException notBuilt(Path examplesDir) {
+    return new IllegalStateException(
+        "Example JARs not built in "
+            + examplesDir
+            + "; run 'mvn package -f slim-jre-examples/pom.xml' first");
+  }
+}
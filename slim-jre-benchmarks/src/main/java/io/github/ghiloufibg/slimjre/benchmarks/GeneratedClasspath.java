@@ -0,0 +1,51 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Classpath written by {@link ClasspathGenerator}, together with its ground truth.
+ *
+ * @param spec the spec the classpath was generated from
+ * @param jars generated JARs in order
+ * @param occurrences number of classes (bytecode patterns) or JARs (resource patterns) carrying
+ *     each pattern
+ */
+public record GeneratedClasspath(
+    ClasspathSpec spec, List<Path> jars, Map<ScannerPattern, Integer> occurrences) {
+
+  public GeneratedClasspath {
+    jars = List.copyOf(jars);
+    EnumMap<ScannerPattern, Integer> copy = new EnumMap<>(ScannerPattern.class);
+    for (ScannerPattern pattern : ScannerPattern.values()) {
+      copy.put(pattern, occurrences.getOrDefault(pattern, 0));
+    }
+    occurrences = Map.copyOf(copy);
+  }
+
+  /** Returns the number of classes or JARs carrying a pattern. */
+  public int occurrences(ScannerPattern pattern) {
+    return occurrences.get(pattern);
+  }
+
+  /**
+   * Returns the JDK modules a complete analysis must report for this classpath: java.base plus the
+   * modules of every pattern that occurs at least once.
+   *
+   * @return sorted module names
+   */
+  public Set<String> expectedModules() {
+    Set<String> modules = new TreeSet<>();
+    modules.add("java.base");
+    for (ScannerPattern pattern : ScannerPattern.values()) {
+      if (occurrences(pattern) > 0) {
+        modules.addAll(pattern.modules());
+      }
+    }
+    return modules;
+  }
+}
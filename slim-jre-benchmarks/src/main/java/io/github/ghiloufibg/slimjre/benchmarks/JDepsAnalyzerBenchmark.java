@@ -0,0 +1,26 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import io.github.ghiloufibg.slimjre.core.JDepsAnalyzer;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks jdeps-based module detection over a whole classpath, without a cache. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class JDepsAnalyzerBenchmark {
+
+  @Benchmark
+  public Set<String> analyzeRequiredModules(Workload workload) {
+    return new JDepsAnalyzer().analyzeRequiredModules(workload.jars());
+  }
+}
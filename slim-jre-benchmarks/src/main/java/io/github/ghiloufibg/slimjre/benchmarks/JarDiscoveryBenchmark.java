@@ -0,0 +1,105 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import io.github.ghiloufibg.slimjre.core.DiscoveryResult;
+import io.github.ghiloufibg.slimjre.core.JarDiscovery;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks JAR discovery on fat JARs, addressing nested JARs in place and extracting them.
+ *
+ * <p>{@code EXAMPLES} uses the {@code spring-boot-hello} fat JAR; {@code SYNTHETIC} packages a
+ * generated classpath as a Spring Boot style fat JAR with stored libraries, and {@code
+ * SYNTHETIC_WAR} as a WAR with deflated libraries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class JarDiscoveryBenchmark {
+
+  /** Fat JAR to discover. */
+  @State(Scope.Benchmark)
+  public static class FatJar {
+
+    /** Source of the archive. */
+    public enum Archive {
+      EXAMPLES,
+      SYNTHETIC,
+      SYNTHETIC_WAR
+    }
+
+    @Param({"EXAMPLES", "SYNTHETIC", "SYNTHETIC_WAR"})
+    public Archive input;
+
+    @Param({"200"})
+    public int syntheticJars;
+
+    @Param({"100"})
+    public int classesPerJar;
+
+    private Path tempDirectory;
+    Path fatJar;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      tempDirectory = Files.createTempDirectory("slim-jre-bench-");
+      fatJar =
+          switch (input) {
+            case EXAMPLES -> ExampleArtifacts.springBootFatJar();
+            case SYNTHETIC ->
+                ClasspathGenerator.fatJar(tempDirectory.resolve("app.jar"), libraries());
+            case SYNTHETIC_WAR ->
+                ClasspathGenerator.war(tempDirectory.resolve("app.war"), libraries());
+          };
+    }
+
+    private List<Path> libraries() throws IOException {
+      ClasspathSpec spec =
+          ClasspathSpec.builder().jarCount(syntheticJars).classesPerJar(classesPerJar).build();
+      return ClasspathGenerator.generate(spec, tempDirectory.resolve("libs")).jars();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      try (Stream<Path> walk = Files.walk(tempDirectory)) {
+        for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public int discoverInPlace(FatJar state) throws IOException {
+    try (DiscoveryResult result = new JarDiscovery().discover(state.fatJar)) {
+      return result.jarCount();
+    }
+  }
+
+  @Benchmark
+  public int discoverExtracting(FatJar state) throws IOException {
+    try (DiscoveryResult result = new JarDiscovery(true).discover(state.fatJar)) {
+      return result.jarCount();
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import io.github.ghiloufibg.slimjre.core.ModuleResolver;
+import java.util.BitSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the transitive closure of direct module sets of increasing size.
+ *
+ * <p>{@code resolveWithTransitive} is memoized by its input, so it measures a repeated resolution;
+ * {@code closure} measures the bitset closure every first resolution of a set performs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ModuleResolverBenchmark {
+
+  /** Direct modules to resolve; {@code ALL} resolves every system module. */
+  @Param({"java.base", "java.sql,java.net.http,java.xml,java.logging", "ALL"})
+  public String modules;
+
+  private ModuleResolver resolver;
+  private Set<String> directModules;
+  private BitSet directIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    resolver = new ModuleResolver();
+    directModules =
+        modules.equals("ALL") ? resolver.availableModules() : Set.of(modules.split(","));
+    directIds = new BitSet();
+    directModules.forEach(module -> directIds.set(resolver.moduleId(module)));
+  }
+
+  @Benchmark
+  public Set<String> resolveWithTransitive() {
+    return resolver.resolveWithTransitive(directModules);
+  }
+
+  @Benchmark
+  public BitSet closure() {
+    return resolver.closure(directIds);
+  }
+}
@@ -0,0 +1,119 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import io.github.ghiloufibg.slimjre.core.ApiUsageScanner;
+import io.github.ghiloufibg.slimjre.core.BytecodeDetector;
+import io.github.ghiloufibg.slimjre.core.BytecodeScanEngine;
+import io.github.ghiloufibg.slimjre.core.CryptoModuleScanner;
+import io.github.ghiloufibg.slimjre.core.GraalVmMetadataScanner;
+import io.github.ghiloufibg.slimjre.core.JmxModuleScanner;
+import io.github.ghiloufibg.slimjre.core.LocaleModuleScanner;
+import io.github.ghiloufibg.slimjre.core.ReflectionBytecodeScanner;
+import io.github.ghiloufibg.slimjre.core.ServiceLoaderScanner;
+import io.github.ghiloufibg.slimjre.core.ZipFsModuleScanner;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the per-JAR scan of each scanner, one JAR at a time, without a cache.
+ *
+ * <p>{@code SINGLE_PASS} runs all bytecode detectors together through one {@link
+ * BytecodeScanEngine} pass, which is how {@code SlimJre} scans, for comparison with the sum of the
+ * individual scanners.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ScannerBenchmark {
+
+  /** Scanner under test. */
+  public enum Scanner {
+    API_USAGE,
+    REFLECTION,
+    CRYPTO,
+    LOCALE,
+    ZIPFS,
+    JMX,
+    SERVICE_LOADER,
+    GRAALVM,
+    SINGLE_PASS
+  }
+
+  /** Per-JAR scan function of the selected scanner. */
+  @State(Scope.Benchmark)
+  public static class ScannerState {
+
+    @Param({
+      "API_USAGE",
+      "REFLECTION",
+      "CRYPTO",
+      "LOCALE",
+      "ZIPFS",
+      "JMX",
+      "SERVICE_LOADER",
+      "GRAALVM",
+      "SINGLE_PASS"
+    })
+    public Scanner scanner;
+
+    Function<Path, Object> scanJar;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      BytecodeScanEngine engine = new BytecodeScanEngine();
+      scanJar =
+          switch (scanner) {
+            case API_USAGE -> new ApiUsageScanner()::scanJar;
+            case REFLECTION -> new ReflectionBytecodeScanner()::scanJar;
+            case CRYPTO -> detector(engine, new CryptoModuleScanner());
+            case LOCALE -> detector(engine, new LocaleModuleScanner());
+            case ZIPFS -> detector(engine, new ZipFsModuleScanner());
+            case JMX -> detector(engine, new JmxModuleScanner());
+            case SERVICE_LOADER -> {
+              ServiceLoaderScanner serviceLoaderScanner = new ServiceLoaderScanner();
+              yield jar -> serviceLoaderScanner.scanForServiceModules(List.of(jar));
+            }
+            case GRAALVM -> new GraalVmMetadataScanner()::scanJar;
+            case SINGLE_PASS -> {
+              List<BytecodeDetector<?, ?>> detectors =
+                  List.of(
+                      new ApiUsageScanner(),
+                      new ReflectionBytecodeScanner(),
+                      new CryptoModuleScanner(),
+                      new LocaleModuleScanner(),
+                      new ZipFsModuleScanner(),
+                      new JmxModuleScanner());
+              yield jar -> engine.scan(List.of(jar), detectors);
+            }
+          };
+    }
+
+    private static Function<Path, Object> detector(
+        BytecodeScanEngine engine, BytecodeDetector<?, ?> detector) {
+      return jar -> engine.scanJar(jar, detector);
+    }
+  }
+
+  @Benchmark
+  public void scanJar(Workload workload, ScannerState state, Blackhole blackhole) {
+    for (Path jar : workload.jars()) {
+      blackhole.consume(state.scanJar.apply(jar));
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import java.util.Set;
+
+/**
+ * Code and resource patterns the analysis looks for, as emitted by {@link ClasspathGenerator}.
+ *
+ * <p>Each pattern knows the JDK modules a complete analysis must report once it occurs anywhere on
+ * the classpath, which is the ground truth of generated workloads.
+ */
+public enum ScannerPattern {
+
+  /** {@code Class.forName("java.sql.DriverManager")}, found by the reflection scanner. */
+  CLASS_FOR_NAME(true, Set.of("java.sql")),
+
+  /** Call to {@code javax.net.ssl.SSLContext.getDefault()}, found by the crypto scanner. */
+  SSL_CONTEXT(true, Set.of("jdk.crypto.ec")),
+
+  /** Read of {@code Locale.FRENCH}, found by the locale scanner. */
+  LOCALE_FIELD(true, Set.of("jdk.localedata")),
+
+  /** Call to {@code FileSystems.newFileSystem(Path)}, found by the ZIP filesystem scanner. */
+  ZIP_FILESYSTEM(true, Set.of("jdk.zipfs")),
+
+  /** Call to {@code JMXConnectorFactory.connect(JMXServiceURL)}, found by the JMX scanner. */
+  JMX_REMOTE(true, Set.of("java.management", "java.management.rmi")),
+
+  /** {@code META-INF/services/javax.script.ScriptEngineFactory}, found by the service scanner. */
+  SERVICE_FILE(false, Set.of("java.scripting")),
+
+  /**
+   * {@code META-INF/native-image} reflect-config.json naming {@code javax.naming.InitialContext}.
+   */
+  NATIVE_IMAGE_METADATA(false, Set.of("java.naming"));
+
+  private final boolean perClass;
+  private final Set<String> modules;
+
+  ScannerPattern(boolean perClass, Set<String> modules) {
+    this.perClass = perClass;
+    this.modules = modules;
+  }
+
+  /**
+   * Returns true if the pattern is emitted in class bytecode, false if it is a resource of a JAR.
+   *
+   * <p>The density of a bytecode pattern is a fraction of classes, that of a resource pattern a
+   * fraction of JARs.
+   */
+  public boolean perClass() {
+    return perClass;
+  }
+
+  /** Returns the JDK modules the pattern requires. */
+  public Set<String> modules() {
+    return modules;
+  }
+}
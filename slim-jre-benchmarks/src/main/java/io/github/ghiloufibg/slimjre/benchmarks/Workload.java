@@ -0,0 +1,81 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Classpath analyzed by the benchmarks.
+ *
+ * <p>{@code EXAMPLES} uses the JARs built by {@code slim-jre-examples}; {@code SYNTHETIC} generates
+ * {@code syntheticJars} JARs of {@code classesPerJar} classes with {@link ClasspathGenerator} and
+ * the default pattern densities into a temporary directory once per trial. The reference scale
+ * workload is {@code -p input=SYNTHETIC -p syntheticJars=1000 -p classesPerJar=500}.
+ */
+@State(Scope.Benchmark)
+public class Workload {
+
+  /** Source of the analyzed JARs. */
+  public enum Input {
+    EXAMPLES,
+    SYNTHETIC
+  }
+
+  @Param({"EXAMPLES", "SYNTHETIC"})
+  public Input input;
+
+  @Param({"200"})
+  public int syntheticJars;
+
+  @Param({"100"})
+  public int classesPerJar;
+
+  private Path tempDirectory;
+  private List<Path> jars;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    tempDirectory = Files.createTempDirectory("slim-jre-bench-");
+    jars =
+        switch (input) {
+          case EXAMPLES -> ExampleArtifacts.jars();
+          case SYNTHETIC ->
+              ClasspathGenerator.generate(syntheticSpec(), tempDirectory.resolve("libs")).jars();
+        };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    if (tempDirectory != null) {
+      try (Stream<Path> walk = Files.walk(tempDirectory)) {
+        for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+  }
+
+  /** Returns the spec of the {@code SYNTHETIC} classpath. */
+  ClasspathSpec syntheticSpec() {
+    return ClasspathSpec.builder().jarCount(syntheticJars).classesPerJar(classesPerJar).build();
+  }
+
+  /** Returns the JARs of this workload. */
+  public List<Path> jars() {
+    return jars;
+  }
+
+  /** Returns a scratch directory deleted at the end of the trial. */
+  public Path tempDirectory() {
+    return tempDirectory;
+  }
+}
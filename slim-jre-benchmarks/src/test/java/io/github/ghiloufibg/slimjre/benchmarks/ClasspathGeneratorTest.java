@@ -0,0 +1,131 @@
+package io.github.ghiloufibg.slimjre.benchmarks;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.config.AnalysisResult;
+import io.github.ghiloufibg.slimjre.config.DependencyEngineMode;
+import io.github.ghiloufibg.slimjre.core.DiscoveryResult;
+import io.github.ghiloufibg.slimjre.core.JarDiscovery;
+import io.github.ghiloufibg.slimjre.core.SlimJre;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for ClasspathGenerator and the ground truth of generated classpaths. */
+class ClasspathGeneratorTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void shouldGenerateIdenticalJarsForSameSpec() throws IOException {
+    ClasspathSpec spec = denseSpec();
+
+    GeneratedClasspath first = ClasspathGenerator.generate(spec, tempDir.resolve("a"));
+    GeneratedClasspath second = ClasspathGenerator.generate(spec, tempDir.resolve("b"));
+
+    assertThat(second.occurrences()).isEqualTo(first.occurrences());
+    for (int i = 0; i < first.jars().size(); i++) {
+      assertThat(Files.readAllBytes(second.jars().get(i)))
+          .isEqualTo(Files.readAllBytes(first.jars().get(i)));
+    }
+  }
+
+  @Test
+  void shouldPlaceNoPatternsWhenDensitiesAreZero() throws IOException {
+    ClasspathSpec spec = ClasspathSpec.builder().jarCount(3).classesPerJar(10).noPatterns().build();
+
+    GeneratedClasspath classpath = ClasspathGenerator.generate(spec, tempDir);
+
+    assertThat(classpath.jars()).hasSize(3).allMatch(Files::isRegularFile);
+    assertThat(classpath.occurrences().values()).containsOnly(0);
+    assertThat(classpath.expectedModules()).containsExactly("java.base");
+  }
+
+  @Test
+  void shouldDetectGroundTruthModules() throws IOException {
+    GeneratedClasspath classpath = ClasspathGenerator.generate(denseSpec(), tempDir);
+    assertThat(classpath.occurrences().values()).allMatch(count -> count > 0);
+
+    AnalysisResult result = analyze(classpath.jars());
+
+    assertThat(result.allModules()).containsAll(classpath.expectedModules());
+    assertThat(result.reflectionModules()).contains("java.sql");
+    assertThat(result.cryptoModules()).contains("jdk.crypto.ec");
+    assertThat(result.localeModules()).contains("jdk.localedata");
+    assertThat(result.zipFsModules()).contains("jdk.zipfs");
+    assertThat(result.jmxModules()).contains("java.management.rmi");
+    assertThat(result.serviceLoaderModules()).contains("java.scripting");
+    assertThat(result.graalVmMetadataModules()).contains("java.naming");
+  }
+
+  @Test
+  void shouldOnlyExpectModulesOfOccurringPatterns() throws IOException {
+    ClasspathSpec spec =
+        ClasspathSpec.builder()
+            .jarCount(2)
+            .classesPerJar(20)
+            .noPatterns()
+            .density(ScannerPattern.LOCALE_FIELD, 1.0)
+            .build();
+
+    GeneratedClasspath classpath = ClasspathGenerator.generate(spec, tempDir);
+
+    assertThat(classpath.occurrences(ScannerPattern.LOCALE_FIELD)).isEqualTo(40);
+    assertThat(classpath.expectedModules()).containsExactly("java.base", "jdk.localedata");
+    assertThat(analyze(classpath.jars()).allModules()).doesNotContain("jdk.zipfs", "java.sql");
+  }
+
+  @Test
+  void shouldDetectGroundTruthInFatJarAndWar() throws IOException {
+    GeneratedClasspath classpath =
+        ClasspathGenerator.generate(denseSpec(), tempDir.resolve("libs"));
+    Path fatJar = ClasspathGenerator.fatJar(tempDir.resolve("app.jar"), classpath.jars());
+    Path war = ClasspathGenerator.war(tempDir.resolve("app.war"), classpath.jars());
+
+    for (Path archive : List.of(fatJar, war)) {
+      try (DiscoveryResult discovery = new JarDiscovery().discover(archive)) {
+        assertThat(discovery.nestedJars()).hasSize(classpath.jars().size());
+        assertThat(analyze(List.copyOf(discovery.jars())).allModules())
+            .containsAll(classpath.expectedModules());
+      }
+    }
+  }
+
+  @Test
+  void shouldDescribeReferenceScaleWorkload() {
+    ClasspathSpec spec = ClasspathSpec.large();
+
+    assertThat(spec.jarCount()).isEqualTo(1_000);
+    assertThat(spec.classCount()).isEqualTo(500_000);
+    assertThatThrownBy(() -> ClasspathSpec.builder().density(ScannerPattern.SSL_CONTEXT, 2).build())
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  /** Generates and analyzes the 1,000-JAR workload; run with -Dslimjre.scale=true. */
+  @Test
+  @EnabledIfSystemProperty(named = "slimjre.scale", matches = "true")
+  void shouldDetectGroundTruthAtReferenceScale() throws IOException {
+    GeneratedClasspath classpath = ClasspathGenerator.generate(ClasspathSpec.large(), tempDir);
+
+    assertThat(analyze(classpath.jars()).allModules()).containsAll(classpath.expectedModules());
+  }
+
+  // ==================== Helper Methods ====================
+
+  /** Spec small enough for unit tests, dense enough that every pattern occurs. */
+  private ClasspathSpec denseSpec() {
+    ClasspathSpec.Builder builder = ClasspathSpec.builder().jarCount(6).classesPerJar(40);
+    for (ScannerPattern pattern : ScannerPattern.values()) {
+      builder.density(pattern, 0.5);
+    }
+    return builder.build();
+  }
+
+  private AnalysisResult analyze(List<Path> jars) {
+    return new SlimJre().analyzeOnly(jars, true, true, DependencyEngineMode.BYTECODE);
+  }
+}
@@ -2,15 +2,28 @@ package io.github.ghiloufibg.slimjre.cli;
 
 import io.github.ghiloufibg.slimjre.config.AnalysisResult;
 import io.github.ghiloufibg.slimjre.config.CryptoMode;
+import io.github.ghiloufibg.slimjre.config.DependencyEngineMode;
+import io.github.ghiloufibg.slimjre.config.OciImage;
+import io.github.ghiloufibg.slimjre.config.PipelineMetrics;
+import io.github.ghiloufibg.slimjre.config.ReadinessProbe;
 import io.github.ghiloufibg.slimjre.config.Result;
+import io.github.ghiloufibg.slimjre.config.ScanConcurrency;
+import io.github.ghiloufibg.slimjre.config.SizeEstimate;
 import io.github.ghiloufibg.slimjre.config.SlimJreConfig;
+import io.github.ghiloufibg.slimjre.config.SmokeTest;
+import io.github.ghiloufibg.slimjre.config.TraceResult;
+import io.github.ghiloufibg.slimjre.config.TrainingRun;
+import io.github.ghiloufibg.slimjre.core.AnalysisCache;
 import io.github.ghiloufibg.slimjre.core.DiscoveryResult;
+import io.github.ghiloufibg.slimjre.core.JLinkExecutor;
 import io.github.ghiloufibg.slimjre.core.JarDiscovery;
+import io.github.ghiloufibg.slimjre.core.RuntimeStore;
 import io.github.ghiloufibg.slimjre.core.SlimJre;
 import io.github.ghiloufibg.slimjre.exception.SlimJreException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
@@ -29,11 +42,17 @@ import picocli.CommandLine.*;
       "  slim-jre myapp.jar",
       "  slim-jre myapp.jar -o custom-runtime --compress zip-9",
       "  slim-jre target/libs/ --add-modules java.management",
-      "  slim-jre myapp.jar --analyze-only"
+      "  slim-jre myapp.jar --analyze-only",
+      "  slim-jre myapp.jar --app-cds --training-timeout 30",
+      "  slim-jre myapp.jar --analyze-only --trace",
+      "  slim-jre myapp.jar --smoke-test --ready-log 'Started .* in'",
+      "  slim-jre myapp.jar --runtime-store",
+      "  slim-jre myapp.jar --oci-layer jre.tar.gz --oci-layout image",
+      "  slim-jre --prune-runtime-store"
     })
 public class SlimJreCommand implements Callable<Integer> {
 
-  @Parameters(index = "0", description = "JAR file or directory containing JARs")
+  @Parameters(index = "0", arity = "0..1", description = "JAR file or directory containing JARs")
   private Path input;
 
   @Option(
@@ -73,6 +92,19 @@ public class SlimJreCommand implements Callable<Integer> {
       defaultValue = "false")
   private boolean noStrip;
 
+  @Option(
+      names = {"--no-cds-archive"},
+      description = "Don't generate the default CDS archive for the linked modules",
+      negatable = true,
+      defaultValue = "false")
+  private boolean noCdsArchive;
+
+  @Option(
+      names = {"--measure-startup"},
+      description = "Sample startup with and without the default CDS archive over 12 JVM launches",
+      defaultValue = "false")
+  private boolean measureStartup;
+
   @Option(
       names = {"--no-service-scan"},
       description = "Don't scan for service loader dependencies",
@@ -96,11 +128,148 @@ public class SlimJreCommand implements Callable<Integer> {
       defaultValue = "AUTO")
   private CryptoMode cryptoMode;
 
+  @Option(
+      names = {"--dependency-engine"},
+      description =
+          "Engine detecting statically referenced JDK modules: JDEPS (run jdeps), "
+              + "BYTECODE (in-process bytecode analysis), VALIDATE (run both, report differences). "
+              + "Default: ${DEFAULT-VALUE}",
+      defaultValue = "JDEPS")
+  private DependencyEngineMode dependencyEngine;
+
+  @Option(
+      names = {"--scan-threads"},
+      description = "Threads parsing class files (default: one per available processor)",
+      defaultValue = "0")
+  private int scanThreads;
+
+  @Option(
+      names = {"--scan-open-jars"},
+      description =
+          "JARs the scanners hold open at the same time (default: twice the scan threads, at"
+              + " least 8)",
+      defaultValue = "0")
+  private int scanOpenJars;
+
+  @Option(
+      names = {"--no-cache"},
+      description = "Disable the persistent analysis cache and re-analyze every JAR")
+  private boolean noCache;
+
+  @Option(
+      names = {"--cache-dir"},
+      description = "Analysis cache directory. Default: ~/.cache/slim-jre")
+  private Path cacheDir;
+
+  @Option(
+      names = {"--runtime-store"},
+      description =
+          "Link the JRE into a shared store once and create the output as hard links to it, so"
+              + " JREs with the same modules and options share their files")
+  private boolean runtimeStore;
+
+  @Option(
+      names = {"--runtime-store-dir"},
+      description =
+          "Runtime store directory, implies --runtime-store. Default: ~/.cache/slim-jre/runtimes")
+  private Path runtimeStoreDir;
+
+  @Option(
+      names = {"--prune-runtime-store"},
+      description = "Remove JREs from the runtime store that no output links to, then exit")
+  private boolean pruneRuntimeStore;
+
+  @Option(
+      names = {"--oci-layer"},
+      description =
+          "Also write the JRE as a reproducible OCI image layer (gzipped tar) to this file")
+  private Path ociLayer;
+
+  @Option(
+      names = {"--oci-layout"},
+      description =
+          "Also write an OCI image layout to this directory, with the JRE and the application JARs"
+              + " as separate layers, started like the training run")
+  private Path ociLayout;
+
+  @Option(
+      names = {"--metrics-json"},
+      description = "Write the timing and counters of every stage to this file as JSON")
+  private Path metricsJson;
+
+  @Option(
+      names = {"--app-cds"},
+      description =
+          "Run the application once on the created JRE and store an AppCDS archive of the"
+              + " classes it loads, used by the generated bin/java-app-cds launcher")
+  private boolean appCds;
+
+  @Option(
+      names = {"--aot-cache"},
+      description =
+          "On JDK 24+, run the application once on the created JRE and store an AOT cache of the"
+              + " classes it loads and links, used by the generated bin/java-aot launcher")
+  private boolean aotCache;
+
+  @Option(
+      names = {"--training-main-class"},
+      description = "Main class of the training run (default: run the first JAR with -jar)")
+  private String trainingMainClass;
+
+  @Option(
+      names = {"--training-arg"},
+      description = "Argument passed to the application in the training run (repeatable)")
+  private List<String> trainingArgs;
+
+  @Option(
+      names = {"--training-timeout"},
+      description =
+          "Seconds the training run may take before the application is terminated"
+              + " (default: ${DEFAULT-VALUE})",
+      defaultValue = "60")
+  private long trainingTimeout;
+
+  @Option(
+      names = {"--smoke-test"},
+      description =
+          "Start the application on the created JRE and on the full JDK, and fail if it does not"
+              + " become ready on the JRE or reports missing classes there")
+  private boolean smokeTest;
+
+  @Option(
+      names = {"--ready-log"},
+      description = "Smoke test is ready when a line of output matches this regular expression")
+  private String readyLog;
+
+  @Option(
+      names = {"--ready-port"},
+      description = "Smoke test is ready when this local port answers an HTTP request")
+  private Integer readyPort;
+
+  @Option(
+      names = {"--ready-exit-code"},
+      description =
+          "Smoke test is ready when the application exits with this code (default: ${DEFAULT-VALUE})",
+      defaultValue = "0")
+  private int readyExitCode;
+
+  @Option(
+      names = {"--no-baseline"},
+      description = "Don't run the smoke test on the full JDK for comparison")
+  private boolean noBaseline;
+
   @Option(
       names = {"--analyze-only"},
       description = "Only print required modules, don't create JRE")
   private boolean analyzeOnly;
 
+  @Option(
+      names = {"--trace"},
+      description =
+          "With --analyze-only, run the application once on the current JDK, add the modules of"
+              + " the JDK classes it loads and report those missed by static analysis")
+  private boolean trace;
+
   @Option(
       names = {"--verbose", "-v"},
       description = "Verbose output")
@@ -110,6 +279,14 @@ public class SlimJreCommand implements Callable<Integer> {
   public Integer call() {
     DiscoveryResult discoveryResult = null;
 
+    if (pruneRuntimeStore) {
+      return pruneRuntimeStore();
+    }
+    if (input == null) {
+      System.err.println("Error: Missing JAR file or directory");
+      return 2;
+    }
+
     try {
       // Use JarDiscovery for comprehensive JAR discovery
       // Supports: directories, fat JARs (Spring Boot), WARs, MANIFEST Class-Path
@@ -128,6 +305,9 @@ public class SlimJreCommand implements Callable<Integer> {
         System.out.println("Discovered " + jars.size() + " JAR(s) from " + input);
         if (discoveryResult.tempDirectory() != null) {
           System.out.println("  (extracted nested JARs to temp directory)");
+        } else if (!discoveryResult.nestedJars().isEmpty()) {
+          System.out.println(
+              "  (" + discoveryResult.nestedJars().size() + " nested JAR(s) read in place)");
         }
       }
 
@@ -154,12 +334,22 @@ public class SlimJreCommand implements Callable<Integer> {
         System.out.println();
       }
 
-      SlimJre slimJre = new SlimJre();
+      SlimJre slimJre = new SlimJre(createAnalysisCache());
 
       if (analyzeOnly) {
         // Analysis mode
-        AnalysisResult analysis = slimJre.analyzeOnly(jars, !noServiceScan, !noGraalVmMetadata);
+        AnalysisResult analysis =
+            slimJre.analyzeOnly(
+                jars,
+                !noServiceScan,
+                !noGraalVmMetadata,
+                dependencyEngine,
+                trace ? trainingRun() : null,
+                new ScanConcurrency(scanThreads, scanOpenJars),
+                !noStrip,
+                compression);
         printAnalysis(analysis);
+        reportMetrics(analysis.metrics().with(discoveryResult.metrics()));
         return 0;
       }
 
@@ -170,9 +360,13 @@ public class SlimJreCommand implements Callable<Integer> {
               .outputPath(outputPath)
               .stripDebug(!noStrip)
               .compression(compression)
+              .generateCdsArchive(!noCdsArchive)
+              .measureStartup(measureStartup)
               .scanServiceLoaders(!noServiceScan)
               .scanGraalVmMetadata(!noGraalVmMetadata)
               .cryptoMode(cryptoMode)
+              .dependencyEngine(dependencyEngine)
+              .scanConcurrency(new ScanConcurrency(scanThreads, scanOpenJars))
               .verbose(verbose);
 
       if (addModules != null) {
@@ -183,12 +377,35 @@ public class SlimJreCommand implements Callable<Integer> {
         configBuilder.excludeModules(excludeModules);
       }
 
+      if (appCds) {
+        configBuilder.appCds(trainingRun());
+      }
+      if (aotCache) {
+        configBuilder.aotCache(trainingRun());
+      }
+      if (smokeTest) {
+        configBuilder.smokeTest(smokeTest());
+      }
+      if (runtimeStore || runtimeStoreDir != null) {
+        configBuilder.runtimeStore(runtimeStoreDirectory());
+      }
+      if (ociLayer != null || ociLayout != null) {
+        configBuilder.ociImage(
+            OciImage.builder()
+                .layerFile(ociLayer)
+                .layoutDirectory(ociLayout)
+                .mainClass(trainingMainClass)
+                .created(OciImage.sourceDateEpoch())
+                .build());
+      }
+
       // Create the slim JRE
       Result result = slimJre.createMinimalJre(configBuilder.build());
 
       // Print result summary
       System.out.println();
       System.out.println(result.summary());
+      reportMetrics(result.metrics().with(discoveryResult.metrics()));
 
       return 0;
 
@@ -212,6 +429,89 @@ public class SlimJreCommand implements Callable<Integer> {
     }
   }
 
+  /**
+   * Creates the training run configured on the command line, shared by AppCDS, AOT, trace and smoke
+   * test.
+   */
+  private TrainingRun trainingRun() {
+    TrainingRun.Builder builder =
+        TrainingRun.builder()
+            .mainClass(trainingMainClass)
+            .timeout(Duration.ofSeconds(trainingTimeout));
+    if (trainingArgs != null) {
+      builder.arguments(trainingArgs);
+    }
+    return builder.build();
+  }
+
+  /** Creates the smoke test configured on the command line, running like the training run. */
+  private SmokeTest smokeTest() {
+    if (readyLog != null && readyPort != null) {
+      throw new SlimJreException("Use only one of --ready-log and --ready-port");
+    }
+    ReadinessProbe probe;
+    if (readyLog != null) {
+      probe = ReadinessProbe.logLine(readyLog);
+    } else if (readyPort != null) {
+      probe = ReadinessProbe.httpPort(readyPort);
+    } else {
+      probe = ReadinessProbe.exitCode(readyExitCode);
+    }
+    return SmokeTest.builder()
+        .run(trainingRun())
+        .probe(probe)
+        .compareWithBaseline(!noBaseline)
+        .build();
+  }
+
+  /** Returns the runtime store directory given on the command line or the default one. */
+  private Path runtimeStoreDirectory() {
+    return runtimeStoreDir != null ? runtimeStoreDir : RuntimeStore.defaultDirectory();
+  }
+
+  /** Removes the JREs no output links to from the runtime store. */
+  private int pruneRuntimeStore() {
+    try {
+      RuntimeStore store = new RuntimeStore(runtimeStoreDirectory(), new JLinkExecutor());
+      int removed = store.gc(Duration.ZERO);
+      System.out.println("Removed " + removed + " unreferenced JRE(s) from " + store.directory());
+      return 0;
+    } catch (SlimJreException e) {
+      System.err.println("Error: " + e.getMessage());
+      return 1;
+    }
+  }
+
+  /** Creates the analysis cache requested on the command line, or null if caching is disabled. */
+  private AnalysisCache createAnalysisCache() {
+    if (noCache) {
+      return null;
+    }
+    Path directory = cacheDir != null ? cacheDir : AnalysisCache.defaultDirectory();
+    if (verbose) {
+      System.out.println("Using analysis cache: " + directory);
+    }
+    return new AnalysisCache(directory);
+  }
+
+  /** Prints the stage metrics in verbose mode and writes them to the requested JSON file. */
+  private void reportMetrics(PipelineMetrics metrics) throws IOException {
+    if (verbose) {
+      System.out.println();
+      System.out.print(metrics.summary());
+    }
+    if (metricsJson != null) {
+      Path parent = metricsJson.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      Files.writeString(metricsJson, metrics.toJson());
+      if (verbose) {
+        System.out.println("Stage metrics written to: " + metricsJson);
+      }
+    }
+  }
+
   /** Collects JAR files from a path (either a single JAR or a directory). */
   private List<Path> collectJars(Path path) {
     List<Path> jars = new ArrayList<>();
@@ -268,11 +568,42 @@ public class SlimJreCommand implements Callable<Integer> {
       printModuleSet(analysis.cryptoModules(), "  ");
     }
 
+    TraceResult traceResult = analysis.trace();
+    if (traceResult != null) {
+      System.out.println();
+      System.out.println(
+          "Traced Modules (" + traceResult.loadedJdkClasses() + " JDK classes loaded):");
+      printModuleSet(traceResult.observedModules(), "  ");
+      System.out.println();
+      System.out.println("Missed by Static Analysis:");
+      printModuleSet(traceResult.missedByStaticAnalysis(), "  ");
+      if (verbose) {
+        System.out.println();
+        System.out.println("Detected but Not Observed:");
+        printModuleSet(traceResult.notObserved(), "  ");
+      }
+    }
+
     System.out.println();
     System.out.println("All Required Modules (" + analysis.allModules().size() + "):");
     System.out.println(
         "  " + analysis.allModules().stream().sorted().collect(Collectors.joining(",")));
 
+    SizeEstimate sizeEstimate = analysis.sizeEstimate();
+    if (sizeEstimate != null) {
+      System.out.println();
+      System.out.println(
+          "Estimated Module Sizes (with dependencies, stripped, "
+              + sizeEstimate.compression()
+              + "):");
+      sizeEstimate
+          .moduleBytes()
+          .forEach(
+              (module, bytes) ->
+                  System.out.printf("  %-28s %10s%n", module, SizeEstimate.format(bytes)));
+      System.out.printf("  %-28s %10s%n", "Total", sizeEstimate.formattedTotal());
+    }
+
     if (verbose && !analysis.perJarModules().isEmpty()) {
       System.out.println();
       System.out.println("Per-JAR Breakdown:");
@@ -20,6 +20,12 @@ import java.util.stream.Collectors;
  * @param jmxModules Modules required for remote JMX management (java.management.rmi)
  * @param allModules Combined set of all required modules
  * @param perJarModules Breakdown of modules required by each JAR
+ * @param metrics Timing and counters of each analysis stage
+ * @param trace Modules observed in a traced run of the application, or null if none was requested;
+ *     the observed modules are part of {@code allModules}
+ * @param sizeEstimate Estimated size of a runtime image with those of {@code allModules} available
+ *     in the current JDK and their dependencies, with the requested jlink options, or null if not
+ *     estimated
  */
 public record AnalysisResult(
     Set<String> requiredModules,
@@ -32,7 +38,43 @@ public record AnalysisResult(
     Set<String> zipFsModules,
     Set<String> jmxModules,
     Set<String> allModules,
-    Map<Path, Set<String>> perJarModules) {
+    Map<Path, Set<String>> perJarModules,
+    PipelineMetrics metrics,
+    TraceResult trace,
+    SizeEstimate sizeEstimate) {
+
+  /**
+   * Creates an AnalysisResult without stage metrics, trace or size estimate (backward
+   * compatibility).
+   */
+  public AnalysisResult(
+      Set<String> requiredModules,
+      Set<String> serviceLoaderModules,
+      Set<String> reflectionModules,
+      Set<String> apiUsageModules,
+      Set<String> graalVmMetadataModules,
+      Set<String> cryptoModules,
+      Set<String> localeModules,
+      Set<String> zipFsModules,
+      Set<String> jmxModules,
+      Set<String> allModules,
+      Map<Path, Set<String>> perJarModules) {
+    this(
+        requiredModules,
+        serviceLoaderModules,
+        reflectionModules,
+        apiUsageModules,
+        graalVmMetadataModules,
+        cryptoModules,
+        localeModules,
+        zipFsModules,
+        jmxModules,
+        allModules,
+        perJarModules,
+        PipelineMetrics.empty(),
+        null,
+        null);
+  }
 
   /**
    * Creates an AnalysisResult without GraalVM metadata, crypto, locale, zipFs, and jmx modules
@@ -56,7 +98,10 @@ public record AnalysisResult(
         Set.of(),
         Set.of(),
         allModules,
-        perJarModules);
+        perJarModules,
+        PipelineMetrics.empty(),
+        null,
+        null);
   }
 
   public AnalysisResult {
@@ -72,6 +117,31 @@ public record AnalysisResult(
     jmxModules = Set.copyOf(jmxModules);
     allModules = Set.copyOf(allModules);
     perJarModules = Map.copyOf(perJarModules);
+    metrics = metrics != null ? metrics : PipelineMetrics.empty();
+  }
+
+  /**
+   * Returns a copy with different stage metrics, e.g. with the discovery stage added.
+   *
+   * @param metrics the stage metrics
+   * @return the copy
+   */
+  public AnalysisResult withMetrics(PipelineMetrics metrics) {
+    return new AnalysisResult(
+        requiredModules,
+        serviceLoaderModules,
+        reflectionModules,
+        apiUsageModules,
+        graalVmMetadataModules,
+        cryptoModules,
+        localeModules,
+        zipFsModules,
+        jmxModules,
+        allModules,
+        perJarModules,
+        metrics,
+        trace,
+        sizeEstimate);
   }
 
   /** Returns a formatted summary of the analysis. */
@@ -93,7 +163,23 @@ public record AnalysisResult(
         .append(formatModules(zipFsModules))
         .append("\n");
     sb.append("  JMX modules (remote management): ").append(formatModules(jmxModules)).append("\n");
+    if (trace != null) {
+      sb.append("  Traced modules (")
+          .append(trace.loadedJdkClasses())
+          .append(" JDK classes loaded): ")
+          .append(formatModules(trace.observedModules()))
+          .append("\n");
+      sb.append("    Missed by static analysis: ")
+          .append(formatModules(trace.missedByStaticAnalysis()))
+          .append("\n");
+      sb.append("    Detected but not observed: ")
+          .append(formatModules(trace.notObserved()))
+          .append("\n");
+    }
     sb.append("  Total modules: ").append(allModules.size()).append("\n");
+    if (sizeEstimate != null) {
+      sb.append("  Estimated size: ").append(sizeEstimate.formattedTotal()).append("\n");
+    }
 
     if (!perJarModules.isEmpty()) {
       sb.append("\nPer-JAR breakdown:\n");
@@ -0,0 +1,18 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Class-data-sharing archive stored in a created runtime image. AOT caches of JDK 24+ build on the
+ * same archive format and are described by this record as well.
+ *
+ * @param path Path to the archive file
+ * @param size Size of the archive in bytes
+ */
+public record CdsArchive(Path path, long size) {
+
+  public CdsArchive {
+    Objects.requireNonNull(path, "path must not be null");
+  }
+}
@@ -0,0 +1,27 @@
+package io.github.ghiloufibg.slimjre.config;
+
+/**
+ * Selects the engine that determines which JDK modules the application's bytecode references.
+ *
+ * <p>The bytecode engine resolves class references against the packages of the running JDK while
+ * the other ASM scanners read the classes, so it adds no separate pass over the classpath. jdeps
+ * remains available as the reference implementation, and both can be run side by side to diff their
+ * results.
+ */
+public enum DependencyEngineMode {
+  /** Run jdeps through the ToolProvider API (default). */
+  JDEPS,
+
+  /**
+   * Resolve class references found in the bytecode against a package-to-module index of the running
+   * JDK, as part of the shared single bytecode pass.
+   */
+  BYTECODE,
+
+  /**
+   * Run both engines, log every module on which they disagree, and use the union of their results.
+   *
+   * <p>Use this to validate the bytecode engine against jdeps on a given application.
+   */
+  VALIDATE
+}
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Options for jlink execution.
@@ -16,6 +17,7 @@ import java.util.Set;
  * @param noHeaderFiles Whether to exclude header files
  * @param noManPages Whether to exclude man pages
  * @param additionalModulePaths Additional module paths to search
+ * @param generateCdsArchive Whether to generate the default CDS archive for the linked modules
  */
 public record JLinkOptions(
     Set<String> modules,
@@ -24,7 +26,29 @@ public record JLinkOptions(
     String compression,
     boolean noHeaderFiles,
     boolean noManPages,
-    List<Path> additionalModulePaths) {
+    List<Path> additionalModulePaths,
+    boolean generateCdsArchive) {
+
+  /** Creates options without a default CDS archive (backward compatibility). */
+  public JLinkOptions(
+      Set<String> modules,
+      Path outputPath,
+      boolean stripDebug,
+      String compression,
+      boolean noHeaderFiles,
+      boolean noManPages,
+      List<Path> additionalModulePaths) {
+    this(
+        modules,
+        outputPath,
+        stripDebug,
+        compression,
+        noHeaderFiles,
+        noManPages,
+        additionalModulePaths,
+        false);
+  }
+
   public JLinkOptions {
     // Defensive copies
     modules = Set.copyOf(modules);
@@ -36,14 +60,32 @@ public record JLinkOptions(
     return new Builder();
   }
 
+  /**
+   * Returns a copy creating the image at a different path, e.g. a staging directory.
+   *
+   * @param outputPath where to create the runtime image
+   * @return the copy
+   */
+  public JLinkOptions withOutputPath(Path outputPath) {
+    return new JLinkOptions(
+        modules,
+        outputPath,
+        stripDebug,
+        compression,
+        noHeaderFiles,
+        noManPages,
+        additionalModulePaths,
+        generateCdsArchive);
+  }
+
   /** Converts these options to jlink command-line arguments. */
   public List<String> toArguments() {
     List<String> args = new ArrayList<>();
 
-    // Add modules
+    // Add modules, sorted so that equal options always give equal arguments
     if (!modules.isEmpty()) {
       args.add("--add-modules");
-      args.add(String.join(",", modules));
+      args.add(String.join(",", new TreeSet<>(modules)));
     }
 
     // Output path
@@ -69,6 +111,11 @@ public record JLinkOptions(
       args.add("--no-man-pages");
     }
 
+    // Default CDS archive, so JVMs started from the image map java.base classes
+    if (generateCdsArchive) {
+      args.add("--generate-cds-archive");
+    }
+
     // Additional module paths
     if (!additionalModulePaths.isEmpty()) {
       args.add("--module-path");
@@ -94,6 +141,7 @@ public record JLinkOptions(
     private boolean noHeaderFiles = true;
     private boolean noManPages = true;
     private final List<Path> additionalModulePaths = new ArrayList<>();
+    private boolean generateCdsArchive = true;
 
     /** Adds a module to include. */
     public Builder addModule(String module) {
@@ -143,6 +191,15 @@ public record JLinkOptions(
       return this;
     }
 
+    /**
+     * Sets whether to generate the default CDS archive. Ignored if the jlink in use does not
+     * support it.
+     */
+    public Builder generateCdsArchive(boolean generateCdsArchive) {
+      this.generateCdsArchive = generateCdsArchive;
+      return this;
+    }
+
     /** Builds the options. */
     public JLinkOptions build() {
       return new JLinkOptions(
@@ -152,7 +209,8 @@ public record JLinkOptions(
           compression,
           noHeaderFiles,
           noManPages,
-          additionalModulePaths);
+          additionalModulePaths,
+          generateCdsArchive);
     }
   }
 }
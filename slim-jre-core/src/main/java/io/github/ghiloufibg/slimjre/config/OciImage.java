@@ -0,0 +1,162 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import io.github.ghiloufibg.slimjre.exception.ConfigurationException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * OCI image output of the created runtime, written without a container daemon.
+ *
+ * <p>The runtime is written as a reproducible image layer: a gzipped tar whose entries are sorted,
+ * carry a fixed modification time and belong to uid and gid 0. Equal runtimes therefore give
+ * byte-identical layers with the same digest, which registries store and transfer only once.
+ *
+ * <p>The image layout is a complete single-platform OCI image in a directory, with the runtime
+ * layer and a second layer holding the application JARs. It has no base layer, so the runtime's
+ * native dependencies (e.g. glibc) must come from the image it is combined with.
+ *
+ * @param layerFile Where to write the runtime layer as a gzipped tar, or null for none
+ * @param layoutDirectory Where to write the OCI image layout, or null for none
+ * @param runtimeDirectory Absolute directory of the runtime in the image (default: /opt/java)
+ * @param appDirectory Absolute directory of the application JARs in the image (default: /app)
+ * @param mainClass Main class of the image entrypoint, or null to run the first JAR with {@code
+ *     -jar}
+ * @param created Modification time of every entry and creation time of the image (default: the
+ *     epoch)
+ */
+public record OciImage(
+    Path layerFile,
+    Path layoutDirectory,
+    String runtimeDirectory,
+    String appDirectory,
+    String mainClass,
+    Instant created) {
+
+  /** Default directory of the runtime in the image. */
+  public static final String DEFAULT_RUNTIME_DIRECTORY = "/opt/java";
+
+  /** Default directory of the application JARs in the image. */
+  public static final String DEFAULT_APP_DIRECTORY = "/app";
+
+  public OciImage {
+    runtimeDirectory = runtimeDirectory != null ? runtimeDirectory : DEFAULT_RUNTIME_DIRECTORY;
+    appDirectory = appDirectory != null ? appDirectory : DEFAULT_APP_DIRECTORY;
+    created = created != null ? created : Instant.EPOCH;
+  }
+
+  /**
+   * Returns the creation time reproducible builds agree on: the {@code SOURCE_DATE_EPOCH}
+   * environment variable in seconds, or the epoch if it is not set.
+   *
+   * @return the creation time
+   * @throws ConfigurationException if the variable is not a number of seconds
+   */
+  public static Instant sourceDateEpoch() {
+    String value = System.getenv("SOURCE_DATE_EPOCH");
+    if (value == null || value.isBlank()) {
+      return Instant.EPOCH;
+    }
+    try {
+      return Instant.ofEpochSecond(Long.parseLong(value.trim()));
+    } catch (NumberFormatException e) {
+      throw new ConfigurationException("SOURCE_DATE_EPOCH is not a number of seconds: " + value);
+    }
+  }
+
+  /** Creates a new builder for OciImage. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Validates this image output.
+   *
+   * @throws ConfigurationException if the output is invalid
+   */
+  public void validate() {
+    if (layerFile == null && layoutDirectory == null) {
+      throw new ConfigurationException("OCI image output needs a layer file or layout directory");
+    }
+    validateDirectory("runtime", runtimeDirectory);
+    validateDirectory("application", appDirectory);
+    if ((runtimeDirectory + "/").startsWith(appDirectory + "/")
+        || (appDirectory + "/").startsWith(runtimeDirectory + "/")) {
+      throw new ConfigurationException(
+          "Image runtime and application directories must not contain each other: "
+              + runtimeDirectory
+              + ", "
+              + appDirectory);
+    }
+    if (mainClass != null && mainClass.isBlank()) {
+      throw new ConfigurationException("Image main class must not be blank");
+    }
+    if (created.isBefore(Instant.EPOCH)) {
+      throw new ConfigurationException("Image creation time must not be before 1970: " + created);
+    }
+  }
+
+  private static void validateDirectory(String kind, String directory) {
+    if (!directory.startsWith("/")
+        || directory.endsWith("/")
+        || directory.contains("//")
+        || directory.contains("\\")) {
+      throw new ConfigurationException(
+          "Image " + kind + " directory must be an absolute Unix path: " + directory);
+    }
+  }
+
+  /** Builder for OciImage. */
+  public static class Builder {
+    private Path layerFile;
+    private Path layoutDirectory;
+    private String runtimeDirectory = DEFAULT_RUNTIME_DIRECTORY;
+    private String appDirectory = DEFAULT_APP_DIRECTORY;
+    private String mainClass;
+    private Instant created = Instant.EPOCH;
+
+    /** Sets where to write the runtime layer. */
+    public Builder layerFile(Path layerFile) {
+      this.layerFile = layerFile;
+      return this;
+    }
+
+    /** Sets where to write the OCI image layout. */
+    public Builder layoutDirectory(Path layoutDirectory) {
+      this.layoutDirectory = layoutDirectory;
+      return this;
+    }
+
+    /** Sets the directory of the runtime in the image. */
+    public Builder runtimeDirectory(String runtimeDirectory) {
+      this.runtimeDirectory = runtimeDirectory;
+      return this;
+    }
+
+    /** Sets the directory of the application JARs in the image. */
+    public Builder appDirectory(String appDirectory) {
+      this.appDirectory = appDirectory;
+      return this;
+    }
+
+    /** Sets the main class of the image entrypoint. */
+    public Builder mainClass(String mainClass) {
+      this.mainClass = mainClass;
+      return this;
+    }
+
+    /**
+     * Sets the modification time of every entry, e.g. from {@code SOURCE_DATE_EPOCH}. Seconds are
+     * kept, finer units are dropped.
+     */
+    public Builder created(Instant created) {
+      this.created = created;
+      return this;
+    }
+
+    /** Builds the image output. */
+    public OciImage build() {
+      return new OciImage(
+          layerFile, layoutDirectory, runtimeDirectory, appDirectory, mainClass, created);
+    }
+  }
+}
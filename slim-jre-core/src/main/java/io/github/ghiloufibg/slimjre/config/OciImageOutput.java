@@ -0,0 +1,44 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import java.nio.file.Path;
+
+/**
+ * OCI image output written for a created runtime.
+ *
+ * @param layerFile Runtime layer written as a gzipped tar, or null if none was requested
+ * @param layerDigest Digest of the gzipped runtime layer (e.g. "sha256:...")
+ * @param layerDiffId Digest of the uncompressed runtime layer, as listed in image configurations
+ * @param layerSize Size of the gzipped runtime layer in bytes
+ * @param layoutDirectory OCI image layout directory, or null if none was requested
+ * @param manifestDigest Digest of the image manifest in the layout, or null without a layout
+ */
+public record OciImageOutput(
+    Path layerFile,
+    String layerDigest,
+    String layerDiffId,
+    long layerSize,
+    Path layoutDirectory,
+    String manifestDigest) {
+
+  /** Returns a formatted summary of the output. */
+  public String summary() {
+    StringBuilder sb = new StringBuilder();
+    if (layerFile != null) {
+      sb.append("OCI layer: ")
+          .append(layerFile)
+          .append(" (")
+          .append(SizeEstimate.format(layerSize))
+          .append(", ")
+          .append(layerDigest)
+          .append(")\n");
+    }
+    if (layoutDirectory != null) {
+      sb.append("OCI image layout: ")
+          .append(layoutDirectory)
+          .append(" (manifest ")
+          .append(manifestDigest)
+          .append(")\n");
+    }
+    return sb.toString();
+  }
+}
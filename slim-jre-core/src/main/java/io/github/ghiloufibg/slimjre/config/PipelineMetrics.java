@@ -0,0 +1,155 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Per-stage timing and counters of an analysis or JRE creation.
+ *
+ * <p>Analysis stages run concurrently, so the wall times of the stages add up to more than the
+ * total wall time.
+ *
+ * @param stages Metrics of the stages that ran, in pipeline order
+ * @param wallTime Total elapsed time
+ * @param cpuTime Total CPU time of the JVM process over the same period, or null if unavailable
+ */
+public record PipelineMetrics(List<StageMetrics> stages, Duration wallTime, Duration cpuTime) {
+
+  private static final PipelineMetrics EMPTY = new PipelineMetrics(List.of(), Duration.ZERO, null);
+
+  public PipelineMetrics {
+    // Defensive copy in pipeline order
+    stages = stages.stream().sorted(Comparator.comparing(StageMetrics::stage)).toList();
+    wallTime = wallTime != null ? wallTime : Duration.ZERO;
+  }
+
+  /** Returns metrics without any stage, for results created without instrumentation. */
+  public static PipelineMetrics empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns the metrics of a stage.
+   *
+   * @param stage the stage
+   * @return the stage's metrics, or empty if it did not run
+   */
+  public Optional<StageMetrics> stage(PipelineStage stage) {
+    return stages.stream().filter(s -> s.stage() == stage).findFirst();
+  }
+
+  /**
+   * Returns a copy with the metrics of one more stage, replacing earlier metrics of that stage.
+   *
+   * <p>The totals are kept; a stage measured by the caller, like discovery, is added on top.
+   *
+   * @param metrics metrics of the stage
+   * @return the combined metrics
+   */
+  public PipelineMetrics with(StageMetrics metrics) {
+    List<StageMetrics> combined = new ArrayList<>(stages);
+    combined.removeIf(s -> s.stage() == metrics.stage());
+    combined.add(metrics);
+    return new PipelineMetrics(combined, wallTime, cpuTime);
+  }
+
+  /** Returns a formatted table of all stages. */
+  public String summary() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("Stage metrics:\n");
+    sb.append(
+        String.format(
+            Locale.ROOT,
+            "  %-22s %9s %9s %7s %9s %10s %6s%n",
+            "Stage",
+            "Wall",
+            "CPU",
+            "JARs",
+            "Classes",
+            "Inflated",
+            "Cached"));
+    for (StageMetrics s : stages) {
+      sb.append(
+          String.format(
+              Locale.ROOT,
+              "  %-22s %9s %9s %7d %9d %10s %6d%n",
+              s.stage().id(),
+              formatDuration(s.wallTime()),
+              formatDuration(s.cpuTime()),
+              s.jars(),
+              s.classes(),
+              formatSize(s.bytesInflated()),
+              s.cacheHits()));
+    }
+    sb.append(
+        String.format(
+            Locale.ROOT,
+            "  %-22s %9s %9s%n",
+            "total",
+            formatDuration(wallTime),
+            formatDuration(cpuTime)));
+    return sb.toString();
+  }
+
+  /**
+   * Returns the metrics as a JSON document.
+   *
+   * <p>Times are in milliseconds; a CPU time that was not measured is {@code null}.
+   *
+   * @return JSON object with the totals and a {@code stages} array
+   */
+  public String toJson() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\n");
+    sb.append("  \"wallTimeMillis\": ").append(millis(wallTime)).append(",\n");
+    sb.append("  \"cpuTimeMillis\": ").append(millis(cpuTime)).append(",\n");
+    sb.append("  \"stages\": [");
+    for (int i = 0; i < stages.size(); i++) {
+      StageMetrics s = stages.get(i);
+      sb.append(i == 0 ? "\n" : ",\n");
+      sb.append("    {\"stage\": \"").append(s.stage().id()).append('"');
+      sb.append(", \"wallTimeMillis\": ").append(millis(s.wallTime()));
+      sb.append(", \"cpuTimeMillis\": ").append(millis(s.cpuTime()));
+      sb.append(", \"jars\": ").append(s.jars());
+      sb.append(", \"classes\": ").append(s.classes());
+      sb.append(", \"bytesInflated\": ").append(s.bytesInflated());
+      sb.append(", \"cacheHits\": ").append(s.cacheHits());
+      sb.append('}');
+    }
+    sb.append(stages.isEmpty() ? "]\n" : "\n  ]\n");
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  private static String millis(Duration duration) {
+    if (duration == null) {
+      return "null";
+    }
+    return String.format(Locale.ROOT, "%.3f", duration.toNanos() / 1_000_000.0);
+  }
+
+  private static String formatDuration(Duration duration) {
+    if (duration == null) {
+      return "-";
+    }
+    long millis = duration.toMillis();
+    if (millis < 1000) {
+      return millis + "ms";
+    }
+    return String.format(Locale.ROOT, "%.1fs", millis / 1000.0);
+  }
+
+  private static String formatSize(long bytes) {
+    if (bytes < 1024) {
+      return bytes + " B";
+    } else if (bytes < 1024 * 1024) {
+      return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+    } else {
+      return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package io.github.ghiloufibg.slimjre.config;
+
+/**
+ * Stages of JAR analysis and JRE creation for which {@link StageMetrics} are recorded.
+ *
+ * <p>The detectors that take part in the shared bytecode pass ({@link #BYTECODE_DEPENDENCIES},
+ * {@link #REFLECTION}, {@link #API_USAGE}, {@link #CRYPTO}, {@link #LOCALE}, {@link #ZIP_FS} and
+ * {@link #JMX}) report the classes they visited and their cache hits. Reading and parsing the
+ * classes is done once for all of them and reported under {@link #BYTECODE_SCAN}; their own time is
+ * the time spent aggregating their per-JAR findings.
+ */
+public enum PipelineStage {
+  /** Discovery of JARs in directories, fat JARs and WARs. */
+  DISCOVERY("discovery"),
+
+  /** jdeps analysis, including module-info parsing of modular JARs. */
+  JDEPS("jdeps"),
+
+  /** Shared single pass reading and parsing every class for the bytecode detectors. */
+  BYTECODE_SCAN("bytecode-scan"),
+
+  /** In-process bytecode dependency engine. */
+  BYTECODE_DEPENDENCIES("bytecode-dependencies"),
+
+  /** Reflection scanner. */
+  REFLECTION("reflection"),
+
+  /** API usage scanner. */
+  API_USAGE("api-usage"),
+
+  /** Crypto module scanner. */
+  CRYPTO("crypto"),
+
+  /** Locale module scanner. */
+  LOCALE("locale"),
+
+  /** ZIP filesystem module scanner. */
+  ZIP_FS("zipfs"),
+
+  /** Remote JMX module scanner. */
+  JMX("jmx"),
+
+  /** Service loader scanner. */
+  SERVICE_LOADER("service-loader"),
+
+  /** GraalVM native-image metadata scanner. */
+  GRAALVM_METADATA("graalvm-metadata"),
+
+  /** Traced run of the application recording the JDK classes it loads. */
+  TRACE("trace"),
+
+  /** Resolution of transitive module dependencies. */
+  RESOLUTION("resolution"),
+
+  /** Estimation of the runtime image size from the per-module size model. */
+  SIZE_ESTIMATE("size-estimate"),
+
+  /** jlink runtime image creation. */
+  JLINK("jlink"),
+
+  /** Training run of the application dumping an AppCDS archive into the runtime image. */
+  APP_CDS("app-cds"),
+
+  /** Training run of the application creating an AOT cache in the runtime image (JDK 24+). */
+  AOT_CACHE("aot-cache"),
+
+  /** Smoke test of the application on the runtime image and, for comparison, the full JDK. */
+  SMOKE_TEST("smoke-test"),
+
+  /** Startup measurement of the created runtime with and without class data sharing. */
+  STARTUP_MEASUREMENT("startup-measurement"),
+
+  /** Size calculation of the created and the current runtime. */
+  SIZE_CALCULATION("size-calculation"),
+
+  /** Writing of the created runtime as OCI image layers. */
+  OCI_IMAGE("oci-image");
+
+  private final String id;
+
+  PipelineStage(String id) {
+    this.id = id;
+  }
+
+  /** Returns the stable identifier used in reports and JSON exports. */
+  public String id() {
+    return id;
+  }
+}
@@ -0,0 +1,103 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import io.github.ghiloufibg.slimjre.exception.ConfigurationException;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Condition under which a smoke-tested application counts as started.
+ *
+ * <p>Create probes with {@link #exitCode(int)}, {@link #logLine(String)} or {@link #httpPort(int)}.
+ * A batch application is ready when it exits with the expected code; a server is ready once it logs
+ * a matching line or answers HTTP on a local port, and is then stopped.
+ *
+ * @param type Kind of probe
+ * @param exitCode Expected exit code, for {@link Type#EXIT_CODE}
+ * @param logPattern Regular expression found in a line of output, for {@link Type#LOG_LINE}
+ * @param port Local port answering an HTTP request, for {@link Type#HTTP_PORT}
+ */
+public record ReadinessProbe(Type type, int exitCode, String logPattern, int port) {
+
+  /** Kinds of readiness probe. */
+  public enum Type {
+    /** The application exits with the expected code. */
+    EXIT_CODE,
+
+    /** The application writes a line matching a regular expression. */
+    LOG_LINE,
+
+    /** The application answers an HTTP request on a local port. */
+    HTTP_PORT
+  }
+
+  public ReadinessProbe {
+    Objects.requireNonNull(type, "type must not be null");
+  }
+
+  /**
+   * Returns a probe waiting for the application to exit with a code.
+   *
+   * @param exitCode the expected exit code
+   * @return the probe
+   */
+  public static ReadinessProbe exitCode(int exitCode) {
+    return new ReadinessProbe(Type.EXIT_CODE, exitCode, null, 0);
+  }
+
+  /**
+   * Returns a probe waiting for a line of output matching a regular expression.
+   *
+   * @param pattern the regular expression, found anywhere in a line
+   * @return the probe
+   */
+  public static ReadinessProbe logLine(String pattern) {
+    return new ReadinessProbe(Type.LOG_LINE, 0, pattern, 0);
+  }
+
+  /**
+   * Returns a probe waiting for any HTTP response on a local port.
+   *
+   * @param port the port the application listens on
+   * @return the probe
+   */
+  public static ReadinessProbe httpPort(int port) {
+    return new ReadinessProbe(Type.HTTP_PORT, 0, null, port);
+  }
+
+  /**
+   * Validates this probe.
+   *
+   * @throws ConfigurationException if the probe is invalid
+   */
+  public void validate() {
+    switch (type) {
+      case LOG_LINE -> {
+        if (logPattern == null || logPattern.isEmpty()) {
+          throw new ConfigurationException("Readiness log pattern must not be empty");
+        }
+        try {
+          Pattern.compile(logPattern);
+        } catch (PatternSyntaxException e) {
+          throw new ConfigurationException(
+              "Invalid readiness log pattern: " + e.getDescription(), e);
+        }
+      }
+      case HTTP_PORT -> {
+        if (port < 1 || port > 65535) {
+          throw new ConfigurationException("Readiness port must be 1-65535: " + port);
+        }
+      }
+      case EXIT_CODE -> {}
+    }
+  }
+
+  /** Returns a short description of the condition, e.g. for reports. */
+  public String describe() {
+    return switch (type) {
+      case EXIT_CODE -> "exit code " + exitCode;
+      case LOG_LINE -> "log line matching '" + logPattern + "'";
+      case HTTP_PORT -> "HTTP response on port " + port;
+    };
+  }
+}
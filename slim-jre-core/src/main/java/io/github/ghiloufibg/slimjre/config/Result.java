@@ -13,15 +13,76 @@ import java.util.stream.Collectors;
  * @param originalJreSize Size of the original JDK/JRE in bytes
  * @param slimJreSize Size of the created slim JRE in bytes
  * @param duration Time taken to create the JRE
+ * @param metrics Timing and counters of each stage
+ * @param appCdsArchive AppCDS archive dumped by a training run, or null if none was requested
+ * @param defaultCdsArchive Default CDS archive of the linked modules, or null if the JRE has none
+ * @param startup Startup time with and without class data sharing, or null if not measured
+ * @param aotCache AOT cache created by a training run, or null if none was requested or the JDK
+ *     does not support it
+ * @param smokeTest Report of the smoke test of the application, or null if none was requested
+ * @param ociImage OCI image layer and layout written for the JRE, or null if none was requested
  */
 public record Result(
     Path jrePath,
     Set<String> includedModules,
     long originalJreSize,
     long slimJreSize,
-    Duration duration) {
+    Duration duration,
+    PipelineMetrics metrics,
+    CdsArchive appCdsArchive,
+    CdsArchive defaultCdsArchive,
+    StartupMeasurement startup,
+    CdsArchive aotCache,
+    SmokeTestReport smokeTest,
+    OciImageOutput ociImage) {
+
+  /** Creates a Result without stage metrics or archives (backward compatibility). */
+  public Result(
+      Path jrePath,
+      Set<String> includedModules,
+      long originalJreSize,
+      long slimJreSize,
+      Duration duration) {
+    this(
+        jrePath,
+        includedModules,
+        originalJreSize,
+        slimJreSize,
+        duration,
+        PipelineMetrics.empty(),
+        null,
+        null,
+        null,
+        null,
+        null,
+        null);
+  }
+
   public Result {
     includedModules = Set.copyOf(includedModules);
+    metrics = metrics != null ? metrics : PipelineMetrics.empty();
+  }
+
+  /**
+   * Returns a copy with different stage metrics, e.g. with the discovery stage added.
+   *
+   * @param metrics the stage metrics
+   * @return the copy
+   */
+  public Result withMetrics(PipelineMetrics metrics) {
+    return new Result(
+        jrePath,
+        includedModules,
+        originalJreSize,
+        slimJreSize,
+        duration,
+        metrics,
+        appCdsArchive,
+        defaultCdsArchive,
+        startup,
+        aotCache,
+        smokeTest,
+        ociImage);
   }
 
   /** Calculates the compression ratio (slim/original). */
@@ -57,6 +118,50 @@ public record Result(
     }
     sb.append("\n");
 
+    if (defaultCdsArchive != null) {
+      sb.append("CDS archive: ")
+          .append(jrePath.relativize(defaultCdsArchive.path()))
+          .append(" (")
+          .append(formatSize(defaultCdsArchive.size()))
+          .append(")\n");
+    }
+
+    if (appCdsArchive != null) {
+      sb.append("AppCDS archive: ")
+          .append(jrePath.relativize(appCdsArchive.path()))
+          .append(" (")
+          .append(formatSize(appCdsArchive.size()))
+          .append(")\n");
+    }
+
+    if (aotCache != null) {
+      sb.append("AOT cache: ")
+          .append(jrePath.relativize(aotCache.path()))
+          .append(" (")
+          .append(formatSize(aotCache.size()))
+          .append(")\n");
+    }
+
+    if (startup != null) {
+      long saved = startup.saved().toMillis();
+      sb.append("Startup (java -version): ")
+          .append(startup.withCds().toMillis())
+          .append("ms with CDS, ")
+          .append(startup.withoutCds().toMillis())
+          .append("ms without (")
+          .append(Math.abs(saved))
+          .append(saved >= 0 ? "ms faster" : "ms slower")
+          .append(")\n");
+    }
+
+    if (smokeTest != null) {
+      sb.append(smokeTest.summary());
+    }
+
+    if (ociImage != null) {
+      sb.append(ociImage.summary());
+    }
+
     sb.append("Time: ").append(formatDuration(duration)).append("\n");
 
     return sb.toString();
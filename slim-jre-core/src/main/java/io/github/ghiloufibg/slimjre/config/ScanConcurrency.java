@@ -0,0 +1,28 @@
+package io.github.ghiloufibg.slimjre.config;
+
+/**
+ * Concurrency limits of the JAR scans of one analysis, shared by all scanners.
+ *
+ * <p>Parsing classes is CPU-bound, so it runs on at most {@code parsingThreads} threads. Reading
+ * metadata such as service declarations is I/O-bound and runs on virtual threads, but every scan
+ * that holds a JAR open, parsing or reading, takes one of {@code openJars} permits. This bounds the
+ * file descriptors and inflater buffers in use however many JARs and scanners there are. With fewer
+ * permits than parsing threads, threads beyond the permits wait for a JAR to be closed.
+ *
+ * @param parsingThreads Threads parsing class files; 0 or less for one per available processor
+ * @param openJars JARs open at the same time across all scanners; 0 or less for twice the parsing
+ *     threads, at least 8
+ */
+public record ScanConcurrency(int parsingThreads, int openJars) {
+
+  public ScanConcurrency {
+    parsingThreads =
+        parsingThreads > 0 ? parsingThreads : Runtime.getRuntime().availableProcessors();
+    openJars = openJars > 0 ? openJars : Math.max(8, 2 * parsingThreads);
+  }
+
+  /** Returns limits sized for the available processors. */
+  public static ScanConcurrency defaults() {
+    return new ScanConcurrency(0, 0);
+  }
+}
@@ -0,0 +1,67 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Estimated size of a runtime image, predicted from per-module {@link ModuleSize} models without
+ * running jlink.
+ *
+ * <p>The estimate covers the modules' classes, resources and native files. It does not include the
+ * default CDS archive, which adds roughly 10-15 MB when generated.
+ *
+ * @param moduleBytes Estimated bytes each module adds, largest first
+ * @param stripDebug Whether debug attributes are assumed to be stripped
+ * @param compression Compression level assumed, {@code zip-0} to {@code zip-9}
+ */
+public record SizeEstimate(Map<String, Long> moduleBytes, boolean stripDebug, String compression) {
+
+  public SizeEstimate {
+    // Defensive copy, largest module first
+    Map<String, Long> sorted = new LinkedHashMap<>();
+    moduleBytes.entrySet().stream()
+        .sorted(
+            Map.Entry.<String, Long>comparingByValue()
+                .reversed()
+                .thenComparing(Map.Entry.comparingByKey()))
+        .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+    moduleBytes = Collections.unmodifiableMap(sorted);
+  }
+
+  /** Returns the estimated size of the whole image in bytes. */
+  public long totalBytes() {
+    return moduleBytes.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  /**
+   * Returns the estimated bytes one module adds.
+   *
+   * @param module module name
+   * @return the module's bytes, or 0 if it is not part of the image
+   */
+  public long bytesOf(String module) {
+    return moduleBytes.getOrDefault(module, 0L);
+  }
+
+  /** Returns the estimated total as a human-readable size, e.g. {@code 42.3 MB}. */
+  public String formattedTotal() {
+    return format(totalBytes());
+  }
+
+  /**
+   * Formats a size in bytes as a human-readable size.
+   *
+   * @param bytes the size in bytes
+   * @return the size in B, KB or MB
+   */
+  public static String format(long bytes) {
+    if (bytes < 1024) {
+      return bytes + " B";
+    } else if (bytes < 1024 * 1024) {
+      return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+    }
+    return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+  }
+}
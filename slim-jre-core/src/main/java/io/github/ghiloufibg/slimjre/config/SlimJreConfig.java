@@ -1,5 +1,6 @@
 package io.github.ghiloufibg.slimjre.config;
 
+import io.github.ghiloufibg.slimjre.core.NestedJar;
 import io.github.ghiloufibg.slimjre.exception.ConfigurationException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -19,10 +20,29 @@ import java.util.Set;
  * @param compression Compression level: zip-0 to zip-9 (default: zip-6)
  * @param noHeaderFiles Whether to exclude header files (default: true)
  * @param noManPages Whether to exclude man pages (default: true)
+ * @param generateCdsArchive Whether to generate the default CDS archive for the linked modules, if
+ *     the jlink in use supports it (default: true)
  * @param scanServiceLoaders Whether to scan META-INF/services (default: true)
  * @param scanGraalVmMetadata Whether to scan GraalVM native-image metadata (default: true)
  * @param cryptoMode How to handle SSL/TLS crypto module detection (default: AUTO)
+ * @param dependencyEngine Which engine determines the JDK modules referenced by the bytecode
+ *     (default: JDEPS)
  * @param verbose Whether to output verbose logging (default: false)
+ * @param appCdsTraining Training run dumping an AppCDS archive into the created JRE, or null to
+ *     skip it (default: null)
+ * @param aotTraining Training run creating an AOT cache in the created JRE on JDK 24+, or null to
+ *     skip it (default: null)
+ * @param smokeTest Smoke test of the application on the created JRE, failing the creation if the
+ *     application does not start, or null to skip it (default: null)
+ * @param runtimeStore Directory of a shared store the JRE is linked into once and hard-linked from,
+ *     or null to link it directly at the output path (default: null)
+ * @param ociImage OCI image layer and layout to write the created JRE to, or null to write none
+ *     (default: null)
+ * @param scanConcurrency Limits of the threads and open JARs of the JAR scans (default: sized for
+ *     the available processors)
+ * @param measureStartup Whether to compare the startup of the created JRE with and without its
+ *     default CDS archive over repeated launches rather than one launch of each, at the cost of 12
+ *     JVM launches instead of 2 (default: false)
  */
 public record SlimJreConfig(
     List<Path> jars,
@@ -33,15 +53,103 @@ public record SlimJreConfig(
     String compression,
     boolean noHeaderFiles,
     boolean noManPages,
+    boolean generateCdsArchive,
     boolean scanServiceLoaders,
     boolean scanGraalVmMetadata,
     CryptoMode cryptoMode,
-    boolean verbose) {
+    DependencyEngineMode dependencyEngine,
+    boolean verbose,
+    TrainingRun appCdsTraining,
+    TrainingRun aotTraining,
+    SmokeTest smokeTest,
+    Path runtimeStore,
+    OciImage ociImage,
+    ScanConcurrency scanConcurrency,
+    boolean measureStartup) {
+
+  /**
+   * Creates a configuration with the default CDS archive and without training runs, smoke test,
+   * runtime store, OCI image or startup measurement, and with default scan limits (backward
+   * compatibility).
+   */
+  public SlimJreConfig(
+      List<Path> jars,
+      Path outputPath,
+      Set<String> includeModules,
+      Set<String> excludeModules,
+      boolean stripDebug,
+      String compression,
+      boolean noHeaderFiles,
+      boolean noManPages,
+      boolean scanServiceLoaders,
+      boolean scanGraalVmMetadata,
+      CryptoMode cryptoMode,
+      DependencyEngineMode dependencyEngine,
+      boolean verbose) {
+    this(
+        jars,
+        outputPath,
+        includeModules,
+        excludeModules,
+        stripDebug,
+        compression,
+        noHeaderFiles,
+        noManPages,
+        true,
+        scanServiceLoaders,
+        scanGraalVmMetadata,
+        cryptoMode,
+        dependencyEngine,
+        verbose,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        false);
+  }
+
+  /**
+   * Creates a configuration with the jdeps dependency engine, the default CDS archive and without
+   * training runs, smoke test, runtime store, OCI image or startup measurement, and with default
+   * scan limits (backward compatibility).
+   */
+  public SlimJreConfig(
+      List<Path> jars,
+      Path outputPath,
+      Set<String> includeModules,
+      Set<String> excludeModules,
+      boolean stripDebug,
+      String compression,
+      boolean noHeaderFiles,
+      boolean noManPages,
+      boolean scanServiceLoaders,
+      boolean scanGraalVmMetadata,
+      CryptoMode cryptoMode,
+      boolean verbose) {
+    this(
+        jars,
+        outputPath,
+        includeModules,
+        excludeModules,
+        stripDebug,
+        compression,
+        noHeaderFiles,
+        noManPages,
+        scanServiceLoaders,
+        scanGraalVmMetadata,
+        cryptoMode,
+        DependencyEngineMode.JDEPS,
+        verbose);
+  }
+
   public SlimJreConfig {
     // Defensive copies
     jars = List.copyOf(jars);
     includeModules = Set.copyOf(includeModules);
     excludeModules = Set.copyOf(excludeModules);
+    scanConcurrency = scanConcurrency != null ? scanConcurrency : ScanConcurrency.defaults();
   }
 
   /** Creates a new builder for SlimJreConfig. */
@@ -60,10 +168,10 @@ public record SlimJreConfig(
     }
 
     for (Path jar : jars) {
-      if (!Files.exists(jar)) {
+      if (!NestedJar.exists(jar)) {
         throw new ConfigurationException("JAR file does not exist: " + jar);
       }
-      if (!Files.isReadable(jar)) {
+      if (!NestedJar.isNested(jar) && !Files.isReadable(jar)) {
         throw new ConfigurationException("JAR file is not readable: " + jar);
       }
     }
@@ -86,6 +194,19 @@ public record SlimJreConfig(
           "Invalid compression level: " + compression + ". Must be zip-0 to zip-9");
     }
 
+    if (appCdsTraining != null) {
+      appCdsTraining.validate();
+    }
+    if (aotTraining != null) {
+      aotTraining.validate();
+    }
+    if (smokeTest != null) {
+      smokeTest.validate();
+    }
+    if (ociImage != null) {
+      ociImage.validate();
+    }
+
     // Check JDK version >= 9
     int javaVersion = Runtime.version().feature();
     if (javaVersion < 9) {
@@ -104,10 +225,19 @@ public record SlimJreConfig(
     private String compression = "zip-6";
     private boolean noHeaderFiles = true;
     private boolean noManPages = true;
+    private boolean generateCdsArchive = true;
     private boolean scanServiceLoaders = true;
     private boolean scanGraalVmMetadata = true;
     private CryptoMode cryptoMode = CryptoMode.AUTO;
+    private DependencyEngineMode dependencyEngine = DependencyEngineMode.JDEPS;
     private boolean verbose = false;
+    private TrainingRun appCdsTraining;
+    private TrainingRun aotTraining;
+    private SmokeTest smokeTest;
+    private Path runtimeStore;
+    private OciImage ociImage;
+    private ScanConcurrency scanConcurrency = ScanConcurrency.defaults();
+    private boolean measureStartup = false;
 
     /** Adds a JAR file to analyze. */
     public Builder jar(Path jar) {
@@ -175,6 +305,12 @@ public record SlimJreConfig(
       return this;
     }
 
+    /** Sets whether to generate the default CDS archive for the linked modules. */
+    public Builder generateCdsArchive(boolean generateCdsArchive) {
+      this.generateCdsArchive = generateCdsArchive;
+      return this;
+    }
+
     /** Sets whether to scan for service loader dependencies. */
     public Builder scanServiceLoaders(boolean scanServiceLoaders) {
       this.scanServiceLoaders = scanServiceLoaders;
@@ -193,12 +329,105 @@ public record SlimJreConfig(
       return this;
     }
 
+    /** Sets the engine used to determine referenced JDK modules. */
+    public Builder dependencyEngine(DependencyEngineMode dependencyEngine) {
+      this.dependencyEngine = dependencyEngine;
+      return this;
+    }
+
     /** Sets verbose output mode. */
     public Builder verbose(boolean verbose) {
       this.verbose = verbose;
       return this;
     }
 
+    /**
+     * Enables an AppCDS training run: the application runs once on the created JRE, and the classes
+     * it loads are archived for faster startup.
+     *
+     * @param training the training run, or null to disable it
+     * @return this builder
+     */
+    public Builder appCds(TrainingRun training) {
+      this.appCdsTraining = training;
+      return this;
+    }
+
+    /**
+     * Enables an AOT cache training run on JDK 24+: the application runs once on the created JRE,
+     * and the classes it loads and links are cached ahead of time. Skipped on older JDKs.
+     *
+     * @param training the training run, or null to disable it
+     * @return this builder
+     */
+    public Builder aotCache(TrainingRun training) {
+      this.aotTraining = training;
+      return this;
+    }
+
+    /**
+     * Enables a smoke test: the application is started on the created JRE and must become ready
+     * without missing classes, or the creation fails.
+     *
+     * @param smokeTest the smoke test, or null to disable it
+     * @return this builder
+     */
+    public Builder smokeTest(SmokeTest smokeTest) {
+      this.smokeTest = smokeTest;
+      return this;
+    }
+
+    /**
+     * Links the JRE into a shared store once and materializes the output from it as hard links, so
+     * outputs with the same modules and options share their files.
+     *
+     * @param directory the store directory, or null to link directly at the output path
+     * @return this builder
+     */
+    public Builder runtimeStore(Path directory) {
+      this.runtimeStore = directory;
+      return this;
+    }
+
+    /**
+     * Writes the created JRE as a reproducible OCI image layer and, optionally, a complete image
+     * layout with the application JARs.
+     *
+     * @param ociImage the image output, or null to write none
+     * @return this builder
+     */
+    public Builder ociImage(OciImage ociImage) {
+      this.ociImage = ociImage;
+      return this;
+    }
+
+    /**
+     * Sets the limits of the JAR scans: the threads parsing class files and the JARs open at the
+     * same time across all scanners.
+     *
+     * @param scanConcurrency the limits, or null for limits sized for the available processors
+     * @return this builder
+     */
+    public Builder scanConcurrency(ScanConcurrency scanConcurrency) {
+      this.scanConcurrency = scanConcurrency;
+      return this;
+    }
+
+    /**
+     * Sets whether to sample the startup of the created JRE with and without its default CDS
+     * archive repeatedly. The startup gain of the archive is always reported from one {@code java
+     * -version} launch of each mode; sampling launches it 12 times instead, one untimed and five
+     * timed launches per mode, for a steadier median. Skipped when the image has no default CDS
+     * archive.
+     *
+     * @param measureStartup true to report the median of repeated launches
+     * @return this builder
+     */
+    public Builder measureStartup(boolean measureStartup) {
+      this.measureStartup = measureStartup;
+      return this;
+    }
+
     /** Builds the configuration. */
     public SlimJreConfig build() {
       return new SlimJreConfig(
@@ -210,10 +439,19 @@ public record SlimJreConfig(
           compression,
           noHeaderFiles,
           noManPages,
+          generateCdsArchive,
           scanServiceLoaders,
           scanGraalVmMetadata,
           cryptoMode,
-          verbose);
+          dependencyEngine,
+          verbose,
+          appCdsTraining,
+          aotTraining,
+          smokeTest,
+          runtimeStore,
+          ociImage,
+          scanConcurrency,
+          measureStartup);
     }
   }
 }
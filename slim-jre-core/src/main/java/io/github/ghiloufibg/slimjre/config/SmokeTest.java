@@ -0,0 +1,68 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import java.util.Objects;
+
+/**
+ * Smoke test of the application on the created runtime.
+ *
+ * <p>The application is started as described by the run and watched until the readiness probe is
+ * satisfied or the run's timeout expires. Unless disabled, the same test runs on the full JDK, so
+ * startup time and memory can be compared and errors the application also shows there are not
+ * blamed on the slim runtime.
+ *
+ * @param run How to start the application; its timeout bounds the wait for readiness
+ * @param probe Condition under which the application counts as started (default: exit code 0)
+ * @param compareWithBaseline Whether to run the same test on the full JDK (default: true)
+ */
+public record SmokeTest(TrainingRun run, ReadinessProbe probe, boolean compareWithBaseline) {
+
+  public SmokeTest {
+    Objects.requireNonNull(run, "run must not be null");
+    probe = probe != null ? probe : ReadinessProbe.exitCode(0);
+  }
+
+  /** Creates a new builder for SmokeTest. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Validates this smoke test.
+   *
+   * @throws io.github.ghiloufibg.slimjre.exception.ConfigurationException if the test is invalid
+   */
+  public void validate() {
+    run.validate();
+    probe.validate();
+  }
+
+  /** Builder for SmokeTest. */
+  public static class Builder {
+    private TrainingRun run = TrainingRun.builder().build();
+    private ReadinessProbe probe = ReadinessProbe.exitCode(0);
+    private boolean compareWithBaseline = true;
+
+    /** Sets how to start the application. */
+    public Builder run(TrainingRun run) {
+      this.run = run;
+      return this;
+    }
+
+    /** Sets the condition under which the application counts as started. */
+    public Builder probe(ReadinessProbe probe) {
+      this.probe = probe;
+      return this;
+    }
+
+    /** Sets whether to run the same test on the full JDK for comparison. */
+    public Builder compareWithBaseline(boolean compareWithBaseline) {
+      this.compareWithBaseline = compareWithBaseline;
+      return this;
+    }
+
+    /** Builds the smoke test. */
+    public SmokeTest build() {
+      return new SmokeTest(run, probe, compareWithBaseline);
+    }
+  }
+}
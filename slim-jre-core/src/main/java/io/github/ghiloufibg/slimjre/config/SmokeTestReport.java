@@ -0,0 +1,93 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Smoke test of the created runtime beside the same test on the full JDK.
+ *
+ * <p>The slim runtime fails the test when the application does not become ready on it, or reports
+ * errors there that it does not report on the full JDK. Errors present on both belong to the
+ * application itself and do not fail the slim runtime.
+ *
+ * @param probe Readiness probe of the test
+ * @param slim Result on the created runtime
+ * @param baseline Result on the full JDK, or null if the comparison was disabled
+ */
+public record SmokeTestReport(
+    ReadinessProbe probe, SmokeTestResult slim, SmokeTestResult baseline) {
+
+  public SmokeTestReport {
+    Objects.requireNonNull(probe, "probe must not be null");
+    Objects.requireNonNull(slim, "slim must not be null");
+  }
+
+  /** Returns whether the application started correctly on the created runtime. */
+  public boolean passed() {
+    return slim.ready() && newErrors().isEmpty();
+  }
+
+  /** Returns the errors reported on the created runtime but not on the full JDK. */
+  public List<String> newErrors() {
+    List<String> errors = new ArrayList<>(slim.errors());
+    if (baseline != null) {
+      errors.removeAll(baseline.errors());
+    }
+    return errors;
+  }
+
+  /** Returns a formatted summary of the report. */
+  public String summary() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("Smoke test (").append(probe.describe()).append("): ");
+    sb.append(passed() ? "passed" : "FAILED").append("\n");
+
+    sb.append("  Time to ready: ").append(formatDuration(slim.timeToReady()));
+    if (baseline != null) {
+      sb.append(" (full JDK: ").append(formatDuration(baseline.timeToReady())).append(")");
+    }
+    sb.append("\n");
+
+    sb.append("  Peak RSS: ").append(formatSize(slim.peakRssBytes()));
+    if (baseline != null) {
+      sb.append(" (full JDK: ").append(formatSize(baseline.peakRssBytes())).append(")");
+    }
+    sb.append("\n");
+
+    if (!slim.ready() && slim.exitCode() != null) {
+      sb.append("  Exited with code ").append(slim.exitCode()).append("\n");
+    }
+    for (String error : newErrors()) {
+      sb.append("  Error: ").append(error).append("\n");
+    }
+    if (baseline != null && !baseline.passed()) {
+      sb.append("  The application does not start cleanly on the full JDK either\n");
+    }
+    if (!passed() && !slim.output().isEmpty()) {
+      sb.append("  Output:\n");
+      slim.output().lines().forEach(line -> sb.append("    ").append(line).append("\n"));
+    }
+    return sb.toString();
+  }
+
+  private static String formatDuration(Duration duration) {
+    if (duration == null) {
+      return "not ready";
+    }
+    long millis = duration.toMillis();
+    if (millis < 1000) {
+      return millis + "ms";
+    }
+    return String.format(Locale.ROOT, "%.1fs", millis / 1000.0);
+  }
+
+  private static String formatSize(Long bytes) {
+    if (bytes == null) {
+      return "unavailable";
+    }
+    return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+  }
+}
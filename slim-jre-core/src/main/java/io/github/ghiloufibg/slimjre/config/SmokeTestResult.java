@@ -0,0 +1,37 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of a smoke test on one runtime.
+ *
+ * @param runtime Runtime the application ran on
+ * @param ready Whether the readiness probe was satisfied before the timeout
+ * @param timeToReady Time from launch until the probe was satisfied, or null if it never was
+ * @param exitCode Exit code of the application, or null if it was stopped while running
+ * @param peakRssBytes Peak resident set size of the JVM process sampled while it ran, or null where
+ *     {@code /proc} is unavailable or the process exited before it was sampled
+ * @param errors Output lines reporting missing classes, modules or providers
+ * @param output Last lines of the combined standard output and error
+ */
+public record SmokeTestResult(
+    Path runtime,
+    boolean ready,
+    Duration timeToReady,
+    Integer exitCode,
+    Long peakRssBytes,
+    List<String> errors,
+    String output) {
+
+  public SmokeTestResult {
+    // Defensive copy
+    errors = List.copyOf(errors);
+  }
+
+  /** Returns whether the application became ready without reporting missing classes. */
+  public boolean passed() {
+    return ready && errors.isEmpty();
+  }
+}
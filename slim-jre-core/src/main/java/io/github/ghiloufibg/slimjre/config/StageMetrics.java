@@ -0,0 +1,39 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Time spent and work done by one pipeline stage.
+ *
+ * <p>Counters that do not apply to a stage are zero; e.g. jdeps reads classes itself, so its stage
+ * only counts JARs and cache hits.
+ *
+ * @param stage The stage
+ * @param wallTime Elapsed time of the stage
+ * @param cpuTime CPU time of the stage, or null if it ran on virtual threads, whose CPU time the
+ *     JVM does not report
+ * @param jars Number of JARs processed
+ * @param classes Number of classes processed
+ * @param bytesInflated Number of uncompressed bytes read from JAR entries
+ * @param cacheHits Number of results served from the analysis cache
+ */
+public record StageMetrics(
+    PipelineStage stage,
+    Duration wallTime,
+    Duration cpuTime,
+    long jars,
+    long classes,
+    long bytesInflated,
+    long cacheHits) {
+
+  public StageMetrics {
+    Objects.requireNonNull(stage, "stage must not be null");
+    Objects.requireNonNull(wallTime, "wallTime must not be null");
+  }
+
+  /** Creates metrics of a stage that only measured its time. */
+  public static StageMetrics timed(PipelineStage stage, Duration wallTime, Duration cpuTime) {
+    return new StageMetrics(stage, wallTime, cpuTime, 0, 0, 0, 0);
+  }
+}
@@ -0,0 +1,24 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Startup time of a created runtime with and without class data sharing, measured as the median
+ * wall time of {@code java -version} runs with {@code -Xshare:auto} and {@code -Xshare:off}.
+ *
+ * @param withCds Median startup time with class data sharing
+ * @param withoutCds Median startup time without class data sharing
+ */
+public record StartupMeasurement(Duration withCds, Duration withoutCds) {
+
+  public StartupMeasurement {
+    Objects.requireNonNull(withCds, "withCds must not be null");
+    Objects.requireNonNull(withoutCds, "withoutCds must not be null");
+  }
+
+  /** Returns the time class data sharing saves; negative if startup got slower. */
+  public Duration saved() {
+    return withoutCds.minus(withCds);
+  }
+}
@@ -0,0 +1,45 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * JDK modules observed while the application ran, compared with static detection.
+ *
+ * <p>A trace only sees the code paths the run exercised, so {@link #notObserved()} lists candidates
+ * for exclusion rather than modules that are safe to drop; {@link #missedByStaticAnalysis()} lists
+ * modules static detection did not find even after resolving its transitive dependencies.
+ *
+ * @param observedModules Modules of the JDK classes loaded during the run
+ * @param loadedJdkClasses Number of JDK classes loaded during the run
+ * @param missedByStaticAnalysis Observed modules that static detection and resolution did not find
+ * @param notObserved Statically detected modules of which no class was loaded
+ */
+public record TraceResult(
+    Set<String> observedModules,
+    long loadedJdkClasses,
+    Set<String> missedByStaticAnalysis,
+    Set<String> notObserved) {
+
+  public TraceResult {
+    // Defensive copies
+    observedModules = Set.copyOf(observedModules);
+    missedByStaticAnalysis = Set.copyOf(missedByStaticAnalysis);
+    notObserved = Set.copyOf(notObserved);
+  }
+
+  /**
+   * Returns a copy compared with the modules found by static detection.
+   *
+   * @param staticModules modules detected statically
+   * @param resolvedStaticModules the detected modules with their transitive dependencies
+   * @return the copy with both differences
+   */
+  public TraceResult comparedTo(Set<String> staticModules, Set<String> resolvedStaticModules) {
+    Set<String> missed = new TreeSet<>(observedModules);
+    missed.removeAll(resolvedStaticModules);
+    Set<String> unobserved = new TreeSet<>(staticModules);
+    unobserved.removeAll(observedModules);
+    return new TraceResult(observedModules, loadedJdkClasses, missed, unobserved);
+  }
+}
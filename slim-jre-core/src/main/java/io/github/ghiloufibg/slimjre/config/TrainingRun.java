@@ -0,0 +1,85 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import io.github.ghiloufibg.slimjre.exception.ConfigurationException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Training run of the application on the created runtime, used to record the classes it loads.
+ *
+ * <p>With a main class, the application is started on the class path of all analyzed JARs. Without
+ * one, the first JAR is started with {@code -jar}, which suits executable and Spring Boot fat JARs.
+ * An application still running when the timeout expires is asked to terminate; JVM shutdown still
+ * completes the recording.
+ *
+ * @param mainClass Main class to run, or null to run the first JAR with {@code -jar}
+ * @param arguments Arguments passed to the application
+ * @param timeout How long the application may run before it is terminated (default: 60s)
+ */
+public record TrainingRun(String mainClass, List<String> arguments, Duration timeout) {
+
+  /** Default time the application may run before it is terminated. */
+  public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(60);
+
+  public TrainingRun {
+    // Defensive copy
+    arguments = List.copyOf(arguments);
+    timeout = timeout != null ? timeout : DEFAULT_TIMEOUT;
+  }
+
+  /** Creates a new builder for TrainingRun. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Validates this training run.
+   *
+   * @throws ConfigurationException if the training run is invalid
+   */
+  public void validate() {
+    if (mainClass != null && mainClass.isBlank()) {
+      throw new ConfigurationException("Training main class must not be blank");
+    }
+    if (timeout.isZero() || timeout.isNegative()) {
+      throw new ConfigurationException("Training timeout must be positive: " + timeout);
+    }
+  }
+
+  /** Builder for TrainingRun. */
+  public static class Builder {
+    private String mainClass;
+    private final List<String> arguments = new ArrayList<>();
+    private Duration timeout = DEFAULT_TIMEOUT;
+
+    /** Sets the main class to run instead of the first JAR. */
+    public Builder mainClass(String mainClass) {
+      this.mainClass = mainClass;
+      return this;
+    }
+
+    /** Adds an argument passed to the application. */
+    public Builder argument(String argument) {
+      this.arguments.add(argument);
+      return this;
+    }
+
+    /** Adds multiple arguments passed to the application. */
+    public Builder arguments(List<String> arguments) {
+      this.arguments.addAll(arguments);
+      return this;
+    }
+
+    /** Sets how long the application may run before it is terminated. */
+    public Builder timeout(Duration timeout) {
+      this.timeout = timeout;
+      return this;
+    }
+
+    /** Builds the training run. */
+    public TrainingRun build() {
+      return new TrainingRun(mainClass, arguments, timeout);
+    }
+  }
+}
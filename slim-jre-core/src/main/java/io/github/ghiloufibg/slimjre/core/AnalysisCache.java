@@ -0,0 +1,454 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent, content-addressed cache of per-JAR analysis results.
+ *
+ * <p>Entries are keyed by the SHA-256 digest of the JAR contents, the feature version of the
+ * running JDK, and the id and version of the analyzer that produced them. Renaming or moving a JAR
+ * therefore keeps its entries valid, while any change to its bytes, to the JDK or to an analyzer's
+ * detection rules produces a different key. Stale entries are never read; they simply age out.
+ *
+ * <p>Each entry holds a small map of named string sets, which is all the analyzers in this package
+ * need to persist. Entries are written to a temporary file and moved into place atomically, so
+ * concurrent builds sharing a cache directory never observe partial entries. Unreadable entries are
+ * deleted and treated as misses.
+ *
+ * <p>The cache is bounded by {@link #evict()}, which removes entries older than the maximum age and
+ * then the least recently used entries until the total size fits the configured limit.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * AnalysisCache cache = new AnalysisCache(AnalysisCache.defaultDirectory());
+ * SlimJre slimJre = new SlimJre(cache);
+ * }</pre>
+ */
+public class AnalysisCache {
+
+  private static final Logger log = LoggerFactory.getLogger(AnalysisCache.class);
+
+  /** Default upper bound for the total size of all entries. */
+  public static final long DEFAULT_MAX_SIZE_BYTES = 256L * 1024 * 1024;
+
+  /** Default maximum age of an entry since it was last used. */
+  public static final Duration DEFAULT_MAX_AGE = Duration.ofDays(30);
+
+  /** Marks an entry file; guards against reading unrelated files. */
+  private static final int MAGIC = 0x534A5243;
+
+  /** Version of the entry file layout; bump when the encoding changes. */
+  private static final int FORMAT_VERSION = 1;
+
+  private static final String ENTRY_SUFFIX = ".entry";
+  private static final HexFormat HEX = HexFormat.of();
+
+  private final Path directory;
+  private final long maxSizeBytes;
+  private final Duration maxAge;
+  private final int jdkFeatureVersion;
+
+  /** Digests computed during this run, so each JAR is hashed at most once. */
+  private final Map<DigestKey, String> digests = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final Map<String, AtomicLong> hitsByAnalyzer = new ConcurrentHashMap<>();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Creates a cache with the default size and age limits.
+   *
+   * @param directory cache root directory, created on first write
+   */
+  public AnalysisCache(Path directory) {
+    this(directory, DEFAULT_MAX_SIZE_BYTES, DEFAULT_MAX_AGE);
+  }
+
+  /**
+   * Creates a cache with explicit eviction limits.
+   *
+   * @param directory cache root directory, created on first write
+   * @param maxSizeBytes upper bound for the total size of all entries
+   * @param maxAge maximum age of an entry since it was last used
+   */
+  public AnalysisCache(Path directory, long maxSizeBytes, Duration maxAge) {
+    this.directory = Objects.requireNonNull(directory, "directory must not be null");
+    this.maxAge = Objects.requireNonNull(maxAge, "maxAge must not be null");
+    if (maxSizeBytes <= 0) {
+      throw new IllegalArgumentException("maxSizeBytes must be positive");
+    }
+    this.maxSizeBytes = maxSizeBytes;
+    this.jdkFeatureVersion = Runtime.version().feature();
+  }
+
+  /**
+   * Returns the default cache directory: {@code $XDG_CACHE_HOME/slim-jre} if set, otherwise {@code
+   * ~/.cache/slim-jre}.
+   *
+   * @return the default cache directory
+   */
+  public static Path defaultDirectory() {
+    String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+    Path base =
+        xdgCacheHome != null && !xdgCacheHome.isBlank()
+            ? Path.of(xdgCacheHome)
+            : Path.of(System.getProperty("user.home"), ".cache");
+    return base.resolve("slim-jre");
+  }
+
+  /** Returns the cache root directory. */
+  public Path directory() {
+    return directory;
+  }
+
+  /**
+   * Looks up the entry an analyzer stored for a single JAR.
+   *
+   * @param jar the analyzed JAR
+   * @param analyzerId stable id of the analyzer
+   * @param analyzerVersion version of the analyzer's detection rules
+   * @return the cached sections, or empty on a miss
+   */
+  public Optional<Map<String, Set<String>>> get(Path jar, String analyzerId, int analyzerVersion) {
+    return get(List.of(jar), analyzerId, analyzerVersion);
+  }
+
+  /**
+   * Looks up the entry an analyzer stored for a set of JARs analyzed together.
+   *
+   * <p>The key covers the digests of all JARs in order, so it only matches the exact same
+   * classpath.
+   *
+   * @param jars the analyzed JARs
+   * @param analyzerId stable id of the analyzer
+   * @param analyzerVersion version of the analyzer's detection rules
+   * @return the cached sections, or empty on a miss
+   */
+  public Optional<Map<String, Set<String>>> get(
+      List<Path> jars, String analyzerId, int analyzerVersion) {
+    Optional<Path> entry = entryPath(jars, analyzerId, analyzerVersion);
+    if (entry.isEmpty() || !Files.isRegularFile(entry.get())) {
+      misses.incrementAndGet();
+      return Optional.empty();
+    }
+
+    try {
+      Map<String, Set<String>> sections = read(entry.get());
+      touch(entry.get());
+      hits.incrementAndGet();
+      hitsByAnalyzer.computeIfAbsent(analyzerId, id -> new AtomicLong()).incrementAndGet();
+      log.trace("Cache hit for {} ({})", analyzerId, entry.get().getFileName());
+      return Optional.of(sections);
+    } catch (IOException e) {
+      log.debug("Discarding unreadable cache entry {}: {}", entry.get(), e.getMessage());
+      deleteQuietly(entry.get());
+      misses.incrementAndGet();
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Stores an analyzer's result for a single JAR.
+   *
+   * @param jar the analyzed JAR
+   * @param analyzerId stable id of the analyzer
+   * @param analyzerVersion version of the analyzer's detection rules
+   * @param sections named string sets to persist
+   */
+  public void put(
+      Path jar, String analyzerId, int analyzerVersion, Map<String, Set<String>> sections) {
+    put(List.of(jar), analyzerId, analyzerVersion, sections);
+  }
+
+  /**
+   * Stores an analyzer's result for a set of JARs analyzed together.
+   *
+   * <p>Failures are logged and otherwise ignored; the cache never fails an analysis.
+   *
+   * @param jars the analyzed JARs
+   * @param analyzerId stable id of the analyzer
+   * @param analyzerVersion version of the analyzer's detection rules
+   * @param sections named string sets to persist
+   */
+  public void put(
+      List<Path> jars, String analyzerId, int analyzerVersion, Map<String, Set<String>> sections) {
+    Objects.requireNonNull(sections, "sections must not be null");
+
+    Optional<Path> entry = entryPath(jars, analyzerId, analyzerVersion);
+    if (entry.isEmpty()) {
+      return;
+    }
+
+    Path target = entry.get();
+    Path temp = null;
+    try {
+      Files.createDirectories(target.getParent());
+      temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+      write(temp, sections);
+      moveIntoPlace(temp, target);
+    } catch (IOException e) {
+      log.debug("Failed to write cache entry {}: {}", target, e.getMessage());
+      if (temp != null) {
+        deleteQuietly(temp);
+      }
+    }
+  }
+
+  /**
+   * Removes entries not used within the maximum age, then the least recently used entries until the
+   * total size of the cache fits the size limit.
+   *
+   * @return number of entries removed
+   */
+  public int evict() {
+    if (!Files.isDirectory(directory)) {
+      return 0;
+    }
+
+    List<EntryInfo> entries = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(directory, 2)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        if (!file.getFileName().toString().endsWith(ENTRY_SUFFIX)) {
+          continue;
+        }
+        try {
+          BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+          if (attrs.isRegularFile()) {
+            entries.add(new EntryInfo(file, attrs.lastModifiedTime().toInstant(), attrs.size()));
+          }
+        } catch (IOException e) {
+          // Removed concurrently by another process
+        }
+      }
+    } catch (IOException e) {
+      log.debug("Failed to list cache directory {}: {}", directory, e.getMessage());
+      return 0;
+    }
+
+    entries.sort(Comparator.comparing(EntryInfo::lastUsed));
+    Instant cutoff = Instant.now().minus(maxAge);
+    long totalSize = entries.stream().mapToLong(EntryInfo::size).sum();
+    int removed = 0;
+
+    for (EntryInfo entry : entries) {
+      if (!entry.lastUsed().isBefore(cutoff) && totalSize <= maxSizeBytes) {
+        break;
+      }
+      if (deleteQuietly(entry.file())) {
+        removed++;
+      }
+      totalSize -= entry.size();
+    }
+
+    if (removed > 0) {
+      log.debug("Evicted {} cache entr(ies) from {}", removed, directory);
+    }
+    return removed;
+  }
+
+  /** Returns the number of lookups answered from the cache since this instance was created. */
+  public long hitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of lookups of one analyzer answered from the cache since this instance was
+   * created.
+   *
+   * @param analyzerId stable id of the analyzer
+   * @return the analyzer's hit count
+   */
+  public long hitCount(String analyzerId) {
+    AtomicLong analyzerHits = hitsByAnalyzer.get(analyzerId);
+    return analyzerHits != null ? analyzerHits.get() : 0;
+  }
+
+  /** Returns the number of lookups that missed since this instance was created. */
+  public long missCount() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the SHA-256 digest of a JAR's contents as a lowercase hex string.
+   *
+   * <p>Digests are memoized per path, size and modification time for the lifetime of this cache. A
+   * JAR nested inside an archive is digested from its bytes within the archive and memoized by the
+   * size and modification time of the archive.
+   *
+   * @param jar the JAR file, possibly a virtual {@link NestedJar} path
+   * @return hex-encoded digest
+   * @throws IOException if the file cannot be read
+   */
+  String digest(Path jar) throws IOException {
+    Path absolute = jar.toAbsolutePath().normalize();
+    BasicFileAttributes attrs = JarContents.readAttributes(absolute);
+    DigestKey key = new DigestKey(absolute, attrs.size(), attrs.lastModifiedTime().toMillis());
+
+    String cached = digests.get(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    MessageDigest sha256 = newSha256();
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream in = JarContents.newInputStream(absolute)) {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        sha256.update(buffer, 0, read);
+      }
+    }
+    String digest = HEX.formatHex(sha256.digest());
+    digests.put(key, digest);
+    return digest;
+  }
+
+  /**
+   * Resolves the entry file for a key, or empty if any JAR cannot be digested.
+   *
+   * <p>Layout: {@code <dir>/<xx>/<digest>.<analyzerId>.jdk<feature>.v<version>.entry}, where {@code
+   * xx} is the first byte of the digest.
+   */
+  private Optional<Path> entryPath(List<Path> jars, String analyzerId, int analyzerVersion) {
+    Objects.requireNonNull(jars, "jars must not be null");
+    Objects.requireNonNull(analyzerId, "analyzerId must not be null");
+    if (jars.isEmpty()) {
+      return Optional.empty();
+    }
+
+    String digest;
+    try {
+      digest = jars.size() == 1 ? digest(jars.get(0)) : combinedDigest(jars);
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    } catch (IOException e) {
+      log.debug("Failed to compute cache key: {}", e.getMessage());
+      return Optional.empty();
+    }
+
+    String fileName =
+        digest
+            + "."
+            + analyzerId
+            + ".jdk"
+            + jdkFeatureVersion
+            + ".v"
+            + analyzerVersion
+            + ENTRY_SUFFIX;
+    return Optional.of(directory.resolve(digest.substring(0, 2)).resolve(fileName));
+  }
+
+  private String combinedDigest(List<Path> jars) throws IOException {
+    MessageDigest sha256 = newSha256();
+    for (Path jar : jars) {
+      sha256.update(HEX.parseHex(digest(jar)));
+    }
+    return HEX.formatHex(sha256.digest());
+  }
+
+  private static Map<String, Set<String>> read(Path entry) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        throw new IOException("unrecognized entry format");
+      }
+      int sectionCount = in.readInt();
+      Map<String, Set<String>> sections = new LinkedHashMap<>();
+      for (int i = 0; i < sectionCount; i++) {
+        String name = in.readUTF();
+        int size = in.readInt();
+        Set<String> values = new LinkedHashSet<>();
+        for (int j = 0; j < size; j++) {
+          values.add(in.readUTF());
+        }
+        sections.put(name, values);
+      }
+      return sections;
+    }
+  }
+
+  private static void write(Path file, Map<String, Set<String>> sections) throws IOException {
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(sections.size());
+      for (Map.Entry<String, Set<String>> section : sections.entrySet()) {
+        out.writeUTF(section.getKey());
+        out.writeInt(section.getValue().size());
+        for (String value : section.getValue()) {
+          out.writeUTF(value);
+        }
+      }
+    }
+  }
+
+  private static void moveIntoPlace(Path temp, Path target) throws IOException {
+    try {
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /** Marks an entry as recently used so that eviction keeps it. */
+  private static void touch(Path entry) {
+    try {
+      Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+    } catch (IOException e) {
+      log.trace("Failed to touch cache entry {}: {}", entry, e.getMessage());
+    }
+  }
+
+  private static boolean deleteQuietly(Path file) {
+    try {
+      return Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.trace("Failed to delete {}: {}", file, e.getMessage());
+      return false;
+    }
+  }
+
+  private static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private record DigestKey(Path path, long size, long lastModified) {}
+
+  private record EntryInfo(Path file, Instant lastUsed, long size) {}
+}
@@ -0,0 +1,143 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import io.github.ghiloufibg.slimjre.config.CdsArchive;
+import io.github.ghiloufibg.slimjre.config.TrainingRun;
+import io.github.ghiloufibg.slimjre.exception.TrainingRunException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates an ahead-of-time cache (JEP 483) inside a runtime image of JDK 24 or later.
+ *
+ * <p>The application runs once on the image with {@code -XX:AOTMode=record}, which writes the
+ * classes it loads and links to an AOT configuration. A second JVM with {@code -XX:AOTMode=create}
+ * turns the configuration into {@code lib/app.aot} without running the application again. A {@code
+ * bin/java-aot} launcher starts the image's java with {@code -XX:AOTCache} pointing at it, so later
+ * starts find the classes already loaded and linked.
+ *
+ * <p>Images of older JDKs have no AOT cache support; they are skipped with a log message. Like an
+ * AppCDS archive, the cache only applies to runs with the same class path as the training run.
+ */
+public class AotCacheGenerator {
+
+  private static final Logger log = LoggerFactory.getLogger(AotCacheGenerator.class);
+
+  /** First JDK feature version supporting AOT caches. */
+  public static final int MIN_JAVA_VERSION = 24;
+
+  /** File name of the cache in the image's {@code lib/} directory. */
+  public static final String CACHE_NAME = "app.aot";
+
+  /** Name of the launcher in the image's {@code bin/} directory. */
+  public static final String LAUNCHER_NAME = "java-aot";
+
+  private final JLinkExecutor jlinkExecutor;
+  private final TrainingRunner trainingRunner = new TrainingRunner();
+
+  /** Creates a new AotCacheGenerator. */
+  public AotCacheGenerator() {
+    this(new JLinkExecutor());
+  }
+
+  /**
+   * Creates a new AotCacheGenerator.
+   *
+   * @param jlinkExecutor executor used to inspect the runtime image
+   */
+  public AotCacheGenerator(JLinkExecutor jlinkExecutor) {
+    this.jlinkExecutor = Objects.requireNonNull(jlinkExecutor);
+  }
+
+  /**
+   * Returns whether a runtime image supports AOT caches.
+   *
+   * @param jrePath runtime image
+   * @return true if the image is of JDK {@value #MIN_JAVA_VERSION} or later
+   */
+  public boolean isSupported(Path jrePath) {
+    return jlinkExecutor.getJavaVersion(jrePath) >= MIN_JAVA_VERSION;
+  }
+
+  /**
+   * Runs the application on a runtime image and stores the AOT cache in the image.
+   *
+   * @param jrePath runtime image created by jlink
+   * @param jars analyzed JARs, the class path of the training run
+   * @param training the training run
+   * @return the cache, or empty if the image's JDK does not support AOT caches
+   * @throws TrainingRunException if the training run fails to produce a cache
+   */
+  public Optional<CdsArchive> generate(Path jrePath, List<Path> jars, TrainingRun training) {
+    int javaVersion = jlinkExecutor.getJavaVersion(jrePath);
+    if (javaVersion < MIN_JAVA_VERSION) {
+      log.info(
+          "Skipping AOT cache: requires JDK {}+, runtime image is JDK {}",
+          MIN_JAVA_VERSION,
+          javaVersion);
+      return Optional.empty();
+    }
+
+    Path cache = jrePath.resolve("lib").resolve(CACHE_NAME);
+    Path configuration = jrePath.resolve("lib").resolve("app.aotconf");
+    try {
+      Files.deleteIfExists(cache);
+      Files.deleteIfExists(configuration);
+
+      TrainingRunner.Outcome recorded =
+          trainingRunner.run(
+              jrePath,
+              List.of(
+                  "-XX:AOTMode=record", "-XX:AOTConfiguration=" + configuration.toAbsolutePath()),
+              jars,
+              training);
+      if (!Files.isRegularFile(configuration)) {
+        throw failure("without recording an AOT configuration", recorded);
+      }
+
+      log.info("Creating AOT cache from the recorded configuration...");
+      TrainingRunner.Outcome created =
+          trainingRunner.run(
+              jrePath,
+              List.of(
+                  "-XX:AOTMode=create",
+                  "-XX:AOTConfiguration=" + configuration.toAbsolutePath(),
+                  "-XX:AOTCache=" + cache.toAbsolutePath()),
+              jars,
+              training);
+      if (!Files.isRegularFile(cache)) {
+        throw failure("without creating an AOT cache", created);
+      }
+
+      // The configuration is only an input of the cache
+      Files.deleteIfExists(configuration);
+
+      Path launcher =
+          LauncherScript.write(
+              jrePath,
+              LAUNCHER_NAME,
+              "the application's AOT cache",
+              List.of("-XX:AOTCache=" + LauncherScript.IMAGE + "/lib/" + CACHE_NAME));
+      CdsArchive result = new CdsArchive(cache, Files.size(cache));
+      log.info("AOT cache created: {} ({} bytes), launcher: {}", cache, result.size(), launcher);
+      return Optional.of(result);
+
+    } catch (IOException e) {
+      throw new TrainingRunException("Failed to install AOT cache: " + e.getMessage(), e);
+    }
+  }
+
+  private static TrainingRunException failure(String what, TrainingRunner.Outcome outcome) {
+    return new TrainingRunException(
+        "AOT training run exited with code "
+            + outcome.exitCode()
+            + " "
+            + what
+            + (outcome.output().isEmpty() ? "" : ":\n" + outcome.output()));
+  }
+}
@@ -1,29 +1,19 @@
 package io.github.ghiloufibg.slimjre.core;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,7 +39,7 @@ import org.slf4j.LoggerFactory;
  *   javax.naming.InitialContext ctx = ...       → java.naming
  * </pre>
  */
-public class ApiUsageScanner {
+public class ApiUsageScanner implements BytecodeDetector<ApiUsageScanner.JarApiUsage, Set<String>> {
 
   private static final Logger log = LoggerFactory.getLogger(ApiUsageScanner.class);
 
@@ -162,9 +152,48 @@ public class ApiUsageScanner {
           Map.entry("org/w3c/dom/stylesheets", "jdk.xml.dom"),
           Map.entry("org/w3c/dom/xpath", "jdk.xml.dom"));
 
+  /** Longest-prefix matcher over {@link #PACKAGE_TO_MODULE}. */
+  private static final PackagePrefixMatcher<String> MODULE_MATCHER =
+      new PackagePrefixMatcher<>(PACKAGE_TO_MODULE);
+
+  /** Constant pool fragments of every name {@link #MODULE_MATCHER} maps to a module. */
+  private static final ConstantPool.Fragments FRAGMENTS =
+      ConstantPool.fragments(PACKAGE_TO_MODULE.keySet().toArray(String[]::new));
+
+  /** Memo value for names that map to no module. */
+  private static final String NO_MODULE = "";
+
+  /** Persists per-JAR modules; bump the version whenever the detection rules change. */
+  private static final JarStateCodec<JarApiUsage> JAR_STATE_CODEC =
+      new JarStateCodec<>() {
+        @Override
+        public String id() {
+          return "api-usage";
+        }
+
+        @Override
+        public int version() {
+          return 2;
+        }
+
+        @Override
+        public Map<String, Set<String>> encode(JarApiUsage jarState) {
+          return Map.of("modules", jarState.modules);
+        }
+
+        @Override
+        public JarApiUsage decode(Path jarPath, Map<String, Set<String>> sections) {
+          JarApiUsage jarState = new JarApiUsage();
+          jarState.modules.addAll(sections.getOrDefault("modules", Set.of()));
+          return jarState;
+        }
+      };
+
+  private final BytecodeScanEngine scanEngine = new BytecodeScanEngine();
+
   /** Creates a new ApiUsageScanner. */
   public ApiUsageScanner() {
-    log.debug("Initialized ApiUsageScanner with {} package mappings", PACKAGE_TO_MODULE.size());
+    log.debug("Initialized ApiUsageScanner with {} package mappings", MODULE_MATCHER.size());
   }
 
   /**
@@ -174,34 +203,7 @@ public class ApiUsageScanner {
    * @return set of JDK module names required by API usage
    */
   public Set<String> scanJar(Path jarPath) {
-    Objects.requireNonNull(jarPath, "jarPath must not be null");
-
-    if (!Files.exists(jarPath)) {
-      log.warn("JAR file does not exist: {}", jarPath);
-      return Set.of();
-    }
-
-    Set<String> detectedModules = new HashSet<>();
-
-    try (JarFile jar = new JarFile(jarPath.toFile())) {
-      Enumeration<JarEntry> entries = jar.entries();
-      while (entries.hasMoreElements()) {
-        JarEntry entry = entries.nextElement();
-        if (entry.getName().endsWith(".class") && !entry.isDirectory()) {
-          try (InputStream is = jar.getInputStream(entry);
-              BufferedInputStream bis = new BufferedInputStream(is, 8192)) {
-            detectedModules.addAll(scanClass(bis));
-          } catch (IOException e) {
-            log.trace("Failed to scan class {}: {}", entry.getName(), e.getMessage());
-          }
-        }
-      }
-    } catch (IOException e) {
-      log.warn("Failed to scan JAR {}: {}", jarPath, e.getMessage());
-      return Set.of();
-    }
-
-    return detectedModules;
+    return scanEngine.scanJar(jarPath, this).modules;
   }
 
   /**
@@ -215,22 +217,44 @@ public class ApiUsageScanner {
       return Set.of();
     }
 
-    Set<String> allModules = ConcurrentHashMap.newKeySet();
+    return scanEngine.scan(jars, this);
+  }
 
-    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-      List<Future<Set<String>>> futures =
-          jars.stream().map(jar -> executor.submit(() -> scanJar(jar))).toList();
+  @Override
+  public JarApiUsage newJarState(Path jarPath) {
+    return new JarApiUsage();
+  }
 
-      for (Future<Set<String>> future : futures) {
-        try {
-          allModules.addAll(future.get());
-        } catch (Exception e) {
-          log.warn("Failed to get scan result: {}", e.getMessage());
-        }
-      }
-    }
+  @Override
+  public ClassVisitor newClassVisitor(JarApiUsage jarState, String entryName) {
+    return new ApiUsageVisitor(jarState);
+  }
+
+  @Override
+  public Set<String> aggregate(List<JarApiUsage> jarStates) {
+    Set<String> allModules = new TreeSet<>();
+    jarStates.forEach(state -> allModules.addAll(state.modules));
+    return allModules;
+  }
 
-    return new TreeSet<>(allModules);
+  @Override
+  public boolean mayMatch(ConstantPool constantPool) {
+    return constantPool.mentions(FRAGMENTS);
+  }
+
+  @Override
+  public boolean canMergeJarStates() {
+    return true;
+  }
+
+  @Override
+  public void mergeJarStates(JarApiUsage jarState, JarApiUsage batchState) {
+    jarState.modules.addAll(batchState.modules);
+  }
+
+  @Override
+  public JarStateCodec<JarApiUsage> jarStateCodec() {
+    return JAR_STATE_CODEC;
   }
 
   /**
@@ -241,7 +265,7 @@ public class ApiUsageScanner {
    */
   Set<String> scanClass(InputStream classInputStream) throws IOException {
     ClassReader reader = new ClassReader(classInputStream);
-    ApiUsageVisitor visitor = new ApiUsageVisitor();
+    ApiUsageVisitor visitor = new ApiUsageVisitor(new JarApiUsage());
     reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
     return visitor.getDetectedModules();
   }
@@ -253,26 +277,39 @@ public class ApiUsageScanner {
    * @return module name or null if not a mapped JDK package
    */
   String mapToModule(String internalName) {
-    if (internalName == null || internalName.isEmpty()) {
-      return null;
-    }
+    return MODULE_MATCHER.match(internalName);
+  }
 
-    // Try exact package matches first, then progressively shorter prefixes
-    for (Map.Entry<String, String> entry : PACKAGE_TO_MODULE.entrySet()) {
-      if (internalName.startsWith(entry.getKey() + "/") || internalName.equals(entry.getKey())) {
-        return entry.getValue();
+  /**
+   * Per-JAR accumulator: the detected modules, plus a memo of the type names already classified
+   * while scanning the JAR, since the same owners recur across its classes.
+   */
+  public static final class JarApiUsage {
+
+    private final Set<String> modules = new HashSet<>();
+    private final Map<String, String> classifiedNames = new HashMap<>();
+
+    /** Returns the module of an internal name, consulting the memo first. */
+    private String classify(String internalName) {
+      String module = classifiedNames.get(internalName);
+      if (module == null) {
+        module = MODULE_MATCHER.match(internalName);
+        classifiedNames.put(internalName, module != null ? module : NO_MODULE);
       }
+      return module == NO_MODULE ? null : module;
     }
-    return null;
   }
 
   /** ASM ClassVisitor that detects JDK API usage patterns. */
   private class ApiUsageVisitor extends ClassVisitor {
 
-    private final Set<String> detectedModules = new HashSet<>();
+    private final JarApiUsage jarState;
+    private final Set<String> detectedModules;
 
-    ApiUsageVisitor() {
+    ApiUsageVisitor(JarApiUsage jarState) {
       super(Opcodes.ASM9);
+      this.jarState = jarState;
+      this.detectedModules = jarState.modules;
     }
 
     @Override
@@ -323,35 +360,40 @@ public class ApiUsageScanner {
     }
 
     private void checkTypeReference(String internalName) {
-      String module = mapToModule(internalName);
+      if (internalName == null) {
+        return;
+      }
+      String module = jarState.classify(internalName);
       if (module != null) {
         detectedModules.add(module);
       }
     }
 
+    /**
+     * Checks the class types of a field or method descriptor in place. Every class type has the
+     * form {@code L<internal name>;}, so matching the range between 'L' and ';' avoids creating
+     * Type objects and substrings.
+     */
     private void checkDescriptor(String descriptor) {
       if (descriptor == null) {
         return;
       }
 
-      // Parse type descriptors to extract class references
-      Type type = Type.getType(descriptor);
-      checkType(type);
-    }
-
-    private void checkType(Type type) {
-      if (type == null) {
-        return;
-      }
-
-      switch (type.getSort()) {
-        case Type.ARRAY -> checkType(type.getElementType());
-        case Type.OBJECT -> checkTypeReference(type.getInternalName());
-        case Type.METHOD -> {
-          checkType(type.getReturnType());
-          for (Type argType : type.getArgumentTypes()) {
-            checkType(argType);
+      int i = 0;
+      int length = descriptor.length();
+      while (i < length) {
+        if (descriptor.charAt(i) == 'L') {
+          int end = descriptor.indexOf(';', i);
+          if (end < 0) {
+            return;
+          }
+          String module = MODULE_MATCHER.match(descriptor, i + 1, end);
+          if (module != null) {
+            detectedModules.add(module);
           }
+          i = end + 1;
+        } else {
+          i++;
         }
       }
     }
@@ -0,0 +1,134 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import io.github.ghiloufibg.slimjre.config.CdsArchive;
+import io.github.ghiloufibg.slimjre.config.TrainingRun;
+import io.github.ghiloufibg.slimjre.exception.TrainingRunException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates an application class-data-sharing (AppCDS) archive inside a runtime image.
+ *
+ * <p>The application runs once on the image with {@code -XX:ArchiveClassesAtExit}, and the JVM
+ * dumps the classes it loaded into {@code lib/app-cds.jsa} on exit. A {@code bin/java-app-cds}
+ * launcher starts the image's java with that archive, so later starts map the classes instead of
+ * loading and verifying them again.
+ *
+ * <p>A dynamic archive extends the image's default CDS archive, which is generated first if jlink
+ * did not create one. The archive only applies to runs with the same class path as the training
+ * run; with a different class path, the JVM silently loads the classes the usual way.
+ */
+public class AppCdsGenerator {
+
+  private static final Logger log = LoggerFactory.getLogger(AppCdsGenerator.class);
+
+  /** File name of the archive in the image's {@code lib/} directory. */
+  public static final String ARCHIVE_NAME = "app-cds.jsa";
+
+  /** Name of the launcher in the image's {@code bin/} directory. */
+  public static final String LAUNCHER_NAME = "java-app-cds";
+
+  /** Time allowed for dumping the default CDS archive. */
+  private static final Duration BASE_ARCHIVE_TIMEOUT = Duration.ofMinutes(2);
+
+  private final JLinkExecutor jlinkExecutor;
+  private final TrainingRunner trainingRunner = new TrainingRunner();
+
+  /** Creates a new AppCdsGenerator. */
+  public AppCdsGenerator() {
+    this(new JLinkExecutor());
+  }
+
+  /**
+   * Creates a new AppCdsGenerator.
+   *
+   * @param jlinkExecutor executor used to inspect the runtime image
+   */
+  public AppCdsGenerator(JLinkExecutor jlinkExecutor) {
+    this.jlinkExecutor = Objects.requireNonNull(jlinkExecutor);
+  }
+
+  /**
+   * Runs the application on a runtime image and stores the AppCDS archive in the image.
+   *
+   * @param jrePath runtime image created by jlink
+   * @param jars analyzed JARs, the class path of the training run
+   * @param training the training run
+   * @return the archive
+   * @throws TrainingRunException if the training run fails to produce an archive
+   */
+  public CdsArchive generate(Path jrePath, List<Path> jars, TrainingRun training) {
+    ensureDefaultArchive(jrePath);
+
+    Path archive = jrePath.resolve("lib").resolve(ARCHIVE_NAME);
+    try {
+      Files.deleteIfExists(archive);
+    } catch (IOException e) {
+      throw new TrainingRunException("Failed to remove existing AppCDS archive: " + archive, e);
+    }
+
+    TrainingRunner.Outcome outcome =
+        trainingRunner.run(
+            jrePath,
+            List.of("-XX:ArchiveClassesAtExit=" + archive.toAbsolutePath()),
+            jars,
+            training);
+
+    if (!Files.isRegularFile(archive)) {
+      throw new TrainingRunException(
+          "Training run exited with code "
+              + outcome.exitCode()
+              + " without dumping an AppCDS archive"
+              + (outcome.output().isEmpty() ? "" : ":\n" + outcome.output()));
+    }
+    if (!outcome.timedOut() && outcome.exitCode() != 0) {
+      log.warn(
+          "Training run exited with code {}; the AppCDS archive holds the classes loaded until"
+              + " then",
+          outcome.exitCode());
+    }
+
+    try {
+      Path launcher =
+          LauncherScript.write(
+              jrePath,
+              LAUNCHER_NAME,
+              "the application's AppCDS archive",
+              List.of(
+                  "-XX:SharedArchiveFile=" + LauncherScript.IMAGE + "/lib/" + ARCHIVE_NAME,
+                  "-Xshare:auto"));
+      CdsArchive result = new CdsArchive(archive, Files.size(archive));
+      log.info(
+          "AppCDS archive created: {} ({} bytes), launcher: {}", archive, result.size(), launcher);
+      return result;
+    } catch (IOException e) {
+      throw new TrainingRunException("Failed to install AppCDS archive: " + e.getMessage(), e);
+    }
+  }
+
+  /** Dumps the default CDS archive the dynamic archive builds on, unless the image has one. */
+  private void ensureDefaultArchive(Path jrePath) {
+    if (jlinkExecutor.findDefaultCdsArchive(jrePath).isPresent()) {
+      return;
+    }
+
+    log.info("Runtime image has no default CDS archive, generating it...");
+    TrainingRunner.Outcome outcome =
+        trainingRunner.exec(
+            List.of(JLinkExecutor.javaExecutable(jrePath).toString(), "-Xshare:dump"),
+            BASE_ARCHIVE_TIMEOUT);
+    if (outcome.exitCode() != 0 || jlinkExecutor.findDefaultCdsArchive(jrePath).isEmpty()) {
+      throw new TrainingRunException(
+          "Failed to generate the default CDS archive (exit code "
+              + outcome.exitCode()
+              + ")"
+              + (outcome.output().isEmpty() ? "" : ":\n" + outcome.output()));
+    }
+  }
+}
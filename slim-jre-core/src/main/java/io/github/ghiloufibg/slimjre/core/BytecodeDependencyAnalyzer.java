@@ -0,0 +1,490 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import io.github.ghiloufibg.slimjre.exception.SlimJreException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process replacement for jdeps that determines required JDK modules from the class references
+ * found in bytecode.
+ *
+ * <p>Every type referenced by a class (superclass, interfaces, member descriptors, and the owners,
+ * descriptors and constants used by method bodies) is mapped to the JDK module exporting its
+ * package, using the shared {@link JdkClassIndex}. References to non-JDK classes are ignored, as
+ * jdeps does with {@code --ignore-missing-deps}.
+ *
+ * <p>As a {@link BytecodeDetector}, the analyzer runs in the same single pass as the other ASM
+ * scanners and records which classes reference each module, which makes every detected module
+ * attributable to the classes that need it.
+ *
+ * <p>Multi-release JARs are handled like {@code jdeps --multi-release <running version>}: entries
+ * under {@code META-INF/versions/N/} are only considered for N up to the running feature version,
+ * and for each class only the highest applicable version contributes references.
+ *
+ * <p>Modular JARs contribute the JDK modules from their {@code requires} directives instead, like
+ * {@link JDepsAnalyzer}.
+ *
+ * <p>Unlike {@code jdeps --print-module-deps}, the module set is not reduced by removing modules
+ * implied by others; the difference vanishes once transitive dependencies are resolved.
+ */
+public class BytecodeDependencyAnalyzer
+    implements DependencyEngine,
+        BytecodeDetector<BytecodeDependencyAnalyzer.JarDependencies, DependencyResult> {
+
+  private static final Logger log = LoggerFactory.getLogger(BytecodeDependencyAnalyzer.class);
+
+  private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+  /** Cache section holding the requires directives of a modular JAR. */
+  private static final String REQUIRES_SECTION = "@requires";
+
+  /**
+   * Persists module-to-class attributions; bump the version whenever reference collection changes.
+   */
+  private static final JarStateCodec<JarDependencies> JAR_STATE_CODEC =
+      new JarStateCodec<>() {
+        @Override
+        public String id() {
+          return "dependencies";
+        }
+
+        @Override
+        public int version() {
+          return 1;
+        }
+
+        @Override
+        public Map<String, Set<String>> encode(JarDependencies jarState) {
+          Map<String, Set<String>> sections = new LinkedHashMap<>(jarState.moduleReferences());
+          if (jarState.requires != null) {
+            sections.put(REQUIRES_SECTION, jarState.requires);
+          }
+          return sections;
+        }
+
+        @Override
+        public JarDependencies decode(Path jarPath, Map<String, Set<String>> sections) {
+          Map<String, Set<String>> moduleReferences = new TreeMap<>(sections);
+          Set<String> requires = moduleReferences.remove(REQUIRES_SECTION);
+          return new JarDependencies(jarPath, moduleReferences, requires);
+        }
+      };
+
+  private final BytecodeScanEngine scanEngine;
+  private final JdkClassIndex jdkClassIndex;
+  private final int javaVersion;
+
+  /** Creates a new BytecodeDependencyAnalyzer. */
+  public BytecodeDependencyAnalyzer() {
+    this(null);
+  }
+
+  /**
+   * Creates a new BytecodeDependencyAnalyzer whose standalone scans use an analysis cache.
+   *
+   * @param cache the analysis cache, or null to disable caching
+   */
+  public BytecodeDependencyAnalyzer(AnalysisCache cache) {
+    this(cache, JdkClassIndex.shared(cache != null ? cache.directory() : null));
+  }
+
+  /**
+   * Creates a new BytecodeDependencyAnalyzer whose standalone scans use an analysis cache.
+   *
+   * @param cache the analysis cache, or null to disable caching
+   * @param jdkClassIndex index mapping JDK packages to their modules
+   */
+  public BytecodeDependencyAnalyzer(AnalysisCache cache, JdkClassIndex jdkClassIndex) {
+    this.scanEngine = new BytecodeScanEngine(cache);
+    this.jdkClassIndex = Objects.requireNonNull(jdkClassIndex, "jdkClassIndex must not be null");
+    this.javaVersion = Runtime.version().feature();
+  }
+
+  @Override
+  public Set<String> analyzeRequiredModules(List<Path> jars) {
+    return analyzePerJarFirst(jars).requiredModules();
+  }
+
+  @Override
+  public DependencyResult analyzePerJarFirst(List<Path> jars) {
+    if (jars == null || jars.isEmpty()) {
+      throw new SlimJreException("At least one JAR file must be specified");
+    }
+    return scanEngine.scan(jars, this);
+  }
+
+  /**
+   * Returns the classes of a JAR referencing each JDK module.
+   *
+   * @param jarPath JAR to analyze
+   * @return module name to the internal names of the classes referencing it
+   */
+  public Map<String, Set<String>> attribute(Path jarPath) {
+    return scanEngine.scanJar(jarPath, this).moduleReferences();
+  }
+
+  /**
+   * Maps an internal class name to the JDK module containing its package.
+   *
+   * @param internalName class name in internal format (e.g., "java/sql/Driver")
+   * @return module name, or null if the class is not in a JDK package
+   */
+  String moduleOf(String internalName) {
+    return jdkClassIndex.moduleOfInternalName(internalName);
+  }
+
+  @Override
+  public JarDependencies newJarState(Path jarPath) {
+    return new JarDependencies(jarPath);
+  }
+
+  @Override
+  public ClassVisitor newClassVisitor(JarDependencies jarState, String entryName) {
+    int version = 0;
+    String className = entryName;
+
+    if (entryName.startsWith(VERSIONS_PREFIX)) {
+      int end = entryName.indexOf('/', VERSIONS_PREFIX.length());
+      if (end < 0) {
+        return null;
+      }
+      try {
+        version = Integer.parseInt(entryName.substring(VERSIONS_PREFIX.length(), end));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+      if (version > javaVersion) {
+        // Not visible to the running JDK, as with jdeps --multi-release
+        return null;
+      }
+      className = entryName.substring(end + 1);
+    }
+
+    if (BytecodeScanEngine.isModuleInfo(entryName)) {
+      return new ModuleInfoVisitor(jarState);
+    }
+
+    Set<String> references = jarState.referencesOf(className, version);
+    return references != null ? new DependencyVisitor(references) : null;
+  }
+
+  @Override
+  public DependencyResult aggregate(List<JarDependencies> jarStates) {
+    Map<Path, Set<String>> perJarModules = new LinkedHashMap<>();
+    Set<String> allModules = new TreeSet<>();
+
+    for (JarDependencies state : jarStates) {
+      Set<String> modules = state.requiredModules(jdkClassIndex);
+      perJarModules.put(state.jarPath, modules);
+      allModules.addAll(modules);
+    }
+
+    // Ensure java.base is always present
+    allModules.add("java.base");
+
+    log.debug(
+        "Bytecode dependency analysis detected {} module(s): {}", allModules.size(), allModules);
+    return new DependencyResult(allModules, perJarModules);
+  }
+
+  @Override
+  public boolean canMergeJarStates() {
+    return true;
+  }
+
+  @Override
+  public void mergeJarStates(JarDependencies jarState, JarDependencies batchState) {
+    jarState.merge(batchState);
+  }
+
+  @Override
+  public JarStateCodec<JarDependencies> jarStateCodec() {
+    return JAR_STATE_CODEC;
+  }
+
+  /**
+   * Per-JAR accumulator: the JDK modules referenced by each class, keyed by class entry name with
+   * any multi-release prefix removed.
+   */
+  public static final class JarDependencies {
+
+    private final Path jarPath;
+    private final Map<String, VersionedReferences> classes;
+    private Map<String, Set<String>> moduleReferences;
+    private Set<String> requires;
+
+    JarDependencies(Path jarPath) {
+      this.jarPath = jarPath;
+      this.classes = new HashMap<>();
+    }
+
+    /** Creates a state restored from its attributed form. */
+    JarDependencies(Path jarPath, Map<String, Set<String>> moduleReferences, Set<String> requires) {
+      this.jarPath = jarPath;
+      this.classes = Map.of();
+      this.moduleReferences = moduleReferences;
+      this.requires = requires;
+    }
+
+    /**
+     * Returns a fresh reference set for a class version, or null if a higher applicable version of
+     * the class has already been recorded.
+     */
+    private Set<String> referencesOf(String className, int version) {
+      VersionedReferences existing = classes.get(className);
+      if (existing != null && existing.version() > version) {
+        return null;
+      }
+      Set<String> references = new HashSet<>();
+      classes.put(className, new VersionedReferences(version, references));
+      moduleReferences = null;
+      return references;
+    }
+
+    /**
+     * Adds the classes and requires directives of a later batch of this JAR's entries. As in a
+     * single scan, the highest applicable version of a class wins, the later one on a tie.
+     */
+    private void merge(JarDependencies batch) {
+      batch.classes.forEach(
+          (className, references) ->
+              classes.merge(
+                  className,
+                  references,
+                  (earlier, later) -> earlier.version() > later.version() ? earlier : later));
+      if (batch.requires != null) {
+        if (requires == null) {
+          requires = new TreeSet<>();
+        }
+        requires.addAll(batch.requires);
+      }
+      moduleReferences = null;
+    }
+
+    /**
+     * Returns the internal names of the classes referencing each JDK module.
+     *
+     * @return module name to referencing classes, sorted by module name
+     */
+    public Map<String, Set<String>> moduleReferences() {
+      if (moduleReferences == null) {
+        Map<String, Set<String>> result = new TreeMap<>();
+        for (Map.Entry<String, VersionedReferences> entry : classes.entrySet()) {
+          String className = entry.getKey().substring(0, entry.getKey().length() - 6);
+          for (String module : entry.getValue().modules()) {
+            result.computeIfAbsent(module, m -> new TreeSet<>()).add(className);
+          }
+        }
+        moduleReferences = result;
+      }
+      return moduleReferences;
+    }
+
+    /**
+     * Returns the JDK modules this JAR requires: the requires directives of a modular JAR,
+     * otherwise the modules referenced by its classes.
+     */
+    Set<String> requiredModules(JdkClassIndex jdkClassIndex) {
+      if (requires != null) {
+        Set<String> jdkModules = new TreeSet<>();
+        for (String module : requires) {
+          if (jdkClassIndex.isJdkModule(module)) {
+            jdkModules.add(module);
+          }
+        }
+        return jdkModules;
+      }
+      return new TreeSet<>(moduleReferences().keySet());
+    }
+  }
+
+  private record VersionedReferences(int version, Set<String> modules) {}
+
+  /** Records the requires directives of a module descriptor. */
+  private static class ModuleInfoVisitor extends ClassVisitor {
+
+    private final JarDependencies jarState;
+
+    ModuleInfoVisitor(JarDependencies jarState) {
+      super(Opcodes.ASM9);
+      this.jarState = jarState;
+    }
+
+    @Override
+    public ModuleVisitor visitModule(String name, int access, String version) {
+      if (jarState.requires == null) {
+        jarState.requires = new TreeSet<>();
+      }
+      return new ModuleVisitor(Opcodes.ASM9) {
+        @Override
+        public void visitRequire(String module, int access, String version) {
+          jarState.requires.add(module);
+        }
+      };
+    }
+  }
+
+  /** ASM ClassVisitor collecting the JDK modules of all types a class references. */
+  private class DependencyVisitor extends ClassVisitor {
+
+    private final Set<String> modules;
+
+    DependencyVisitor(Set<String> modules) {
+      super(Opcodes.ASM9);
+      this.modules = modules;
+    }
+
+    @Override
+    public void visit(
+        int version,
+        int access,
+        String name,
+        String signature,
+        String superName,
+        String[] interfaces) {
+      addInternalName(superName);
+      if (interfaces != null) {
+        for (String iface : interfaces) {
+          addInternalName(iface);
+        }
+      }
+    }
+
+    @Override
+    public FieldVisitor visitField(
+        int access, String name, String descriptor, String signature, Object value) {
+      addType(Type.getType(descriptor));
+      return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        int access, String name, String descriptor, String signature, String[] exceptions) {
+      addType(Type.getMethodType(descriptor));
+      if (exceptions != null) {
+        for (String exception : exceptions) {
+          addInternalName(exception);
+        }
+      }
+      return new DependencyMethodVisitor();
+    }
+
+    private void addInternalName(String internalName) {
+      if (internalName == null) {
+        return;
+      }
+      if (internalName.startsWith("[")) {
+        addType(Type.getType(internalName));
+        return;
+      }
+      String module = moduleOf(internalName);
+      if (module != null) {
+        modules.add(module);
+      }
+    }
+
+    private void addType(Type type) {
+      switch (type.getSort()) {
+        case Type.ARRAY -> addType(type.getElementType());
+        case Type.OBJECT -> addInternalName(type.getInternalName());
+        case Type.METHOD -> {
+          addType(type.getReturnType());
+          for (Type argType : type.getArgumentTypes()) {
+            addType(argType);
+          }
+        }
+        default -> {
+          // Primitive types reference no class
+        }
+      }
+    }
+
+    private void addHandle(Handle handle) {
+      addInternalName(handle.getOwner());
+      String descriptor = handle.getDesc();
+      addType(
+          descriptor.startsWith("(") ? Type.getMethodType(descriptor) : Type.getType(descriptor));
+    }
+
+    private void addConstant(Object value) {
+      if (value instanceof Type type) {
+        addType(type);
+      } else if (value instanceof Handle handle) {
+        addHandle(handle);
+      }
+    }
+
+    /** Inner method visitor collecting references from method body instructions. */
+    private class DependencyMethodVisitor extends MethodVisitor {
+
+      DependencyMethodVisitor() {
+        super(Opcodes.ASM9);
+      }
+
+      @Override
+      public void visitMethodInsn(
+          int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        addInternalName(owner);
+        addType(Type.getMethodType(descriptor));
+      }
+
+      @Override
+      public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+        addInternalName(owner);
+        addType(Type.getType(descriptor));
+      }
+
+      @Override
+      public void visitTypeInsn(int opcode, String type) {
+        // NEW, ANEWARRAY, CHECKCAST, INSTANCEOF
+        addInternalName(type);
+      }
+
+      @Override
+      public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+        addType(Type.getType(descriptor));
+      }
+
+      @Override
+      public void visitLdcInsn(Object value) {
+        addConstant(value);
+      }
+
+      @Override
+      public void visitInvokeDynamicInsn(
+          String name,
+          String descriptor,
+          Handle bootstrapMethodHandle,
+          Object... bootstrapMethodArguments) {
+        addType(Type.getMethodType(descriptor));
+        addHandle(bootstrapMethodHandle);
+        for (Object argument : bootstrapMethodArguments) {
+          addConstant(argument);
+        }
+      }
+
+      @Override
+      public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+        addInternalName(type);
+      }
+    }
+  }
+}
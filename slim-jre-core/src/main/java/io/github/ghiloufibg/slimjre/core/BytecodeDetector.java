@@ -0,0 +1,122 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.objectweb.asm.ClassVisitor;
+
+/**
+ * A bytecode analysis that plugs into the shared single pass performed by {@link
+ * BytecodeScanEngine}.
+ *
+ * <p>Detectors never open JARs or parse classes themselves. The engine reads every class once and
+ * dispatches the parsed events to the visitors contributed by all registered detectors, so adding a
+ * detector does not add another pass over the classpath.
+ *
+ * <p>The lifecycle of a detector within a scan is:
+ *
+ * <ol>
+ *   <li>{@link #newJarState(Path)} is called once per JAR to create a mutable accumulator
+ *   <li>{@link #newClassVisitor(Object, String)} is called for every class entry of that JAR; the
+ *       returned visitor records its findings into the JAR state
+ *   <li>{@link #aggregate(List)} is called once with the states of all scanned JARs, in input order
+ * </ol>
+ *
+ * <p>JAR states are confined to the thread scanning that JAR and need not be thread-safe.
+ *
+ * <p>Detectors that {@linkplain #canMergeJarStates() can merge} their states let the engine split a
+ * large JAR into batches of entries scanned on several threads. Each batch gets its own state from
+ * {@link #newJarState(Path)}, and the batch states are merged in entry order into one JAR state.
+ *
+ * <p>Before a class is parsed, every detector may reject it by its {@linkplain
+ * #mayMatch(ConstantPool) constant pool}; a class no detector accepts is never parsed. In a
+ * decision-only scan, a detector whose state {@linkplain #decides(Object) decides} its result is
+ * not given any further classes, in any JAR.
+ *
+ * <p>Detectors that provide a {@link #jarStateCodec()} have their per-JAR states persisted when the
+ * engine is backed by an {@link AnalysisCache}; a JAR is only opened if at least one detector has
+ * no cached state for it.
+ *
+ * @param <J> per-JAR accumulator type
+ * @param <R> aggregated result type
+ */
+public interface BytecodeDetector<J, R> {
+
+  /**
+   * Creates an empty accumulator for a JAR about to be scanned.
+   *
+   * @param jarPath path of the JAR being scanned
+   * @return a new, empty per-JAR state
+   */
+  J newJarState(Path jarPath);
+
+  /**
+   * Returns a visitor that records this detector's findings for one class into the JAR state.
+   *
+   * @param jarState accumulator of the JAR containing the class
+   * @param entryName JAR entry name of the class (e.g., "com/example/App.class")
+   * @return a class visitor, or null if this detector is not interested in the entry
+   */
+  ClassVisitor newClassVisitor(J jarState, String entryName);
+
+  /**
+   * Checks the constant pool of a class before it is parsed. The visitor of a class that is
+   * rejected receives no events.
+   *
+   * @param constantPool constant pool of the class
+   * @return false if the class cannot contain anything this detector looks for
+   */
+  default boolean mayMatch(ConstantPool constantPool) {
+    return true;
+  }
+
+  /**
+   * Checks if a JAR state already settles the detector's result, e.g. proves that a module is
+   * required. In a decision-only scan the detector is then not given any further classes, so the
+   * states of the JARs scanned afterwards, and the details they would add, are incomplete.
+   *
+   * @param jarState state of a JAR, possibly still being scanned
+   * @return true if further classes cannot change the detector's decision
+   */
+  default boolean decides(J jarState) {
+    return false;
+  }
+
+  /**
+   * Combines the per-JAR states into the detector's final result.
+   *
+   * @param jarStates states of all successfully scanned JARs, in input order
+   * @return the aggregated detection result
+   */
+  R aggregate(List<J> jarStates);
+
+  /**
+   * Returns true if this detector implements {@link #mergeJarStates(Object, Object)}, allowing the
+   * classes of a large JAR to be scanned in batches on several threads.
+   *
+   * @return true if the states of batches of the same JAR can be merged
+   */
+  default boolean canMergeJarStates() {
+    return false;
+  }
+
+  /**
+   * Merges the state of a batch of a JAR's classes into the state of the batches before it. The
+   * result must equal the state a single scan of the entries of both would have produced.
+   *
+   * @param jarState state of the earlier batches, updated in place
+   * @param batchState state of the following batch
+   * @throws UnsupportedOperationException if {@link #canMergeJarStates()} returns false
+   */
+  default void mergeJarStates(J jarState, J batchState) {
+    throw new UnsupportedOperationException(getClass().getName() + " cannot merge JAR states");
+  }
+
+  /**
+   * Returns the codec used to persist this detector's per-JAR states in an {@link AnalysisCache}.
+   *
+   * @return the codec, or null if the detector's states are not cacheable
+   */
+  default JarStateCodec<J> jarStateCodec() {
+    return null;
+  }
+}
@@ -0,0 +1,668 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single-pass bytecode scan engine shared by all ASM-based scanners.
+ *
+ * <p>Each JAR is opened once and each class entry is read and parsed once. The events of that
+ * single parse are fanned out to the visitors of every registered {@link BytecodeDetector}, so the
+ * cost of a scan is dominated by one traversal of the classpath regardless of how many detectors
+ * take part.
+ *
+ * <p>JARs nested inside fat JARs and WARs, given as {@link NestedJar} paths, are read in place
+ * through {@link JarContents} without being extracted.
+ *
+ * <p>JARs are scanned in parallel on the parsing threads of a {@link ScanScheduler}, holding one of
+ * its open-JAR permits while a JAR is read. Per-JAR states are handed to each detector in input
+ * order once all JARs have been scanned.
+ *
+ * <p>A JAR with at least twice {@link #DEFAULT_BATCH_SIZE} entries, read with random access, is
+ * split by central directory index into batches that are {@linkplain ScanScheduler#fork forked}
+ * onto the idle parsing threads, provided every detector scanning it {@linkplain
+ * BytecodeDetector#canMergeJarStates() can merge} its states. The batch states are merged in entry
+ * order, so the results equal those of a sequential scan.
+ *
+ * <p>A class is parsed only if at least one detector accepts its {@link ConstantPool}, so classes
+ * that mention none of the APIs the detectors look for are read but never decoded. A decision-only
+ * scan also stops giving classes to a detector once its result is settled, see {@link #scan(List,
+ * List, ScanScheduler, boolean)}.
+ *
+ * <p>Every scan counts the JARs, classes and bytes it read, overall and per detector, and reports
+ * them with the results.
+ *
+ * <p>When backed by an {@link AnalysisCache}, the per-JAR states of detectors that provide a {@link
+ * JarStateCodec} are looked up by JAR digest before scanning and stored after a successful scan. A
+ * JAR whose states are all cached is not opened at all; otherwise only the detectors without a
+ * cached state take part in its scan.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * BytecodeScanEngine engine = new BytecodeScanEngine();
+ * BytecodeScanEngine.Results results = engine.scan(jars, List.of(cryptoScanner, localeScanner));
+ * CryptoDetectionResult crypto = results.get(cryptoScanner);
+ * }</pre>
+ */
+public class BytecodeScanEngine {
+
+  private static final Logger log = LoggerFactory.getLogger(BytecodeScanEngine.class);
+
+  /** Parsing options shared by all detectors; none of them inspects debug info or frames. */
+  static final int PARSING_OPTIONS = ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+  /** Entries per batch when a JAR with at least twice as many is scanned on several threads. */
+  static final int DEFAULT_BATCH_SIZE = 2048;
+
+  private final AnalysisCache cache;
+  private final int batchSize;
+
+  /** Creates an engine that always scans JARs. */
+  public BytecodeScanEngine() {
+    this(null);
+  }
+
+  /**
+   * Creates an engine backed by a persistent cache of per-JAR states.
+   *
+   * @param cache the analysis cache, or null to disable caching
+   */
+  public BytecodeScanEngine(AnalysisCache cache) {
+    this(cache, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Creates an engine splitting JARs into batches of the given number of entries.
+   *
+   * @param cache the analysis cache, or null to disable caching
+   * @param batchSize entries per batch of a large JAR
+   */
+  BytecodeScanEngine(AnalysisCache cache, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    this.cache = cache;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Scans all JARs once, dispatching every class to all given detectors.
+   *
+   * @param jars JARs to scan
+   * @param detectors detectors taking part in the scan
+   * @return aggregated results, one per detector
+   */
+  public Results scan(List<Path> jars, List<? extends BytecodeDetector<?, ?>> detectors) {
+    return scan(jars, detectors, ScanScheduler.shared());
+  }
+
+  /**
+   * Scans all JARs once on a scheduler, dispatching every class to all given detectors.
+   *
+   * @param jars JARs to scan
+   * @param detectors detectors taking part in the scan
+   * @param scheduler scheduler bounding the parsing threads and open JARs
+   * @return aggregated results, one per detector
+   */
+  public Results scan(
+      List<Path> jars, List<? extends BytecodeDetector<?, ?>> detectors, ScanScheduler scheduler) {
+    return scan(jars, detectors, scheduler, false);
+  }
+
+  /**
+   * Scans all JARs once on a scheduler, dispatching every class to all given detectors until their
+   * decision is settled.
+   *
+   * <p>In a decision-only scan, a detector whose state {@linkplain BytecodeDetector#decides
+   * decides} its result is given no further classes, and JARs no remaining detector needs are not
+   * opened. Its result then holds the details found until the decision only, and the incomplete
+   * states are not cached.
+   *
+   * @param jars JARs to scan
+   * @param detectors detectors taking part in the scan
+   * @param scheduler scheduler bounding the parsing threads and open JARs
+   * @param decisionOnly whether to stop feeding detectors once their decision is settled
+   * @return aggregated results, one per detector
+   */
+  public Results scan(
+      List<Path> jars,
+      List<? extends BytecodeDetector<?, ?>> detectors,
+      ScanScheduler scheduler,
+      boolean decisionOnly) {
+    Objects.requireNonNull(detectors, "detectors must not be null");
+    Objects.requireNonNull(scheduler, "scheduler must not be null");
+
+    long start = System.nanoTime();
+    List<BytecodeDetector<?, ?>> activeDetectors = List.copyOf(detectors);
+    List<Path> jarList = jars != null ? jars : List.of();
+    List<JarScan> jarScans = new ArrayList<>(jarList.size());
+
+    if (!activeDetectors.isEmpty() && !jarList.isEmpty()) {
+      log.debug(
+          "Scanning {} JAR(s) with {} bytecode detector(s) in a single pass...",
+          jarList.size(),
+          activeDetectors.size());
+
+      Decisions decisions = new Decisions(decisionOnly, activeDetectors.size());
+      jarScans.addAll(
+          scheduler.parse(
+              jarList, jar -> scanJarStates(jar, activeDetectors, scheduler, decisions)));
+    }
+
+    long jarsFromCache = 0;
+    long classes = 0;
+    long bytesRead = 0;
+    for (JarScan jarScan : jarScans) {
+      jarsFromCache += jarScan.fromCache() ? 1 : 0;
+      classes += jarScan.classes();
+      bytesRead += jarScan.bytesRead();
+    }
+    Statistics statistics =
+        new Statistics(
+            jarScans.size(),
+            jarsFromCache,
+            classes,
+            bytesRead,
+            Duration.ofNanos(System.nanoTime() - start));
+
+    Map<BytecodeDetector<?, ?>, Object> results = new IdentityHashMap<>();
+    Map<BytecodeDetector<?, ?>, DetectorStatistics> detectorStatistics = new IdentityHashMap<>();
+    for (int i = 0; i < activeDetectors.size(); i++) {
+      List<Object> statesOfDetector = new ArrayList<>(jarScans.size());
+      long visited = 0;
+      long cacheHits = 0;
+      for (JarScan jarScan : jarScans) {
+        statesOfDetector.add(jarScan.states().get(i));
+        visited += jarScan.visited()[i];
+        cacheHits += jarScan.cached()[i] ? 1 : 0;
+      }
+
+      long aggregationStart = System.nanoTime();
+      results.put(activeDetectors.get(i), aggregate(activeDetectors.get(i), statesOfDetector));
+      detectorStatistics.put(
+          activeDetectors.get(i),
+          new DetectorStatistics(
+              visited, cacheHits, Duration.ofNanos(System.nanoTime() - aggregationStart)));
+    }
+
+    return new Results(results, statistics, detectorStatistics);
+  }
+
+  /**
+   * Scans all JARs once for a single detector.
+   *
+   * @param jars JARs to scan
+   * @param detector the detector to run
+   * @param <R> aggregated result type
+   * @return the detector's aggregated result
+   */
+  public <R> R scan(List<Path> jars, BytecodeDetector<?, R> detector) {
+    return scan(jars, List.of(detector)).get(detector);
+  }
+
+  /**
+   * Scans a single JAR for a single detector and returns the raw per-JAR state.
+   *
+   * @param jarPath JAR to scan
+   * @param detector the detector to run
+   * @param <J> per-JAR state type
+   * @return the detector's state for this JAR
+   */
+  @SuppressWarnings("unchecked")
+  public <J> J scanJar(Path jarPath, BytecodeDetector<J, ?> detector) {
+    Objects.requireNonNull(jarPath, "jarPath must not be null");
+    return (J)
+        scanJarStates(jarPath, List.of(detector), ScanScheduler.shared(), new Decisions(false, 1))
+            .states()
+            .get(0);
+  }
+
+  /**
+   * Checks if a JAR entry is a module descriptor rather than a regular class.
+   *
+   * @param entryName JAR entry name
+   * @return true for module-info.class, including versioned copies
+   */
+  static boolean isModuleInfo(String entryName) {
+    return entryName.equals("module-info.class") || entryName.endsWith("/module-info.class");
+  }
+
+  /**
+   * Scans one JAR, reading every class once and feeding it to all detectors without a cached state.
+   * Large JARs are scanned in batches on several threads.
+   *
+   * @return per-detector states, aligned with {@code detectors}, and what was read to get them
+   */
+  private JarScan scanJarStates(
+      Path jarPath,
+      List<BytecodeDetector<?, ?>> detectors,
+      ScanScheduler scheduler,
+      Decisions decisions) {
+    List<Object> states = newJarStates(jarPath, detectors);
+    int[] visited = new int[detectors.size()];
+
+    if (!NestedJar.exists(jarPath)) {
+      log.warn("JAR file does not exist: {}", jarPath);
+      return new JarScan(states, new boolean[detectors.size()], visited, 0, 0);
+    }
+
+    boolean[] cached = loadCachedStates(jarPath, detectors, states);
+    int pending = 0;
+    for (int i = 0; i < cached.length; i++) {
+      if (cached[i]) {
+        decisions.check(detectors, i, states.get(i));
+      } else if (!decisions.isDecided(i)) {
+        pending++;
+      }
+    }
+    if (pending == 0) {
+      log.trace("No detector needs to scan {}", jarPath.getFileName());
+      return new JarScan(states, cached, visited, 0, 0);
+    }
+
+    EntryScan scan = new EntryScan(detectors, cached, states, decisions);
+
+    try {
+      scheduler.withOpenJar(
+          () -> {
+            try (JarContents jar = JarContents.open(jarPath)) {
+              List<JarContents.Entry> entries = jar.entries();
+              if (entries == null) {
+                jar.forEach(scan::accept);
+              } else if (entries.size() >= 2 * batchSize && canMerge(detectors, cached)) {
+                scanInBatches(jarPath, entries, scan, scheduler);
+              } else {
+                entries.forEach(scan::accept);
+              }
+            }
+            return null;
+          });
+    } catch (IOException e) {
+      log.warn("Failed to scan JAR {}: {}", jarPath, e.getMessage());
+      return new JarScan(
+          newJarStates(jarPath, detectors),
+          new boolean[detectors.size()],
+          new int[detectors.size()],
+          scan.classes,
+          scan.bytesRead);
+    }
+
+    storeScannedStates(jarPath, detectors, states, cached, scan.truncated);
+    return new JarScan(states, cached, scan.visited, scan.classes, scan.bytesRead);
+  }
+
+  /**
+   * Scans the entries of a large JAR in batches on the parsing threads and merges the batch states
+   * into {@code scan} in entry order.
+   */
+  private void scanInBatches(
+      Path jarPath, List<JarContents.Entry> entries, EntryScan scan, ScanScheduler scheduler) {
+    List<Callable<EntryScan>> batches = new ArrayList<>();
+    for (int from = 0; from < entries.size(); from += batchSize) {
+      List<JarContents.Entry> batch =
+          entries.subList(from, Math.min(from + batchSize, entries.size()));
+      batches.add(
+          () -> {
+            EntryScan batchScan =
+                new EntryScan(
+                    scan.detectors,
+                    scan.cached,
+                    newJarStates(jarPath, scan.detectors),
+                    scan.decisions);
+            batch.forEach(batchScan::accept);
+            return batchScan;
+          });
+    }
+    log.debug("Scanning {} entries of {} in {} batches", entries.size(), jarPath, batches.size());
+
+    for (EntryScan batchScan : scheduler.fork(batches)) {
+      scan.merge(batchScan);
+    }
+  }
+
+  /** Checks if all detectors scanning a JAR can merge the states of batches of its entries. */
+  private static boolean canMerge(List<BytecodeDetector<?, ?>> detectors, boolean[] cached) {
+    for (int i = 0; i < detectors.size(); i++) {
+      if (!cached[i] && !detectors.get(i).canMergeJarStates()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Replaces the fresh states of detectors with a cached entry for this JAR.
+   *
+   * @return flags telling which states were served from the cache
+   */
+  private boolean[] loadCachedStates(
+      Path jarPath, List<BytecodeDetector<?, ?>> detectors, List<Object> states) {
+    boolean[] cached = new boolean[detectors.size()];
+    if (cache == null) {
+      return cached;
+    }
+
+    for (int i = 0; i < detectors.size(); i++) {
+      JarStateCodec<?> codec = detectors.get(i).jarStateCodec();
+      if (codec == null) {
+        continue;
+      }
+      Optional<Map<String, Set<String>>> entry = cache.get(jarPath, codec.id(), codec.version());
+      if (entry.isPresent()) {
+        states.set(i, codec.decode(jarPath, entry.get()));
+        cached[i] = true;
+      }
+    }
+    return cached;
+  }
+
+  /**
+   * Persists the states of cacheable detectors that were computed by scanning this JAR, unless
+   * their scan was cut short by a settled decision.
+   */
+  private void storeScannedStates(
+      Path jarPath,
+      List<BytecodeDetector<?, ?>> detectors,
+      List<Object> states,
+      boolean[] cached,
+      boolean[] truncated) {
+    if (cache == null) {
+      return;
+    }
+
+    for (int i = 0; i < detectors.size(); i++) {
+      if (!cached[i] && !truncated[i]) {
+        storeState(jarPath, detectors.get(i), states.get(i));
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <J> void storeState(Path jarPath, BytecodeDetector<J, ?> detector, Object state) {
+    JarStateCodec<J> codec = detector.jarStateCodec();
+    if (codec != null) {
+      cache.put(jarPath, codec.id(), codec.version(), codec.encode((J) state));
+    }
+  }
+
+  private List<Object> newJarStates(Path jarPath, List<BytecodeDetector<?, ?>> detectors) {
+    List<Object> states = new ArrayList<>(detectors.size());
+    for (BytecodeDetector<?, ?> detector : detectors) {
+      states.add(detector.newJarState(jarPath));
+    }
+    return states;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <J> ClassVisitor newClassVisitor(
+      BytecodeDetector<J, ?> detector, Object state, String entryName) {
+    return detector.newClassVisitor((J) state, entryName);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <J> void mergeJarStates(
+      BytecodeDetector<J, ?> detector, Object jarState, Object batchState) {
+    detector.mergeJarStates((J) jarState, (J) batchState);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <J> boolean decides(BytecodeDetector<J, ?> detector, Object state) {
+    return detector.decides((J) state);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <J> Object aggregate(BytecodeDetector<J, ?> detector, List<Object> states) {
+    return detector.aggregate((List<J>) states);
+  }
+
+  /** Detectors whose result is settled within one decision-only scan, shared by its threads. */
+  private static final class Decisions {
+
+    private final boolean enabled;
+    private final AtomicIntegerArray decided;
+
+    Decisions(boolean enabled, int detectors) {
+      this.enabled = enabled;
+      this.decided = new AtomicIntegerArray(detectors);
+    }
+
+    /** Returns true if the detector must not be given any further classes. */
+    boolean isDecided(int detector) {
+      return enabled && decided.get(detector) != 0;
+    }
+
+    /** Records the detector's decision if the state settles it. */
+    void check(List<BytecodeDetector<?, ?>> detectors, int detector, Object state) {
+      if (enabled && decided.get(detector) == 0 && decides(detectors.get(detector), state)) {
+        decided.set(detector, 1);
+        log.debug(
+            "{} decision settled, skipping its remaining classes",
+            detectors.get(detector).getClass().getSimpleName());
+      }
+    }
+  }
+
+  /**
+   * Feeds class entries to the detectors without a cached state, recording their findings into one
+   * set of states. A scan of a whole JAR or of one batch of its entries; confined to one thread.
+   */
+  private static final class EntryScan {
+
+    private final List<BytecodeDetector<?, ?>> detectors;
+    private final boolean[] cached;
+    private final List<Object> states;
+    private final Decisions decisions;
+    private final int[] visited;
+    private final boolean[] truncated;
+    private final List<ClassVisitor> visitors;
+    private final List<Integer> visitorDetectors;
+    private long classes;
+    private long bytesRead;
+
+    EntryScan(
+        List<BytecodeDetector<?, ?>> detectors,
+        boolean[] cached,
+        List<Object> states,
+        Decisions decisions) {
+      this.detectors = detectors;
+      this.cached = cached;
+      this.states = states;
+      this.decisions = decisions;
+      this.visited = new int[detectors.size()];
+      this.truncated = new boolean[detectors.size()];
+      this.visitors = new ArrayList<>(detectors.size());
+      this.visitorDetectors = new ArrayList<>(detectors.size());
+    }
+
+    /**
+     * Reads one entry once if it is a class any detector is interested in, and parses it if any of
+     * them accepts its constant pool.
+     */
+    void accept(JarContents.Entry entry) {
+      String name = entry.name();
+      if (!name.endsWith(".class") || entry.isDirectory()) {
+        return;
+      }
+
+      visitors.clear();
+      visitorDetectors.clear();
+      for (int i = 0; i < detectors.size(); i++) {
+        if (cached[i]) {
+          continue;
+        }
+        if (decisions.isDecided(i)) {
+          truncated[i] = true;
+          continue;
+        }
+        ClassVisitor visitor = newClassVisitor(detectors.get(i), states.get(i), name);
+        if (visitor != null) {
+          visitors.add(visitor);
+          visitorDetectors.add(i);
+        }
+      }
+      if (visitors.isEmpty()) {
+        return;
+      }
+
+      try {
+        // The class is parsed straight from the thread's buffer, which the visitors never keep
+        JarContents.EntryBuffer buffer = JarContents.EntryBuffer.perThread();
+        entry.read(buffer);
+        classes++;
+        bytesRead += buffer.length();
+        ClassReader reader = new ClassReader(buffer.bytes(), 0, buffer.length());
+        if (reader.header + 8 > buffer.length()) {
+          throw new IllegalArgumentException("Truncated class file");
+        }
+        ConstantPool constantPool = new ConstantPool(reader, buffer.bytes());
+        for (int v = visitors.size() - 1; v >= 0; v--) {
+          if (!detectors.get(visitorDetectors.get(v)).mayMatch(constantPool)) {
+            visitors.remove(v);
+            visitorDetectors.remove(v);
+          }
+        }
+        if (visitors.isEmpty()) {
+          return;
+        }
+
+        for (int i : visitorDetectors) {
+          visited[i]++;
+        }
+        reader.accept(FanOutClassVisitor.of(visitors), PARSING_OPTIONS);
+        for (int i : visitorDetectors) {
+          decisions.check(detectors, i, states.get(i));
+        }
+      } catch (IOException | RuntimeException e) {
+        // Malformed classes must not abort the scan of the remaining entries
+        log.trace("Failed to scan class {}: {}", name, e.getMessage());
+      }
+    }
+
+    /** Adds the findings and counters of the scan of the following batch of entries. */
+    void merge(EntryScan batch) {
+      for (int i = 0; i < detectors.size(); i++) {
+        if (!cached[i]) {
+          mergeJarStates(detectors.get(i), states.get(i), batch.states.get(i));
+          visited[i] += batch.visited[i];
+          truncated[i] |= batch.truncated[i];
+        }
+      }
+      classes += batch.classes;
+      bytesRead += batch.bytesRead;
+    }
+  }
+
+  /**
+   * Outcome of scanning one JAR.
+   *
+   * @param states per-detector states
+   * @param cached which states were served from the cache
+   * @param visited number of classes each detector visited
+   * @param classes number of classes read and parsed
+   * @param bytesRead uncompressed bytes of those classes
+   */
+  private record JarScan(
+      List<Object> states, boolean[] cached, int[] visited, long classes, long bytesRead) {
+
+    /** Returns true if the JAR was not opened because all states came from the cache. */
+    boolean fromCache() {
+      if (cached.length == 0) {
+        return false;
+      }
+      for (boolean hit : cached) {
+        if (!hit) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Work done by a scan.
+   *
+   * @param jars number of JARs scanned or served from the cache
+   * @param jarsFromCache number of JARs not opened because all detector states were cached
+   * @param classes number of classes read and parsed
+   * @param bytesRead uncompressed bytes of those classes
+   * @param wallTime elapsed time of the scan, aggregation included
+   */
+  public record Statistics(
+      long jars, long jarsFromCache, long classes, long bytesRead, Duration wallTime) {}
+
+  /**
+   * Work done by one detector within a scan.
+   *
+   * @param classes number of classes the detector visited
+   * @param cacheHits number of JARs whose state for the detector came from the cache
+   * @param aggregationTime time spent aggregating the detector's per-JAR states
+   */
+  public record DetectorStatistics(long classes, long cacheHits, Duration aggregationTime) {}
+
+  /** Aggregated results of a scan, keyed by detector instance. */
+  public static final class Results {
+
+    private final Map<BytecodeDetector<?, ?>, Object> results;
+    private final Statistics statistics;
+    private final Map<BytecodeDetector<?, ?>, DetectorStatistics> detectorStatistics;
+
+    private Results(
+        Map<BytecodeDetector<?, ?>, Object> results,
+        Statistics statistics,
+        Map<BytecodeDetector<?, ?>, DetectorStatistics> detectorStatistics) {
+      this.results = results;
+      this.statistics = statistics;
+      this.detectorStatistics = detectorStatistics;
+    }
+
+    /** Returns the work done by the whole scan. */
+    public Statistics statistics() {
+      return statistics;
+    }
+
+    /**
+     * Returns the work done by one detector.
+     *
+     * @param detector the detector instance passed to {@link #scan(List, List)}
+     * @return the detector's statistics
+     * @throws IllegalArgumentException if the detector did not take part in the scan
+     */
+    public DetectorStatistics statistics(BytecodeDetector<?, ?> detector) {
+      if (!detectorStatistics.containsKey(detector)) {
+        throw new IllegalArgumentException("Detector was not part of this scan: " + detector);
+      }
+      return detectorStatistics.get(detector);
+    }
+
+    /**
+     * Returns the aggregated result of a detector that took part in the scan.
+     *
+     * @param detector the detector instance passed to {@link #scan(List, List)}
+     * @param <R> aggregated result type
+     * @return the detector's result
+     * @throws IllegalArgumentException if the detector did not take part in the scan
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(BytecodeDetector<?, R> detector) {
+      if (!results.containsKey(detector)) {
+        throw new IllegalArgumentException("Detector was not part of this scan: " + detector);
+      }
+      return (R) results.get(detector);
+    }
+  }
+}
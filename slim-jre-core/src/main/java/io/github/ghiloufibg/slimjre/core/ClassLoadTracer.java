@@ -0,0 +1,142 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import io.github.ghiloufibg.slimjre.config.TraceResult;
+import io.github.ghiloufibg.slimjre.config.TrainingRun;
+import io.github.ghiloufibg.slimjre.exception.TrainingRunException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the JDK modules an application actually uses by running it with class-load logging.
+ *
+ * <p>The application runs on the current JDK with {@code -Xlog:class+load}, which writes one line
+ * per loaded class ({@code java.sql.DriverManager source: jrt:/java.sql}). Every class is mapped to
+ * its module through the {@link JdkClassIndex}; classes from the CDS archive carry no module in
+ * their source, and application classes have none in the index. Logging is built into the JVM, so
+ * no agent JAR is needed and the run is bounded by the {@link TrainingRun} timeout.
+ */
+public class ClassLoadTracer {
+
+  private static final Logger log = LoggerFactory.getLogger(ClassLoadTracer.class);
+
+  private static final String JRT_SOURCE = "source: jrt:/";
+
+  private final JdkClassIndex jdkClassIndex;
+  private final TrainingRunner trainingRunner = new TrainingRunner();
+
+  /** Creates a new ClassLoadTracer using the shared JDK class index. */
+  public ClassLoadTracer() {
+    this(JdkClassIndex.shared());
+  }
+
+  /**
+   * Creates a new ClassLoadTracer.
+   *
+   * @param jdkClassIndex index mapping JDK classes to their modules
+   */
+  public ClassLoadTracer(JdkClassIndex jdkClassIndex) {
+    this.jdkClassIndex = Objects.requireNonNull(jdkClassIndex);
+  }
+
+  /**
+   * Runs the application and returns the JDK modules of the classes it loaded.
+   *
+   * @param jars analyzed JARs, the class path of the run
+   * @param run how to run the application
+   * @return the observed modules, not yet compared with static detection
+   * @throws TrainingRunException if the application cannot be run or logs no classes
+   */
+  public TraceResult trace(List<Path> jars, TrainingRun run) {
+    Path logFile = null;
+    try {
+      logFile = Files.createTempFile("slim-jre-trace-", ".log");
+      TrainingRunner.Outcome outcome =
+          trainingRunner.run(
+              Path.of(System.getProperty("java.home")),
+              List.of("-Xlog:class+load=info:file=\"" + logFile.toAbsolutePath() + "\":none"),
+              jars,
+              run);
+      if (!outcome.timedOut() && outcome.exitCode() != 0) {
+        log.warn(
+            "Traced run exited with code {}; modules are those loaded until then",
+            outcome.exitCode());
+      }
+
+      TraceResult result = parse(logFile);
+      if (result.loadedJdkClasses() == 0) {
+        throw new TrainingRunException(
+            "Traced run loaded no JDK classes"
+                + (outcome.output().isEmpty() ? "" : ":\n" + outcome.output()));
+      }
+      log.info(
+          "Traced run loaded {} JDK class(es) from {} module(s)",
+          result.loadedJdkClasses(),
+          result.observedModules().size());
+      return result;
+
+    } catch (IOException e) {
+      throw new TrainingRunException("Failed to read class-load trace: " + e.getMessage(), e);
+    } finally {
+      if (logFile != null) {
+        try {
+          Files.deleteIfExists(logFile);
+        } catch (IOException e) {
+          log.debug("Failed to delete trace {}: {}", logFile, e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Maps the classes of a class-load log to their JDK modules.
+   *
+   * @param logFile log written with {@code -Xlog:class+load} and no decorations
+   * @return the observed modules and the number of JDK classes
+   * @throws IOException if the log cannot be read
+   */
+  TraceResult parse(Path logFile) throws IOException {
+    Set<String> modules = new TreeSet<>();
+    long jdkClasses = 0;
+
+    try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int space = line.indexOf(' ');
+        if (space <= 0) {
+          continue;
+        }
+        String module = moduleOf(line.substring(0, space), line);
+        if (module != null) {
+          modules.add(module);
+          jdkClasses++;
+        }
+      }
+    }
+    return new TraceResult(modules, jdkClasses, Set.of(), Set.of());
+  }
+
+  /** Returns the JDK module of a logged class, or null for application classes. */
+  private String moduleOf(String className, String line) {
+    // Hidden classes such as lambda proxies are logged as "Name/0x..."
+    int slash = className.indexOf('/');
+    String binaryName = slash >= 0 ? className.substring(0, slash) : className;
+
+    String module = jdkClassIndex.moduleOfClass(binaryName);
+    if (module == null) {
+      int jrt = line.indexOf(JRT_SOURCE);
+      if (jrt >= 0) {
+        module = line.substring(jrt + JRT_SOURCE.length()).trim();
+      }
+    }
+    return module;
+  }
+}
@@ -0,0 +1,119 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Read-only view of the constant pool of a class, checked before the class is parsed.
+ *
+ * <p>Every type, member descriptor and string literal a class refers to is stored as a UTF8 entry
+ * of its constant pool. A class whose UTF8 entries contain none of a detector's fragments cannot
+ * contain anything the detector looks for, so its method bodies need not be decoded. Entries are
+ * compared as raw bytes, without decoding them to strings, and each entry is read once however many
+ * fragments a detector has.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * private static final ConstantPool.Fragments FRAGMENTS = ConstantPool.fragments("javax/net/ssl/");
+ *
+ * public boolean mayMatch(ConstantPool constantPool) {
+ *   return constantPool.mentions(FRAGMENTS);
+ * }
+ * }</pre>
+ */
+public final class ConstantPool {
+
+  private static final int UTF8_TAG = 1;
+
+  private final ClassReader reader;
+  private final byte[] classFile;
+
+  /**
+   * Creates a view of the constant pool of a class.
+   *
+   * @param reader reader created from {@code classFile}
+   * @param classFile the array {@code reader} was created from
+   */
+  ConstantPool(ClassReader reader, byte[] classFile) {
+    this.reader = reader;
+    this.classFile = classFile;
+  }
+
+  /**
+   * Creates fragments to look for, given as ASCII text such as internal name prefixes.
+   *
+   * @param fragments the fragments
+   * @return fragments to pass to {@link #mentions(Fragments)}
+   */
+  public static Fragments fragments(String... fragments) {
+    byte[][] bytes = new byte[fragments.length][];
+    for (int i = 0; i < fragments.length; i++) {
+      bytes[i] = fragments[i].getBytes(StandardCharsets.US_ASCII);
+    }
+    return new Fragments(bytes);
+  }
+
+  /**
+   * Checks if any UTF8 entry of the constant pool contains any of the fragments.
+   *
+   * @param fragments fragments to look for
+   * @return true if the class may refer to something the fragments describe
+   */
+  public boolean mentions(Fragments fragments) {
+    int itemCount = reader.getItemCount();
+    for (int item = 1; item < itemCount; item++) {
+      int offset = reader.getItem(item);
+      // Unused slots following long and double constants have no offset
+      if (offset == 0 || classFile[offset - 1] != UTF8_TAG) {
+        continue;
+      }
+      int start = offset + 2;
+      int end = start + reader.readUnsignedShort(offset);
+      if (contains(start, end, fragments)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean contains(int start, int end, Fragments fragments) {
+    for (int i = start; i < end; i++) {
+      byte[][] candidates = fragments.byFirstByte[classFile[i] & 0xFF];
+      if (candidates == null) {
+        continue;
+      }
+      for (byte[] fragment : candidates) {
+        if (fragment.length <= end - i
+            && Arrays.equals(classFile, i, i + fragment.length, fragment, 0, fragment.length)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** Fragments a detector looks for, encoded once and indexed by their first byte. */
+  public static final class Fragments {
+
+    private final byte[][][] byFirstByte = new byte[256][][];
+
+    private Fragments(byte[][] bytes) {
+      for (byte[] fragment : bytes) {
+        if (fragment.length == 0) {
+          throw new IllegalArgumentException("Fragments must not be empty");
+        }
+        int first = fragment[0] & 0xFF;
+        byte[][] candidates = byFirstByte[first];
+        if (candidates == null) {
+          byFirstByte[first] = new byte[][] {fragment};
+        } else {
+          candidates = Arrays.copyOf(candidates, candidates.length + 1);
+          candidates[candidates.length - 1] = fragment;
+          byFirstByte[first] = candidates;
+        }
+      }
+    }
+  }
+}
@@ -1,22 +1,14 @@
 package io.github.ghiloufibg.slimjre.core;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Enumeration;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.stream.Stream;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
@@ -56,7 +48,8 @@ import org.slf4j.LoggerFactory;
  * @see <a href="https://bugs.openjdk.org/browse/JDK-8245027">JDK-8245027: SunEC Provider not
  *     available with jlink</a>
  */
-public class CryptoModuleScanner {
+public class CryptoModuleScanner
+    implements BytecodeDetector<CryptoModuleScanner.JarScanResult, CryptoDetectionResult> {
 
   private static final Logger log = LoggerFactory.getLogger(CryptoModuleScanner.class);
 
@@ -109,6 +102,40 @@ public class CryptoModuleScanner {
   private static final Set<String> SSL_PACKAGE_PREFIXES =
       Set.of("javax/net/ssl/", "java/net/http/", "javax/crypto/");
 
+  /** Constant pool fragments of every class name the patterns above match, derived from them. */
+  private static final ConstantPool.Fragments FRAGMENTS =
+      ConstantPool.fragments(
+          Stream.concat(SSL_CRYPTO_PATTERNS.stream(), SSL_PACKAGE_PREFIXES.stream())
+              .toArray(String[]::new));
+
+  /** Persists per-JAR patterns; bump the version whenever the patterns above change. */
+  private static final JarStateCodec<JarScanResult> JAR_STATE_CODEC =
+      new JarStateCodec<>() {
+        @Override
+        public String id() {
+          return "crypto";
+        }
+
+        @Override
+        public int version() {
+          return 2;
+        }
+
+        @Override
+        public Map<String, Set<String>> encode(JarScanResult jarState) {
+          return Map.of("patterns", jarState.patterns());
+        }
+
+        @Override
+        public JarScanResult decode(Path jarPath, Map<String, Set<String>> sections) {
+          return new JarScanResult(
+              jarPath.getFileName().toString(),
+              new LinkedHashSet<>(sections.getOrDefault("patterns", Set.of())));
+        }
+      };
+
+  private final BytecodeScanEngine scanEngine = new BytecodeScanEngine();
+
   /** Creates a new CryptoModuleScanner. */
   public CryptoModuleScanner() {
     log.debug("Initialized CryptoModuleScanner with {} patterns", SSL_CRYPTO_PATTERNS.size());
@@ -131,23 +158,32 @@ public class CryptoModuleScanner {
 
     log.debug("Scanning {} JAR(s) for SSL/TLS patterns...", jars.size());
 
-    Set<String> detectedInJars = ConcurrentHashMap.newKeySet();
-    Set<String> detectedPatterns = ConcurrentHashMap.newKeySet();
+    return scanEngine.scan(jars, this);
+  }
 
-    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-      List<Future<JarScanResult>> futures =
-          jars.stream().map(jar -> executor.submit(() -> scanJar(jar))).toList();
+  @Override
+  public JarScanResult newJarState(Path jarPath) {
+    return new JarScanResult(jarPath.getFileName().toString(), new LinkedHashSet<>());
+  }
 
-      for (Future<JarScanResult> future : futures) {
-        try {
-          JarScanResult result = future.get();
-          if (!result.patterns.isEmpty()) {
-            detectedInJars.add(result.jarName);
-            detectedPatterns.addAll(result.patterns);
-          }
-        } catch (Exception e) {
-          log.warn("Failed to get crypto scan result: {}", e.getMessage());
-        }
+  @Override
+  public ClassVisitor newClassVisitor(JarScanResult jarState, String entryName) {
+    // Skip module-info.class as it doesn't contain API usage
+    if (BytecodeScanEngine.isModuleInfo(entryName)) {
+      return null;
+    }
+    return new CryptoPatternVisitor(jarState.patterns());
+  }
+
+  @Override
+  public CryptoDetectionResult aggregate(List<JarScanResult> jarStates) {
+    Set<String> detectedInJars = new LinkedHashSet<>();
+    Set<String> detectedPatterns = new TreeSet<>();
+
+    for (JarScanResult result : jarStates) {
+      if (!result.patterns().isEmpty()) {
+        detectedInJars.add(result.jarName());
+        detectedPatterns.addAll(result.patterns());
       }
     }
 
@@ -165,8 +201,33 @@ public class CryptoModuleScanner {
       log.debug("Crypto detection: No SSL/TLS patterns found");
     }
 
-    return new CryptoDetectionResult(
-        requiredModules, new TreeSet<>(detectedPatterns), new LinkedHashSet<>(detectedInJars));
+    return new CryptoDetectionResult(requiredModules, detectedPatterns, detectedInJars);
+  }
+
+  @Override
+  public boolean mayMatch(ConstantPool constantPool) {
+    return constantPool.mentions(FRAGMENTS);
+  }
+
+  @Override
+  public boolean decides(JarScanResult jarState) {
+    // Any pattern makes the module required
+    return !jarState.patterns().isEmpty();
+  }
+
+  @Override
+  public boolean canMergeJarStates() {
+    return true;
+  }
+
+  @Override
+  public void mergeJarStates(JarScanResult jarState, JarScanResult batchState) {
+    jarState.patterns().addAll(batchState.patterns());
+  }
+
+  @Override
+  public JarStateCodec<JarScanResult> jarStateCodec() {
+    return JAR_STATE_CODEC;
   }
 
   /**
@@ -176,41 +237,7 @@ public class CryptoModuleScanner {
    * @return scan result with JAR name and detected patterns
    */
   JarScanResult scanJar(Path jarPath) {
-    Objects.requireNonNull(jarPath, "jarPath must not be null");
-
-    String jarName = jarPath.getFileName().toString();
-
-    if (!Files.exists(jarPath)) {
-      log.warn("JAR file does not exist: {}", jarPath);
-      return new JarScanResult(jarName, Set.of());
-    }
-
-    Set<String> detectedPatterns = new LinkedHashSet<>();
-
-    try (JarFile jar = new JarFile(jarPath.toFile())) {
-      Enumeration<JarEntry> entries = jar.entries();
-      while (entries.hasMoreElements()) {
-        JarEntry entry = entries.nextElement();
-        if (entry.getName().endsWith(".class") && !entry.isDirectory()) {
-          // Skip module-info.class as it doesn't contain API usage
-          if (entry.getName().equals("module-info.class")
-              || entry.getName().endsWith("/module-info.class")) {
-            continue;
-          }
-          try (InputStream is = jar.getInputStream(entry);
-              BufferedInputStream bis = new BufferedInputStream(is, 8192)) {
-            detectedPatterns.addAll(scanClass(bis));
-          } catch (IOException e) {
-            log.trace("Failed to scan class {}: {}", entry.getName(), e.getMessage());
-          }
-        }
-      }
-    } catch (IOException e) {
-      log.warn("Failed to scan JAR {}: {}", jarPath, e.getMessage());
-      return new JarScanResult(jarName, Set.of());
-    }
-
-    return new JarScanResult(jarName, detectedPatterns);
+    return scanEngine.scanJar(jarPath, this);
   }
 
   /**
@@ -221,7 +248,7 @@ public class CryptoModuleScanner {
    */
   Set<String> scanClass(InputStream classInputStream) throws IOException {
     ClassReader reader = new ClassReader(classInputStream);
-    CryptoPatternVisitor visitor = new CryptoPatternVisitor();
+    CryptoPatternVisitor visitor = new CryptoPatternVisitor(new LinkedHashSet<>());
     reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
     return visitor.getDetectedPatterns();
   }
@@ -258,10 +285,11 @@ public class CryptoModuleScanner {
   /** ASM ClassVisitor that detects SSL/TLS and crypto API usage patterns. */
   private class CryptoPatternVisitor extends ClassVisitor {
 
-    private final Set<String> detectedPatterns = new LinkedHashSet<>();
+    private final Set<String> detectedPatterns;
 
-    CryptoPatternVisitor() {
+    CryptoPatternVisitor(Set<String> detectedPatterns) {
       super(Opcodes.ASM9);
+      this.detectedPatterns = detectedPatterns;
     }
 
     @Override
@@ -0,0 +1,41 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Determines the JDK modules statically referenced by the classes of a set of JARs.
+ *
+ * <p>Implementations:
+ *
+ * <ul>
+ *   <li>{@link JDepsAnalyzer}: runs the jdeps tool in-process
+ *   <li>{@link BytecodeDependencyAnalyzer}: resolves class references read with ASM against the
+ *       packages of the running JDK
+ * </ul>
+ *
+ * <p>Modular JARs contribute the JDK modules named in their {@code requires} directives,
+ * non-modular JARs the modules of the JDK classes they reference.
+ */
+public interface DependencyEngine {
+
+  /**
+   * Analyzes JARs and returns their combined JDK module requirements.
+   *
+   * @param jars JARs to analyze
+   * @return required JDK module names, always including java.base
+   * @throws io.github.ghiloufibg.slimjre.exception.SlimJreException if analysis fails
+   */
+  Set<String> analyzeRequiredModules(List<Path> jars);
+
+  /**
+   * Analyzes each JAR individually and derives the combined requirements as the union of the
+   * per-JAR results.
+   *
+   * @param jars JARs to analyze
+   * @return combined requirements together with the per-JAR breakdown
+   * @throws io.github.ghiloufibg.slimjre.exception.SlimJreException if analysis fails
+   */
+  DependencyResult analyzePerJarFirst(List<Path> jars);
+}
@@ -0,0 +1,26 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Result of a per-JAR-first dependency analysis by a {@link DependencyEngine}.
+ *
+ * <p>The required modules are the union of the modules required by each individual JAR, so a single
+ * analysis yields both the aggregate set and the per-JAR breakdown.
+ *
+ * @param requiredModules union of the JDK modules required by all JARs
+ * @param perJarModules JDK modules required by each JAR, in input order
+ */
+public record DependencyResult(Set<String> requiredModules, Map<Path, Set<String>> perJarModules) {
+
+  public DependencyResult {
+    // Defensive copies
+    requiredModules = Collections.unmodifiableSet(new TreeSet<>(requiredModules));
+    perJarModules = Collections.unmodifiableMap(new LinkedHashMap<>(perJarModules));
+  }
+}
@@ -1,12 +1,17 @@
 package io.github.ghiloufibg.slimjre.core;
 
+import io.github.ghiloufibg.slimjre.config.PipelineStage;
+import io.github.ghiloufibg.slimjre.config.StageMetrics;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -16,24 +21,43 @@ import org.slf4j.LoggerFactory;
 /**
  * Result of JAR discovery from directories, archives, fat JARs, and WARs.
  *
- * <p>Implements AutoCloseable to clean up any temporary directories created during nested JAR
- * extraction (e.g., from Spring Boot fat JARs or WAR files).
+ * <p>JARs nested inside fat JARs and WARs are listed as virtual {@link NestedJar} paths unless they
+ * were extracted. Implements AutoCloseable to clean up any temporary directories created during
+ * nested JAR extraction (e.g., from Spring Boot fat JARs or WAR files).
  *
- * @param jars All discovered JAR files
+ * @param jars All discovered JAR files, nested ones as virtual paths when not extracted
  * @param tempDirectory Temporary directory for extracted nested JARs (null if no extraction needed)
- * @param hasNestedJars Whether the discovery included nested JAR extraction
+ * @param hasNestedJars Whether the discovery included the nested JARs of an archive
  * @param warnings Any warnings encountered during discovery
+ * @param metrics Timing and counters of the discovery, where bytes inflated are the bytes of
+ *     extracted JARs
  */
 public record DiscoveryResult(
-    Set<Path> jars, Path tempDirectory, boolean hasNestedJars, List<String> warnings)
+    Set<Path> jars,
+    Path tempDirectory,
+    boolean hasNestedJars,
+    List<String> warnings,
+    StageMetrics metrics)
     implements AutoCloseable {
 
   private static final Logger log = LoggerFactory.getLogger(DiscoveryResult.class);
 
+  /** Creates a DiscoveryResult without metrics (backward compatibility). */
+  public DiscoveryResult(
+      Set<Path> jars, Path tempDirectory, boolean hasNestedJars, List<String> warnings) {
+    this(
+        jars,
+        tempDirectory,
+        hasNestedJars,
+        warnings,
+        StageMetrics.timed(PipelineStage.DISCOVERY, Duration.ZERO, null));
+  }
+
   public DiscoveryResult {
     // Defensive copies for immutability
     jars = Set.copyOf(jars);
     warnings = List.copyOf(warnings);
+    Objects.requireNonNull(metrics, "metrics must not be null");
   }
 
   /**
@@ -59,6 +83,15 @@ public record DiscoveryResult(
     return List.copyOf(jars);
   }
 
+  /**
+   * Returns handles to the discovered JARs that are read in place from an enclosing archive.
+   *
+   * @return nested JARs, empty if none or if they were extracted
+   */
+  public List<NestedJar> nestedJars() {
+    return jars.stream().map(NestedJar::fromPath).flatMap(Optional::stream).toList();
+  }
+
   /**
    * Returns the number of discovered JARs.
    *
@@ -0,0 +1,235 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * ClassVisitor that forwards every event to several delegate visitors, allowing multiple detectors
+ * to share a single {@link org.objectweb.asm.ClassReader#accept} call.
+ *
+ * <p>Method, field and module visitors returned by the delegates are combined the same way.
+ * Delegates that return null for a member simply stop receiving events for it.
+ */
+final class FanOutClassVisitor extends ClassVisitor {
+
+  private final List<ClassVisitor> delegates;
+
+  private FanOutClassVisitor(List<ClassVisitor> delegates) {
+    super(Opcodes.ASM9);
+    this.delegates = delegates;
+  }
+
+  /**
+   * Returns a visitor forwarding to all given delegates.
+   *
+   * @param delegates non-empty list of visitors
+   * @return the single delegate if there is only one, otherwise a fan-out visitor
+   */
+  static ClassVisitor of(List<ClassVisitor> delegates) {
+    if (delegates.size() == 1) {
+      return delegates.get(0);
+    }
+    return new FanOutClassVisitor(List.copyOf(delegates));
+  }
+
+  @Override
+  public void visit(
+      int version,
+      int access,
+      String name,
+      String signature,
+      String superName,
+      String[] interfaces) {
+    for (ClassVisitor delegate : delegates) {
+      delegate.visit(version, access, name, signature, superName, interfaces);
+    }
+  }
+
+  @Override
+  public ModuleVisitor visitModule(String name, int access, String version) {
+    List<ModuleVisitor> moduleVisitors = new ArrayList<>(delegates.size());
+    for (ClassVisitor delegate : delegates) {
+      ModuleVisitor mv = delegate.visitModule(name, access, version);
+      if (mv != null) {
+        moduleVisitors.add(mv);
+      }
+    }
+    return switch (moduleVisitors.size()) {
+      case 0 -> null;
+      case 1 -> moduleVisitors.get(0);
+      default -> new FanOutModuleVisitor(moduleVisitors);
+    };
+  }
+
+  @Override
+  public FieldVisitor visitField(
+      int access, String name, String descriptor, String signature, Object value) {
+    List<FieldVisitor> fieldVisitors = new ArrayList<>(delegates.size());
+    for (ClassVisitor delegate : delegates) {
+      FieldVisitor fv = delegate.visitField(access, name, descriptor, signature, value);
+      if (fv != null) {
+        fieldVisitors.add(fv);
+      }
+    }
+    return switch (fieldVisitors.size()) {
+      case 0 -> null;
+      case 1 -> fieldVisitors.get(0);
+      default -> new FanOutFieldVisitor(fieldVisitors);
+    };
+  }
+
+  @Override
+  public MethodVisitor visitMethod(
+      int access, String name, String descriptor, String signature, String[] exceptions) {
+    List<MethodVisitor> methodVisitors = new ArrayList<>(delegates.size());
+    for (ClassVisitor delegate : delegates) {
+      MethodVisitor mv = delegate.visitMethod(access, name, descriptor, signature, exceptions);
+      if (mv != null) {
+        methodVisitors.add(mv);
+      }
+    }
+    return switch (methodVisitors.size()) {
+      case 0 -> null;
+      case 1 -> methodVisitors.get(0);
+      default -> new FanOutMethodVisitor(methodVisitors);
+    };
+  }
+
+  @Override
+  public void visitEnd() {
+    for (ClassVisitor delegate : delegates) {
+      delegate.visitEnd();
+    }
+  }
+
+  /** ModuleVisitor forwarding the directives detectors inspect to several delegates. */
+  private static final class FanOutModuleVisitor extends ModuleVisitor {
+
+    private final List<ModuleVisitor> delegates;
+
+    FanOutModuleVisitor(List<ModuleVisitor> delegates) {
+      super(Opcodes.ASM9);
+      this.delegates = delegates;
+    }
+
+    @Override
+    public void visitRequire(String module, int access, String version) {
+      for (ModuleVisitor delegate : delegates) {
+        delegate.visitRequire(module, access, version);
+      }
+    }
+
+    @Override
+    public void visitEnd() {
+      for (ModuleVisitor delegate : delegates) {
+        delegate.visitEnd();
+      }
+    }
+  }
+
+  /** FieldVisitor forwarding to several delegates. */
+  private static final class FanOutFieldVisitor extends FieldVisitor {
+
+    private final List<FieldVisitor> delegates;
+
+    FanOutFieldVisitor(List<FieldVisitor> delegates) {
+      super(Opcodes.ASM9);
+      this.delegates = delegates;
+    }
+
+    @Override
+    public void visitEnd() {
+      for (FieldVisitor delegate : delegates) {
+        delegate.visitEnd();
+      }
+    }
+  }
+
+  /** MethodVisitor forwarding the instructions detectors inspect to several delegates. */
+  private static final class FanOutMethodVisitor extends MethodVisitor {
+
+    private final List<MethodVisitor> delegates;
+
+    FanOutMethodVisitor(List<MethodVisitor> delegates) {
+      super(Opcodes.ASM9);
+      this.delegates = delegates;
+    }
+
+    @Override
+    public void visitMethodInsn(
+        int opcode, String owner, String name, String descriptor, boolean isInterface) {
+      for (MethodVisitor delegate : delegates) {
+        delegate.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+      }
+    }
+
+    @Override
+    public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+      for (MethodVisitor delegate : delegates) {
+        delegate.visitFieldInsn(opcode, owner, name, descriptor);
+      }
+    }
+
+    @Override
+    public void visitTypeInsn(int opcode, String type) {
+      for (MethodVisitor delegate : delegates) {
+        delegate.visitTypeInsn(opcode, type);
+      }
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+      for (MethodVisitor delegate : delegates) {
+        delegate.visitMultiANewArrayInsn(descriptor, numDimensions);
+      }
+    }
+
+    @Override
+    public void visitLdcInsn(Object value) {
+      for (MethodVisitor delegate : delegates) {
+        delegate.visitLdcInsn(value);
+      }
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(
+        String name,
+        String descriptor,
+        Handle bootstrapMethodHandle,
+        Object... bootstrapMethodArguments) {
+      for (MethodVisitor delegate : delegates) {
+        delegate.visitInvokeDynamicInsn(
+            name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+      }
+    }
+
+    @Override
+    public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+      for (MethodVisitor delegate : delegates) {
+        delegate.visitTryCatchBlock(start, end, handler, type);
+      }
+    }
+
+    @Override
+    public void visitLocalVariable(
+        String name, String descriptor, String signature, Label start, Label end, int index) {
+      for (MethodVisitor delegate : delegates) {
+        delegate.visitLocalVariable(name, descriptor, signature, start, end, index);
+      }
+    }
+
+    @Override
+    public void visitEnd() {
+      for (MethodVisitor delegate : delegates) {
+        delegate.visitEnd();
+      }
+    }
+  }
+}
@@ -1,10 +1,11 @@
 package io.github.ghiloufibg.slimjre.core;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -13,12 +14,6 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
@@ -54,41 +49,68 @@ public class GraalVmMetadataScanner {
   private static final Pattern RESOURCE_PATTERN_PATTERN =
       Pattern.compile("\"pattern\"\\s*:\\s*\"([^\"]+)\"");
 
-  private final Map<String, String> classToModuleCache;
+  /** Bump whenever metadata parsing or the class-to-module mapping rules change. */
+  private static final int CACHE_VERSION = 1;
+
+  static final String CACHE_ID = "graalvm-metadata";
+
+  private final JdkClassIndex jdkClassIndex;
+  private final AnalysisCache analysisCache;
 
   /** Creates a scanner with the default configuration. */
   public GraalVmMetadataScanner() {
-    this.classToModuleCache = buildClassToModuleCache();
+    this(null);
+  }
+
+  /**
+   * Creates a scanner that persists the modules detected in each JAR.
+   *
+   * @param analysisCache the analysis cache, or null to disable caching
+   */
+  public GraalVmMetadataScanner(AnalysisCache analysisCache) {
+    this(
+        analysisCache,
+        JdkClassIndex.shared(analysisCache != null ? analysisCache.directory() : null));
+  }
+
+  /**
+   * Creates a scanner that persists the modules detected in each JAR.
+   *
+   * @param analysisCache the analysis cache, or null to disable caching
+   * @param jdkClassIndex index mapping JDK classes to their modules
+   */
+  public GraalVmMetadataScanner(AnalysisCache analysisCache, JdkClassIndex jdkClassIndex) {
+    this.analysisCache = analysisCache;
+    this.jdkClassIndex = Objects.requireNonNull(jdkClassIndex, "jdkClassIndex must not be null");
     log.debug("Initialized GraalVmMetadataScanner for embedded metadata scanning");
   }
 
   /**
-   * Scans multiple JARs in parallel for GraalVM metadata.
+   * Scans multiple JARs in parallel for GraalVM metadata on the shared scan scheduler.
    *
    * @param jars list of JAR paths to scan
    * @return set of JDK module names required by GraalVM metadata
    */
   public Set<String> scanJarsParallel(List<Path> jars) {
+    return scanJarsParallel(jars, ScanScheduler.shared());
+  }
+
+  /**
+   * Scans multiple JARs in parallel for GraalVM metadata. Reading the metadata is I/O-bound, so the
+   * JARs are read on virtual threads, bounded by the scheduler's open-JAR permits.
+   *
+   * @param jars list of JAR paths to scan
+   * @param scheduler scheduler bounding the open JARs
+   * @return set of JDK module names required by GraalVM metadata
+   */
+  public Set<String> scanJarsParallel(List<Path> jars, ScanScheduler scheduler) {
     if (jars == null || jars.isEmpty()) {
       return Set.of();
     }
 
-    Set<String> allModules = ConcurrentHashMap.newKeySet();
-
-    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-      List<Future<Set<String>>> futures =
-          jars.stream().map(jar -> executor.submit(() -> scanJar(jar))).toList();
-
-      for (Future<Set<String>> future : futures) {
-        try {
-          allModules.addAll(future.get());
-        } catch (Exception e) {
-          log.warn("Failed to get scan result: {}", e.getMessage());
-        }
-      }
-    }
-
-    return new TreeSet<>(allModules);
+    Set<String> allModules = new TreeSet<>();
+    scheduler.read(jars, this::scanJar).forEach(allModules::addAll);
+    return allModules;
   }
 
   /**
@@ -100,11 +122,19 @@ public class GraalVmMetadataScanner {
   public Set<String> scanJar(Path jarPath) {
     Objects.requireNonNull(jarPath, "jarPath must not be null");
 
-    if (!Files.exists(jarPath)) {
+    if (!NestedJar.exists(jarPath)) {
       log.warn("JAR file does not exist: {}", jarPath);
       return Set.of();
     }
 
+    if (analysisCache != null) {
+      Optional<Map<String, Set<String>>> cached =
+          analysisCache.get(jarPath, CACHE_ID, CACHE_VERSION);
+      if (cached.isPresent()) {
+        return new HashSet<>(cached.get().getOrDefault("modules", Set.of()));
+      }
+    }
+
     // Scan embedded metadata
     Set<String> modules = scanEmbeddedMetadata(jarPath);
     if (!modules.isEmpty()) {
@@ -121,20 +151,26 @@ public class GraalVmMetadataScanner {
    * @return optional containing coordinates if found
    */
   Optional<MavenCoordinates> extractMavenCoordinates(Path jarPath) {
-    try (JarFile jar = new JarFile(jarPath.toFile())) {
-      return jar.stream()
-          .filter(e -> e.getName().endsWith("pom.properties"))
-          .filter(e -> e.getName().startsWith("META-INF/maven/"))
-          .findFirst()
-          .flatMap(entry -> parsePomProperties(jar, entry));
+    try (JarContents jar = JarContents.open(jarPath)) {
+      List<MavenCoordinates> found = new ArrayList<>(1);
+      jar.forEach(
+          entry -> {
+            String name = entry.name();
+            if (found.isEmpty()
+                && name.endsWith("pom.properties")
+                && name.startsWith("META-INF/maven/")) {
+              parsePomProperties(entry).ifPresent(found::add);
+            }
+          });
+      return found.stream().findFirst();
     } catch (IOException e) {
       log.trace("Failed to read JAR {}: {}", jarPath, e.getMessage());
       return Optional.empty();
     }
   }
 
-  private Optional<MavenCoordinates> parsePomProperties(JarFile jar, JarEntry entry) {
-    try (InputStream is = jar.getInputStream(entry)) {
+  private Optional<MavenCoordinates> parsePomProperties(JarContents.Entry entry) {
+    try (InputStream is = new ByteArrayInputStream(entry.read())) {
       Properties props = new Properties();
       props.load(is);
 
@@ -160,19 +196,25 @@ public class GraalVmMetadataScanner {
   Set<String> scanEmbeddedMetadata(Path jarPath) {
     Set<String> modules = new HashSet<>();
 
-    try (JarFile jar = new JarFile(jarPath.toFile())) {
-      jar.stream()
-          .filter(e -> e.getName().startsWith(EMBEDDED_METADATA_PREFIX))
-          .filter(e -> e.getName().endsWith(".json"))
-          .filter(e -> isRelevantConfigFile(e.getName()))
-          .forEach(
-              entry -> {
-                try (InputStream is = jar.getInputStream(entry)) {
-                  modules.addAll(parseMetadataConfig(is, entry.getName()));
-                } catch (IOException e) {
-                  log.trace("Failed to parse {}: {}", entry.getName(), e.getMessage());
-                }
-              });
+    try (JarContents jar = JarContents.open(jarPath)) {
+      jar.forEach(
+          entry -> {
+            String name = entry.name();
+            if (!name.startsWith(EMBEDDED_METADATA_PREFIX)
+                || !name.endsWith(".json")
+                || !isRelevantConfigFile(name)) {
+              return;
+            }
+            try (InputStream is = new ByteArrayInputStream(entry.read())) {
+              modules.addAll(parseMetadataConfig(is, name));
+            } catch (IOException e) {
+              log.trace("Failed to parse {}: {}", name, e.getMessage());
+            }
+          });
+
+      if (analysisCache != null) {
+        analysisCache.put(jarPath, CACHE_ID, CACHE_VERSION, Map.of("modules", modules));
+      }
     } catch (IOException e) {
       log.trace("Failed to scan embedded metadata in {}: {}", jarPath, e.getMessage());
     }
@@ -252,7 +294,7 @@ public class GraalVmMetadataScanner {
 
     while (matcher.find()) {
       String className = matcher.group(1);
-      String module = classToModuleCache.get(className);
+      String module = jdkClassIndex.moduleOfClass(className);
       if (module != null && !module.equals("java.base")) {
         modules.add(module);
       }
@@ -276,7 +318,7 @@ public class GraalVmMetadataScanner {
       String resourcePattern = matcher.group(1);
       if (resourcePattern.endsWith(".class")) {
         String className = resourcePattern.replace("/", ".").replace(".class", "");
-        String module = classToModuleCache.get(className);
+        String module = jdkClassIndex.moduleOfClass(className);
         if (module != null && !module.equals("java.base")) {
           modules.add(module);
         }
@@ -286,33 +328,6 @@ public class GraalVmMetadataScanner {
     return modules;
   }
 
-  /**
-   * Builds a cache mapping JDK class names to their containing modules using the ModuleFinder API.
-   */
-  private Map<String, String> buildClassToModuleCache() {
-    Map<String, String> cache = new HashMap<>();
-    java.lang.module.ModuleFinder finder = java.lang.module.ModuleFinder.ofSystem();
-
-    for (var ref : finder.findAll()) {
-      String moduleName = ref.descriptor().name();
-      try {
-        ref.open()
-            .list()
-            .filter(name -> name.endsWith(".class"))
-            .forEach(
-                resource -> {
-                  String className = resource.replace('/', '.').substring(0, resource.length() - 6);
-                  cache.put(className, moduleName);
-                });
-      } catch (IOException e) {
-        log.trace("Failed to read module {}: {}", moduleName, e.getMessage());
-      }
-    }
-
-    log.debug("Built class-to-module cache with {} entries", cache.size());
-    return cache;
-  }
-
   /**
    * Returns the module name for a given JDK class.
    *
@@ -320,6 +335,6 @@ public class GraalVmMetadataScanner {
    * @return Optional containing the module name, or empty if not found
    */
   public Optional<String> getModuleForClass(String className) {
-    return Optional.ofNullable(classToModuleCache.get(className));
+    return Optional.ofNullable(jdkClassIndex.moduleOfClass(className));
   }
 }
@@ -3,13 +3,17 @@ package io.github.ghiloufibg.slimjre.core;
 import io.github.ghiloufibg.slimjre.exception.JDepsException;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.PrintStream;
 import java.lang.module.ModuleDescriptor;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.spi.ToolProvider;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -28,8 +32,12 @@ import org.slf4j.LoggerFactory;
  *
  * <p>Note: Modules that are not available in the current JDK (e.g., java.xml.ws removed in JDK 11)
  * are automatically filtered out.
+ *
+ * <p>When created with an {@link AnalysisCache}, aggregate jdeps results are persisted per
+ * classpath digest and per-JAR results per JAR digest, so unchanged inputs skip jdeps entirely on
+ * subsequent runs.
  */
-public class JDepsAnalyzer {
+public class JDepsAnalyzer implements DependencyEngine {
 
   private static final Logger log = LoggerFactory.getLogger(JDepsAnalyzer.class);
 
@@ -37,9 +45,22 @@ public class JDepsAnalyzer {
   private static final Set<String> JDK_MODULE_PREFIXES =
       Set.of("java.", "jdk.", "javafx.", "oracle.");
 
+  /** Cache id of aggregated results, keyed by the digests of all analyzed JARs. */
+  static final String CACHE_ID = "jdeps";
+
+  /** Cache id of per-JAR results, keyed by the JAR's digest alone. */
+  static final String PER_JAR_CACHE_ID = "jdeps-jar";
+
+  /** Bump whenever the jdeps invocation or result post-processing changes. */
+  private static final int CACHE_VERSION = 2;
+
+  private static final String MODULES_SECTION = "modules";
+
   private final ToolProvider jdeps;
   private final int javaVersion;
   private final Set<String> availableJdkModules;
+  private final AnalysisCache cache;
+  private final int parallelism;
 
   /**
    * Creates a new JDepsAnalyzer.
@@ -47,6 +68,32 @@ public class JDepsAnalyzer {
    * @throws JDepsException if jdeps is not available
    */
   public JDepsAnalyzer() {
+    this(null);
+  }
+
+  /**
+   * Creates a new JDepsAnalyzer backed by a persistent analysis cache.
+   *
+   * @param cache the analysis cache, or null to disable caching
+   * @throws JDepsException if jdeps is not available
+   */
+  public JDepsAnalyzer(AnalysisCache cache) {
+    this(cache, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a new JDepsAnalyzer with an explicit bound on concurrent per-JAR jdeps runs.
+   *
+   * @param cache the analysis cache, or null to disable caching
+   * @param parallelism maximum number of concurrent jdeps invocations
+   * @throws JDepsException if jdeps is not available
+   */
+  public JDepsAnalyzer(AnalysisCache cache, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1");
+    }
+    this.cache = cache;
+    this.parallelism = parallelism;
     this.jdeps =
         ToolProvider.findFirst("jdeps")
             .orElseThrow(
@@ -104,11 +151,18 @@ public class JDepsAnalyzer {
    * @return set of required JDK module names
    * @throws JDepsException if analysis fails
    */
+  @Override
   public Set<String> analyzeRequiredModules(List<Path> jars) {
     if (jars == null || jars.isEmpty()) {
       throw new JDepsException("At least one JAR file must be specified");
     }
 
+    Optional<Set<String>> cached = lookup(jars, CACHE_ID);
+    if (cached.isPresent()) {
+      log.debug("Using cached jdeps result for {} JAR(s): {}", jars.size(), cached.get());
+      return cached.get();
+    }
+
     Set<String> allModules = new TreeSet<>();
 
     // Separate modular and non-modular JARs
@@ -154,6 +208,7 @@ public class JDepsAnalyzer {
     allModules.add("java.base");
 
     log.debug("Total detected modules: {}", allModules);
+    store(jars, CACHE_ID, allModules);
     return allModules;
   }
 
@@ -165,14 +220,15 @@ public class JDepsAnalyzer {
    * @return set of required JDK module names
    */
   private Set<String> analyzeWithJdeps(List<Path> targetJars, List<Path> allJars) {
-    List<String> args = buildArguments(targetJars, allJars);
-    log.trace("jdeps arguments: {}", args);
-
     ByteArrayOutputStream out = new ByteArrayOutputStream();
     ByteArrayOutputStream err = new ByteArrayOutputStream();
 
-    int exitCode =
-        jdeps.run(new PrintStream(out), new PrintStream(err), args.toArray(new String[0]));
+    int exitCode;
+    try (MaterializedJars files = new MaterializedJars(allJars)) {
+      List<String> args = buildArguments(files.resolve(targetJars), files.resolve(allJars));
+      log.trace("jdeps arguments: {}", args);
+      exitCode = jdeps.run(new PrintStream(out), new PrintStream(err), args.toArray(new String[0]));
+    }
 
     String output = out.toString().trim();
     String error = err.toString().trim();
@@ -240,53 +296,47 @@ public class JDepsAnalyzer {
    * @throws IOException if reading fails
    */
   private Set<String> readModuleDescriptorRequires(Path jar) throws IOException {
-    try (JarFile jarFile = new JarFile(jar.toFile())) {
-      // Try root level first
-      JarEntry entry = jarFile.getJarEntry("module-info.class");
-
-      // If not at root, find in versioned directory (prefer highest version)
-      if (entry == null) {
-        entry = findVersionedModuleInfo(jarFile);
-      }
-
-      if (entry == null) {
-        return Set.of();
-      }
+    byte[] moduleInfo = null;
+    try (JarContents contents = JarContents.open(jar)) {
+      // Root level first, otherwise the highest versioned descriptor
+      int[] bestVersion = {-1};
+      byte[][] found = new byte[1][];
+      contents.forEach(
+          entry -> {
+            String name = entry.name();
+            if (name.equals("module-info.class")) {
+              found[0] = entry.read();
+              bestVersion[0] = Integer.MAX_VALUE;
+            } else if (isVersionedModuleInfo(name) && extractVersion(name) > bestVersion[0]) {
+              found[0] = entry.read();
+              bestVersion[0] = extractVersion(name);
+            }
+          });
+      moduleInfo = found[0];
+    }
 
-      try (InputStream is = jarFile.getInputStream(entry)) {
-        ModuleDescriptor descriptor = ModuleDescriptor.read(is);
-        return descriptor.requires().stream()
-            .map(ModuleDescriptor.Requires::name)
-            .collect(Collectors.toSet());
-      }
+    if (moduleInfo == null) {
+      return Set.of();
     }
+
+    ModuleDescriptor descriptor = ModuleDescriptor.read(ByteBuffer.wrap(moduleInfo));
+    return descriptor.requires().stream()
+        .map(ModuleDescriptor.Requires::name)
+        .collect(Collectors.toSet());
   }
 
-  /**
-   * Finds the module-info.class entry in a multi-release JAR, preferring the highest version.
-   *
-   * @param jarFile the JAR file to search
-   * @return the module-info entry or null if not found
-   */
-  private JarEntry findVersionedModuleInfo(JarFile jarFile) {
-    return jarFile.stream()
-        .filter(
-            e ->
-                e.getName().startsWith("META-INF/versions/")
-                    && e.getName().endsWith("/module-info.class"))
-        .max(Comparator.comparingInt(this::extractVersion))
-        .orElse(null);
+  private static boolean isVersionedModuleInfo(String name) {
+    return name.startsWith("META-INF/versions/") && name.endsWith("/module-info.class");
   }
 
   /**
    * Extracts the version number from a versioned entry path.
    *
-   * @param entry the JAR entry
+   * @param name the JAR entry name
    * @return the version number, or 0 if not parseable
    */
-  private int extractVersion(JarEntry entry) {
+  private static int extractVersion(String name) {
     // Format: META-INF/versions/N/module-info.class
-    String name = entry.getName();
     int start = "META-INF/versions/".length();
     int end = name.indexOf('/', start);
     if (end > start) {
@@ -323,18 +373,18 @@ public class JDepsAnalyzer {
    * @return true if the JAR contains module-info.class at root or in any versioned directory
    */
   private boolean isModularJar(Path jar) {
-    try (JarFile jarFile = new JarFile(jar.toFile())) {
-      // Check root level
-      if (jarFile.getEntry("module-info.class") != null) {
-        return true;
-      }
-      // Check multi-release versioned directories (9+)
+    try (JarContents contents = JarContents.open(jar)) {
+      // Check root level and multi-release versioned directories (9+)
       // jdeps uses --multi-release so we must detect these as modular too
-      return jarFile.stream()
-          .anyMatch(
-              e ->
-                  e.getName().startsWith("META-INF/versions/")
-                      && e.getName().endsWith("/module-info.class"));
+      boolean[] modular = {false};
+      contents.forEach(
+          entry -> {
+            String name = entry.name();
+            if (name.equals("module-info.class") || isVersionedModuleInfo(name)) {
+              modular[0] = true;
+            }
+          });
+      return modular[0];
     } catch (IOException e) {
       log.warn("Failed to check if {} is modular: {}", jar.getFileName(), e.getMessage());
       return false; // Assume non-modular if we can't check
@@ -345,48 +395,82 @@ public class JDepsAnalyzer {
    * Analyzes each JAR individually and returns a map of JAR to its required JDK modules.
    *
    * <p>Non-modular JARs are analyzed with jdeps. Modular JARs have their JDK dependencies extracted
-   * from module-info.class.
+   * from module-info.class. JARs that fail to analyze are logged and mapped to an empty set.
    *
    * @param jars list of JAR files to analyze
    * @return map of JAR path to its required JDK modules
    */
   public Map<Path, Set<String>> analyzeRequiredModulesPerJar(List<Path> jars) {
+    return analyzePerJar(jars, false);
+  }
+
+  /**
+   * Analyzes each JAR individually and derives the aggregate module set as the union of the per-JAR
+   * results.
+   *
+   * <p>Each non-modular JAR is passed to jdeps on its own, without the rest of the classpath. As
+   * every JAR of the classpath is itself analyzed, the union covers the same class references as a
+   * single jdeps run over the whole classpath, while no JAR is loaded more than once. The runs
+   * execute concurrently on a pool bounded by the analyzer's parallelism, since a single jdeps
+   * invocation is single-threaded.
+   *
+   * @param jars list of JAR files to analyze
+   * @return union of the required modules together with the per-JAR breakdown
+   * @throws JDepsException if no JARs are given or jdeps fails for any JAR
+   */
+  @Override
+  public DependencyResult analyzePerJarFirst(List<Path> jars) {
+    if (jars == null || jars.isEmpty()) {
+      throw new JDepsException("At least one JAR file must be specified");
+    }
+
+    Map<Path, Set<String>> perJarModules = analyzePerJar(jars, true);
+
+    Set<String> allModules = new TreeSet<>();
+    perJarModules.values().forEach(allModules::addAll);
+    allModules.add("java.base");
+
+    log.debug("Total detected modules (per-JAR union): {}", allModules);
+    return new DependencyResult(allModules, perJarModules);
+  }
+
+  /**
+   * Runs the per-JAR analysis of all JARs on a bounded pool.
+   *
+   * @param strict whether a failing JAR fails the whole analysis instead of yielding an empty set
+   */
+  private Map<Path, Set<String>> analyzePerJar(List<Path> jars, boolean strict) {
     Map<Path, Set<String>> result = new LinkedHashMap<>();
+    if (jars == null || jars.isEmpty()) {
+      return result;
+    }
 
-    for (Path jar : jars) {
-      if (isModularJar(jar)) {
-        // Modular JAR: extract JDK modules from module-info.class
-        try {
-          Set<String> allDeps = readModuleDescriptorRequires(jar);
-          Set<String> jdkDeps =
-              allDeps.stream()
-                  .filter(this::isJdkModule)
-                  .filter(availableJdkModules::contains) // Filter unavailable modules
-                  .collect(Collectors.toCollection(TreeSet::new));
-          result.put(jar, jdkDeps);
-        } catch (IOException e) {
-          log.warn("Failed to read module-info from {}: {}", jar.getFileName(), e.getMessage());
-          result.put(jar, Set.of());
-        }
-      } else {
-        // Non-modular JAR: analyze with jdeps
+    int threads = Math.min(parallelism, jars.size());
+    log.debug("Analyzing {} JAR(s) individually on {} thread(s)", jars.size(), threads);
+
+    ThreadFactory threadFactory = Thread.ofPlatform().name("jdeps-", 0).daemon().factory();
+    try (ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory)) {
+      Map<Path, Future<Set<String>>> futures = new LinkedHashMap<>();
+      for (Path jar : jars) {
+        futures.putIfAbsent(jar, executor.submit(() -> analyzeSingleJar(jar)));
+      }
+
+      for (Map.Entry<Path, Future<Set<String>>> entry : futures.entrySet()) {
+        Path jar = entry.getKey();
         try {
-          List<String> args = buildArguments(List.of(jar), jars);
-          ByteArrayOutputStream out = new ByteArrayOutputStream();
-          ByteArrayOutputStream err = new ByteArrayOutputStream();
-
-          int exitCode =
-              jdeps.run(new PrintStream(out), new PrintStream(err), args.toArray(new String[0]));
-
-          if (exitCode == 0) {
-            Set<String> modules = parseModuleOutput(out.toString().trim());
-            result.put(jar, modules);
-          } else {
-            log.warn("Failed to analyze {}: exit code {}", jar.getFileName(), exitCode);
-            result.put(jar, Set.of());
+          result.put(jar, entry.getValue().get());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          executor.shutdownNow();
+          throw new JDepsException("jdeps analysis interrupted", e);
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (strict) {
+            executor.shutdownNow();
+            throw new JDepsException(
+                "jdeps failed for " + jar.getFileName() + ": " + cause.getMessage(), cause);
           }
-        } catch (Exception e) {
-          log.warn("Failed to analyze {}: {}", jar.getFileName(), e.getMessage());
+          log.warn("Failed to analyze {}: {}", jar.getFileName(), cause.getMessage());
           result.put(jar, Set.of());
         }
       }
@@ -395,6 +479,72 @@ public class JDepsAnalyzer {
     return result;
   }
 
+  /**
+   * Determines the JDK modules required by a single JAR.
+   *
+   * @param jar the JAR to analyze
+   * @return required JDK modules
+   * @throws JDepsException if jdeps fails for a non-modular JAR
+   */
+  private Set<String> analyzeSingleJar(Path jar) {
+    if (isModularJar(jar)) {
+      // Modular JAR: extract JDK modules from module-info.class
+      try {
+        Set<String> allDeps = readModuleDescriptorRequires(jar);
+        return allDeps.stream()
+            .filter(this::isJdkModule)
+            .filter(availableJdkModules::contains) // Filter unavailable modules
+            .collect(Collectors.toCollection(TreeSet::new));
+      } catch (IOException e) {
+        log.warn("Failed to read module-info from {}: {}", jar.getFileName(), e.getMessage());
+        return Set.of();
+      }
+    }
+
+    // Non-modular JAR: analyze with jdeps, the JAR alone makes up the cache key
+    List<Path> cacheKey = List.of(jar);
+    Optional<Set<String>> cached = lookup(cacheKey, PER_JAR_CACHE_ID);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    int exitCode;
+    try (MaterializedJars files = new MaterializedJars(cacheKey)) {
+      List<String> args = buildArguments(files.resolve(cacheKey), List.of());
+      exitCode = jdeps.run(new PrintStream(out), new PrintStream(err), args.toArray(new String[0]));
+    }
+
+    if (exitCode != 0) {
+      String error = err.toString().trim();
+      throw new JDepsException(
+          "jdeps failed with exit code " + exitCode + (error.isEmpty() ? "" : ": " + error));
+    }
+
+    Set<String> modules = parseModuleOutput(out.toString().trim());
+    store(cacheKey, PER_JAR_CACHE_ID, modules);
+    return modules;
+  }
+
+  /** Looks up a cached module set stored under the digests of the given JARs. */
+  private Optional<Set<String>> lookup(List<Path> cacheKey, String cacheId) {
+    if (cache == null) {
+      return Optional.empty();
+    }
+    return cache
+        .get(cacheKey, cacheId, CACHE_VERSION)
+        .map(sections -> sections.get(MODULES_SECTION))
+        .map(modules -> (Set<String>) new TreeSet<>(modules));
+  }
+
+  private void store(List<Path> cacheKey, String cacheId, Set<String> modules) {
+    if (cache != null) {
+      cache.put(cacheKey, cacheId, CACHE_VERSION, Map.of(MODULES_SECTION, modules));
+    }
+  }
+
   /**
    * Builds the jdeps command-line arguments.
    *
@@ -458,4 +608,51 @@ public class JDepsAnalyzer {
   public int getJavaVersion() {
     return javaVersion;
   }
+
+  /**
+   * Real files for the JARs of a jdeps run.
+   *
+   * <p>jdeps only reads regular files, so JARs nested inside fat JARs and WARs are extracted to a
+   * temporary directory that is deleted once the run completes. Other JARs map to themselves.
+   */
+  private static final class MaterializedJars implements AutoCloseable {
+
+    private final Map<Path, Path> files = new HashMap<>();
+    private Path directory;
+
+    MaterializedJars(Collection<Path> jars) {
+      try {
+        for (Path jar : jars) {
+          Optional<NestedJar> nested = NestedJar.fromPath(jar);
+          if (nested.isPresent() && !files.containsKey(jar)) {
+            if (directory == null) {
+              directory = Files.createTempDirectory("slim-jre-jdeps-");
+            }
+            files.put(jar, nested.get().extractTo(directory));
+          }
+        }
+      } catch (IOException e) {
+        close();
+        throw new JDepsException("Failed to extract nested JAR for jdeps: " + e.getMessage(), e);
+      }
+    }
+
+    List<Path> resolve(List<Path> jars) {
+      return jars.stream().map(jar -> files.getOrDefault(jar, jar)).toList();
+    }
+
+    @Override
+    public void close() {
+      if (directory == null) {
+        return;
+      }
+      try (var walk = Files.walk(directory)) {
+        for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+          Files.deleteIfExists(path);
+        }
+      } catch (IOException e) {
+        log.warn("Failed to clean up {}: {}", directory, e.getMessage());
+      }
+    }
+  }
 }
@@ -1,18 +1,32 @@
 package io.github.ghiloufibg.slimjre.core;
 
+import io.github.ghiloufibg.slimjre.config.CdsArchive;
 import io.github.ghiloufibg.slimjre.config.JLinkOptions;
+import io.github.ghiloufibg.slimjre.config.StartupMeasurement;
 import io.github.ghiloufibg.slimjre.exception.JLinkException;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.spi.ToolProvider;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,8 +38,22 @@ public class JLinkExecutor {
 
   private static final Logger log = LoggerFactory.getLogger(JLinkExecutor.class);
 
+  /** Number of timed launches per mode when measuring startup. */
+  private static final int STARTUP_RUNS = 5;
+
+  /** File beside {@code release} describing what an image was linked from. */
+  public static final String FINGERPRINT_FILE = "slim-jre.fingerprint";
+
+  /** Bump whenever the fingerprint layout changes. */
+  private static final int FINGERPRINT_FORMAT = 2;
+
+  private static final String FILE_PREFIX = "file ";
+
   private final ToolProvider jlink;
 
+  /** Whether jlink has the generate-cds-archive plugin, or null until first checked. */
+  private volatile Boolean cdsArchiveSupported;
+
   /**
    * Creates a new JLinkExecutor.
    *
@@ -41,27 +69,40 @@ public class JLinkExecutor {
   /**
    * Creates a custom JRE with the specified options.
    *
+   * <p>The image records a fingerprint of its modules, jlink arguments, module path and JDK in a
+   * {@value #FINGERPRINT_FILE} file beside {@code release}, with the size of every file jlink
+   * created. If an image with the same fingerprint exists at the output path and its files are
+   * intact, jlink is skipped; files added after linking, such as AppCDS archives, are removed so
+   * that the image is again what jlink created. Otherwise the image is linked into a staging
+   * directory beside the output and swapped in once complete, so a failed link leaves the previous
+   * image in place.
+   *
    * @param options jlink configuration
    * @return path to the created runtime
    * @throws JLinkException if jlink execution fails
    */
   public Path createRuntime(JLinkOptions options) {
     Path outputPath = options.outputPath();
-
-    // Clean up existing output if present
-    if (Files.exists(outputPath)) {
-      log.debug("Removing existing output directory: {}", outputPath);
-      try {
-        deleteDirectory(outputPath);
-      } catch (IOException e) {
-        throw new JLinkException("Failed to remove existing output directory: " + outputPath, e);
-      }
-    }
+    Path target = outputPath.toAbsolutePath();
+    Path staging = target.resolveSibling(target.getFileName() + ".staging");
 
     // Build arguments
-    List<String> args = options.toArguments();
+    List<String> args = arguments(options.withOutputPath(staging));
     log.debug("jlink arguments: {}", args);
 
+    List<String> fingerprint = fingerprint(args, options.additionalModulePaths());
+    if (reuseImage(target, fingerprint)) {
+      log.info("Custom JRE at {} is up to date, skipping jlink", outputPath);
+      return outputPath;
+    }
+
+    // Link into an empty staging directory, leaving any existing image in place until done
+    try {
+      deleteDirectory(staging);
+    } catch (IOException e) {
+      throw new JLinkException("Failed to remove staging directory: " + staging, e);
+    }
+
     // Execute jlink
     ByteArrayOutputStream out = new ByteArrayOutputStream();
     ByteArrayOutputStream err = new ByteArrayOutputStream();
@@ -87,9 +128,15 @@ public class JLinkExecutor {
       log.warn("jlink warnings: {}", error);
     }
 
-    if (!Files.exists(outputPath)) {
-      throw new JLinkException(
-          "jlink completed but output directory was not created: " + outputPath);
+    if (!Files.exists(staging)) {
+      throw new JLinkException("jlink completed but output directory was not created: " + staging);
+    }
+
+    try {
+      writeFingerprint(staging, fingerprint);
+      swapIn(staging, target);
+    } catch (IOException e) {
+      throw new JLinkException("Failed to move created JRE to " + outputPath, e);
     }
 
     log.info("Custom JRE created successfully at {}", outputPath);
@@ -97,6 +144,166 @@ public class JLinkExecutor {
     return outputPath;
   }
 
+  /**
+   * Describes what an image is linked from: the JDK, the jlink arguments without the output path
+   * and the files on the module path. Equal fingerprints give equal images.
+   *
+   * @param options jlink configuration; the output path is ignored
+   * @return the lines of the fingerprint
+   */
+  List<String> fingerprint(JLinkOptions options) {
+    return fingerprint(arguments(options), options.additionalModulePaths());
+  }
+
+  /** Returns the jlink arguments of the options, without those the jlink in use lacks. */
+  private List<String> arguments(JLinkOptions options) {
+    List<String> args = options.toArguments();
+    if (options.generateCdsArchive() && !supportsCdsArchiveGeneration()) {
+      log.info("jlink does not support --generate-cds-archive, creating JRE without CDS archive");
+      args.remove("--generate-cds-archive");
+    }
+    return args;
+  }
+
+  private static List<String> fingerprint(List<String> args, List<Path> modulePaths) {
+    List<String> arguments = new ArrayList<>(args);
+    int output = arguments.indexOf("--output");
+    arguments.subList(output, output + 2).clear();
+
+    List<String> lines = new ArrayList<>();
+    lines.add("format " + FINGERPRINT_FORMAT);
+    lines.add("tool " + toolVersion());
+    lines.add("jdk " + System.getProperty("java.home"));
+    lines.add("version " + Runtime.version());
+    lines.add("arguments " + String.join(" ", arguments));
+    for (Path modulePath : modulePaths) {
+      // Modules on the module path are identified by size and modification time
+      try (Stream<Path> files = Files.walk(modulePath)) {
+        for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+          lines.add(
+              "module-path "
+                  + file.toAbsolutePath()
+                  + " "
+                  + Files.size(file)
+                  + " "
+                  + Files.getLastModifiedTime(file).toMillis());
+        }
+      } catch (IOException e) {
+        lines.add("module-path " + modulePath.toAbsolutePath() + " unreadable");
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Returns the version of slim-jre, so that images linked by another version, whose options may
+   * map to different jlink arguments, are linked again.
+   */
+  private static String toolVersion() {
+    String version = JLinkExecutor.class.getPackage().getImplementationVersion();
+    return version != null ? version : "unknown";
+  }
+
+  /**
+   * Returns whether an existing image was linked with the same fingerprint and still has every file
+   * jlink created, removing files added since.
+   */
+  private static boolean reuseImage(Path image, List<String> fingerprint) {
+    Path file = image.resolve(FINGERPRINT_FILE);
+    if (!Files.isRegularFile(file)) {
+      return false;
+    }
+    try {
+      List<String> recorded = Files.readAllLines(file, StandardCharsets.UTF_8);
+      Map<String, Long> linkedFiles = new HashMap<>();
+      List<String> inputs = new ArrayList<>();
+      for (String line : recorded) {
+        if (line.startsWith(FILE_PREFIX)) {
+          // "file <size> <relative path>"
+          String[] parts = line.substring(FILE_PREFIX.length()).split(" ", 2);
+          linkedFiles.put(parts[1], Long.parseLong(parts[0]));
+        } else {
+          inputs.add(line);
+        }
+      }
+      if (!inputs.equals(fingerprint)) {
+        log.debug("Modules or options of {} changed, relinking", image);
+        return false;
+      }
+
+      Map<String, Path> imageFiles = imageFiles(image);
+      for (var entry : linkedFiles.entrySet()) {
+        Path linked = imageFiles.get(entry.getKey());
+        if (linked == null || Files.size(linked) != entry.getValue()) {
+          log.debug("{} of {} is missing or changed, relinking", entry.getKey(), image);
+          return false;
+        }
+      }
+      for (var entry : imageFiles.entrySet()) {
+        if (!linkedFiles.containsKey(entry.getKey())) {
+          log.debug("Removing {} added to {} after linking", entry.getKey(), image);
+          Files.delete(entry.getValue());
+        }
+      }
+      return true;
+    } catch (IOException | RuntimeException e) {
+      log.debug("Failed to check fingerprint of {}: {}", image, e.getMessage());
+      return false;
+    }
+  }
+
+  /** Writes the fingerprint and the size of every file of a freshly linked image. */
+  private static void writeFingerprint(Path image, List<String> fingerprint) throws IOException {
+    List<String> lines = new ArrayList<>(fingerprint);
+    for (var entry : new TreeMap<>(imageFiles(image)).entrySet()) {
+      lines.add(FILE_PREFIX + Files.size(entry.getValue()) + " " + entry.getKey());
+    }
+    Files.write(image.resolve(FINGERPRINT_FILE), lines, StandardCharsets.UTF_8);
+  }
+
+  /** Returns the files of an image by their path relative to it, except the fingerprint. */
+  private static Map<String, Path> imageFiles(Path image) throws IOException {
+    Map<String, Path> files = new HashMap<>();
+    try (Stream<Path> walk = Files.walk(image)) {
+      walk.filter(Files::isRegularFile)
+          .forEach(
+              file -> {
+                String relative = image.relativize(file).toString().replace('\\', '/');
+                if (!relative.equals(FINGERPRINT_FILE)) {
+                  files.put(relative, file);
+                }
+              });
+    }
+    return files;
+  }
+
+  /**
+   * Replaces the image at the target path by a staged one. Each step is a rename, so the target
+   * path holds either the complete old or the complete new image, except briefly between the two
+   * renames.
+   */
+  static void swapIn(Path staging, Path target) throws IOException {
+    if (Files.exists(target)) {
+      Path previous = target.resolveSibling(target.getFileName() + ".previous");
+      deleteDirectory(previous);
+      move(target, previous);
+      move(staging, target);
+      log.debug("Removing previous output directory: {}", previous);
+      deleteDirectory(previous);
+    } else {
+      Files.createDirectories(target.getParent());
+      move(staging, target);
+    }
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target);
+    }
+  }
+
   /**
    * Calculates the size of the JRE directory.
    *
@@ -137,8 +344,182 @@ public class JLinkExecutor {
     return calculateJreSize(Path.of(javaHome));
   }
 
+  /**
+   * Finds the default class-data-sharing archive of a runtime image.
+   *
+   * <p>jlink writes it to {@code lib/server/} on Unix and {@code bin/server/} on Windows when the
+   * image is created with {@code --generate-cds-archive}.
+   *
+   * @param jrePath path to the JRE
+   * @return the archive, or empty if the image has none
+   */
+  public Optional<CdsArchive> findDefaultCdsArchive(Path jrePath) {
+    for (String dir : List.of("lib", "bin")) {
+      Path archive = jrePath.resolve(dir).resolve("server").resolve("classes.jsa");
+      if (Files.isRegularFile(archive)) {
+        try {
+          return Optional.of(new CdsArchive(archive, Files.size(archive)));
+        } catch (IOException e) {
+          log.warn("Failed to read CDS archive {}: {}", archive, e.getMessage());
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Returns whether the jlink in use can generate the default CDS archive of an image. The
+   * generate-cds-archive plugin was added in JDK 17.
+   *
+   * @return true if {@code --generate-cds-archive} is supported
+   */
+  public boolean supportsCdsArchiveGeneration() {
+    Boolean supported = cdsArchiveSupported;
+    if (supported == null) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      int exitCode =
+          jlink.run(
+              new PrintStream(out),
+              new PrintStream(OutputStream.nullOutputStream()),
+              "--list-plugins");
+      supported = exitCode == 0 && out.toString().contains("--generate-cds-archive");
+      cdsArchiveSupported = supported;
+    }
+    return supported;
+  }
+
+  /**
+   * Measures the startup time of a runtime image with and without class data sharing.
+   *
+   * <p>{@code java -version} is launched alternately with {@code -Xshare:auto} and {@code
+   * -Xshare:off} after one untimed launch of each, and the median of each mode is reported.
+   *
+   * @param jrePath path to the JRE
+   * @return the measurement, or empty if the runtime could not be launched
+   */
+  public Optional<StartupMeasurement> measureStartup(Path jrePath) {
+    Path javaBin = javaExecutable(jrePath);
+    long[] withCds = new long[STARTUP_RUNS];
+    long[] withoutCds = new long[STARTUP_RUNS];
+
+    try {
+      // Untimed launches warm the file system cache
+      launch(javaBin, "-Xshare:auto");
+      launch(javaBin, "-Xshare:off");
+      for (int i = 0; i < STARTUP_RUNS; i++) {
+        withCds[i] = launch(javaBin, "-Xshare:auto");
+        withoutCds[i] = launch(javaBin, "-Xshare:off");
+      }
+    } catch (IOException | InterruptedException e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      log.warn("Failed to measure JRE startup: {}", e.getMessage());
+      return Optional.empty();
+    }
+
+    StartupMeasurement measurement =
+        new StartupMeasurement(
+            Duration.ofNanos(median(withCds)), Duration.ofNanos(median(withoutCds)));
+    log.debug(
+        "JRE startup: {}ms with CDS, {}ms without",
+        measurement.withCds().toMillis(),
+        measurement.withoutCds().toMillis());
+    return Optional.of(measurement);
+  }
+
+  /**
+   * Times one startup of a runtime image with and one without class data sharing.
+   *
+   * <p>The first launch verifies the image like {@link #verifyJre(Path)} and is timed as the
+   * startup with the default CDS archive; one more launch with {@code -Xshare:off} gives the
+   * startup without it. The first launch runs with a colder file system cache, so if anything the
+   * gain is understated. {@link #measureStartup(Path)} samples each mode repeatedly instead.
+   *
+   * @param jrePath path to the JRE
+   * @return the measurement, or empty if the runtime could not be launched
+   */
+  public Optional<StartupMeasurement> verifyAndTimeStartup(Path jrePath) {
+    Path javaBin = javaExecutable(jrePath);
+    try {
+      StartupMeasurement measurement =
+          new StartupMeasurement(
+              Duration.ofNanos(launch(javaBin, "-Xshare:auto")),
+              Duration.ofNanos(launch(javaBin, "-Xshare:off")));
+      log.debug(
+          "JRE startup: {}ms with CDS, {}ms without",
+          measurement.withCds().toMillis(),
+          measurement.withoutCds().toMillis());
+      return Optional.of(measurement);
+    } catch (IOException | InterruptedException e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      log.warn("Failed to time JRE startup: {}", e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  /** Launches {@code java -version} with a sharing mode and returns its wall time in nanos. */
+  private long launch(Path javaBin, String shareMode) throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    Process process =
+        new ProcessBuilder(javaBin.toString(), shareMode, "-version")
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+    int exitCode = process.waitFor();
+    long elapsed = System.nanoTime() - start;
+    if (exitCode != 0) {
+      throw new IOException("java " + shareMode + " -version exited with code " + exitCode);
+    }
+    return elapsed;
+  }
+
+  private static long median(long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+
+  /**
+   * Returns the Java feature version of a runtime image, read from its {@code release} file.
+   *
+   * <p>Falls back to the version of the running JDK, whose jlink and modules created the image, if
+   * the file is missing or unreadable.
+   *
+   * @param jrePath path to the JRE
+   * @return feature version, e.g. 21
+   */
+  public int getJavaVersion(Path jrePath) {
+    Path release = jrePath.resolve("release");
+    try {
+      if (Files.isRegularFile(release)) {
+        for (String line : Files.readAllLines(release)) {
+          if (line.startsWith("JAVA_VERSION=")) {
+            String version = line.substring("JAVA_VERSION=".length()).replace("\"", "");
+            return Runtime.Version.parse(version).feature();
+          }
+        }
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      log.debug("Failed to read Java version of {}: {}", jrePath, e.getMessage());
+    }
+    return Runtime.version().feature();
+  }
+
+  /** Returns the java launcher of a runtime image. */
+  static Path javaExecutable(Path jrePath) {
+    return jrePath.resolve("bin").resolve(isWindows() ? "java.exe" : "java");
+  }
+
+  /** Returns true when running on Windows. */
+  static boolean isWindows() {
+    return System.getProperty("os.name").toLowerCase().contains("win");
+  }
+
   /** Deletes a directory recursively. */
-  private void deleteDirectory(Path directory) throws IOException {
+  static void deleteDirectory(Path directory) throws IOException {
     if (!Files.exists(directory)) {
       return;
     }
@@ -168,11 +549,7 @@ public class JLinkExecutor {
    * @return true if the JRE is functional
    */
   public boolean verifyJre(Path jrePath) {
-    Path javaBin =
-        jrePath
-            .resolve("bin")
-            .resolve(
-                System.getProperty("os.name").toLowerCase().contains("win") ? "java.exe" : "java");
+    Path javaBin = javaExecutable(jrePath);
 
     if (!Files.exists(javaBin)) {
       log.error("Java binary not found in JRE: {}", javaBin);
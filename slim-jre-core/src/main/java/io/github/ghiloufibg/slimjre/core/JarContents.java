@@ -0,0 +1,494 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read access to the entries of a JAR, whether it is a regular file or nested inside an archive.
+ *
+ * <p>Three strategies are used depending on where the JAR lives:
+ *
+ * <ul>
+ *   <li>Regular files are memory-mapped and their central directory is parsed once, so entries are
+ *       random-access without a {@link JarFile}. Signatures are never verified, which analysis does
+ *       not need. Archives that cannot be mapped, such as ZIP64 files, are read through a {@link
+ *       JarFile} instead.
+ *   <li>Nested JARs stored uncompressed, which is how Spring Boot packages its libraries, are read
+ *       in place: the outer archive is memory-mapped and the nested central directory is parsed at
+ *       the entry's offset, so entries are random-access without copying the nested JAR.
+ *   <li>Nested JARs that are deflated, or whose outer archive cannot be mapped, are streamed once
+ *       through a {@link ZipInputStream}.
+ * </ul>
+ *
+ * <p>None of them writes anything to disk. Mapped outer archives are kept in a small cache, so a
+ * fat JAR is mapped and its central directory parsed once for all of its libraries.
+ */
+abstract sealed class JarContents implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(JarContents.class);
+
+  private static final int MAPPED_ARCHIVE_CACHE_SIZE = 8;
+
+  private static final Map<ArchiveKey, MappedZip> mappedArchives =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ArchiveKey, MappedZip> eldest) {
+          return size() > MAPPED_ARCHIVE_CACHE_SIZE;
+        }
+      };
+
+  /**
+   * Opens a JAR for reading.
+   *
+   * @param jar JAR path, possibly a virtual {@link NestedJar} path
+   * @return the opened JAR, to be closed by the caller
+   * @throws IOException if the JAR cannot be opened
+   */
+  static JarContents open(Path jar) throws IOException {
+    Optional<NestedJar> nested = NestedJar.fromPath(jar);
+    if (nested.isEmpty()) {
+      try {
+        return new MappedJar(MappedZip.map(jar));
+      } catch (ZipException e) {
+        log.trace("Cannot map {}, falling back to JarFile: {}", jar, e.getMessage());
+        return new FileJar(new JarFile(jar.toFile(), false));
+      }
+    }
+
+    Path archive = nested.get().archive();
+    String entryName = nested.get().entryName();
+    MappedZip outer = mappedArchive(archive);
+    if (outer == null) {
+      return new StreamingJar(openWithZipFile(archive, entryName));
+    }
+
+    MappedZip.Entry entry = requireEntry(outer.entry(entryName), archive, entryName);
+    if (entry.method() == MappedZip.STORED) {
+      try {
+        return new MappedJar(MappedZip.of(outer.rawData(entry)));
+      } catch (ZipException e) {
+        log.trace("Cannot read {} in place, streaming it: {}", jar, e.getMessage());
+      }
+    }
+    return new StreamingJar(outer.openStream(entry));
+  }
+
+  /**
+   * Opens a stream over the bytes of a JAR file, e.g. to compute its digest.
+   *
+   * @param jar JAR path, possibly a virtual {@link NestedJar} path
+   * @return stream of the JAR's own bytes, to be closed by the caller
+   * @throws IOException if the JAR cannot be read
+   */
+  static InputStream newInputStream(Path jar) throws IOException {
+    Optional<NestedJar> nested = NestedJar.fromPath(jar);
+    if (nested.isEmpty()) {
+      return Files.newInputStream(jar);
+    }
+
+    Path archive = nested.get().archive();
+    String entryName = nested.get().entryName();
+    MappedZip outer = mappedArchive(archive);
+    if (outer == null) {
+      return openWithZipFile(archive, entryName);
+    }
+    return outer.openStream(requireEntry(outer.entry(entryName), archive, entryName));
+  }
+
+  /**
+   * Returns the attributes identifying the version of a JAR's content.
+   *
+   * <p>For a nested JAR these are the attributes of its outer archive, which changes whenever the
+   * nested JAR does.
+   *
+   * @param jar JAR path, possibly a virtual {@link NestedJar} path
+   * @return the file attributes
+   * @throws IOException if the attributes cannot be read
+   */
+  static BasicFileAttributes readAttributes(Path jar) throws IOException {
+    Path file = NestedJar.fromPath(jar).map(NestedJar::archive).orElse(jar);
+    return Files.readAttributes(file, BasicFileAttributes.class);
+  }
+
+  /** Checks if an archive contains an entry, without throwing. */
+  static boolean containsEntry(Path archive, String entryName) {
+    if (!Files.isRegularFile(archive)) {
+      return false;
+    }
+    try {
+      MappedZip outer = mappedArchive(archive);
+      if (outer != null) {
+        return outer.entry(entryName) != null;
+      }
+      try (ZipFile zip = new ZipFile(archive.toFile())) {
+        return zip.getEntry(entryName) != null;
+      }
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Visits all entries in archive order.
+   *
+   * @param visitor callback invoked once per entry, directories included
+   * @throws IOException if the JAR cannot be read; failures of single entries are left to the
+   *     visitor
+   */
+  abstract void forEach(EntryVisitor visitor) throws IOException;
+
+  /**
+   * Returns all entries in central directory order for random access. The entries can be read from
+   * several threads at once until the JAR is closed.
+   *
+   * @return the entries, directories included, or null if the JAR can only be read sequentially
+   */
+  List<Entry> entries() {
+    return null;
+  }
+
+  /**
+   * Entry of a JAR, readable only during the {@link EntryVisitor#visit(Entry)} callback unless it
+   * was returned by {@link #entries()}.
+   */
+  interface Entry {
+
+    /** Returns the entry name. */
+    String name();
+
+    /** Returns true if the entry is a directory. */
+    default boolean isDirectory() {
+      return name().endsWith("/");
+    }
+
+    /**
+     * Reads the uncompressed content of the entry.
+     *
+     * @return entry bytes
+     * @throws IOException if the entry cannot be read
+     */
+    byte[] read() throws IOException;
+
+    /**
+     * Reads the uncompressed content of the entry into a reused buffer instead of a new array.
+     *
+     * @param buffer buffer receiving the content
+     * @throws IOException if the entry cannot be read
+     */
+    default void read(EntryBuffer buffer) throws IOException {
+      buffer.wrap(read());
+    }
+  }
+
+  /**
+   * Buffer and inflater reused by one thread to read entries without allocating per entry. Its
+   * content is valid until the next read into it, so it must not escape the reading code.
+   */
+  static final class EntryBuffer {
+
+    private static final ThreadLocal<EntryBuffer> PER_THREAD =
+        ThreadLocal.withInitial(EntryBuffer::new);
+
+    /** Larger entries are read into arrays of their own, so rare huge classes are not retained. */
+    private static final int MAX_RETAINED_SIZE = 1 << 20;
+
+    /** Entries declaring more are rejected before allocating, as no real class is this large. */
+    static final int MAX_CLASS_SIZE = 64 << 20;
+
+    private final Inflater inflater = new Inflater(true);
+    private byte[] reusable = new byte[8192];
+    private int reusableDirty;
+    private byte[] bytes = reusable;
+    private int length;
+
+    private EntryBuffer() {}
+
+    /** Returns the buffer of the calling thread. */
+    static EntryBuffer perThread() {
+      return PER_THREAD.get();
+    }
+
+    /**
+     * Returns the array holding the content at offset 0. It may be longer than the content and is
+     * then zero past it, so a parser running over the end of a truncated entry reads no stale bytes
+     * of a previous one.
+     */
+    byte[] bytes() {
+      return bytes;
+    }
+
+    /** Returns the length of the content. */
+    int length() {
+      return length;
+    }
+
+    /** Returns an array of at least {@code size} bytes to read a content of that size into. */
+    byte[] reserve(int size) {
+      if (size <= reusable.length) {
+        if (reusableDirty > size) {
+          Arrays.fill(reusable, size, reusableDirty, (byte) 0);
+        }
+        reusableDirty = size;
+        bytes = reusable;
+      } else if (size <= MAX_RETAINED_SIZE) {
+        reusable = new byte[Math.min(Math.max(size, reusable.length * 2), MAX_RETAINED_SIZE)];
+        reusableDirty = size;
+        bytes = reusable;
+      } else {
+        bytes = new byte[size];
+      }
+      length = size;
+      return bytes;
+    }
+
+    /** Returns the inflater of this thread. */
+    Inflater inflater() {
+      return inflater;
+    }
+
+    private void wrap(byte[] content) {
+      bytes = content;
+      length = content.length;
+    }
+  }
+
+  /** Callback receiving the entries of a JAR. */
+  @FunctionalInterface
+  interface EntryVisitor {
+
+    /**
+     * Visits one entry.
+     *
+     * @param entry the entry
+     * @throws IOException if reading the entry fails and the whole JAR should be abandoned
+     */
+    void visit(Entry entry) throws IOException;
+  }
+
+  /**
+   * Maps an outer archive, reusing a recent mapping when the file is unchanged.
+   *
+   * @return the mapped archive, or null if it cannot be mapped (e.g. ZIP64)
+   */
+  private static MappedZip mappedArchive(Path archive) throws IOException {
+    BasicFileAttributes attrs = Files.readAttributes(archive, BasicFileAttributes.class);
+    ArchiveKey key =
+        new ArchiveKey(
+            archive.toAbsolutePath().normalize(), attrs.size(), attrs.lastModifiedTime());
+
+    synchronized (mappedArchives) {
+      MappedZip cached = mappedArchives.get(key);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    MappedZip mapped;
+    try {
+      mapped = MappedZip.map(archive);
+    } catch (ZipException e) {
+      log.trace("Cannot map {}, falling back to ZipFile: {}", archive, e.getMessage());
+      return null;
+    }
+    synchronized (mappedArchives) {
+      mappedArchives.put(key, mapped);
+    }
+    return mapped;
+  }
+
+  private static InputStream openWithZipFile(Path archive, String entryName) throws IOException {
+    ZipFile zip = new ZipFile(archive.toFile());
+    try {
+      ZipEntry entry = zip.getEntry(entryName);
+      if (entry == null) {
+        throw new NoSuchFileException(archive + "!/" + entryName);
+      }
+      return new FilterInputStream(zip.getInputStream(entry)) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            zip.close();
+          }
+        }
+      };
+    } catch (IOException | RuntimeException e) {
+      zip.close();
+      throw e;
+    }
+  }
+
+  private static MappedZip.Entry requireEntry(MappedZip.Entry entry, Path archive, String entryName)
+      throws NoSuchFileException {
+    if (entry == null || entry.isDirectory()) {
+      throw new NoSuchFileException(archive + "!/" + entryName);
+    }
+    return entry;
+  }
+
+  private record ArchiveKey(Path path, long size, Object lastModified) {}
+
+  /** Regular JAR file that cannot be mapped. */
+  private static final class FileJar extends JarContents {
+
+    private final JarFile jar;
+
+    FileJar(JarFile jar) {
+      this.jar = jar;
+    }
+
+    @Override
+    void forEach(EntryVisitor visitor) throws IOException {
+      Enumeration<JarEntry> entries = jar.entries();
+      while (entries.hasMoreElements()) {
+        visitor.visit(entry(entries.nextElement()));
+      }
+    }
+
+    @Override
+    List<Entry> entries() {
+      // ZipFile reads are thread-safe; each entry gets its own inflater stream
+      return jar.stream().map(this::entry).toList();
+    }
+
+    private Entry entry(JarEntry entry) {
+      return new Entry() {
+        @Override
+        public String name() {
+          return entry.getName();
+        }
+
+        @Override
+        public boolean isDirectory() {
+          return entry.isDirectory();
+        }
+
+        @Override
+        public byte[] read() throws IOException {
+          try (InputStream is = jar.getInputStream(entry)) {
+            return is.readAllBytes();
+          }
+        }
+      };
+    }
+
+    @Override
+    public void close() throws IOException {
+      jar.close();
+    }
+  }
+
+  /** Mapped JAR file, or nested JAR read in place from a mapped outer archive. */
+  private static final class MappedJar extends JarContents {
+
+    private final MappedZip zip;
+
+    MappedJar(MappedZip zip) {
+      this.zip = zip;
+    }
+
+    @Override
+    void forEach(EntryVisitor visitor) throws IOException {
+      for (MappedZip.Entry entry : zip.entries()) {
+        visitor.visit(entry(entry));
+      }
+    }
+
+    @Override
+    List<Entry> entries() {
+      // Reads use absolute positions on the shared mapping, so they are thread-safe
+      return zip.entries().stream().map(this::entry).toList();
+    }
+
+    private Entry entry(MappedZip.Entry entry) {
+      return new Entry() {
+        @Override
+        public String name() {
+          return entry.name();
+        }
+
+        @Override
+        public byte[] read() throws IOException {
+          return zip.read(entry);
+        }
+
+        @Override
+        public void read(EntryBuffer buffer) throws IOException {
+          int size = zip.size(entry);
+          if (size > EntryBuffer.MAX_CLASS_SIZE) {
+            throw new ZipException(
+                "Entry too large for a class: " + entry.name() + " (" + size + " bytes)");
+          }
+          zip.read(entry, buffer.reserve(size), buffer.inflater());
+        }
+      };
+    }
+
+    @Override
+    public void close() {
+      // The mapping may be shared and is released by the garbage collector
+    }
+  }
+
+  /** Nested JAR read sequentially from the stream of its bytes. */
+  private static final class StreamingJar extends JarContents {
+
+    private final ZipInputStream in;
+
+    StreamingJar(InputStream in) {
+      this.in = new ZipInputStream(in);
+    }
+
+    @Override
+    void forEach(EntryVisitor visitor) throws IOException {
+      ZipEntry entry;
+      while ((entry = in.getNextEntry()) != null) {
+        ZipEntry current = entry;
+        visitor.visit(
+            new Entry() {
+              @Override
+              public String name() {
+                return current.getName();
+              }
+
+              @Override
+              public boolean isDirectory() {
+                return current.isDirectory();
+              }
+
+              @Override
+              public byte[] read() throws IOException {
+                return in.readAllBytes();
+              }
+            });
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
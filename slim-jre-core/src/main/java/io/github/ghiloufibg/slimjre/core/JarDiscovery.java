@@ -1,5 +1,7 @@
 package io.github.ghiloufibg.slimjre.core;
 
+import io.github.ghiloufibg.slimjre.config.PipelineStage;
+import io.github.ghiloufibg.slimjre.config.StageMetrics;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -26,10 +28,14 @@ import org.slf4j.LoggerFactory;
  * <ul>
  *   <li>Directories (recursive scan with symlink protection)
  *   <li>Fat JARs (Spring Boot BOOT-INF/lib, etc.)
- *   <li>WAR files (WEB-INF/lib extraction)
+ *   <li>WAR files (WEB-INF/lib)
  *   <li>MANIFEST Class-Path references
  * </ul>
  *
+ * <p>JARs nested inside fat JARs and WARs are reported as virtual {@link NestedJar} paths by
+ * default and read in place by the scanners, so nothing is extracted. Extraction to a temporary
+ * directory can still be requested with {@link #JarDiscovery(boolean)}.
+ *
  * <p>Uses Java 21 GA features for maximum performance:
  *
  * <ul>
@@ -52,6 +58,23 @@ public class JarDiscovery {
           "lib/" // Standard
           );
 
+  private final boolean extractNestedJars;
+
+  /** Creates a discovery that addresses nested JARs in place. */
+  public JarDiscovery() {
+    this(false);
+  }
+
+  /**
+   * Creates a discovery.
+   *
+   * @param extractNestedJars whether to extract nested JARs to a temporary directory instead of
+   *     addressing them in place
+   */
+  public JarDiscovery(boolean extractNestedJars) {
+    this.extractNestedJars = extractNestedJars;
+  }
+
   /**
    * Discovers all JARs from any input - directory, JAR, WAR, or fat JAR.
    *
@@ -69,6 +92,7 @@ public class JarDiscovery {
     }
 
     log.info("Discovering JARs from: {}", input);
+    MetricsRecorder.Stopwatch stopwatch = MetricsRecorder.Stopwatch.start();
 
     Set<Path> allJars = ConcurrentHashMap.newKeySet(); // Thread-safe for parallel ops
     Path tempDir = null;
@@ -79,8 +103,10 @@ public class JarDiscovery {
       // Strategy 1: Recursive directory scan (with symlink protection)
       allJars.addAll(findJarsInDirectory(input, warnings));
     } else if (isArchive(input)) {
-      // Strategy 2: Archive extraction with parallel I/O
-      tempDir = Files.createTempDirectory("slim-jre-extract-");
+      // Strategy 2: Nested JARs of the archive, in place or extracted
+      if (extractNestedJars) {
+        tempDir = Files.createTempDirectory("slim-jre-extract-");
+      }
       hasNested = true;
       allJars.addAll(discoverFromArchive(input, tempDir, warnings));
     } else {
@@ -95,7 +121,34 @@ public class JarDiscovery {
       log.warn("Discovery completed with {} warning(s)", warnings.size());
     }
 
-    return new DiscoveryResult(sortedJars, tempDir, hasNested, warnings);
+    StageMetrics metrics =
+        new StageMetrics(
+            PipelineStage.DISCOVERY,
+            stopwatch.wallTime(),
+            stopwatch.cpuTime(),
+            sortedJars.size(),
+            0,
+            extractedBytes(sortedJars, tempDir),
+            0);
+    return new DiscoveryResult(sortedJars, tempDir, hasNested, warnings, metrics);
+  }
+
+  /** Returns the total size of the JARs extracted to the temporary directory. */
+  private static long extractedBytes(Set<Path> jars, Path tempDir) {
+    if (tempDir == null) {
+      return 0;
+    }
+    long bytes = 0;
+    for (Path jar : jars) {
+      if (jar.startsWith(tempDir)) {
+        try {
+          bytes += Files.size(jar);
+        } catch (IOException e) {
+          // Counted as zero; the JAR is reported by the analyzers if it is unreadable
+        }
+      }
+    }
+    return bytes;
   }
 
   /**
@@ -137,10 +190,13 @@ public class JarDiscovery {
   }
 
   /**
-   * Extracts JARs from an archive (fat JAR, WAR) using parallel streams for I/O.
+   * Discovers the JARs of an archive (fat JAR, WAR).
+   *
+   * <p>Nested JARs are returned as virtual {@link NestedJar} paths, or extracted using parallel
+   * streams for I/O when a temporary directory is given.
    *
-   * @param archive Archive file to extract from
-   * @param tempDir Temporary directory for extraction
+   * @param archive Archive file to discover from
+   * @param tempDir Temporary directory for extraction, or null to address nested JARs in place
    * @param warnings List to collect warnings
    * @return Set of discovered JAR paths
    */
@@ -157,21 +213,28 @@ public class JarDiscovery {
               .filter(e -> isLibraryPath(e.getName()))
               .toList();
 
-      log.debug("Found {} nested JARs to extract", entriesToExtract.size());
-
-      // Parallel extraction using parallelStream() - Java 21 GA feature
-      // I/O-bound operations benefit from parallel execution
-      entriesToExtract.parallelStream()
-          .forEach(
-              entry -> {
-                try {
-                  Path extracted = extractEntry(jar, entry, tempDir);
-                  jars.add(extracted);
-                } catch (IOException e) {
-                  warnings.add(
-                      "Failed to extract nested JAR: " + entry.getName() + " - " + e.getMessage());
-                }
-              });
+      log.debug("Found {} nested JARs", entriesToExtract.size());
+
+      if (tempDir == null) {
+        entriesToExtract.forEach(entry -> jars.add(new NestedJar(archive, entry.getName()).path()));
+      } else {
+        // Parallel extraction using parallelStream() - Java 21 GA feature
+        // I/O-bound operations benefit from parallel execution
+        entriesToExtract.parallelStream()
+            .forEach(
+                entry -> {
+                  try {
+                    Path extracted = extractEntry(jar, entry, tempDir);
+                    jars.add(extracted);
+                  } catch (IOException e) {
+                    warnings.add(
+                        "Failed to extract nested JAR: "
+                            + entry.getName()
+                            + " - "
+                            + e.getMessage());
+                  }
+                });
+      }
 
       // Follow MANIFEST Class-Path header
       Manifest manifest = jar.getManifest();
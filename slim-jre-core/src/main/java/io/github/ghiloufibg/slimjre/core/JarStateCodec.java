@@ -0,0 +1,48 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts a detector's per-JAR state to and from the form stored in an {@link AnalysisCache}.
+ *
+ * <p>Only the state of a single JAR is ever persisted, never an aggregated result, so cached and
+ * freshly scanned JARs can be freely mixed within one scan.
+ *
+ * @param <J> per-JAR state type
+ */
+public interface JarStateCodec<J> {
+
+  /**
+   * Returns a stable identifier for the detector, used as part of the cache key.
+   *
+   * @return identifier made of lowercase letters, digits and dashes
+   */
+  String id();
+
+  /**
+   * Returns the version of the detector's rules. Must be incremented whenever a change to the
+   * detector could produce a different state for the same JAR, which invalidates older entries.
+   *
+   * @return detector version
+   */
+  int version();
+
+  /**
+   * Encodes a per-JAR state.
+   *
+   * @param jarState state produced by scanning a JAR
+   * @return named string sets
+   */
+  Map<String, Set<String>> encode(J jarState);
+
+  /**
+   * Rebuilds a per-JAR state from its encoded form.
+   *
+   * @param jarPath path of the JAR the state belongs to
+   * @param sections named string sets produced by {@link #encode(Object)}
+   * @return the decoded state
+   */
+  J decode(Path jarPath, Map<String, Set<String>> sections);
+}
@@ -0,0 +1,375 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compact index mapping the classes and packages of the running JDK to their modules.
+ *
+ * <p>System modules never split a package, so a class belongs to the module of its package. The
+ * index therefore stores one entry per package (a few thousand) rather than one per class, in an
+ * open-addressing table of package names with interned module ids. Lookups accept binary class
+ * names ({@code java.util.Map$Entry}), internal names ({@code java/util/Map$Entry}) and package
+ * names in either form, and never allocate.
+ *
+ * <p>A single index is shared by the whole JVM and built lazily on first use. It can be persisted
+ * in a directory, keyed by {@code java.home} and {@link Runtime#version()}, so that later processes
+ * on the same JDK load it instead of reading the module descriptors again.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * JdkClassIndex index = JdkClassIndex.shared();
+ * index.moduleOfClass("java.sql.Driver");        // "java.sql"
+ * index.moduleOfInternalName("java/sql/Driver"); // "java.sql"
+ * index.moduleOfPackage("javax.xml.parsers");    // "java.xml"
+ * }</pre>
+ */
+public final class JdkClassIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(JdkClassIndex.class);
+
+  /** "SJKI" in ASCII. */
+  private static final int MAGIC = 0x534A4B49;
+
+  /** Bump whenever the persisted layout changes. */
+  private static final int FORMAT_VERSION = 1;
+
+  private static final String INDEX_SUFFIX = ".index";
+
+  /** Returned by {@link #moduleId} for names outside the JDK. */
+  static final int NO_MODULE = -1;
+
+  private static volatile JdkClassIndex shared;
+
+  private final String[] moduleNames;
+  private final Set<String> moduleNameSet;
+
+  /** Package names in internal form, indexed by hash slot; null marks a free slot. */
+  private final String[] packages;
+
+  /** Module id of the package in the same slot. */
+  private final short[] moduleIds;
+
+  private final int mask;
+  private final int packageCount;
+
+  private JdkClassIndex(String[] moduleNames, List<String> packageNames, short[] packageModules) {
+    this.moduleNames = moduleNames;
+    this.moduleNameSet =
+        Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(moduleNames)));
+    this.packageCount = packageNames.size();
+
+    // Keep the load factor at or below 0.5 so probe sequences stay short
+    int capacity = Integer.highestOneBit(Math.max(packageCount, 1) * 4 - 1);
+    this.packages = new String[capacity];
+    this.moduleIds = new short[capacity];
+    this.mask = capacity - 1;
+
+    for (int i = 0; i < packageCount; i++) {
+      String pkg = packageNames.get(i);
+      int slot = hash(pkg, pkg.length()) & mask;
+      while (packages[slot] != null) {
+        slot = (slot + 1) & mask;
+      }
+      packages[slot] = pkg;
+      moduleIds[slot] = packageModules[i];
+    }
+  }
+
+  /**
+   * Returns the index of the running JDK, building it on first use.
+   *
+   * @return the shared index
+   */
+  public static JdkClassIndex shared() {
+    return shared(null);
+  }
+
+  /**
+   * Returns the index of the running JDK, loading it from or persisting it to a directory on first
+   * use.
+   *
+   * <p>Once the shared index exists, the directory is ignored.
+   *
+   * @param directory directory holding persisted indexes, or null to only build in memory
+   * @return the shared index
+   */
+  public static JdkClassIndex shared(Path directory) {
+    JdkClassIndex index = shared;
+    if (index == null) {
+      synchronized (JdkClassIndex.class) {
+        index = shared;
+        if (index == null) {
+          index = directory != null ? loadOrBuild(directory) : build();
+          shared = index;
+        }
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Builds the index from the descriptors of the system modules.
+   *
+   * @return a new index
+   */
+  static JdkClassIndex build() {
+    List<ModuleDescriptor> descriptors = new ArrayList<>();
+    for (ModuleReference ref : ModuleFinder.ofSystem().findAll()) {
+      descriptors.add(ref.descriptor());
+    }
+    descriptors.sort((a, b) -> a.name().compareTo(b.name()));
+
+    String[] moduleNames = new String[descriptors.size()];
+    TreeMap<String, Short> packageToModule = new TreeMap<>();
+    for (int id = 0; id < descriptors.size(); id++) {
+      ModuleDescriptor descriptor = descriptors.get(id);
+      moduleNames[id] = descriptor.name();
+      for (String pkg : descriptor.packages()) {
+        packageToModule.put(pkg.replace('.', '/'), (short) id);
+      }
+    }
+
+    List<String> packageNames = new ArrayList<>(packageToModule.keySet());
+    short[] packageModules = new short[packageNames.size()];
+    int i = 0;
+    for (short id : packageToModule.values()) {
+      packageModules[i++] = id;
+    }
+
+    JdkClassIndex index = new JdkClassIndex(moduleNames, packageNames, packageModules);
+    log.debug(
+        "Built JDK class index with {} packages in {} modules",
+        index.packageCount,
+        moduleNames.length);
+    return index;
+  }
+
+  /**
+   * Loads the persisted index of the running JDK from a directory, building and persisting it if
+   * absent or unreadable. Persistence failures are logged and otherwise ignored.
+   */
+  static JdkClassIndex loadOrBuild(Path directory) {
+    Path file = directory.resolve("jdk").resolve(runtimeKey() + INDEX_SUFFIX);
+    try {
+      JdkClassIndex index = read(file);
+      log.debug("Loaded JDK class index from {}", file);
+      return index;
+    } catch (NoSuchFileException e) {
+      log.trace("No persisted JDK class index at {}", file);
+    } catch (IOException | RuntimeException e) {
+      log.debug("Discarding unreadable JDK class index {}: {}", file, e.getMessage());
+    }
+
+    JdkClassIndex index = build();
+    Path temp = null;
+    try {
+      Files.createDirectories(file.getParent());
+      temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      index.write(temp);
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      log.debug("Failed to persist JDK class index {}: {}", file, e.getMessage());
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+          // Best effort
+        }
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Returns the module containing a class.
+   *
+   * @param className binary class name (e.g., "java.sql.Driver" or "java.util.Map$Entry")
+   * @return module name, or null if the class is not in a JDK package
+   */
+  public String moduleOfClass(String className) {
+    return moduleName(moduleId(className, className.lastIndexOf('.')));
+  }
+
+  /**
+   * Returns the module containing a class given in internal form.
+   *
+   * @param internalName internal class name (e.g., "java/sql/Driver")
+   * @return module name, or null if the class is not in a JDK package
+   */
+  public String moduleOfInternalName(String internalName) {
+    return moduleName(moduleId(internalName, internalName.lastIndexOf('/')));
+  }
+
+  /**
+   * Returns the module containing a package.
+   *
+   * @param packageName package name, '.' or '/' separated (e.g., "java.sql" or "java/sql")
+   * @return module name, or null if the package is not part of the JDK
+   */
+  public String moduleOfPackage(String packageName) {
+    return moduleName(moduleId(packageName, packageName.length()));
+  }
+
+  /**
+   * Returns the interned id of the module containing a package.
+   *
+   * @param name character sequence starting with the package name, '.' or '/' separated
+   * @param packageLength length of the package name prefix of {@code name}
+   * @return module id, or {@link #NO_MODULE} if the package is not part of the JDK
+   */
+  int moduleId(CharSequence name, int packageLength) {
+    if (packageLength <= 0) {
+      return NO_MODULE;
+    }
+    int slot = hash(name, packageLength) & mask;
+    String candidate;
+    while ((candidate = packages[slot]) != null) {
+      if (matches(candidate, name, packageLength)) {
+        return moduleIds[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return NO_MODULE;
+  }
+
+  /**
+   * Returns the name of an interned module id.
+   *
+   * @param moduleId module id, or {@link #NO_MODULE}
+   * @return module name, or null for {@link #NO_MODULE}
+   */
+  String moduleName(int moduleId) {
+    return moduleId == NO_MODULE ? null : moduleNames[moduleId];
+  }
+
+  /**
+   * Checks if a module is a system module of the running JDK.
+   *
+   * @param moduleName module name
+   * @return true if the JDK contains the module
+   */
+  public boolean isJdkModule(String moduleName) {
+    return moduleNameSet.contains(moduleName);
+  }
+
+  /** Returns the names of all system modules, sorted. */
+  public Set<String> moduleNames() {
+    return moduleNameSet;
+  }
+
+  /** Returns the number of indexed packages. */
+  public int packageCount() {
+    return packageCount;
+  }
+
+  /** Hashes a package name as if every '.' were a '/'. */
+  private static int hash(CharSequence name, int length) {
+    int h = 0;
+    for (int i = 0; i < length; i++) {
+      char c = name.charAt(i);
+      h = 31 * h + (c == '.' ? '/' : c);
+    }
+    // Spread high bits, since the table is indexed by the low bits only
+    return h ^ (h >>> 16);
+  }
+
+  private static boolean matches(String pkg, CharSequence name, int length) {
+    if (pkg.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      char c = name.charAt(i);
+      if (pkg.charAt(i) != (c == '.' ? '/' : c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Identifies the running JDK installation and build, e.g. to key persisted JDK data. */
+  static String runtimeKey() {
+    String identity = System.getProperty("java.home") + '\0' + Runtime.version();
+    try {
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(sha256.digest(identity.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private static JdkClassIndex read(Path file) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        throw new IOException("unrecognized index format");
+      }
+      if (!in.readUTF().equals(Runtime.version().toString())) {
+        throw new IOException("index built for another JDK");
+      }
+      String[] moduleNames = new String[in.readUnsignedShort()];
+      for (int i = 0; i < moduleNames.length; i++) {
+        moduleNames[i] = in.readUTF();
+      }
+      int count = in.readInt();
+      List<String> packageNames = new ArrayList<>(count);
+      short[] packageModules = new short[count];
+      for (int i = 0; i < count; i++) {
+        packageNames.add(in.readUTF());
+        packageModules[i] = in.readShort();
+        Objects.checkIndex(packageModules[i], moduleNames.length);
+      }
+      return new JdkClassIndex(moduleNames, packageNames, packageModules);
+    }
+  }
+
+  private void write(Path file) throws IOException {
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(Runtime.version().toString());
+      out.writeShort(moduleNames.length);
+      for (String moduleName : moduleNames) {
+        out.writeUTF(moduleName);
+      }
+      out.writeInt(packageCount);
+      for (int slot = 0; slot < packages.length; slot++) {
+        if (packages[slot] != null) {
+          out.writeUTF(packages[slot]);
+          out.writeShort(moduleIds[slot]);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+/**
+ * Writes launcher scripts into the {@code bin/} directory of a runtime image that start the image's
+ * java with additional JVM options.
+ *
+ * <p>Options refer to files of the image through the {@value #IMAGE} placeholder, which the script
+ * resolves from its own location, so the image can be moved or copied into a container.
+ */
+final class LauncherScript {
+
+  /** Placeholder for the image directory in launcher options. */
+  static final String IMAGE = "{image}";
+
+  private LauncherScript() {}
+
+  /**
+   * Writes a launcher for the current platform.
+   *
+   * @param jrePath runtime image
+   * @param name launcher name, without extension
+   * @param description what the launcher adds, for the script's comment
+   * @param jvmOptions options passed to java before the launcher's arguments
+   * @return the launcher
+   * @throws IOException if the launcher cannot be written
+   */
+  static Path write(Path jrePath, String name, String description, List<String> jvmOptions)
+      throws IOException {
+    return JLinkExecutor.isWindows()
+        ? writeCmd(jrePath, name, description, jvmOptions)
+        : writeShell(jrePath, name, description, jvmOptions);
+  }
+
+  private static Path writeShell(
+      Path jrePath, String name, String description, List<String> jvmOptions) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("#!/bin/sh\n");
+    sb.append("# Generated by slim-jre: runs java with ").append(description).append(".\n");
+    sb.append("IMAGE=\"$(cd \"$(dirname \"$0\")/..\" && pwd)\"\n");
+    sb.append("exec \"$IMAGE/bin/java\"");
+    for (String option : jvmOptions) {
+      sb.append(" \"").append(option.replace(IMAGE, "$IMAGE")).append('"');
+    }
+    sb.append(" \"$@\"\n");
+
+    Path launcher = jrePath.resolve("bin").resolve(name);
+    Files.writeString(launcher, sb);
+    try {
+      Files.setPosixFilePermissions(launcher, PosixFilePermissions.fromString("rwxr-xr-x"));
+    } catch (UnsupportedOperationException e) {
+      // Not a POSIX file system; the launcher can still be run with sh
+    }
+    return launcher;
+  }
+
+  private static Path writeCmd(
+      Path jrePath, String name, String description, List<String> jvmOptions) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("@echo off\r\n");
+    sb.append("rem Generated by slim-jre: runs java with ").append(description).append(".\r\n");
+    sb.append("set \"IMAGE=%~dp0..\"\r\n");
+    sb.append("\"%IMAGE%\\bin\\java.exe\"");
+    for (String option : jvmOptions) {
+      String resolved = option.contains(IMAGE) ? option.replace('/', '\\') : option;
+      sb.append(" \"").append(resolved.replace(IMAGE, "%IMAGE%")).append('"');
+    }
+    sb.append(" %*\r\n");
+
+    Path launcher = jrePath.resolve("bin").resolve(name + ".cmd");
+    Files.writeString(launcher, sb);
+    return launcher;
+  }
+}
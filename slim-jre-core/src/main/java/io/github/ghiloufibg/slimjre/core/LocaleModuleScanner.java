@@ -1,26 +1,17 @@
 package io.github.ghiloufibg.slimjre.core;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
@@ -56,7 +47,8 @@ import org.slf4j.LoggerFactory;
  *   Locale.getDefault()                        → Tier 3 (Possible)
  * </pre>
  */
-public class LocaleModuleScanner {
+public class LocaleModuleScanner
+    implements BytecodeDetector<LocaleModuleScanner.JarScanResult, LocaleDetectionResult> {
 
   private static final Logger log = LoggerFactory.getLogger(LocaleModuleScanner.class);
 
@@ -89,6 +81,45 @@ public class LocaleModuleScanner {
   private static final Set<String> COMMON_LOCALE_METHODS =
       Set.of("getDefault", "setDefault", "getAvailableLocales");
 
+  /** Constant pool fragments of every owner and class name the tiers above match. */
+  private static final ConstantPool.Fragments FRAGMENTS =
+      ConstantPool.fragments(
+          "java/util/Locale",
+          "java/util/ResourceBundle",
+          "java/text/",
+          "java/time/format/DateTimeFormatter");
+
+  /** Persists per-JAR patterns; bump the version whenever the patterns above change. */
+  private static final JarStateCodec<JarScanResult> JAR_STATE_CODEC =
+      new JarStateCodec<>() {
+        @Override
+        public String id() {
+          return "locale";
+        }
+
+        @Override
+        public int version() {
+          return 1;
+        }
+
+        @Override
+        public Map<String, Set<String>> encode(JarScanResult jarState) {
+          return Map.of(
+              "tier1", jarState.tier1(), "tier2", jarState.tier2(), "tier3", jarState.tier3());
+        }
+
+        @Override
+        public JarScanResult decode(Path jarPath, Map<String, Set<String>> sections) {
+          return new JarScanResult(
+              jarPath.getFileName().toString(),
+              new LinkedHashSet<>(sections.getOrDefault("tier1", Set.of())),
+              new LinkedHashSet<>(sections.getOrDefault("tier2", Set.of())),
+              new LinkedHashSet<>(sections.getOrDefault("tier3", Set.of())));
+        }
+      };
+
+  private final BytecodeScanEngine scanEngine = new BytecodeScanEngine();
+
   /** Creates a new LocaleModuleScanner. */
   public LocaleModuleScanner() {
     log.debug(
@@ -215,27 +246,40 @@ public class LocaleModuleScanner {
 
     log.debug("Scanning {} JAR(s) for locale patterns...", jars.size());
 
-    Set<String> tier1Patterns = ConcurrentHashMap.newKeySet();
-    Set<String> tier2Patterns = ConcurrentHashMap.newKeySet();
-    Set<String> tier3Patterns = ConcurrentHashMap.newKeySet();
-    Set<String> detectedInJars = ConcurrentHashMap.newKeySet();
-
-    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-      List<Future<JarScanResult>> futures =
-          jars.stream().map(jar -> executor.submit(() -> scanJar(jar))).toList();
-
-      for (Future<JarScanResult> future : futures) {
-        try {
-          JarScanResult result = future.get();
-          if (result.hasPatterns()) {
-            detectedInJars.add(result.jarName);
-            tier1Patterns.addAll(result.tier1);
-            tier2Patterns.addAll(result.tier2);
-            tier3Patterns.addAll(result.tier3);
-          }
-        } catch (Exception e) {
-          log.warn("Failed to get locale scan result: {}", e.getMessage());
-        }
+    return scanEngine.scan(jars, this);
+  }
+
+  @Override
+  public JarScanResult newJarState(Path jarPath) {
+    return new JarScanResult(
+        jarPath.getFileName().toString(),
+        new LinkedHashSet<>(),
+        new LinkedHashSet<>(),
+        new LinkedHashSet<>());
+  }
+
+  @Override
+  public ClassVisitor newClassVisitor(JarScanResult jarState, String entryName) {
+    // Skip module-info.class
+    if (BytecodeScanEngine.isModuleInfo(entryName)) {
+      return null;
+    }
+    return new LocalePatternVisitor(jarState.tier1(), jarState.tier2(), jarState.tier3());
+  }
+
+  @Override
+  public LocaleDetectionResult aggregate(List<JarScanResult> jarStates) {
+    Set<String> tier1Patterns = new TreeSet<>();
+    Set<String> tier2Patterns = new TreeSet<>();
+    Set<String> tier3Patterns = new TreeSet<>();
+    Set<String> detectedInJars = new LinkedHashSet<>();
+
+    for (JarScanResult result : jarStates) {
+      if (result.hasPatterns()) {
+        detectedInJars.add(result.jarName());
+        tier1Patterns.addAll(result.tier1());
+        tier2Patterns.addAll(result.tier2());
+        tier3Patterns.addAll(result.tier3());
       }
     }
 
@@ -263,12 +307,29 @@ public class LocaleModuleScanner {
     }
 
     return new LocaleDetectionResult(
-        requiredModules,
-        new TreeSet<>(tier1Patterns),
-        new TreeSet<>(tier2Patterns),
-        new TreeSet<>(tier3Patterns),
-        new LinkedHashSet<>(detectedInJars),
-        confidence);
+        requiredModules, tier1Patterns, tier2Patterns, tier3Patterns, detectedInJars, confidence);
+  }
+
+  @Override
+  public boolean mayMatch(ConstantPool constantPool) {
+    return constantPool.mentions(FRAGMENTS);
+  }
+
+  @Override
+  public boolean canMergeJarStates() {
+    return true;
+  }
+
+  @Override
+  public void mergeJarStates(JarScanResult jarState, JarScanResult batchState) {
+    jarState.tier1().addAll(batchState.tier1());
+    jarState.tier2().addAll(batchState.tier2());
+    jarState.tier3().addAll(batchState.tier3());
+  }
+
+  @Override
+  public JarStateCodec<JarScanResult> jarStateCodec() {
+    return JAR_STATE_CODEC;
   }
 
   /**
@@ -278,46 +339,7 @@ public class LocaleModuleScanner {
    * @return scan result with JAR name and detected patterns by tier
    */
   JarScanResult scanJar(Path jarPath) {
-    Objects.requireNonNull(jarPath, "jarPath must not be null");
-
-    String jarName = jarPath.getFileName().toString();
-
-    if (!Files.exists(jarPath)) {
-      log.warn("JAR file does not exist: {}", jarPath);
-      return new JarScanResult(jarName, Set.of(), Set.of(), Set.of());
-    }
-
-    Set<String> tier1 = new LinkedHashSet<>();
-    Set<String> tier2 = new LinkedHashSet<>();
-    Set<String> tier3 = new LinkedHashSet<>();
-
-    try (JarFile jar = new JarFile(jarPath.toFile())) {
-      Enumeration<JarEntry> entries = jar.entries();
-      while (entries.hasMoreElements()) {
-        JarEntry entry = entries.nextElement();
-        if (entry.getName().endsWith(".class") && !entry.isDirectory()) {
-          // Skip module-info.class
-          if (entry.getName().equals("module-info.class")
-              || entry.getName().endsWith("/module-info.class")) {
-            continue;
-          }
-          try (InputStream is = jar.getInputStream(entry);
-              BufferedInputStream bis = new BufferedInputStream(is, 8192)) {
-            ClassScanResult classResult = scanClass(bis);
-            tier1.addAll(classResult.tier1);
-            tier2.addAll(classResult.tier2);
-            tier3.addAll(classResult.tier3);
-          } catch (IOException e) {
-            log.trace("Failed to scan class {}: {}", entry.getName(), e.getMessage());
-          }
-        }
-      }
-    } catch (IOException e) {
-      log.warn("Failed to scan JAR {}: {}", jarPath, e.getMessage());
-      return new JarScanResult(jarName, Set.of(), Set.of(), Set.of());
-    }
-
-    return new JarScanResult(jarName, tier1, tier2, tier3);
+    return scanEngine.scanJar(jarPath, this);
   }
 
   /**
@@ -328,7 +350,9 @@ public class LocaleModuleScanner {
    */
   ClassScanResult scanClass(InputStream classInputStream) throws IOException {
     ClassReader reader = new ClassReader(classInputStream);
-    LocalePatternVisitor visitor = new LocalePatternVisitor();
+    LocalePatternVisitor visitor =
+        new LocalePatternVisitor(
+            new LinkedHashSet<>(), new LinkedHashSet<>(), new LinkedHashSet<>());
     reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
     return new ClassScanResult(
         visitor.getTier1Patterns(), visitor.getTier2Patterns(), visitor.getTier3Patterns());
@@ -347,12 +371,16 @@ public class LocaleModuleScanner {
   /** ASM ClassVisitor that detects locale-related API usage patterns. */
   private class LocalePatternVisitor extends ClassVisitor {
 
-    private final Set<String> tier1Patterns = new LinkedHashSet<>();
-    private final Set<String> tier2Patterns = new LinkedHashSet<>();
-    private final Set<String> tier3Patterns = new LinkedHashSet<>();
+    private final Set<String> tier1Patterns;
+    private final Set<String> tier2Patterns;
+    private final Set<String> tier3Patterns;
 
-    LocalePatternVisitor() {
+    LocalePatternVisitor(
+        Set<String> tier1Patterns, Set<String> tier2Patterns, Set<String> tier3Patterns) {
       super(Opcodes.ASM9);
+      this.tier1Patterns = tier1Patterns;
+      this.tier2Patterns = tier2Patterns;
+      this.tier3Patterns = tier3Patterns;
     }
 
     @Override
@@ -0,0 +1,382 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * ZIP archive read directly from a byte buffer, typically a memory-mapped file or a region of one.
+ *
+ * <p>Only the central directory is parsed up front. Entry data is located through its local header
+ * on demand, so a stored entry can be exposed as a zero-copy slice of the buffer. This is what
+ * allows a JAR stored uncompressed inside a fat JAR or WAR to be read in place, without extracting
+ * it. Regular JARs are read the same way, without the signature checks of {@link
+ * java.util.jar.JarFile}.
+ *
+ * <p>Archives preceded by a prefix, such as the launch script of a fully executable Spring Boot
+ * JAR, are supported. ZIP64 archives and encrypted entries are not; opening them fails with a
+ * {@link ZipException} so that callers can fall back to {@link java.util.zip.ZipFile}.
+ *
+ * <p>Instances are immutable and may be shared between threads.
+ */
+final class MappedZip {
+
+  static final int STORED = 0;
+  static final int DEFLATED = 8;
+
+  private static final int LOC_SIGNATURE = 0x04034b50;
+  private static final int CEN_SIGNATURE = 0x02014b50;
+  private static final int END_SIGNATURE = 0x06054b50;
+
+  private static final int LOC_HEADER_SIZE = 30;
+  private static final int CEN_HEADER_SIZE = 46;
+  private static final int END_HEADER_SIZE = 22;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+  private static final int FLAG_ENCRYPTED = 0x1;
+
+  /** Largest array the JVM reliably allocates. */
+  private static final long MAX_ENTRY_SIZE = Integer.MAX_VALUE - 8;
+
+  /** Deflate expands its input at most about 1032 times. */
+  private static final long MAX_DEFLATE_RATIO = 1032;
+
+  private final ByteBuffer buffer;
+  private final List<Entry> entries;
+  private volatile Map<String, Entry> entriesByName;
+
+  private MappedZip(ByteBuffer buffer, List<Entry> entries) {
+    this.buffer = buffer;
+    this.entries = entries;
+  }
+
+  /**
+   * Maps a file into memory and parses its central directory.
+   *
+   * @param file ZIP file
+   * @return the mapped archive
+   * @throws ZipException if the file is not a supported ZIP archive or exceeds 2 GB
+   * @throws IOException if the file cannot be mapped
+   */
+  static MappedZip map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new ZipException("Archive too large to map: " + file);
+      }
+      return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+  }
+
+  /**
+   * Parses the central directory of a ZIP archive held in a buffer.
+   *
+   * @param zip buffer whose remaining bytes are the archive
+   * @return the archive
+   * @throws ZipException if the bytes are not a supported ZIP archive
+   */
+  static MappedZip of(ByteBuffer zip) throws ZipException {
+    ByteBuffer buffer = zip.slice().order(ByteOrder.LITTLE_ENDIAN);
+    try {
+      return new MappedZip(buffer, readCentralDirectory(buffer));
+    } catch (IndexOutOfBoundsException e) {
+      throw new ZipException("Truncated ZIP archive");
+    }
+  }
+
+  /** Returns all entries in central directory order, including directories. */
+  List<Entry> entries() {
+    return entries;
+  }
+
+  /**
+   * Looks up an entry by name.
+   *
+   * @param name entry name
+   * @return the entry, or null if absent
+   */
+  Entry entry(String name) {
+    Map<String, Entry> byName = entriesByName;
+    if (byName == null) {
+      byName = new HashMap<>(entries.size() * 2);
+      for (Entry entry : entries) {
+        byName.putIfAbsent(entry.name(), entry);
+      }
+      entriesByName = byName;
+    }
+    return byName.get(name);
+  }
+
+  /**
+   * Returns the raw, possibly compressed, data of an entry without copying.
+   *
+   * @param entry entry of this archive
+   * @return read-only view of the entry data
+   * @throws ZipException if the local header is invalid
+   */
+  ByteBuffer rawData(Entry entry) throws ZipException {
+    return buffer.slice(dataOffset(entry), (int) entry.compressedSize()).asReadOnlyBuffer();
+  }
+
+  /**
+   * Reads and, if needed, inflates the content of an entry.
+   *
+   * @param entry entry of this archive
+   * @return the uncompressed content
+   * @throws ZipException if the entry is malformed or uses an unsupported compression method
+   */
+  byte[] read(Entry entry) throws ZipException {
+    byte[] content = new byte[size(entry)];
+    Inflater inflater = entry.method() == DEFLATED ? new Inflater(true) : null;
+    try {
+      read(entry, content, inflater);
+    } finally {
+      if (inflater != null) {
+        inflater.end();
+      }
+    }
+    return content;
+  }
+
+  /**
+   * Reads and, if needed, inflates the content of an entry into an array provided by the caller,
+   * e.g. one reused across entries.
+   *
+   * @param entry entry of this archive
+   * @param target array receiving the content at offset 0, at least {@link Entry#size()} long
+   * @param inflater nowrap inflater for deflated entries, reset before use
+   * @throws ZipException if the entry is malformed or uses an unsupported compression method
+   */
+  void read(Entry entry, byte[] target, Inflater inflater) throws ZipException {
+    int size = size(entry);
+    int offset = dataOffset(entry);
+    switch (entry.method()) {
+      case STORED -> buffer.get(offset, target, 0, size);
+      case DEFLATED -> {
+        inflater.reset();
+        try {
+          inflater.setInput(buffer.slice(offset, (int) entry.compressedSize()));
+          int total = 0;
+          while (total < size) {
+            int inflated = inflater.inflate(target, total, size - total);
+            // A stream ending before the declared size, with data left over, never needs input
+            if (inflated == 0
+                && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+              throw new ZipException("Truncated deflated entry: " + entry.name());
+            }
+            total += inflated;
+          }
+        } catch (DataFormatException e) {
+          throw new ZipException("Invalid deflated entry " + entry.name() + ": " + e.getMessage());
+        }
+      }
+      default -> throw unsupportedMethod(entry);
+    }
+  }
+
+  /**
+   * Returns the uncompressed size of an entry, once checked against its compressed data, so that a
+   * corrupt or hostile entry is rejected before a caller allocates for it.
+   *
+   * @param entry entry of this archive
+   * @return the declared uncompressed size
+   * @throws ZipException if the size cannot be that of the entry's data
+   */
+  int size(Entry entry) throws ZipException {
+    long size = entry.size();
+    long compressedSize = entry.compressedSize();
+    if (size > MAX_ENTRY_SIZE) {
+      throw new ZipException("Entry too large: " + entry.name() + " (" + size + " bytes)");
+    }
+    boolean consistent =
+        switch (entry.method()) {
+          case STORED -> size == compressedSize;
+          case DEFLATED -> size <= (compressedSize + 1) * MAX_DEFLATE_RATIO;
+          default -> throw unsupportedMethod(entry);
+        };
+    if (!consistent) {
+      throw new ZipException(
+          "Inconsistent sizes of entry "
+              + entry.name()
+              + ": "
+              + size
+              + " bytes from "
+              + compressedSize
+              + " compressed");
+    }
+    if (dataOffset(entry) + compressedSize > buffer.limit()) {
+      throw new ZipException("Entry extends past the end of the archive: " + entry.name());
+    }
+    return (int) size;
+  }
+
+  /**
+   * Opens a stream over the uncompressed content of an entry, without reading it all up front.
+   *
+   * @param entry entry of this archive
+   * @return stream of the uncompressed content
+   * @throws ZipException if the entry is malformed or uses an unsupported compression method
+   */
+  InputStream openStream(Entry entry) throws ZipException {
+    InputStream raw = new BufferInputStream(rawData(entry));
+    return switch (entry.method()) {
+      case STORED -> raw;
+      case DEFLATED ->
+          new InflaterInputStream(raw, new Inflater(true), 8192) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+              if (!closed) {
+                closed = true;
+                inf.end();
+                super.close();
+              }
+            }
+          };
+      default -> throw unsupportedMethod(entry);
+    };
+  }
+
+  private int dataOffset(Entry entry) throws ZipException {
+    int loc = entry.localHeaderOffset();
+    if (buffer.getInt(loc) != LOC_SIGNATURE) {
+      throw new ZipException("Invalid local header for entry: " + entry.name());
+    }
+    int nameLength = Short.toUnsignedInt(buffer.getShort(loc + 26));
+    int extraLength = Short.toUnsignedInt(buffer.getShort(loc + 28));
+    return loc + LOC_HEADER_SIZE + nameLength + extraLength;
+  }
+
+  private static List<Entry> readCentralDirectory(ByteBuffer buffer) throws ZipException {
+    int end = findEndOfCentralDirectory(buffer);
+    int count = Short.toUnsignedInt(buffer.getShort(end + 10));
+    long cenSize = Integer.toUnsignedLong(buffer.getInt(end + 12));
+    long cenOffset = Integer.toUnsignedLong(buffer.getInt(end + 16));
+    if (count == 0xFFFF || cenSize == 0xFFFFFFFFL || cenOffset == 0xFFFFFFFFL) {
+      throw new ZipException("ZIP64 archives are not supported");
+    }
+
+    // Offsets are relative to the start of the ZIP data, which follows any prefix
+    long base = end - cenSize - cenOffset;
+    if (base < 0) {
+      throw new ZipException("Invalid central directory offset");
+    }
+
+    List<Entry> entries = new ArrayList<>(count);
+    int pos = (int) (base + cenOffset);
+    for (int i = 0; i < count; i++) {
+      if (buffer.getInt(pos) != CEN_SIGNATURE) {
+        throw new ZipException("Invalid central directory header");
+      }
+      int flags = Short.toUnsignedInt(buffer.getShort(pos + 8));
+      int method = Short.toUnsignedInt(buffer.getShort(pos + 10));
+      long compressedSize = Integer.toUnsignedLong(buffer.getInt(pos + 20));
+      long size = Integer.toUnsignedLong(buffer.getInt(pos + 24));
+      int nameLength = Short.toUnsignedInt(buffer.getShort(pos + 28));
+      int extraLength = Short.toUnsignedInt(buffer.getShort(pos + 30));
+      int commentLength = Short.toUnsignedInt(buffer.getShort(pos + 32));
+      long localHeaderOffset = Integer.toUnsignedLong(buffer.getInt(pos + 42));
+
+      if (compressedSize == 0xFFFFFFFFL
+          || size == 0xFFFFFFFFL
+          || localHeaderOffset == 0xFFFFFFFFL) {
+        throw new ZipException("ZIP64 entries are not supported");
+      }
+      if ((flags & FLAG_ENCRYPTED) != 0) {
+        throw new ZipException("Encrypted entries are not supported");
+      }
+
+      byte[] name = new byte[nameLength];
+      buffer.get(pos + CEN_HEADER_SIZE, name);
+      entries.add(
+          new Entry(
+              new String(name, StandardCharsets.UTF_8),
+              method,
+              compressedSize,
+              size,
+              (int) (base + localHeaderOffset)));
+
+      pos += CEN_HEADER_SIZE + nameLength + extraLength + commentLength;
+    }
+    return List.copyOf(entries);
+  }
+
+  private static int findEndOfCentralDirectory(ByteBuffer buffer) throws ZipException {
+    int last = buffer.limit() - END_HEADER_SIZE;
+    int first = Math.max(0, last - MAX_COMMENT_SIZE);
+    for (int pos = last; pos >= first; pos--) {
+      if (buffer.getInt(pos) == END_SIGNATURE) {
+        return pos;
+      }
+    }
+    throw new ZipException("End of central directory not found");
+  }
+
+  private static ZipException unsupportedMethod(Entry entry) {
+    return new ZipException(
+        "Unsupported compression method " + entry.method() + " for entry: " + entry.name());
+  }
+
+  /**
+   * Central directory record of an entry.
+   *
+   * @param name entry name
+   * @param method compression method, {@link #STORED} or {@link #DEFLATED}
+   * @param compressedSize size of the entry data in the archive
+   * @param size uncompressed size
+   * @param localHeaderOffset offset of the local header in the buffer
+   */
+  record Entry(String name, int method, long compressedSize, long size, int localHeaderOffset) {
+
+    boolean isDirectory() {
+      return name.endsWith("/");
+    }
+  }
+
+  /** InputStream reading the remaining bytes of a buffer. */
+  private static final class BufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    BufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? Byte.toUnsignedInt(buffer.get()) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
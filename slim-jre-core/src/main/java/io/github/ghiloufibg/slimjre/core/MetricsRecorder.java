@@ -0,0 +1,174 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import io.github.ghiloufibg.slimjre.config.PipelineMetrics;
+import io.github.ghiloufibg.slimjre.config.PipelineStage;
+import io.github.ghiloufibg.slimjre.config.StageMetrics;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Collects the {@link StageMetrics} of one analysis or JRE creation.
+ *
+ * <p>Stages may be recorded concurrently. CPU time is measured per thread and is therefore only
+ * available for stages running on platform threads; the JVM does not report the CPU time of virtual
+ * threads.
+ */
+final class MetricsRecorder {
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  private final List<StageMetrics> stages = new ArrayList<>();
+  private final Stopwatch total = Stopwatch.start();
+  private final long processCpuStart = processCpuNanos();
+
+  /**
+   * Runs a stage and records its time.
+   *
+   * @param stage the stage
+   * @param jars number of JARs the stage processes
+   * @param cacheHits running count of the stage's cache hits, read before and after the stage
+   * @param work the work of the stage
+   * @param <T> result type
+   * @return the result of the work
+   */
+  <T> T measure(PipelineStage stage, long jars, LongSupplier cacheHits, Supplier<T> work) {
+    long hitsBefore = cacheHits.getAsLong();
+    Stopwatch stopwatch = Stopwatch.start();
+    T result = work.get();
+    record(
+        new StageMetrics(
+            stage,
+            stopwatch.wallTime(),
+            stopwatch.cpuTime(),
+            jars,
+            0,
+            0,
+            cacheHits.getAsLong() - hitsBefore));
+    return result;
+  }
+
+  /**
+   * Runs a stage that does not process JARs and records its time.
+   *
+   * @param stage the stage
+   * @param work the work of the stage
+   * @param <T> result type
+   * @return the result of the work
+   */
+  <T> T measure(PipelineStage stage, Supplier<T> work) {
+    return measure(stage, 0, () -> 0, work);
+  }
+
+  /** Records the metrics of a stage measured by the caller. */
+  void record(StageMetrics metrics) {
+    synchronized (stages) {
+      stages.add(metrics);
+    }
+  }
+
+  /** Records the statistics of a bytecode scan and of each detector that took part in it. */
+  void recordScan(
+      BytecodeScanEngine.Results results, List<? extends StageDetector> detectorsByStage) {
+    BytecodeScanEngine.Statistics statistics = results.statistics();
+    record(
+        new StageMetrics(
+            PipelineStage.BYTECODE_SCAN,
+            statistics.wallTime(),
+            null,
+            statistics.jars(),
+            statistics.classes(),
+            statistics.bytesRead(),
+            statistics.jarsFromCache()));
+    for (StageDetector detector : detectorsByStage) {
+      BytecodeScanEngine.DetectorStatistics detectorStatistics =
+          results.statistics(detector.detector());
+      record(
+          new StageMetrics(
+              detector.stage(),
+              detectorStatistics.aggregationTime(),
+              null,
+              statistics.jars(),
+              detectorStatistics.classes(),
+              0,
+              detectorStatistics.cacheHits()));
+    }
+  }
+
+  /** Returns the metrics recorded so far, with totals measured since this recorder was created. */
+  PipelineMetrics snapshot() {
+    long processCpuEnd = processCpuNanos();
+    Duration cpuTime =
+        processCpuStart >= 0 && processCpuEnd >= 0
+            ? Duration.ofNanos(processCpuEnd - processCpuStart)
+            : null;
+    synchronized (stages) {
+      return new PipelineMetrics(stages, total.wallTime(), cpuTime);
+    }
+  }
+
+  /**
+   * Returns the CPU time of the JVM process, or -1 if the platform does not report it.
+   *
+   * <p>Uses the {@code com.sun.management} extension, available on HotSpot and OpenJ9.
+   */
+  private static long processCpuNanos() {
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.OperatingSystemMXBean hotspot) {
+      return hotspot.getProcessCpuTime();
+    }
+    return -1;
+  }
+
+  /**
+   * A bytecode detector and the stage its statistics are reported under.
+   *
+   * @param detector the detector
+   * @param stage its stage
+   */
+  record StageDetector(BytecodeDetector<?, ?> detector, PipelineStage stage) {}
+
+  /** Wall and CPU time of the current thread since it was started. */
+  static final class Stopwatch {
+
+    private final long wallStart;
+    private final long cpuStart;
+
+    private Stopwatch(long wallStart, long cpuStart) {
+      this.wallStart = wallStart;
+      this.cpuStart = cpuStart;
+    }
+
+    /** Starts measuring on the current thread. */
+    static Stopwatch start() {
+      return new Stopwatch(System.nanoTime(), threadCpuNanos());
+    }
+
+    /** Returns the elapsed time. */
+    Duration wallTime() {
+      return Duration.ofNanos(System.nanoTime() - wallStart);
+    }
+
+    /**
+     * Returns the CPU time of the current thread since the start.
+     *
+     * @return CPU time, or null on virtual threads or if thread CPU time is not supported
+     */
+    Duration cpuTime() {
+      long cpuEnd = threadCpuNanos();
+      return cpuStart >= 0 && cpuEnd >= 0 ? Duration.ofNanos(cpuEnd - cpuStart) : null;
+    }
+
+    private static long threadCpuNanos() {
+      if (Thread.currentThread().isVirtual() || !THREADS.isCurrentThreadCpuTimeSupported()) {
+        return -1;
+      }
+      return THREADS.getCurrentThreadCpuTime();
+    }
+  }
+}
@@ -5,6 +5,7 @@ import java.lang.module.ModuleDescriptor;
 import java.lang.module.ModuleFinder;
 import java.lang.module.ModuleReference;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,42 +13,49 @@ import org.slf4j.LoggerFactory;
 /**
  * Resolves module dependencies including transitive requirements. Uses the Java module system APIs
  * to discover available modules and their dependencies.
+ *
+ * <p>The module graph of the current JDK is read once per JVM. Every system module gets an integer
+ * id in name order, and the transitive closure of each module is precomputed as a {@link BitSet}
+ * over those ids. Resolving a set of modules is then one {@link BitSet#or} per direct module, and
+ * resolved sets are memoized by their input. Features that resolve many candidate sets, such as
+ * size optimization, can work on bitsets directly with {@link #moduleId}, {@link #closure(BitSet)}
+ * and {@link #moduleNames(BitSet)}.
  */
 public class ModuleResolver {
 
   private static final Logger log = LoggerFactory.getLogger(ModuleResolver.class);
 
-  private final Set<String> availableModules;
-  private final Map<String, Set<String>> moduleRequires;
+  /** Number of resolved input sets kept before the memo is cleared. */
+  private static final int MAX_MEMOIZED = 1024;
+
+  private static volatile ModuleGraph systemGraph;
+
+  private final ModuleGraph graph;
+  private final Map<Set<String>, BitSet> memo = new ConcurrentHashMap<>();
 
   /** Creates a new ModuleResolver for the current JDK. */
   public ModuleResolver() {
-    this.availableModules = new TreeSet<>();
-    this.moduleRequires = new HashMap<>();
-    discoverModules();
+    this.graph = systemGraph();
   }
 
-  /** Discovers all available JDK modules and their dependencies. */
-  private void discoverModules() {
-    // Use system module finder to get all JDK modules
-    ModuleFinder finder = ModuleFinder.ofSystem();
-
-    for (ModuleReference ref : finder.findAll()) {
-      ModuleDescriptor descriptor = ref.descriptor();
-      String moduleName = descriptor.name();
-
-      availableModules.add(moduleName);
-
-      // Get required modules (excludes 'java.base' as it's always implicitly required)
-      Set<String> requires =
-          descriptor.requires().stream()
-              .map(ModuleDescriptor.Requires::name)
-              .collect(Collectors.toSet());
+  /** Creates a ModuleResolver for the modules a finder locates, e.g. in tests. */
+  ModuleResolver(ModuleFinder finder) {
+    this.graph = ModuleGraph.of(finder);
+  }
 
-      moduleRequires.put(moduleName, requires);
+  /** Returns the module graph of the current JDK, reading it on first use. */
+  private static ModuleGraph systemGraph() {
+    ModuleGraph graph = systemGraph;
+    if (graph == null) {
+      synchronized (ModuleResolver.class) {
+        graph = systemGraph;
+        if (graph == null) {
+          graph = ModuleGraph.of(ModuleFinder.ofSystem());
+          systemGraph = graph;
+        }
+      }
     }
-
-    log.debug("Discovered {} JDK modules", availableModules.size());
+    return graph;
   }
 
   /**
@@ -58,55 +66,103 @@ public class ModuleResolver {
    * @throws ModuleResolutionException if a required module is not found
    */
   public Set<String> resolveWithTransitive(Set<String> directModules) {
-    Set<String> resolved = new TreeSet<>();
-    Deque<String> toProcess = new ArrayDeque<>(directModules);
+    Set<String> key = Set.copyOf(directModules);
+    BitSet resolved = memo.get(key);
+    if (resolved == null) {
+      resolved = resolve(key);
+      if (memo.size() >= MAX_MEMOIZED) {
+        memo.clear();
+      }
+      memo.put(key, resolved);
+    }
 
-    while (!toProcess.isEmpty()) {
-      String module = toProcess.pop();
+    Set<String> modules = moduleNames(resolved);
+    log.debug(
+        "Resolved {} modules from {} direct dependencies", modules.size(), directModules.size());
+    return modules;
+  }
 
-      if (resolved.contains(module)) {
+  /** Returns the closure of the JDK modules of a set, skipping application modules. */
+  private BitSet resolve(Set<String> directModules) {
+    BitSet direct = new BitSet(graph.names.length);
+    for (String module : directModules) {
+      int id = moduleId(module);
+      if (id >= 0) {
+        direct.set(id);
         continue;
       }
 
-      if (!availableModules.contains(module)) {
-        // Check if it's an application module (not a JDK module)
-        if (module.startsWith("java.")
-            || module.startsWith("jdk.")
-            || module.startsWith("javafx.")
-            || module.startsWith("oracle.")) {
-          throw new ModuleResolutionException(
-              module,
-              "JDK module '"
-                  + module
-                  + "' not found in current JDK. "
-                  + "Available modules: "
-                  + availableModules);
-        }
-        // Skip application modules - they don't need to be included
-        log.debug("Skipping non-JDK module: {}", module);
-        continue;
+      // Check if it's an application module (not a JDK module)
+      if (isJdkModuleName(module)) {
+        throw new ModuleResolutionException(
+            module,
+            "JDK module '"
+                + module
+                + "' not found in current JDK. "
+                + "Available modules: "
+                + graph.availableModules);
       }
+      // Skip application modules - they don't need to be included
+      log.debug("Skipping non-JDK module: {}", module);
+    }
+    return closure(direct);
+  }
 
-      resolved.add(module);
+  /**
+   * Returns the id of a system module in the bitsets of this resolver.
+   *
+   * @param moduleName module name
+   * @return the id, or -1 if the module is not available in the current JDK
+   */
+  public int moduleId(String moduleName) {
+    Integer id = graph.ids.get(moduleName);
+    return id != null ? id : -1;
+  }
 
-      // Add transitive dependencies
-      Set<String> requires = moduleRequires.get(module);
-      if (requires != null) {
-        for (String req : requires) {
-          if (!resolved.contains(req)) {
-            toProcess.add(req);
-          }
-        }
+  /**
+   * Returns the transitive closure of a set of system modules.
+   *
+   * @param modules ids of the modules, see {@link #moduleId}
+   * @return a new bitset with the modules, everything they require transitively and java.base
+   * @throws ModuleResolutionException if a module transitively requires a JDK module that is not
+   *     found
+   */
+  public BitSet closure(BitSet modules) {
+    BitSet closure = new BitSet(graph.names.length);
+    for (int id = modules.nextSetBit(0); id >= 0; id = modules.nextSetBit(id + 1)) {
+      MissingModule missing = graph.missing[id];
+      if (missing != null) {
+        throw new ModuleResolutionException(
+            missing.module(),
+            "JDK module '"
+                + missing.module()
+                + "' required by '"
+                + missing.requiredBy()
+                + "' not found in current JDK. "
+                + "Available modules: "
+                + graph.availableModules);
       }
+      closure.or(graph.closures[id]);
     }
-
     // Always ensure java.base is included
-    resolved.add("java.base");
-
-    log.debug(
-        "Resolved {} modules from {} direct dependencies", resolved.size(), directModules.size());
+    if (graph.javaBase >= 0) {
+      closure.set(graph.javaBase);
+    }
+    return closure;
+  }
 
-    return resolved;
+  /**
+   * Returns the names of a set of system modules.
+   *
+   * @param modules ids of the modules, see {@link #moduleId}
+   * @return the module names in sorted order
+   */
+  public Set<String> moduleNames(BitSet modules) {
+    Set<String> names = new TreeSet<>();
+    for (int id = modules.nextSetBit(0); id >= 0; id = modules.nextSetBit(id + 1)) {
+      names.add(graph.names[id]);
+    }
+    return names;
   }
 
   /**
@@ -115,7 +171,7 @@ public class ModuleResolver {
    * @return set of available module names
    */
   public Set<String> availableModules() {
-    return Collections.unmodifiableSet(availableModules);
+    return graph.availableModules;
   }
 
   /**
@@ -125,7 +181,7 @@ public class ModuleResolver {
    * @return true if the module is available
    */
   public boolean isAvailable(String moduleName) {
-    return availableModules.contains(moduleName);
+    return graph.ids.containsKey(moduleName);
   }
 
   /**
@@ -135,8 +191,8 @@ public class ModuleResolver {
    * @return set of directly required modules, or empty set if not found
    */
   public Set<String> getDirectDependencies(String moduleName) {
-    Set<String> requires = moduleRequires.get(moduleName);
-    return requires != null ? Collections.unmodifiableSet(requires) : Set.of();
+    Integer id = graph.ids.get(moduleName);
+    return id != null ? graph.requires[id] : Set.of();
   }
 
   /**
@@ -147,7 +203,7 @@ public class ModuleResolver {
    */
   public Set<String> filterToAvailable(Set<String> modules) {
     return modules.stream()
-        .filter(availableModules::contains)
+        .filter(this::isAvailable)
         .collect(Collectors.toCollection(TreeSet::new));
   }
 
@@ -170,4 +226,97 @@ public class ModuleResolver {
         "jdk.jlink",
         "jdk.jfr");
   }
+
+  /** Checks if a module name belongs to the JDK rather than to an application. */
+  private static boolean isJdkModuleName(String module) {
+    return module.startsWith("java.")
+        || module.startsWith("jdk.")
+        || module.startsWith("javafx.")
+        || module.startsWith("oracle.");
+  }
+
+  /** JDK module required, possibly transitively, by a module but not found. */
+  private record MissingModule(String module, String requiredBy) {}
+
+  /** Module graph of a set of modules with the precomputed closure of each module. */
+  private static final class ModuleGraph {
+
+    /** Module names, indexed by id in sorted order. */
+    private final String[] names;
+
+    private final Map<String, Integer> ids;
+    private final Set<String> availableModules;
+
+    /** Direct requirements of each module, including {@code requires static}. */
+    private final Set<String>[] requires;
+
+    /** Each module with everything it requires transitively. */
+    private final BitSet[] closures;
+
+    /** First missing JDK module each closure reaches, or null if it is complete. */
+    private final MissingModule[] missing;
+
+    private final int javaBase;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private ModuleGraph(Map<String, Set<String>> moduleRequires) {
+      this.names = moduleRequires.keySet().stream().sorted().toArray(String[]::new);
+      this.ids = new HashMap<>();
+      for (int id = 0; id < names.length; id++) {
+        ids.put(names[id], id);
+      }
+      this.availableModules = Collections.unmodifiableSet(new TreeSet<>(ids.keySet()));
+      this.requires = new Set[names.length];
+      for (int id = 0; id < names.length; id++) {
+        requires[id] = Set.copyOf(moduleRequires.get(names[id]));
+      }
+      this.closures = new BitSet[names.length];
+      this.missing = new MissingModule[names.length];
+      for (int id = 0; id < names.length; id++) {
+        computeClosure(id);
+      }
+      this.javaBase = ids.getOrDefault("java.base", -1);
+    }
+
+    /** Reads the graph of all modules a finder locates. */
+    static ModuleGraph of(ModuleFinder finder) {
+      Map<String, Set<String>> moduleRequires = new HashMap<>();
+      for (ModuleReference ref : finder.findAll()) {
+        ModuleDescriptor descriptor = ref.descriptor();
+        moduleRequires.put(
+            descriptor.name(),
+            descriptor.requires().stream()
+                .map(ModuleDescriptor.Requires::name)
+                .collect(Collectors.toSet()));
+      }
+
+      ModuleGraph graph = new ModuleGraph(moduleRequires);
+      log.debug("Discovered {} JDK modules", graph.names.length);
+      return graph;
+    }
+
+    private BitSet computeClosure(int id) {
+      BitSet closure = closures[id];
+      if (closure != null) {
+        return closure;
+      }
+      // Stored before the requirements are visited; the module graph has no cycles
+      closure = new BitSet(names.length);
+      closure.set(id);
+      closures[id] = closure;
+      for (String required : requires[id]) {
+        Integer requiredId = ids.get(required);
+        if (requiredId != null) {
+          closure.or(computeClosure(requiredId));
+          if (missing[id] == null) {
+            missing[id] = missing[requiredId];
+          }
+        } else if (missing[id] == null && isJdkModuleName(required)) {
+          // Reported when a resolution reaches this module, as traversing it did before
+          missing[id] = new MissingModule(required, names[id]);
+        }
+      }
+      return closure;
+    }
+  }
 }
@@ -0,0 +1,383 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import io.github.ghiloufibg.slimjre.config.ModuleSize;
+import io.github.ghiloufibg.slimjre.config.SizeEstimate;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Predicts the size of a runtime image from a per-module size model, without running jlink.
+ *
+ * <p>The model is computed once per JDK from the running JDK's {@code lib/modules} image. The size
+ * of each module's classes and resources is read exactly; the effect of stripping debug attributes
+ * and of compressing like jlink's {@code zip-6} is measured on a sample of each module's files.
+ * Native libraries, launchers, configuration and legal files are attributed to their modules from
+ * the {@code jmods} directory, if the JDK has one.
+ *
+ * <p>A single model is shared by the whole JVM and built lazily on first use. Like the {@link
+ * JdkClassIndex}, it can be persisted in a directory keyed by {@code java.home} and {@link
+ * Runtime#version()}, so that later processes on the same JDK load it instead of reading every
+ * class again.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * ModuleSizeEstimator estimator = ModuleSizeEstimator.shared();
+ * SizeEstimate estimate = estimator.estimate(Set.of("java.base", "java.sql"), true, "zip-6");
+ * estimate.totalBytes();               // predicted image size
+ * estimate.bytesOf("java.sql");        // what java.sql costs
+ * }</pre>
+ */
+public final class ModuleSizeEstimator {
+
+  private static final Logger log = LoggerFactory.getLogger(ModuleSizeEstimator.class);
+
+  /** "SJMS" in ASCII. */
+  private static final int MAGIC = 0x534A4D53;
+
+  /** Bump whenever the persisted layout or the measurement changes. */
+  private static final int FORMAT_VERSION = 1;
+
+  private static final String SIZES_SUFFIX = ".sizes";
+
+  /** Compression level of jlink's default {@code zip-6}. */
+  private static final int COMPRESSION_LEVEL = 6;
+
+  /** Every how many files of a module are stripped and compressed to measure its ratios. */
+  private static final int SAMPLE_INTERVAL = 8;
+
+  /** Sections of a jmod copied into the image besides classes; include/ and man/ are excluded. */
+  private static final List<String> NATIVE_SECTIONS = List.of("bin/", "conf/", "legal/", "lib/");
+
+  private static volatile ModuleSizeEstimator shared;
+
+  private final Map<String, ModuleSize> sizes;
+
+  private ModuleSizeEstimator(Map<String, ModuleSize> sizes) {
+    this.sizes = Collections.unmodifiableMap(new TreeMap<>(sizes));
+  }
+
+  /**
+   * Returns the size model of the running JDK, building it on first use.
+   *
+   * @return the shared estimator
+   */
+  public static ModuleSizeEstimator shared() {
+    return shared(null);
+  }
+
+  /**
+   * Returns the size model of the running JDK, loading it from or persisting it to a directory on
+   * first use.
+   *
+   * <p>Once the shared model exists, the directory is ignored.
+   *
+   * @param directory directory holding persisted models, or null to only build in memory
+   * @return the shared estimator
+   */
+  public static ModuleSizeEstimator shared(Path directory) {
+    ModuleSizeEstimator estimator = shared;
+    if (estimator == null) {
+      synchronized (ModuleSizeEstimator.class) {
+        estimator = shared;
+        if (estimator == null) {
+          estimator = directory != null ? loadOrBuild(directory) : build();
+          shared = estimator;
+        }
+      }
+    }
+    return estimator;
+  }
+
+  /**
+   * Builds the model from the running JDK.
+   *
+   * @return a new estimator
+   */
+  static ModuleSizeEstimator build() {
+    long start = System.nanoTime();
+    Path javaHome = Path.of(System.getProperty("java.home"));
+    Map<String, Long> nativeBytes = readNativeBytes(javaHome.resolve("jmods"));
+
+    FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+    Map<String, ModuleSize> sizes = new HashMap<>();
+    try (Stream<Path> modules = Files.list(jrt.getPath("/modules"))) {
+      modules.toList().parallelStream()
+          .map(module -> measure(module, nativeBytes))
+          .forEach(
+              size -> {
+                synchronized (sizes) {
+                  sizes.put(size.module(), size);
+                }
+              });
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read the JDK's module image", e);
+    }
+
+    log.debug(
+        "Built module size model of {} modules in {}ms",
+        sizes.size(),
+        (System.nanoTime() - start) / 1_000_000);
+    return new ModuleSizeEstimator(sizes);
+  }
+
+  /**
+   * Loads the persisted model of the running JDK from a directory, building and persisting it if
+   * absent or unreadable. Persistence failures are logged and otherwise ignored.
+   */
+  static ModuleSizeEstimator loadOrBuild(Path directory) {
+    Path file = directory.resolve("jdk").resolve(JdkClassIndex.runtimeKey() + SIZES_SUFFIX);
+    try {
+      ModuleSizeEstimator estimator = read(file);
+      log.debug("Loaded module size model from {}", file);
+      return estimator;
+    } catch (NoSuchFileException e) {
+      log.trace("No persisted module size model at {}", file);
+    } catch (IOException | RuntimeException e) {
+      log.debug("Discarding unreadable module size model {}: {}", file, e.getMessage());
+    }
+
+    ModuleSizeEstimator estimator = build();
+    Path temp = null;
+    try {
+      Files.createDirectories(file.getParent());
+      temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      estimator.write(temp);
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      log.debug("Failed to persist module size model {}: {}", file, e.getMessage());
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+          // Best effort
+        }
+      }
+    }
+    return estimator;
+  }
+
+  /**
+   * Returns the size model of a module.
+   *
+   * @param module module name
+   * @return the model, or null if the module is not part of the JDK
+   */
+  public ModuleSize size(String module) {
+    return sizes.get(module);
+  }
+
+  /** Returns the size models of all system modules, by module name. */
+  public Map<String, ModuleSize> sizes() {
+    return sizes;
+  }
+
+  /**
+   * Estimates the size of a runtime image with the given modules.
+   *
+   * @param modules modules of the image, including transitive dependencies; non-JDK modules are
+   *     ignored
+   * @param stripDebug whether debug attributes are stripped
+   * @param compression compression level, {@code zip-0} to {@code zip-9}
+   * @return the estimate with each module's contribution
+   */
+  public SizeEstimate estimate(Set<String> modules, boolean stripDebug, String compression) {
+    Map<String, Long> moduleBytes = new HashMap<>();
+    for (String module : modules) {
+      ModuleSize size = sizes.get(module);
+      if (size != null) {
+        moduleBytes.put(module, size.estimate(stripDebug, compression));
+      }
+    }
+    return new SizeEstimate(moduleBytes, stripDebug, compression);
+  }
+
+  /**
+   * Measures the classes and resources of one module in the jrt file system.
+   *
+   * <p>Every file's size is read, but only every {@link #SAMPLE_INTERVAL}th file is stripped and
+   * compressed; the module's stripped and compressed sizes are scaled by the ratios of the sample.
+   */
+  private static ModuleSize measure(Path moduleDir, Map<String, Long> nativeBytes) {
+    String module = moduleDir.getFileName().toString();
+    long classBytes = 0;
+    long resourceBytes = 0;
+    long sampledClassBytes = 0;
+    long sampledStrippedClassBytes = 0;
+    long sampledStrippedBytes = 0;
+    long sampledCompressedBytes = 0;
+    int files = 0;
+    Deflater deflater = new Deflater(COMPRESSION_LEVEL);
+    byte[] buffer = new byte[64 * 1024];
+
+    try (Stream<Path> walk = Files.walk(moduleDir)) {
+      for (Path file : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+        boolean isClass = file.getFileName().toString().endsWith(".class");
+        if (files++ % SAMPLE_INTERVAL != 0) {
+          if (isClass) {
+            classBytes += Files.size(file);
+          } else {
+            resourceBytes += Files.size(file);
+          }
+          continue;
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] stripped = isClass ? stripDebug(bytes) : bytes;
+        if (isClass) {
+          classBytes += bytes.length;
+          sampledClassBytes += bytes.length;
+          sampledStrippedClassBytes += stripped.length;
+        } else {
+          resourceBytes += bytes.length;
+        }
+        sampledStrippedBytes += stripped.length;
+        sampledCompressedBytes += deflatedSize(deflater, stripped, buffer);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read module " + module, e);
+    } finally {
+      deflater.end();
+    }
+
+    long strippedBytes =
+        resourceBytes + scale(classBytes, sampledStrippedClassBytes, sampledClassBytes);
+    long compressedBytes = scale(strippedBytes, sampledCompressedBytes, sampledStrippedBytes);
+    return new ModuleSize(
+        module,
+        classBytes + resourceBytes,
+        strippedBytes,
+        compressedBytes,
+        nativeBytes.getOrDefault(module, 0L));
+  }
+
+  /** Scales a size by the ratio measured on a sample, or keeps it if nothing was sampled. */
+  private static long scale(long bytes, long sampledResult, long sampledInput) {
+    return sampledInput > 0 ? Math.round(bytes * ((double) sampledResult / sampledInput)) : bytes;
+  }
+
+  /** Returns a class without debug attributes, as jlink's {@code --strip-debug} writes it. */
+  private static byte[] stripDebug(byte[] classBytes) {
+    try {
+      ClassWriter writer = new ClassWriter(0);
+      new ClassReader(classBytes).accept(writer, ClassReader.SKIP_DEBUG);
+      return writer.toByteArray();
+    } catch (RuntimeException e) {
+      // Class files newer than ASM supports are counted unstripped
+      return classBytes;
+    }
+  }
+
+  /** Returns the compressed size of a resource, or its size if compression does not pay off. */
+  private static long deflatedSize(Deflater deflater, byte[] bytes, byte[] buffer) {
+    deflater.reset();
+    deflater.setInput(bytes);
+    deflater.finish();
+    long size = 0;
+    while (!deflater.finished()) {
+      size += deflater.deflate(buffer);
+    }
+    return Math.min(size, bytes.length);
+  }
+
+  /** Sums the native sections of each jmod, or returns an empty map without jmods. */
+  private static Map<String, Long> readNativeBytes(Path jmods) {
+    Map<String, Long> nativeBytes = new HashMap<>();
+    if (!Files.isDirectory(jmods)) {
+      log.debug("No jmods in {}, native libraries are not attributed to modules", jmods);
+      return nativeBytes;
+    }
+
+    try (Stream<Path> files = Files.list(jmods)) {
+      for (Path jmod : files.filter(f -> f.toString().endsWith(".jmod")).toList()) {
+        String name = jmod.getFileName().toString();
+        long bytes = 0;
+        // A jmod is a ZIP file behind a 4-byte header, which ZipFile skips like any prefix
+        try (ZipFile zip = new ZipFile(jmod.toFile())) {
+          Enumeration<? extends ZipEntry> entries = zip.entries();
+          while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory()
+                && NATIVE_SECTIONS.stream().anyMatch(entry.getName()::startsWith)) {
+              bytes += entry.getSize();
+            }
+          }
+        }
+        nativeBytes.put(name.substring(0, name.length() - ".jmod".length()), bytes);
+      }
+    } catch (IOException e) {
+      log.debug("Failed to read jmods in {}: {}", jmods, e.getMessage());
+      nativeBytes.clear();
+    }
+    return nativeBytes;
+  }
+
+  private static ModuleSizeEstimator read(Path file) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        throw new IOException("unrecognized size model format");
+      }
+      if (!in.readUTF().equals(Runtime.version().toString())) {
+        throw new IOException("size model built for another JDK");
+      }
+      int count = in.readUnsignedShort();
+      Map<String, ModuleSize> sizes = new HashMap<>();
+      for (int i = 0; i < count; i++) {
+        ModuleSize size =
+            new ModuleSize(
+                in.readUTF(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+        sizes.put(size.module(), size);
+      }
+      return new ModuleSizeEstimator(sizes);
+    }
+  }
+
+  private void write(Path file) throws IOException {
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(Runtime.version().toString());
+      out.writeShort(sizes.size());
+      for (ModuleSize size : sizes.values()) {
+        out.writeUTF(size.module());
+        out.writeLong(size.classBytes());
+        out.writeLong(size.strippedClassBytes());
+        out.writeLong(size.compressedClassBytes());
+        out.writeLong(size.nativeBytes());
+      }
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Handle to a JAR nested inside another archive, such as a library of a Spring Boot fat JAR or WAR.
+ *
+ * <p>A nested JAR is addressed by a virtual path made of the outer archive path, a '!' marker and
+ * the entry name, e.g. {@code /app/demo.jar!/BOOT-INF/lib/jackson-core.jar}. Such paths can be
+ * passed around wherever the analysis accepts JAR paths; the scanners read them in place through
+ * the outer archive instead of requiring them to be extracted first.
+ *
+ * <p>Tools that need a real file, such as jdeps, can materialize a nested JAR with {@link
+ * #extractTo(Path)}.
+ *
+ * @param archive outer archive containing the JAR
+ * @param entryName name of the JAR entry within the archive (e.g., "BOOT-INF/lib/a.jar")
+ */
+public record NestedJar(Path archive, String entryName) {
+
+  private static final String SEPARATOR = "!";
+
+  public NestedJar {
+    Objects.requireNonNull(archive, "archive must not be null");
+    Objects.requireNonNull(entryName, "entryName must not be null");
+    if (entryName.isEmpty() || entryName.endsWith("/")) {
+      throw new IllegalArgumentException("Invalid nested JAR entry: " + entryName);
+    }
+  }
+
+  /**
+   * Parses a virtual nested JAR path.
+   *
+   * @param path path to check
+   * @return the nested JAR, or empty if the path denotes a regular file
+   */
+  public static Optional<NestedJar> fromPath(Path path) {
+    if (path == null) {
+      return Optional.empty();
+    }
+    String value = path.toString();
+    int index = indexOfSeparator(value, 0);
+    while (index >= 0) {
+      String archiveName = value.substring(0, index).toLowerCase(Locale.ROOT);
+      if (archiveName.endsWith(".jar") || archiveName.endsWith(".war")) {
+        String entry = value.substring(index + 2).replace(File.separatorChar, '/');
+        if (!entry.isEmpty()) {
+          return Optional.of(new NestedJar(Path.of(value.substring(0, index)), entry));
+        }
+      }
+      index = indexOfSeparator(value, index + 1);
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Checks if a path denotes a JAR nested inside another archive.
+   *
+   * @param path path to check
+   * @return true for virtual nested JAR paths
+   */
+  public static boolean isNested(Path path) {
+    return fromPath(path).isPresent();
+  }
+
+  /**
+   * Checks if a JAR exists, whether it is a regular file or nested inside an archive.
+   *
+   * @param path JAR path, possibly virtual
+   * @return true if the JAR can be read
+   */
+  public static boolean exists(Path path) {
+    Optional<NestedJar> nested = fromPath(path);
+    if (nested.isEmpty()) {
+      return Files.exists(path);
+    }
+    return JarContents.containsEntry(nested.get().archive(), nested.get().entryName());
+  }
+
+  /**
+   * Returns the virtual path of this nested JAR.
+   *
+   * @return path of the form {@code <archive>!/<entryName>}
+   */
+  public Path path() {
+    return Path.of(archive + SEPARATOR).resolve(entryName);
+  }
+
+  /**
+   * Returns the simple file name of the nested JAR.
+   *
+   * @return file name, e.g. "jackson-core.jar"
+   */
+  public String fileName() {
+    return entryName.substring(entryName.lastIndexOf('/') + 1);
+  }
+
+  /**
+   * Copies the nested JAR to a file in a directory.
+   *
+   * @param directory target directory
+   * @return path of the extracted file
+   * @throws IOException if the JAR cannot be read or written
+   */
+  public Path extractTo(Path directory) throws IOException {
+    Path target = directory.resolve(fileName());
+    if (Files.exists(target)) {
+      // Same library name under different directories of the archive
+      target = Files.createTempFile(directory, stripExtension(fileName()) + "-", ".jar");
+    }
+    try (InputStream in = JarContents.newInputStream(path());
+        OutputStream out = Files.newOutputStream(target)) {
+      in.transferTo(out);
+    }
+    return target;
+  }
+
+  @Override
+  public String toString() {
+    return path().toString();
+  }
+
+  private static int indexOfSeparator(String value, int from) {
+    return value.indexOf(SEPARATOR + File.separatorChar, from);
+  }
+
+  private static String stripExtension(String fileName) {
+    int dot = fileName.lastIndexOf('.');
+    return dot > 0 ? fileName.substring(0, dot) : fileName;
+  }
+}
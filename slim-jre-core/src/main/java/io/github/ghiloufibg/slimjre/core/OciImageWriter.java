@@ -0,0 +1,491 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import io.github.ghiloufibg.slimjre.config.OciImage;
+import io.github.ghiloufibg.slimjre.config.OciImageOutput;
+import io.github.ghiloufibg.slimjre.exception.SlimJreException;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes a runtime image as reproducible OCI image layers, without a container daemon.
+ *
+ * <p>A layer is a gzipped POSIX tar. To make equal inputs give byte-identical layers, entries are
+ * sorted by name, every entry gets the same modification time, uid and gid 0 and no owner names,
+ * and permissions are normalized to 0755 for directories and executables and 0644 for other files.
+ * The fingerprint jlink images record for reuse is left out, as it names the local JDK.
+ *
+ * <p>An image layout adds a layer with the application JARs, the image configuration, a manifest
+ * and an index, following the OCI image layout specification. Registries and tools such as skopeo,
+ * crane or podman can push or load the directory directly.
+ */
+public class OciImageWriter {
+
+  private static final Logger log = LoggerFactory.getLogger(OciImageWriter.class);
+
+  static final String LAYER_MEDIA_TYPE = "application/vnd.oci.image.layer.v1.tar+gzip";
+  static final String CONFIG_MEDIA_TYPE = "application/vnd.oci.image.config.v1+json";
+  static final String MANIFEST_MEDIA_TYPE = "application/vnd.oci.image.manifest.v1+json";
+
+  private static final int BLOCK_SIZE = 512;
+  private static final int NAME_LENGTH = 100;
+  private static final int PREFIX_LENGTH = 155;
+  private static final String PATH = "/usr/local/sbin:/usr/local/bin:/usr/sbin:/usr/bin:/sbin:/bin";
+  private static final HexFormat HEX = HexFormat.of();
+
+  /**
+   * Writes the requested layer file and image layout for a runtime.
+   *
+   * @param jrePath runtime image to write
+   * @param jars analyzed JARs; nested JARs are skipped as they are part of their enclosing archive
+   * @param image what to write
+   * @return the written layer and layout
+   * @throws SlimJreException if writing fails or two application JARs have the same name
+   */
+  public OciImageOutput write(Path jrePath, List<Path> jars, OciImage image) {
+    try {
+      Blob layer;
+      Path layoutDirectory = null;
+      String manifestDigest = null;
+      if (image.layoutDirectory() != null) {
+        layoutDirectory = image.layoutDirectory().toAbsolutePath();
+        JLinkExecutor.deleteDirectory(layoutDirectory);
+        Path blobs = Files.createDirectories(layoutDirectory.resolve("blobs").resolve("sha256"));
+
+        layer = writeLayer(blobs, true, runtimeEntries(jrePath, image), image.created());
+        List<Path> appJars = appJars(jars);
+        List<Blob> layers = new ArrayList<>(List.of(layer));
+        if (!appJars.isEmpty()) {
+          layers.add(writeLayer(blobs, true, appEntries(appJars, image), image.created()));
+        }
+        Blob config = writeBlob(blobs, imageConfig(layers, appJars, image));
+        Blob manifest = writeBlob(blobs, manifest(config, layers));
+        manifestDigest = manifest.digest();
+
+        Files.writeString(
+            layoutDirectory.resolve("oci-layout"), "{\"imageLayoutVersion\":\"1.0.0\"}");
+        Files.writeString(
+            layoutDirectory.resolve("index.json"),
+            "{\"schemaVersion\":2,\"manifests\":["
+                + descriptor(MANIFEST_MEDIA_TYPE, manifest)
+                + "]}");
+        log.info("Wrote OCI image layout {} ({} layer(s))", layoutDirectory, layers.size());
+      } else {
+        Path directory = image.layerFile().toAbsolutePath().getParent();
+        layer = writeLayer(directory, false, runtimeEntries(jrePath, image), image.created());
+      }
+
+      Path layerFile = null;
+      if (image.layerFile() != null) {
+        layerFile = image.layerFile();
+        Files.createDirectories(layerFile.toAbsolutePath().getParent());
+        if (layoutDirectory != null) {
+          Files.copy(layer.file(), layerFile, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+          Files.move(layer.file(), layerFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        log.info("Wrote OCI layer {} ({})", layerFile, layer.digest());
+      }
+
+      return new OciImageOutput(
+          layerFile, layer.digest(), layer.diffId(), layer.size(), layoutDirectory, manifestDigest);
+    } catch (IOException e) {
+      throw new SlimJreException("Failed to write OCI image of " + jrePath, e);
+    }
+  }
+
+  /** Returns the entries of the runtime layer: the runtime directory and its parents. */
+  private static Map<String, Path> runtimeEntries(Path jrePath, OciImage image) throws IOException {
+    Map<String, Path> entries = new TreeMap<>();
+    String root = addDirectory(entries, image.runtimeDirectory());
+    try (Stream<Path> walk = Files.walk(jrePath)) {
+      for (Path file : (Iterable<Path>) walk::iterator) {
+        if (file.equals(jrePath) || file.equals(jrePath.resolve(JLinkExecutor.FINGERPRINT_FILE))) {
+          continue;
+        }
+        String name = root + relativeName(jrePath, file);
+        entries.put(Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS) ? name + "/" : name, file);
+      }
+    }
+    return entries;
+  }
+
+  /** Returns the entries of the application layer: the JARs in the application directory. */
+  private static Map<String, Path> appEntries(List<Path> jars, OciImage image) {
+    Map<String, Path> entries = new TreeMap<>();
+    String root = addDirectory(entries, image.appDirectory());
+    for (Path jar : jars) {
+      entries.put(root + jar.getFileName(), jar);
+    }
+    return entries;
+  }
+
+  /** Returns the JARs that are files of their own, failing if two would have the same name. */
+  private static List<Path> appJars(List<Path> jars) {
+    Map<String, Path> byName = new TreeMap<>();
+    for (Path jar : jars) {
+      if (NestedJar.isNested(jar)) {
+        continue;
+      }
+      Path previous = byName.putIfAbsent(jar.getFileName().toString(), jar);
+      if (previous != null && !previous.equals(jar)) {
+        throw new SlimJreException(
+            "Application JARs " + previous + " and " + jar + " have the same name in the image");
+      }
+    }
+    // Keeps the analysis order, as the first JAR is the one started with -jar
+    return jars.stream().filter(jar -> !NestedJar.isNested(jar)).distinct().toList();
+  }
+
+  /** Adds an absolute image directory and its parents, returning its entry name prefix. */
+  private static String addDirectory(Map<String, Path> entries, String directory) {
+    StringBuilder name = new StringBuilder();
+    for (String segment : directory.substring(1).split("/")) {
+      name.append(segment).append('/');
+      entries.put(name.toString(), null);
+    }
+    return name.toString();
+  }
+
+  private static String relativeName(Path root, Path file) {
+    StringBuilder name = new StringBuilder();
+    for (Path segment : root.relativize(file)) {
+      if (!name.isEmpty()) {
+        name.append('/');
+      }
+      name.append(segment);
+    }
+    return name.toString();
+  }
+
+  /** Returns the image configuration: platform, environment, entrypoint and layer digests. */
+  private static String imageConfig(List<Blob> layers, List<Path> appJars, OciImage image) {
+    String java = image.runtimeDirectory() + "/bin/java";
+    List<String> entrypoint = new ArrayList<>();
+    if (image.mainClass() != null && !appJars.isEmpty()) {
+      entrypoint.add(java);
+      entrypoint.add("-cp");
+      entrypoint.add(
+          appJars.stream()
+              .map(jar -> image.appDirectory() + "/" + jar.getFileName())
+              .collect(Collectors.joining(":")));
+      entrypoint.add(image.mainClass());
+    } else if (!appJars.isEmpty()) {
+      entrypoint.addAll(
+          List.of(java, "-jar", image.appDirectory() + "/" + appJars.get(0).getFileName()));
+    } else {
+      entrypoint.add(java);
+    }
+
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"created\":")
+        .append(json(Instant.ofEpochSecond(image.created().getEpochSecond()).toString()));
+    sb.append(",\"architecture\":").append(json(architecture()));
+    sb.append(",\"os\":").append(json(os()));
+    sb.append(",\"config\":{\"Env\":[");
+    sb.append(json("PATH=" + image.runtimeDirectory() + "/bin:" + PATH));
+    sb.append(',').append(json("JAVA_HOME=" + image.runtimeDirectory()));
+    sb.append("],\"Entrypoint\":[");
+    sb.append(entrypoint.stream().map(OciImageWriter::json).collect(Collectors.joining(",")));
+    sb.append("],\"WorkingDir\":").append(json(image.appDirectory()));
+    sb.append("},\"rootfs\":{\"type\":\"layers\",\"diff_ids\":[");
+    sb.append(layers.stream().map(l -> json(l.diffId())).collect(Collectors.joining(",")));
+    sb.append("]}}");
+    return sb.toString();
+  }
+
+  private static String manifest(Blob config, List<Blob> layers) {
+    return "{\"schemaVersion\":2,\"mediaType\":"
+        + json(MANIFEST_MEDIA_TYPE)
+        + ",\"config\":"
+        + descriptor(CONFIG_MEDIA_TYPE, config)
+        + ",\"layers\":["
+        + layers.stream()
+            .map(layer -> descriptor(LAYER_MEDIA_TYPE, layer))
+            .collect(Collectors.joining(","))
+        + "]}";
+  }
+
+  private static String descriptor(String mediaType, Blob blob) {
+    return "{\"mediaType\":"
+        + json(mediaType)
+        + ",\"digest\":"
+        + json(blob.digest())
+        + ",\"size\":"
+        + blob.size()
+        + "}";
+  }
+
+  /** Returns the OCI architecture of the running JVM, whose runtime is linked. */
+  static String architecture() {
+    String arch = System.getProperty("os.arch").toLowerCase(Locale.ROOT);
+    return switch (arch) {
+      case "amd64", "x86_64" -> "amd64";
+      case "aarch64" -> "arm64";
+      case "x86", "i386", "i686" -> "386";
+      default -> arch;
+    };
+  }
+
+  private static String os() {
+    String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+    if (os.startsWith("mac")) {
+      return "darwin";
+    }
+    return os.startsWith("windows") ? "windows" : os;
+  }
+
+  private static String json(String value) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      switch (c) {
+        case '"' -> sb.append("\\\"");
+        case '\\' -> sb.append("\\\\");
+        default -> {
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+        }
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  /** Writes a JSON blob named by its digest. */
+  private static Blob writeBlob(Path blobs, String content) throws IOException {
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    String digest = "sha256:" + HEX.formatHex(sha256().digest(bytes));
+    Path file = blobs.resolve(digest.substring("sha256:".length()));
+    Files.write(file, bytes);
+    return new Blob(file, digest, digest, bytes.length);
+  }
+
+  /**
+   * Writes a layer into a directory, named by its digest as in a layout's blob directory, or left
+   * in a temporary file for the caller to move.
+   */
+  private static Blob writeLayer(
+      Path directory, boolean nameByDigest, Map<String, Path> entries, Instant created)
+      throws IOException {
+    Files.createDirectories(directory);
+    Path temp = Files.createTempFile(directory, "layer-", ".tmp");
+    MessageDigest blobDigest = sha256();
+    MessageDigest diffDigest = sha256();
+    try (OutputStream file = Files.newOutputStream(temp);
+        DigestOutputStream blob =
+            new DigestOutputStream(new BufferedOutputStream(file), blobDigest);
+        GZIPOutputStream gzip = new GZIPOutputStream(blob, 64 * 1024);
+        DigestOutputStream tar = new DigestOutputStream(gzip, diffDigest)) {
+      TarWriter writer = new TarWriter(tar, Math.max(0, created.getEpochSecond()));
+      for (Map.Entry<String, Path> entry : entries.entrySet()) {
+        writer.write(entry.getKey(), entry.getValue());
+      }
+      writer.finish();
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+
+    String digest = "sha256:" + HEX.formatHex(blobDigest.digest());
+    String diffId = "sha256:" + HEX.formatHex(diffDigest.digest());
+    long size = Files.size(temp);
+    Path file = temp;
+    if (nameByDigest) {
+      file = directory.resolve(digest.substring("sha256:".length()));
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+    log.debug("Wrote layer of {} entries: {} ({} bytes)", entries.size(), digest, size);
+    return new Blob(file, digest, diffId, size);
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  /** A written blob with its digest and, for layers, the digest of the uncompressed tar. */
+  private record Blob(Path file, String digest, String diffId, long size) {}
+
+  /** Writes POSIX (ustar) tar entries with normalized metadata. */
+  static final class TarWriter {
+
+    private final OutputStream out;
+    private final long mtime;
+
+    TarWriter(OutputStream out, long mtime) {
+      this.out = out;
+      this.mtime = mtime;
+    }
+
+    /**
+     * Writes an entry.
+     *
+     * @param name entry name, ending with '/' for directories
+     * @param source file, directory or symbolic link to write, or null for a directory of its own
+     */
+    void write(String name, Path source) throws IOException {
+      if (name.endsWith("/")) {
+        writeHeader(name, 0755, 0, '5', "");
+      } else if (Files.isSymbolicLink(source)) {
+        writeHeader(name, 0777, 0, '2', Files.readSymbolicLink(source).toString());
+      } else {
+        long size = Files.size(source);
+        writeHeader(name, Files.isExecutable(source) ? 0755 : 0644, size, '0', "");
+        long copied = Files.copy(source, out);
+        if (copied != size) {
+          throw new IOException("File changed while writing layer: " + source);
+        }
+        pad(size);
+      }
+    }
+
+    /** Writes the end-of-archive marker. */
+    void finish() throws IOException {
+      out.write(new byte[2 * BLOCK_SIZE]);
+    }
+
+    private void writeHeader(String name, int mode, long size, char type, String link)
+        throws IOException {
+      byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+      byte[] linkBytes = link.getBytes(StandardCharsets.UTF_8);
+      int split = split(nameBytes);
+      if (split < 0 || linkBytes.length > NAME_LENGTH) {
+        writePaxHeader(name, link, linkBytes.length > NAME_LENGTH);
+        nameBytes = truncate(nameBytes);
+        linkBytes = truncate(linkBytes);
+        split = 0;
+      }
+
+      byte[] header = new byte[BLOCK_SIZE];
+      System.arraycopy(nameBytes, split, header, 0, nameBytes.length - split);
+      octal(header, 100, 8, mode);
+      octal(header, 108, 8, 0);
+      octal(header, 116, 8, 0);
+      octal(header, 124, 12, size);
+      octal(header, 136, 12, mtime);
+      header[156] = (byte) type;
+      System.arraycopy(linkBytes, 0, header, 157, linkBytes.length);
+      byte[] magic = "ustar\00000".getBytes(StandardCharsets.US_ASCII);
+      System.arraycopy(magic, 0, header, 257, magic.length);
+      octal(header, 329, 8, 0);
+      octal(header, 337, 8, 0);
+      if (split > 0) {
+        System.arraycopy(nameBytes, 0, header, 345, split - 1);
+      }
+      checksum(header);
+      out.write(header);
+    }
+
+    /** Writes an extended header carrying a name or link target too long for the ustar fields. */
+    private void writePaxHeader(String name, String link, boolean longLink) throws IOException {
+      byte[] records =
+          (record("path", name) + (longLink ? record("linkpath", link) : ""))
+              .getBytes(StandardCharsets.UTF_8);
+      byte[] header = new byte[BLOCK_SIZE];
+      byte[] paxName = "././@PaxHeader".getBytes(StandardCharsets.US_ASCII);
+      System.arraycopy(paxName, 0, header, 0, paxName.length);
+      octal(header, 100, 8, 0644);
+      octal(header, 108, 8, 0);
+      octal(header, 116, 8, 0);
+      octal(header, 124, 12, records.length);
+      octal(header, 136, 12, mtime);
+      header[156] = 'x';
+      byte[] magic = "ustar\00000".getBytes(StandardCharsets.US_ASCII);
+      System.arraycopy(magic, 0, header, 257, magic.length);
+      octal(header, 329, 8, 0);
+      octal(header, 337, 8, 0);
+      checksum(header);
+      out.write(header);
+      out.write(records);
+      pad(records.length);
+    }
+
+    /** Formats a PAX record, whose length prefix counts itself. */
+    private static String record(String key, String value) {
+      String body = " " + key + "=" + value + "\n";
+      int bodyLength = body.getBytes(StandardCharsets.UTF_8).length;
+      int length = bodyLength + 1;
+      while (length != bodyLength + Integer.toString(length).length()) {
+        length = bodyLength + Integer.toString(length).length();
+      }
+      return length + body;
+    }
+
+    /**
+     * Returns where to split a name into the ustar prefix and name fields: 0 if it fits the name
+     * field, the index after the separating '/' otherwise, or -1 if it does not fit.
+     */
+    private static int split(byte[] name) {
+      if (name.length <= NAME_LENGTH) {
+        return 0;
+      }
+      for (int i = Math.min(name.length - 1, PREFIX_LENGTH); i > 0; i--) {
+        if (name[i] == '/' && name.length - i - 1 <= NAME_LENGTH && i < name.length - 1) {
+          return i + 1;
+        }
+      }
+      return -1;
+    }
+
+    private static byte[] truncate(byte[] bytes) {
+      return bytes.length > NAME_LENGTH ? Arrays.copyOf(bytes, NAME_LENGTH) : bytes;
+    }
+
+    private void pad(long size) throws IOException {
+      int remainder = (int) (size % BLOCK_SIZE);
+      if (remainder != 0) {
+        out.write(new byte[BLOCK_SIZE - remainder]);
+      }
+    }
+
+    private static void octal(byte[] header, int offset, int length, long value) {
+      String digits = Long.toOctalString(value);
+      if (digits.length() > length - 1) {
+        throw new IllegalArgumentException("Value too large for tar header: " + value);
+      }
+      String padded = "0".repeat(length - 1 - digits.length()) + digits;
+      byte[] bytes = padded.getBytes(StandardCharsets.US_ASCII);
+      System.arraycopy(bytes, 0, header, offset, bytes.length);
+      header[offset + length - 1] = 0;
+    }
+
+    private static void checksum(byte[] header) {
+      Arrays.fill(header, 148, 156, (byte) ' ');
+      long sum = 0;
+      for (byte b : header) {
+        sum += b & 0xFF;
+      }
+      String digits = Long.toOctalString(sum);
+      String padded = "0".repeat(6 - digits.length()) + digits;
+      System.arraycopy(padded.getBytes(StandardCharsets.US_ASCII), 0, header, 148, 6);
+      header[154] = 0;
+      header[155] = ' ';
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Allocation-free longest-prefix matcher mapping internal class names to values by package prefix.
+ *
+ * <p>Prefixes are package names in internal form ({@code org/w3c/dom}). A name matches a prefix if
+ * it equals the prefix or continues it with a '/'; when several prefixes match, the longest wins,
+ * so {@code org/w3c/dom/css/CSSRule} resolves to the entry of {@code org/w3c/dom/css} rather than
+ * {@code org/w3c/dom}.
+ *
+ * <p>Prefixes are kept in a sorted array. A lookup binary-searches the name's package prefixes from
+ * the longest to the shortest, comparing character ranges in place, so it never creates strings.
+ *
+ * @param <V> value type
+ */
+final class PackagePrefixMatcher<V> {
+
+  private final String[] prefixes;
+  private final V[] values;
+
+  @SuppressWarnings("unchecked")
+  PackagePrefixMatcher(Map<String, V> prefixToValue) {
+    // Natural String order, which the range comparison below reproduces
+    TreeMap<String, V> sorted = new TreeMap<>(prefixToValue);
+    this.prefixes = sorted.keySet().toArray(new String[0]);
+    this.values = (V[]) sorted.values().toArray();
+  }
+
+  /** Returns the number of prefixes. */
+  int size() {
+    return prefixes.length;
+  }
+
+  /**
+   * Returns the value of the longest prefix matching a name.
+   *
+   * @param name internal class or package name (e.g., "java/sql/Driver")
+   * @return the matched value, or null if no prefix matches
+   */
+  V match(CharSequence name) {
+    return name == null ? null : match(name, 0, name.length());
+  }
+
+  /**
+   * Returns the value of the longest prefix matching a range of a character sequence.
+   *
+   * @param source sequence containing the name, such as a type descriptor
+   * @param start index of the first character of the name
+   * @param end index after the last character of the name
+   * @return the matched value, or null if no prefix matches
+   */
+  V match(CharSequence source, int start, int end) {
+    int length = end;
+    while (length > start) {
+      int index = indexOf(source, start, length);
+      if (index >= 0) {
+        return values[index];
+      }
+      // Drop the last segment
+      do {
+        length--;
+      } while (length > start && source.charAt(length) != '/');
+    }
+    return null;
+  }
+
+  /** Binary-searches the prefix equal to {@code source[start, end)}. */
+  private int indexOf(CharSequence source, int start, int end) {
+    int low = 0;
+    int high = prefixes.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compare(prefixes[mid], source, start, end);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private static int compare(String prefix, CharSequence source, int start, int end) {
+    int length = end - start;
+    int common = Math.min(prefix.length(), length);
+    for (int i = 0; i < common; i++) {
+      int diff = prefix.charAt(i) - source.charAt(start + i);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return prefix.length() - length;
+  }
+}
@@ -3,16 +3,12 @@ package io.github.ghiloufibg.slimjre.core;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.module.ModuleFinder;
-import java.lang.module.ModuleReference;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collections;
-import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -20,12 +16,6 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.regex.Pattern;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -56,7 +46,7 @@ import org.slf4j.LoggerFactory;
  * <p>Only JDK classes (java.*, javax.*, jdk.*, sun.*, com.sun.*) are detected and mapped to their
  * containing modules.
  */
-public class ReflectionBytecodeScanner {
+public class ReflectionBytecodeScanner implements BytecodeDetector<Set<String>, Set<String>> {
 
   private static final Logger log = LoggerFactory.getLogger(ReflectionBytecodeScanner.class);
 
@@ -64,6 +54,10 @@ public class ReflectionBytecodeScanner {
   private static final Pattern JDK_CLASS_PATTERN =
       Pattern.compile("^(java\\.|javax\\.|jdk\\.|sun\\.|com\\.sun\\.).*");
 
+  /** Constant pool fragments of string literals matching {@link #JDK_CLASS_PATTERN}. */
+  private static final ConstantPool.Fragments FRAGMENTS =
+      ConstantPool.fragments("java.", "javax.", "jdk.", "sun.");
+
   /** Pattern for Class.forName method descriptor */
   private static final String CLASS_FOR_NAME_OWNER = "java/lang/Class";
 
@@ -87,29 +81,47 @@ public class ReflectionBytecodeScanner {
   private static final String FIND_CLASS_NAME = "findClass";
   private static final String FIND_CLASS_DESC = "(Ljava/lang/String;)Ljava/lang/Class;";
 
-  /** Static cache mapping class names to their containing module (shared across all instances) */
-  private static volatile Map<String, String> classToModuleCache;
+  /**
+   * Persists per-JAR reflected class names; bump the version whenever the detection rules change.
+   */
+  private static final JarStateCodec<Set<String>> JAR_STATE_CODEC =
+      new JarStateCodec<>() {
+        @Override
+        public String id() {
+          return "reflection";
+        }
+
+        @Override
+        public int version() {
+          return 1;
+        }
+
+        @Override
+        public Map<String, Set<String>> encode(Set<String> jarState) {
+          return Map.of("classes", jarState);
+        }
+
+        @Override
+        public Set<String> decode(Path jarPath, Map<String, Set<String>> sections) {
+          return new TreeSet<>(sections.getOrDefault("classes", Set.of()));
+        }
+      };
+
+  private final BytecodeScanEngine scanEngine = new BytecodeScanEngine();
+  private final JdkClassIndex jdkClassIndex;
 
-  /** Creates a new ReflectionBytecodeScanner. */
+  /** Creates a new ReflectionBytecodeScanner using the shared JDK class index. */
   public ReflectionBytecodeScanner() {
-    // Ensure cache is initialized (lazy, thread-safe singleton)
-    getClassToModuleCache();
+    this(JdkClassIndex.shared());
   }
 
   /**
-   * Returns the shared class-to-module cache, initializing it lazily if needed. Uses double-checked
-   * locking for thread safety with minimal synchronization overhead.
+   * Creates a new ReflectionBytecodeScanner.
+   *
+   * @param jdkClassIndex index mapping JDK classes to their modules
    */
-  private static Map<String, String> getClassToModuleCache() {
-    if (classToModuleCache == null) {
-      synchronized (ReflectionBytecodeScanner.class) {
-        if (classToModuleCache == null) {
-          classToModuleCache = buildClassToModuleCache();
-          log.debug("Initialized class-to-module cache with {} entries", classToModuleCache.size());
-        }
-      }
-    }
-    return classToModuleCache;
+  public ReflectionBytecodeScanner(JdkClassIndex jdkClassIndex) {
+    this.jdkClassIndex = Objects.requireNonNull(jdkClassIndex, "jdkClassIndex must not be null");
   }
 
   /**
@@ -119,34 +131,7 @@ public class ReflectionBytecodeScanner {
    * @return set of JDK module names required by reflection patterns
    */
   public Set<String> scanJar(Path jarPath) {
-    Objects.requireNonNull(jarPath, "jarPath must not be null");
-
-    if (!Files.exists(jarPath)) {
-      log.warn("JAR file does not exist: {}", jarPath);
-      return Set.of();
-    }
-
-    Set<String> reflectedClasses = new TreeSet<>();
-
-    try (JarFile jar = new JarFile(jarPath.toFile())) {
-      Enumeration<JarEntry> entries = jar.entries();
-      while (entries.hasMoreElements()) {
-        JarEntry entry = entries.nextElement();
-        if (entry.getName().endsWith(".class") && !entry.isDirectory()) {
-          try (InputStream is = jar.getInputStream(entry);
-              BufferedInputStream bis = new BufferedInputStream(is, 8192)) {
-            reflectedClasses.addAll(scanClass(bis));
-          } catch (IOException e) {
-            log.trace("Failed to scan class {}: {}", entry.getName(), e.getMessage());
-          }
-        }
-      }
-    } catch (IOException e) {
-      log.warn("Failed to scan JAR {}: {}", jarPath, e.getMessage());
-      return Set.of();
-    }
-
-    return mapClassesToModules(reflectedClasses);
+    return mapClassesToModules(scanEngine.scanJar(jarPath, this));
   }
 
   /**
@@ -215,22 +200,44 @@ public class ReflectionBytecodeScanner {
       return Set.of();
     }
 
-    Set<String> allModules = ConcurrentHashMap.newKeySet();
+    return scanEngine.scan(jars, this);
+  }
 
-    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-      List<Future<Set<String>>> futures =
-          jars.stream().map(jar -> executor.submit(() -> scanJar(jar))).toList();
+  @Override
+  public Set<String> newJarState(Path jarPath) {
+    return new TreeSet<>();
+  }
 
-      for (Future<Set<String>> future : futures) {
-        try {
-          allModules.addAll(future.get());
-        } catch (Exception e) {
-          log.warn("Failed to get scan result: {}", e.getMessage());
-        }
-      }
-    }
+  @Override
+  public ClassVisitor newClassVisitor(Set<String> jarState, String entryName) {
+    return new ReflectionDetectorVisitor(jarState);
+  }
+
+  @Override
+  public Set<String> aggregate(List<Set<String>> jarStates) {
+    Set<String> reflectedClasses = new TreeSet<>();
+    jarStates.forEach(reflectedClasses::addAll);
+    return mapClassesToModules(reflectedClasses);
+  }
+
+  @Override
+  public boolean mayMatch(ConstantPool constantPool) {
+    return constantPool.mentions(FRAGMENTS);
+  }
 
-    return new TreeSet<>(allModules);
+  @Override
+  public boolean canMergeJarStates() {
+    return true;
+  }
+
+  @Override
+  public void mergeJarStates(Set<String> jarState, Set<String> batchState) {
+    jarState.addAll(batchState);
+  }
+
+  @Override
+  public JarStateCodec<Set<String>> jarStateCodec() {
+    return JAR_STATE_CODEC;
   }
 
   /**
@@ -241,7 +248,7 @@ public class ReflectionBytecodeScanner {
    */
   Set<String> scanClass(InputStream classInputStream) throws IOException {
     ClassReader reader = new ClassReader(classInputStream);
-    ReflectionDetectorVisitor visitor = new ReflectionDetectorVisitor();
+    ReflectionDetectorVisitor visitor = new ReflectionDetectorVisitor(new HashSet<>());
     reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
     return visitor.getReflectedClasses();
   }
@@ -254,10 +261,9 @@ public class ReflectionBytecodeScanner {
    */
   Set<String> mapClassesToModules(Set<String> classNames) {
     Set<String> modules = new TreeSet<>();
-    Map<String, String> cache = getClassToModuleCache();
 
     for (String className : classNames) {
-      String moduleName = cache.get(className);
+      String moduleName = jdkClassIndex.moduleOfClass(className);
       if (moduleName != null) {
         modules.add(moduleName);
         log.debug("Mapped reflected class {} to module {}", className, moduleName);
@@ -269,35 +275,6 @@ public class ReflectionBytecodeScanner {
     return modules;
   }
 
-  /**
-   * Builds a cache mapping JDK class names to their containing modules using the ModuleFinder API.
-   */
-  private static Map<String, String> buildClassToModuleCache() {
-    Map<String, String> cache = new HashMap<>();
-    ModuleFinder finder = ModuleFinder.ofSystem();
-
-    for (ModuleReference ref : finder.findAll()) {
-      String moduleName = ref.descriptor().name();
-
-      try {
-        ref.open()
-            .list()
-            .filter(name -> name.endsWith(".class"))
-            .forEach(
-                resource -> {
-                  // Convert resource path to class name
-                  // e.g., "java/lang/String.class" -> "java.lang.String"
-                  String className = resource.replace('/', '.').substring(0, resource.length() - 6);
-                  cache.put(className, moduleName);
-                });
-      } catch (IOException e) {
-        log.trace("Failed to read module {}: {}", moduleName, e.getMessage());
-      }
-    }
-
-    return cache;
-  }
-
   /**
    * Checks if a class name matches JDK class patterns.
    *
@@ -314,10 +291,11 @@ public class ReflectionBytecodeScanner {
    */
   private static class ReflectionDetectorVisitor extends ClassVisitor {
 
-    private final Set<String> reflectedClasses = new HashSet<>();
+    private final Set<String> reflectedClasses;
 
-    ReflectionDetectorVisitor() {
+    ReflectionDetectorVisitor(Set<String> reflectedClasses) {
       super(Opcodes.ASM9);
+      this.reflectedClasses = reflectedClasses;
     }
 
     @Override
@@ -408,6 +386,6 @@ public class ReflectionBytecodeScanner {
    * @return Optional containing the module name, or empty if not found
    */
   public Optional<String> getModuleForClass(String className) {
-    return Optional.ofNullable(getClassToModuleCache().get(className));
+    return Optional.ofNullable(jdkClassIndex.moduleOfClass(className));
   }
 }
@@ -0,0 +1,350 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import io.github.ghiloufibg.slimjre.config.JLinkOptions;
+import io.github.ghiloufibg.slimjre.exception.JLinkException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content-addressed store of linked runtime images shared by many outputs.
+ *
+ * <p>Each image is linked once into an entry keyed by the SHA-256 digest of its jlink fingerprint:
+ * the JDK, the sorted module set, the jlink options and the files on the module path (see {@link
+ * JLinkExecutor#createRuntime}). Outputs are then materialized from the entry as hard links, so
+ * services resolving to the same modules share the image's files on disk and produce identical
+ * layers. If the output is on another file system, the files are copied instead.
+ *
+ * <p>The files of a materialized output must not be modified in place, as that would modify the
+ * entry and every other output. Adding files, like the AppCDS and AOT steps do, is safe.
+ *
+ * <p>{@link #gc(Duration)} removes entries no output links to any more. Entries whose outputs are
+ * copies look unreferenced and are removed too; they are linked again when next needed.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * RuntimeStore store = new RuntimeStore(RuntimeStore.defaultDirectory(), new JLinkExecutor());
+ * Path jre = store.materialize(options);   // links on first use, hard-links afterwards
+ * store.gc(Duration.ZERO);                  // prunes entries no output links to
+ * }</pre>
+ */
+public class RuntimeStore {
+
+  private static final Logger log = LoggerFactory.getLogger(RuntimeStore.class);
+
+  private static final String LOCK_SUFFIX = ".lock";
+  private static final HexFormat HEX = HexFormat.of();
+
+  /**
+   * Serializes threads of this JVM, as file locks are held per JVM; locks are removed once released
+   * uncontended.
+   */
+  private static final Map<Path, ReentrantLock> ENTRY_LOCKS = new ConcurrentHashMap<>();
+
+  private final Path directory;
+  private final JLinkExecutor jlinkExecutor;
+
+  /**
+   * Creates a store.
+   *
+   * @param directory store root directory, created on first use
+   * @param jlinkExecutor executor linking new entries
+   */
+  public RuntimeStore(Path directory, JLinkExecutor jlinkExecutor) {
+    this.directory =
+        Objects.requireNonNull(directory, "directory must not be null").toAbsolutePath();
+    this.jlinkExecutor = Objects.requireNonNull(jlinkExecutor, "jlinkExecutor must not be null");
+  }
+
+  /**
+   * Returns the default store directory: {@code runtimes} in the default analysis cache directory.
+   *
+   * @return the default store directory
+   */
+  public static Path defaultDirectory() {
+    return AnalysisCache.defaultDirectory().resolve("runtimes");
+  }
+
+  /** Returns the store root directory. */
+  public Path directory() {
+    return directory;
+  }
+
+  /**
+   * Returns the key of the entry holding the image of some options.
+   *
+   * @param options jlink configuration; the output path is ignored
+   * @return hex SHA-256 digest of the image's fingerprint
+   */
+  public String key(JLinkOptions options) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (String line : jlinkExecutor.fingerprint(options)) {
+        digest.update(line.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+      }
+      return HEX.formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  /**
+   * Creates a runtime image at the output path of the options, linking it into the store first if
+   * no entry holds it yet.
+   *
+   * <p>The output is assembled beside the output path and swapped in once complete, replacing any
+   * previous output.
+   *
+   * @param options jlink configuration
+   * @return path to the created runtime
+   * @throws JLinkException if linking or materializing fails
+   */
+  public Path materialize(JLinkOptions options) {
+    Path outputPath = options.outputPath();
+    Path target = outputPath.toAbsolutePath();
+    String key = key(options);
+    Path entry = directory.resolve(key);
+
+    withEntryLock(
+        key,
+        () -> {
+          // Relinks only if the entry is missing or incomplete
+          jlinkExecutor.createRuntime(options.withOutputPath(entry));
+          Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+
+          Path staging = target.resolveSibling(target.getFileName() + ".staging");
+          JLinkExecutor.deleteDirectory(staging);
+          boolean linked = linkTree(entry, staging);
+          JLinkExecutor.swapIn(staging, target);
+          log.info(
+              "Materialized JRE {} at {} ({})",
+              key.substring(0, 12),
+              outputPath,
+              linked ? "hard links" : "copied");
+          return true;
+        });
+    return outputPath;
+  }
+
+  /**
+   * Removes entries that no materialized output links to and that were not used within a minimum
+   * age. Entries in use by a concurrent build are skipped.
+   *
+   * @param minUnusedAge how long an entry must have been unused to be removed
+   * @return number of entries removed
+   */
+  public int gc(Duration minUnusedAge) {
+    if (!Files.isDirectory(directory)) {
+      return 0;
+    }
+
+    Instant cutoff = Instant.now().minus(minUnusedAge);
+    int removed = 0;
+    List<Path> entries;
+    try (Stream<Path> files = Files.list(directory)) {
+      entries =
+          files
+              // Skips staging and previous images, whose names have a suffix
+              .filter(dir -> Files.isDirectory(dir) && !dir.getFileName().toString().contains("."))
+              .filter(dir -> Files.isRegularFile(dir.resolve(JLinkExecutor.FINGERPRINT_FILE)))
+              .toList();
+    } catch (IOException e) {
+      log.debug("Failed to list runtime store {}: {}", directory, e.getMessage());
+      return 0;
+    }
+
+    for (Path entry : entries) {
+      try {
+        if (Files.getLastModifiedTime(entry).toInstant().isBefore(cutoff)
+            && tryWithEntryLock(
+                entry.getFileName().toString(), () -> removeIfUnreferenced(entry))) {
+          removed++;
+        }
+      } catch (IOException e) {
+        log.debug("Failed to remove store entry {}: {}", entry, e.getMessage());
+      }
+    }
+
+    if (removed > 0) {
+      log.info("Removed {} unreferenced JRE(s) from {}", removed, directory);
+    }
+    return removed;
+  }
+
+  /**
+   * Recreates a directory tree with hard links to its files, or copies if the target file system
+   * does not support links to the source.
+   *
+   * @return true if every file was hard-linked
+   */
+  private static boolean linkTree(Path source, Path target) throws IOException {
+    boolean linking = true;
+    try (Stream<Path> walk = Files.walk(source)) {
+      for (Path file : (Iterable<Path>) walk::iterator) {
+        Path copy = target.resolve(source.relativize(file).toString());
+        if (Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+          Files.createDirectories(copy);
+        } else if (Files.isSymbolicLink(file)) {
+          Files.createSymbolicLink(copy, Files.readSymbolicLink(file));
+        } else {
+          if (linking) {
+            try {
+              Files.createLink(copy, file);
+              continue;
+            } catch (UnsupportedOperationException | FileSystemException e) {
+              log.debug("Cannot hard-link {} into {}, copying: {}", file, target, e.getMessage());
+              linking = false;
+            }
+          }
+          Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+      }
+    }
+    return linking;
+  }
+
+  /**
+   * Returns whether an output still links to an entry's files, judged by its first image file as
+   * outputs link all of them. Without link counts, as on Windows, every entry counts as referenced
+   * and is never removed.
+   */
+  private static boolean isReferenced(Path entry) throws IOException {
+    try (Stream<Path> walk = Files.walk(entry)) {
+      for (Path file : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+        if (file.getFileName().toString().equals(JLinkExecutor.FINGERPRINT_FILE)) {
+          continue;
+        }
+        return ((Number) Files.getAttribute(file, "unix:nlink")).intValue() > 1;
+      }
+    } catch (UnsupportedOperationException | IllegalArgumentException e) {
+      return true;
+    }
+    return false;
+  }
+
+  private static boolean removeIfUnreferenced(Path entry) throws IOException {
+    if (isReferenced(entry)) {
+      return false;
+    }
+    log.debug("Removing unreferenced store entry {}", entry);
+    JLinkExecutor.deleteDirectory(entry);
+    return true;
+  }
+
+  /** Runs an action while holding an entry's lock, waiting for other builds to release it. */
+  private void withEntryLock(String key, LockedAction action) {
+    Path lockFile = lockFile(key);
+    ReentrantLock threadLock = lockThreads(lockFile, true);
+    try {
+      Files.createDirectories(directory);
+      try (FileChannel channel = openLock(key)) {
+        FileLock lock = channel.lock();
+        try {
+          action.run();
+        } finally {
+          lock.release();
+        }
+      }
+    } catch (IOException e) {
+      throw new JLinkException("Failed to materialize JRE from store " + directory, e);
+    } finally {
+      unlockThreads(lockFile, threadLock);
+    }
+  }
+
+  /** Runs an action if an entry's lock is free, returning whether it ran and succeeded. */
+  private boolean tryWithEntryLock(String key, LockedAction action) throws IOException {
+    Path lockFile = lockFile(key);
+    ReentrantLock threadLock = lockThreads(lockFile, false);
+    if (threadLock == null) {
+      return false;
+    }
+    try (FileChannel channel = openLock(key)) {
+      FileLock lock = channel.tryLock();
+      if (lock == null) {
+        return false;
+      }
+      try {
+        return action.run();
+      } finally {
+        lock.release();
+      }
+    } finally {
+      unlockThreads(lockFile, threadLock);
+    }
+  }
+
+  /**
+   * Locks an entry against the other threads of this JVM.
+   *
+   * @param lockFile lock file of the entry
+   * @param wait whether to wait for another thread to release it
+   * @return the held lock, or null if another thread holds it and {@code wait} is not set
+   */
+  private static ReentrantLock lockThreads(Path lockFile, boolean wait) {
+    while (true) {
+      ReentrantLock lock = ENTRY_LOCKS.computeIfAbsent(lockFile, k -> new ReentrantLock());
+      if (wait) {
+        lock.lock();
+      } else if (!lock.tryLock()) {
+        return null;
+      }
+      if (ENTRY_LOCKS.get(lockFile) == lock) {
+        return lock;
+      }
+      // Its last holder removed it before this thread locked it; lock the current one instead
+      lock.unlock();
+    }
+  }
+
+  /** Releases an entry's thread lock, removing it when no other thread holds or awaits it. */
+  private static void unlockThreads(Path lockFile, ReentrantLock lock) {
+    lock.unlock();
+    ENTRY_LOCKS.computeIfPresent(
+        lockFile,
+        (k, current) ->
+            current == lock && !current.isLocked() && !current.hasQueuedThreads() ? null : current);
+  }
+
+  /** Returns the number of entry locks this JVM currently keeps. */
+  static int entryLockCount() {
+    return ENTRY_LOCKS.size();
+  }
+
+  private FileChannel openLock(String key) throws IOException {
+    return FileChannel.open(lockFile(key), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+  }
+
+  private Path lockFile(String key) {
+    return directory.resolve(key + LOCK_SUFFIX);
+  }
+
+  /** Action on an entry, returning whether it took effect. */
+  @FunctionalInterface
+  private interface LockedAction {
+    boolean run() throws IOException;
+  }
+}
@@ -0,0 +1,280 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import io.github.ghiloufibg.slimjre.config.ScanConcurrency;
+import io.github.ghiloufibg.slimjre.exception.SlimJreException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded scheduler shared by all JAR scans of an analysis.
+ *
+ * <p>Class parsing runs on a work-stealing {@link ForkJoinPool} with one thread per allowed
+ * processor, so the scanners together never parse on more threads than configured. Metadata reads
+ * run on virtual threads. Scans of either kind take a permit before holding a JAR open, which
+ * bounds the open JARs across all scanners, see {@link ScanConcurrency}.
+ *
+ * <p>JARs are submitted largest first, so a large JAR starts early instead of being the last one
+ * left while the other threads idle. The work of a single JAR can further be {@linkplain #fork
+ * forked} into parts that idle parsing threads steal.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * try (ScanScheduler scheduler = new ScanScheduler(ScanConcurrency.defaults())) {
+ *   List<Set<String>> perJar = scheduler.parse(jars, jar -> scheduler.withOpenJar(() -> scan(jar)));
+ * }
+ * }</pre>
+ */
+public final class ScanScheduler implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(ScanScheduler.class);
+
+  private static final AtomicInteger POOL_IDS = new AtomicInteger();
+
+  private static volatile ScanScheduler shared;
+
+  private final ScanConcurrency limits;
+  private final ForkJoinPool parsingPool;
+  private final Semaphore openJars;
+
+  /**
+   * Creates a scheduler. Its parsing threads are daemon threads, released by {@link #close()}.
+   *
+   * @param limits concurrency limits
+   */
+  public ScanScheduler(ScanConcurrency limits) {
+    this.limits = Objects.requireNonNull(limits, "limits must not be null");
+    String prefix = "slim-jre-scan-" + POOL_IDS.incrementAndGet() + "-";
+    this.parsingPool =
+        new ForkJoinPool(
+            limits.parsingThreads(),
+            pool -> {
+              ForkJoinWorkerThread thread =
+                  ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+              thread.setName(prefix + thread.getPoolIndex());
+              thread.setDaemon(true);
+              return thread;
+            },
+            null,
+            false);
+    this.openJars = new Semaphore(limits.openJars(), true);
+  }
+
+  /**
+   * Returns the scheduler with default limits used by scans that are not given one. It is never
+   * closed.
+   */
+  public static ScanScheduler shared() {
+    ScanScheduler scheduler = shared;
+    if (scheduler == null) {
+      synchronized (ScanScheduler.class) {
+        scheduler = shared;
+        if (scheduler == null) {
+          scheduler = new ScanScheduler(ScanConcurrency.defaults());
+          shared = scheduler;
+        }
+      }
+    }
+    return scheduler;
+  }
+
+  /** Returns the limits of this scheduler. */
+  public ScanConcurrency limits() {
+    return limits;
+  }
+
+  /**
+   * Runs a CPU-bound task for every JAR on the parsing threads. Tasks holding a JAR open must do so
+   * within {@link #withOpenJar}.
+   *
+   * @param jars JARs to process
+   * @param task task processing one JAR
+   * @param <T> result type
+   * @return results of the JARs whose task succeeded, in input order; failures are logged
+   */
+  public <T> List<T> parse(List<Path> jars, Function<Path, T> task) {
+    if (jars.isEmpty()) {
+      return List.of();
+    }
+    List<Future<T>> futures = new ArrayList<>(jars.size());
+    for (int i = 0; i < jars.size(); i++) {
+      futures.add(null);
+    }
+    for (int index : largestFirst(jars)) {
+      Path jar = jars.get(index);
+      futures.set(index, parsingPool.submit(() -> task.apply(jar)));
+    }
+    return collect(jars, futures);
+  }
+
+  /**
+   * Runs an I/O-bound task for every JAR on virtual threads, each holding an open-JAR permit while
+   * it runs.
+   *
+   * @param jars JARs to process
+   * @param task task processing one JAR
+   * @param <T> result type
+   * @return results of the JARs whose task succeeded, in input order; failures are logged
+   */
+  public <T> List<T> read(List<Path> jars, Function<Path, T> task) {
+    if (jars.isEmpty()) {
+      return List.of();
+    }
+    List<Future<T>> futures = new ArrayList<>(jars.size());
+    for (int i = 0; i < jars.size(); i++) {
+      futures.add(null);
+    }
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int index : largestFirst(jars)) {
+        Path jar = jars.get(index);
+        futures.set(index, executor.submit(() -> withOpenJar(() -> task.apply(jar))));
+      }
+      return collect(jars, futures);
+    }
+  }
+
+  /**
+   * Runs CPU-bound parts of one JAR's work on the parsing threads and waits for all of them, e.g.
+   * the batches of a large JAR. Called from a parsing thread, the caller works on the parts itself
+   * while idle threads steal the others; the parts share the JAR opened by the caller.
+   *
+   * @param parts parts of the work
+   * @param <T> result type
+   * @return results of the parts, in input order
+   * @throws RuntimeException if a part fails
+   */
+  public <T> List<T> fork(List<Callable<T>> parts) {
+    List<ForkJoinTask<T>> tasks = parts.stream().map(ForkJoinTask::adapt).toList();
+    if (ForkJoinTask.getPool() == parsingPool) {
+      ForkJoinTask.invokeAll(tasks);
+    } else {
+      parsingPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+    return tasks.stream().map(ForkJoinTask::join).toList();
+  }
+
+  /**
+   * Runs an action holding an open-JAR permit, waiting until one is free. A parsing thread waits as
+   * a {@linkplain ForkJoinPool.ManagedBlocker managed blocker}, so the pool runs another thread
+   * meanwhile and the forked parts of the JARs already open keep progressing.
+   *
+   * @param action action opening and closing a JAR
+   * @param <T> result type
+   * @return the action's result
+   * @throws IOException if the action fails
+   */
+  public <T> T withOpenJar(JarAction<T> action) throws IOException {
+    try {
+      ForkJoinPool.managedBlock(new OpenJarPermit());
+    } catch (InterruptedException e) {
+      // Not thrown, the permit is awaited uninterruptibly
+      throw new IllegalStateException(e);
+    }
+    try {
+      return action.run();
+    } finally {
+      openJars.release();
+    }
+  }
+
+  /** Stops the parsing threads once running tasks are done. The shared scheduler stays open. */
+  @Override
+  public void close() {
+    if (this != shared) {
+      parsingPool.shutdown();
+    }
+  }
+
+  private static <T> List<T> collect(List<Path> jars, List<Future<T>> futures) {
+    List<T> results = new ArrayList<>(futures.size());
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        results.add(futures.get(i).get());
+      } catch (ExecutionException e) {
+        log.warn("Failed to scan {}: {}", jars.get(i), e.getCause().getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SlimJreException("Scan interrupted", e);
+      }
+    }
+    return results;
+  }
+
+  /** Returns the JAR indices ordered by file size, largest first; nested JARs count as empty. */
+  private static int[] largestFirst(List<Path> jars) {
+    long[] sizes = new long[jars.size()];
+    for (int i = 0; i < sizes.length; i++) {
+      sizes[i] = size(jars.get(i));
+    }
+    return IntStream.range(0, sizes.length)
+        .boxed()
+        .sorted(Comparator.comparingLong((Integer i) -> sizes[i]).reversed())
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  private static long size(Path jar) {
+    if (NestedJar.isNested(jar)) {
+      return 0;
+    }
+    try {
+      return Files.size(jar);
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  /** Takes an open-JAR permit, telling the parsing pool when the taking thread has to wait. */
+  private final class OpenJarPermit implements ForkJoinPool.ManagedBlocker {
+
+    private boolean acquired;
+
+    @Override
+    public boolean isReleasable() {
+      if (!acquired) {
+        try {
+          // Unlike tryAcquire(), the timed variant honors the fairness of the semaphore
+          acquired = openJars.tryAcquire(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return acquired;
+    }
+
+    @Override
+    public boolean block() {
+      if (!acquired) {
+        openJars.acquireUninterruptibly();
+        acquired = true;
+      }
+      return true;
+    }
+  }
+
+  /** Action run while holding a JAR open. */
+  @FunctionalInterface
+  public interface JarAction<T> {
+    T run() throws IOException;
+  }
+}
@@ -3,12 +3,6 @@ package io.github.ghiloufibg.slimjre.core;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,6 +18,28 @@ public class ServiceLoaderScanner {
   /** Mapping of known service interfaces to their required JDK modules. */
   private static final Map<String, String> SERVICE_TO_MODULE = createServiceMappings();
 
+  /** Cache id of per-JAR service declarations. */
+  static final String CACHE_ID = "services";
+
+  /** Bump whenever the way service declarations are collected changes. */
+  private static final int CACHE_VERSION = 1;
+
+  private final AnalysisCache cache;
+
+  /** Creates a scanner that always reads JARs. */
+  public ServiceLoaderScanner() {
+    this(null);
+  }
+
+  /**
+   * Creates a scanner that persists the service declarations found in each JAR.
+   *
+   * @param cache the analysis cache, or null to disable caching
+   */
+  public ServiceLoaderScanner(AnalysisCache cache) {
+    this.cache = cache;
+  }
+
   private static Map<String, String> createServiceMappings() {
     Map<String, String> map = new HashMap<>();
 
@@ -158,22 +174,31 @@ public class ServiceLoaderScanner {
    * @return set of service interface names found
    */
   private Set<String> scanJarForServices(Path jar) {
-    Set<String> services = new TreeSet<>();
-
-    try (JarFile jarFile = new JarFile(jar.toFile())) {
-      Enumeration<JarEntry> entries = jarFile.entries();
+    if (cache != null) {
+      Optional<Map<String, Set<String>>> cached = cache.get(jar, CACHE_ID, CACHE_VERSION);
+      if (cached.isPresent()) {
+        return new TreeSet<>(cached.get().getOrDefault("services", Set.of()));
+      }
+    }
 
-      while (entries.hasMoreElements()) {
-        JarEntry entry = entries.nextElement();
-        String name = entry.getName();
+    Set<String> services = new TreeSet<>();
 
-        if (name.startsWith(SERVICES_PREFIX) && !name.equals(SERVICES_PREFIX)) {
-          String serviceName = name.substring(SERVICES_PREFIX.length());
-          // Ignore nested directories
-          if (!serviceName.contains("/")) {
-            services.add(serviceName);
-          }
-        }
+    try (JarContents contents = JarContents.open(jar)) {
+      contents.forEach(
+          entry -> {
+            String name = entry.name();
+
+            if (name.startsWith(SERVICES_PREFIX) && !name.equals(SERVICES_PREFIX)) {
+              String serviceName = name.substring(SERVICES_PREFIX.length());
+              // Ignore nested directories
+              if (!serviceName.contains("/")) {
+                services.add(serviceName);
+              }
+            }
+          });
+
+      if (cache != null) {
+        cache.put(jar, CACHE_ID, CACHE_VERSION, Map.of("services", services));
       }
     } catch (IOException e) {
       log.warn("Failed to scan JAR for services: {}: {}", jar.getFileName(), e.getMessage());
@@ -246,49 +271,47 @@ public class ServiceLoaderScanner {
   }
 
   /**
-   * Scans JARs for service loader declarations in parallel using virtual threads. This method
-   * leverages Java 21's virtual threads for efficient parallel I/O operations.
+   * Scans JARs for service loader declarations in parallel on the shared scan scheduler.
    *
    * @param jars JARs to scan
    * @return set of additional module names required by service loaders
    */
   public Set<String> scanForServiceModulesParallel(List<Path> jars) {
+    return scanForServiceModulesParallel(jars, ScanScheduler.shared());
+  }
+
+  /**
+   * Scans JARs for service loader declarations in parallel on virtual threads of the given
+   * scheduler, which bounds the JARs open at the same time.
+   *
+   * @param jars JARs to scan
+   * @param scheduler scheduler bounding the scan
+   * @return set of additional module names required by service loaders
+   */
+  public Set<String> scanForServiceModulesParallel(List<Path> jars, ScanScheduler scheduler) {
     if (jars == null || jars.isEmpty()) {
       return Set.of();
     }
 
-    Set<String> modules = ConcurrentHashMap.newKeySet();
-    Set<String> unknownServices = ConcurrentHashMap.newKeySet();
-
-    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-      // Scan all JARs in parallel
-      List<Future<Set<String>>> futures =
-          jars.stream().map(jar -> executor.submit(() -> scanJarForServices(jar))).toList();
-
-      // Collect all service interfaces
-      Set<String> allServices = ConcurrentHashMap.newKeySet();
-      for (Future<Set<String>> future : futures) {
-        try {
-          allServices.addAll(future.get());
-        } catch (Exception e) {
-          log.warn("Failed to get service scan result: {}", e.getMessage());
-        }
-      }
+    Set<String> allServices = new TreeSet<>();
+    scheduler.read(jars, this::scanJarForServices).forEach(allServices::addAll);
 
-      // Map services to modules (this is fast, no need to parallelize)
-      for (String service : allServices) {
-        String module = SERVICE_TO_MODULE.get(service);
-        if (module != null) {
-          modules.add(module);
-          log.debug("Service {} requires module {}", service, module);
+    Set<String> modules = new TreeSet<>();
+    Set<String> unknownServices = new TreeSet<>();
+
+    // Map services to modules (this is fast, no need to parallelize)
+    for (String service : allServices) {
+      String module = SERVICE_TO_MODULE.get(service);
+      if (module != null) {
+        modules.add(module);
+        log.debug("Service {} requires module {}", service, module);
+      } else {
+        String moduleFromPackage = findModuleByPackage(service);
+        if (moduleFromPackage != null) {
+          modules.add(moduleFromPackage);
+          log.debug("Service {} (by package) requires module {}", service, moduleFromPackage);
         } else {
-          String moduleFromPackage = findModuleByPackage(service);
-          if (moduleFromPackage != null) {
-            modules.add(moduleFromPackage);
-            log.debug("Service {} (by package) requires module {}", service, moduleFromPackage);
-          } else {
-            unknownServices.add(service);
-          }
+          unknownServices.add(service);
         }
       }
     }
@@ -297,6 +320,6 @@ public class ServiceLoaderScanner {
       log.debug("Unknown service interfaces (may be application-defined): {}", unknownServices);
     }
 
-    return new TreeSet<>(modules);
+    return modules;
   }
 }
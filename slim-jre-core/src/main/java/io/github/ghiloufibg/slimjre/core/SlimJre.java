@@ -1,15 +1,31 @@
 package io.github.ghiloufibg.slimjre.core;
 
 import io.github.ghiloufibg.slimjre.config.AnalysisResult;
+import io.github.ghiloufibg.slimjre.config.CdsArchive;
+import io.github.ghiloufibg.slimjre.config.DependencyEngineMode;
 import io.github.ghiloufibg.slimjre.config.JLinkOptions;
+import io.github.ghiloufibg.slimjre.config.OciImage;
+import io.github.ghiloufibg.slimjre.config.OciImageOutput;
+import io.github.ghiloufibg.slimjre.config.PipelineMetrics;
+import io.github.ghiloufibg.slimjre.config.PipelineStage;
 import io.github.ghiloufibg.slimjre.config.Result;
+import io.github.ghiloufibg.slimjre.config.ScanConcurrency;
+import io.github.ghiloufibg.slimjre.config.SizeEstimate;
 import io.github.ghiloufibg.slimjre.config.SlimJreConfig;
+import io.github.ghiloufibg.slimjre.config.SmokeTest;
+import io.github.ghiloufibg.slimjre.config.SmokeTestReport;
+import io.github.ghiloufibg.slimjre.config.StartupMeasurement;
+import io.github.ghiloufibg.slimjre.config.TraceResult;
+import io.github.ghiloufibg.slimjre.config.TrainingRun;
+import io.github.ghiloufibg.slimjre.exception.ModuleResolutionException;
 import io.github.ghiloufibg.slimjre.exception.SlimJreException;
+import io.github.ghiloufibg.slimjre.exception.SmokeTestException;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -18,6 +34,7 @@ import java.util.TreeSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +43,18 @@ import org.slf4j.LoggerFactory;
  * High-level facade for creating minimal JREs. Orchestrates jdeps analysis, service loader
  * scanning, module resolution, and jlink execution.
  *
+ * <p>All ASM-based scanners (reflection, API usage, crypto, locale, ZIP filesystem, JMX) run as
+ * detectors of a single {@link BytecodeScanEngine} pass, so every class is read and parsed once.
+ *
+ * <p>When created with an {@link AnalysisCache}, per-JAR results of all analyzers are persisted by
+ * JAR digest and reused across runs; only JARs that changed since a previous run are analyzed.
+ *
+ * <p>When the configuration asks for it, the application is run once on the created JRE to store an
+ * AppCDS archive of the classes it loads in the image; see {@link AppCdsGenerator}.
+ *
+ * <p>Every stage is timed and its work counted; the {@link PipelineMetrics} are attached to the
+ * returned {@link Result} and {@link AnalysisResult}.
+ *
  * <p>Example usage:
  *
  * <pre>{@code
@@ -43,6 +72,7 @@ public class SlimJre {
   private static final Logger log = LoggerFactory.getLogger(SlimJre.class);
 
   private final JDepsAnalyzer jdepsAnalyzer;
+  private final BytecodeDependencyAnalyzer bytecodeDependencyAnalyzer;
   private final ServiceLoaderScanner serviceLoaderScanner;
   private final ReflectionBytecodeScanner reflectionScanner;
   private final ApiUsageScanner apiUsageScanner;
@@ -53,20 +83,45 @@ public class SlimJre {
   private final JmxModuleScanner jmxModuleScanner;
   private final ModuleResolver moduleResolver;
   private final JLinkExecutor jlinkExecutor;
-
-  /** Creates a new SlimJre instance with default components. */
+  private final AppCdsGenerator appCdsGenerator;
+  private final AotCacheGenerator aotCacheGenerator;
+  private final ClassLoadTracer classLoadTracer;
+  private final SmokeTester smokeTester = new SmokeTester();
+  private final OciImageWriter ociImageWriter = new OciImageWriter();
+  private final BytecodeScanEngine bytecodeScanEngine;
+  private final AnalysisCache analysisCache;
+
+  /** Creates a new SlimJre instance with default components and no analysis cache. */
   public SlimJre() {
-    this.jdepsAnalyzer = new JDepsAnalyzer();
-    this.serviceLoaderScanner = new ServiceLoaderScanner();
-    this.reflectionScanner = new ReflectionBytecodeScanner();
+    this((AnalysisCache) null);
+  }
+
+  /**
+   * Creates a new SlimJre instance with default components sharing a persistent analysis cache.
+   *
+   * @param analysisCache the analysis cache, or null to disable caching
+   */
+  public SlimJre(AnalysisCache analysisCache) {
+    // Load the JDK class index persisted beside the analysis cache before any scanner needs it
+    JdkClassIndex jdkClassIndex =
+        JdkClassIndex.shared(analysisCache != null ? analysisCache.directory() : null);
+    this.analysisCache = analysisCache;
+    this.bytecodeScanEngine = new BytecodeScanEngine(analysisCache);
+    this.jdepsAnalyzer = new JDepsAnalyzer(analysisCache);
+    this.bytecodeDependencyAnalyzer = new BytecodeDependencyAnalyzer(analysisCache, jdkClassIndex);
+    this.serviceLoaderScanner = new ServiceLoaderScanner(analysisCache);
+    this.reflectionScanner = new ReflectionBytecodeScanner(jdkClassIndex);
     this.apiUsageScanner = new ApiUsageScanner();
-    this.graalVmMetadataScanner = new GraalVmMetadataScanner();
+    this.graalVmMetadataScanner = new GraalVmMetadataScanner(analysisCache, jdkClassIndex);
     this.cryptoModuleScanner = new CryptoModuleScanner();
     this.localeModuleScanner = new LocaleModuleScanner();
     this.zipFsModuleScanner = new ZipFsModuleScanner();
     this.jmxModuleScanner = new JmxModuleScanner();
     this.moduleResolver = new ModuleResolver();
     this.jlinkExecutor = new JLinkExecutor();
+    this.appCdsGenerator = new AppCdsGenerator(jlinkExecutor);
+    this.aotCacheGenerator = new AotCacheGenerator(jlinkExecutor);
+    this.classLoadTracer = new ClassLoadTracer(jdkClassIndex);
   }
 
   /** Creates a new SlimJre instance with custom components. */
@@ -82,7 +137,10 @@ public class SlimJre {
       JmxModuleScanner jmxModuleScanner,
       ModuleResolver moduleResolver,
       JLinkExecutor jlinkExecutor) {
+    this.analysisCache = null;
+    this.bytecodeScanEngine = new BytecodeScanEngine();
     this.jdepsAnalyzer = Objects.requireNonNull(jdepsAnalyzer);
+    this.bytecodeDependencyAnalyzer = new BytecodeDependencyAnalyzer();
     this.serviceLoaderScanner = Objects.requireNonNull(serviceLoaderScanner);
     this.reflectionScanner = Objects.requireNonNull(reflectionScanner);
     this.apiUsageScanner = Objects.requireNonNull(apiUsageScanner);
@@ -93,6 +151,9 @@ public class SlimJre {
     this.jmxModuleScanner = Objects.requireNonNull(jmxModuleScanner);
     this.moduleResolver = Objects.requireNonNull(moduleResolver);
     this.jlinkExecutor = Objects.requireNonNull(jlinkExecutor);
+    this.appCdsGenerator = new AppCdsGenerator(jlinkExecutor);
+    this.aotCacheGenerator = new AotCacheGenerator(jlinkExecutor);
+    this.classLoadTracer = new ClassLoadTracer();
   }
 
   /**
@@ -107,6 +168,7 @@ public class SlimJre {
     config.validate();
 
     Instant start = Instant.now();
+    MetricsRecorder metrics = new MetricsRecorder();
     log.info("Creating minimal JRE for {} JAR(s)...", config.jars().size());
 
     if (config.verbose()) {
@@ -126,45 +188,73 @@ public class SlimJre {
     Set<String> jmxModules;
     LocaleDetectionResult localeResult;
 
-    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+    DependencyEngineMode engineMode = config.dependencyEngine();
+
+    // The scanners share one scheduler bounding their threads and open JARs
+    try (ScanScheduler scheduler = new ScanScheduler(config.scanConcurrency());
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
       // Submit all analysis tasks in parallel
       Future<Set<String>> jdepsFuture =
-          executor.submit(() -> jdepsAnalyzer.analyzeRequiredModules(config.jars()));
+          engineMode != DependencyEngineMode.BYTECODE
+              ? executor.submit(
+                  () ->
+                      metrics.measure(
+                          PipelineStage.JDEPS,
+                          config.jars().size(),
+                          cacheHits(JDepsAnalyzer.CACHE_ID, JDepsAnalyzer.PER_JAR_CACHE_ID),
+                          () -> jdepsAnalyzer.analyzeRequiredModules(config.jars())))
+              : null;
 
       Future<Set<String>> serviceFuture =
           config.scanServiceLoaders()
               ? executor.submit(
-                  () -> serviceLoaderScanner.scanForServiceModulesParallel(config.jars()))
+                  () ->
+                      metrics.measure(
+                          PipelineStage.SERVICE_LOADER,
+                          config.jars().size(),
+                          cacheHits(ServiceLoaderScanner.CACHE_ID),
+                          () ->
+                              serviceLoaderScanner.scanForServiceModulesParallel(
+                                  config.jars(), scheduler)))
               : null;
 
-      Future<Set<String>> reflectionFuture =
-          executor.submit(() -> reflectionScanner.scanJarsParallel(config.jars()));
-
-      Future<Set<String>> apiUsageFuture =
-          executor.submit(() -> apiUsageScanner.scanJarsParallel(config.jars()));
+      // All ASM-based scanners share a single pass over the bytecode
+      Future<BytecodeScanEngine.Results> bytecodeFuture =
+          executor.submit(
+              // Verbose runs report every detected pattern, others only need the decisions
+              () ->
+                  bytecodeScanEngine.scan(
+                      config.jars(), bytecodeDetectors(engineMode), scheduler, !config.verbose()));
 
       Future<Set<String>> graalVmFuture =
           config.scanGraalVmMetadata()
-              ? executor.submit(() -> graalVmMetadataScanner.scanJarsParallel(config.jars()))
+              ? executor.submit(
+                  () ->
+                      metrics.measure(
+                          PipelineStage.GRAALVM_METADATA,
+                          config.jars().size(),
+                          cacheHits(GraalVmMetadataScanner.CACHE_ID),
+                          () -> graalVmMetadataScanner.scanJarsParallel(config.jars(), scheduler)))
               : null;
 
-      Future<CryptoDetectionResult> cryptoFuture =
-          executor.submit(() -> cryptoModuleScanner.scanJarsParallel(config.jars()));
-
-      Future<LocaleDetectionResult> localeFuture =
-          executor.submit(() -> localeModuleScanner.scanJarsParallel(config.jars()));
-
-      Future<ZipFsDetectionResult> zipFsFuture =
-          executor.submit(() -> zipFsModuleScanner.scanJarsParallel(config.jars()));
-
-      Future<JmxDetectionResult> jmxFuture =
-          executor.submit(() -> jmxModuleScanner.scanJarsParallel(config.jars()));
-
       // Collect results
       try {
-        jdepsModules = jdepsFuture.get();
+        BytecodeScanEngine.Results bytecodeResults = bytecodeFuture.get();
+        metrics.recordScan(bytecodeResults, stageDetectors(engineMode));
+
+        jdepsModules =
+            selectDependencies(
+                    engineMode,
+                    jdepsFuture != null ? new DependencyResult(jdepsFuture.get(), Map.of()) : null,
+                    engineMode != DependencyEngineMode.JDEPS
+                        ? bytecodeResults.get(bytecodeDependencyAnalyzer)
+                        : null)
+                .requiredModules();
         log.info(
-            "jdeps detected {} module(s): {}", jdepsModules.size(), formatModules(jdepsModules));
+            "{} detected {} module(s): {}",
+            engineMode == DependencyEngineMode.BYTECODE ? "Bytecode analysis" : "jdeps",
+            jdepsModules.size(),
+            formatModules(jdepsModules));
 
         serviceModules = serviceFuture != null ? serviceFuture.get() : Set.of();
         if (!serviceModules.isEmpty()) {
@@ -174,7 +264,7 @@ public class SlimJre {
               formatModules(serviceModules));
         }
 
-        reflectionModules = reflectionFuture.get();
+        reflectionModules = bytecodeResults.get(reflectionScanner);
         if (!reflectionModules.isEmpty()) {
           log.info(
               "Reflection patterns require {} module(s): {}",
@@ -182,7 +272,7 @@ public class SlimJre {
               formatModules(reflectionModules));
         }
 
-        apiUsageModules = apiUsageFuture.get();
+        apiUsageModules = bytecodeResults.get(apiUsageScanner);
         if (!apiUsageModules.isEmpty()) {
           log.info(
               "API usage patterns require {} module(s): {}",
@@ -198,7 +288,7 @@ public class SlimJre {
               formatModules(graalVmModules));
         }
 
-        CryptoDetectionResult cryptoResult = cryptoFuture.get();
+        CryptoDetectionResult cryptoResult = bytecodeResults.get(cryptoModuleScanner);
         cryptoModules = cryptoResult.requiredModules();
         if (!cryptoModules.isEmpty()) {
           log.info(
@@ -208,7 +298,7 @@ public class SlimJre {
               String.join(", ", cryptoResult.detectedInJars()));
         }
 
-        localeResult = localeFuture.get();
+        localeResult = bytecodeResults.get(localeModuleScanner);
         localeModules = localeResult.requiredModules();
         if (localeResult.confidence() == LocaleConfidence.DEFINITE) {
           log.info(
@@ -220,7 +310,7 @@ public class SlimJre {
               String.join(", ", localeResult.tier2Patterns()));
         }
 
-        ZipFsDetectionResult zipFsResult = zipFsFuture.get();
+        ZipFsDetectionResult zipFsResult = bytecodeResults.get(zipFsModuleScanner);
         zipFsModules = zipFsResult.requiredModules();
         if (zipFsResult.isRequired()) {
           log.info(
@@ -228,7 +318,7 @@ public class SlimJre {
               String.join(", ", zipFsResult.detectedInJars()));
         }
 
-        JmxDetectionResult jmxResult = jmxFuture.get();
+        JmxDetectionResult jmxResult = bytecodeResults.get(jmxModuleScanner);
         jmxModules = jmxResult.requiredModules();
         if (jmxResult.isRequired()) {
           log.info(
@@ -240,6 +330,8 @@ public class SlimJre {
       }
     }
 
+    evictCache();
+
     // Combine all modules
     Set<String> allModules = new TreeSet<>();
     allModules.addAll(jdepsModules);
@@ -282,7 +374,9 @@ public class SlimJre {
 
     // Step 5: Resolve transitive dependencies
     log.debug("Step 5: Resolving transitive module dependencies...");
-    Set<String> resolvedModules = moduleResolver.resolveWithTransitive(allModules);
+    Set<String> resolvedModules =
+        metrics.measure(
+            PipelineStage.RESOLUTION, () -> moduleResolver.resolveWithTransitive(allModules));
     log.info("Resolved {} total module(s) (including transitive)", resolvedModules.size());
 
     // Step 6: Create the JRE with jlink
@@ -295,21 +389,118 @@ public class SlimJre {
             .compression(config.compression())
             .noHeaderFiles(config.noHeaderFiles())
             .noManPages(config.noManPages())
+            .generateCdsArchive(config.generateCdsArchive())
             .build();
 
-    Path jrePath = jlinkExecutor.createRuntime(jlinkOptions);
+    Path jrePath =
+        metrics.measure(
+            PipelineStage.JLINK,
+            () ->
+                config.runtimeStore() != null
+                    ? new RuntimeStore(config.runtimeStore(), jlinkExecutor)
+                        .materialize(jlinkOptions)
+                    : jlinkExecutor.createRuntime(jlinkOptions));
+
+    // Step 7: Archive the classes a training run of the application loads
+    CdsArchive appCdsArchive = null;
+    if (config.appCdsTraining() != null) {
+      log.debug("Step 7: Creating AppCDS archive from a training run...");
+      appCdsArchive =
+          metrics.measure(
+              PipelineStage.APP_CDS,
+              () -> appCdsGenerator.generate(jrePath, config.jars(), config.appCdsTraining()));
+    }
+
+    // Step 8: Cache the classes a training run loads and links ahead of time (JDK 24+)
+    CdsArchive aotCache = null;
+    if (config.aotTraining() != null) {
+      log.debug("Step 8: Creating AOT cache from a training run...");
+      aotCache =
+          metrics.measure(
+              PipelineStage.AOT_CACHE,
+              () ->
+                  aotCacheGenerator
+                      .generate(jrePath, config.jars(), config.aotTraining())
+                      .orElse(null));
+    }
+
+    // Step 9: Start the application on the JRE and fail if it does not become ready
+    SmokeTestReport smokeTest = null;
+    if (config.smokeTest() != null) {
+      log.debug("Step 9: Smoke testing the application...");
+      smokeTest =
+          metrics.measure(
+              PipelineStage.SMOKE_TEST,
+              () -> smokeTester.verify(jrePath, config.jars(), config.smokeTest()));
+      if (!smokeTest.passed()) {
+        throw new SmokeTestException(
+            "Application does not start correctly on the created JRE at "
+                + jrePath
+                + "\n"
+                + smokeTest.summary(),
+            smokeTest);
+      }
+      log.info("Smoke test passed");
+    }
+
+    // Step 10: Compare startup with and without the default CDS archive, from one launch of each
+    // unless repeated sampling is requested
+    CdsArchive defaultCdsArchive = jlinkExecutor.findDefaultCdsArchive(jrePath).orElse(null);
+    StartupMeasurement startup = null;
+    if (defaultCdsArchive != null) {
+      log.debug("Step 10: Measuring JRE startup with and without CDS...");
+      startup =
+          metrics.measure(
+              PipelineStage.STARTUP_MEASUREMENT,
+              () ->
+                  (config.measureStartup()
+                          ? jlinkExecutor.measureStartup(jrePath)
+                          : jlinkExecutor.verifyAndTimeStartup(jrePath))
+                      .orElse(null));
+    }
 
     // Calculate sizes
-    long slimJreSize = jlinkExecutor.calculateJreSize(jrePath);
-    long originalJreSize = jlinkExecutor.getCurrentJdkSize();
+    long[] sizes =
+        metrics.measure(
+            PipelineStage.SIZE_CALCULATION,
+            () ->
+                new long[] {
+                  jlinkExecutor.calculateJreSize(jrePath), jlinkExecutor.getCurrentJdkSize()
+                });
+    long slimJreSize = sizes[0];
+    long originalJreSize = sizes[1];
+
+    // Step 11: Write the JRE as reproducible OCI image layers
+    OciImageOutput ociImage = null;
+    if (config.ociImage() != null) {
+      log.debug("Step 11: Writing OCI image...");
+      ociImage =
+          metrics.measure(
+              PipelineStage.OCI_IMAGE,
+              () -> ociImageWriter.write(jrePath, config.jars(), config.ociImage()));
+    }
 
     Duration duration = Duration.between(start, Instant.now());
 
-    Result result = new Result(jrePath, resolvedModules, originalJreSize, slimJreSize, duration);
+    Result result =
+        new Result(
+            jrePath,
+            resolvedModules,
+            originalJreSize,
+            slimJreSize,
+            duration,
+            metrics.snapshot(),
+            appCdsArchive,
+            defaultCdsArchive,
+            startup,
+            aotCache,
+            smokeTest,
+            ociImage);
 
     log.info("Minimal JRE creation complete!");
     if (config.verbose()) {
       log.info(result.summary());
+      log.info(result.metrics().summary());
     }
 
     return result;
@@ -353,7 +544,112 @@ public class SlimJre {
    */
   public AnalysisResult analyzeOnly(
       List<Path> jars, boolean scanServiceLoaders, boolean scanGraalVmMetadata) {
+    return analyzeOnly(jars, scanServiceLoaders, scanGraalVmMetadata, DependencyEngineMode.JDEPS);
+  }
+
+  /**
+   * Analyzes JARs and returns required modules without creating a JRE.
+   *
+   * @param jars JARs to analyze
+   * @param scanServiceLoaders whether to scan for service loader dependencies
+   * @param scanGraalVmMetadata whether to scan GraalVM native-image metadata
+   * @param engineMode engine determining the statically referenced JDK modules
+   * @return analysis result with module breakdown
+   */
+  public AnalysisResult analyzeOnly(
+      List<Path> jars,
+      boolean scanServiceLoaders,
+      boolean scanGraalVmMetadata,
+      DependencyEngineMode engineMode) {
+    return analyzeOnly(jars, scanServiceLoaders, scanGraalVmMetadata, engineMode, null);
+  }
+
+  /**
+   * Analyzes JARs and returns required modules without creating a JRE, optionally confirming them
+   * with a traced run of the application.
+   *
+   * <p>The traced run records the JDK classes the application loads; their modules are added to the
+   * result and compared with static detection, see {@link ClassLoadTracer}.
+   *
+   * @param jars JARs to analyze
+   * @param scanServiceLoaders whether to scan for service loader dependencies
+   * @param scanGraalVmMetadata whether to scan GraalVM native-image metadata
+   * @param engineMode engine determining the statically referenced JDK modules
+   * @param traceRun how to run the application for tracing, or null to skip tracing
+   * @return analysis result with module breakdown
+   */
+  public AnalysisResult analyzeOnly(
+      List<Path> jars,
+      boolean scanServiceLoaders,
+      boolean scanGraalVmMetadata,
+      DependencyEngineMode engineMode,
+      TrainingRun traceRun) {
+    return analyzeOnly(
+        jars,
+        scanServiceLoaders,
+        scanGraalVmMetadata,
+        engineMode,
+        traceRun,
+        ScanConcurrency.defaults());
+  }
+
+  /**
+   * Analyzes JARs and returns required modules without creating a JRE, optionally confirming them
+   * with a traced run of the application, with the given scan limits.
+   *
+   * @param jars JARs to analyze
+   * @param scanServiceLoaders whether to scan for service loader dependencies
+   * @param scanGraalVmMetadata whether to scan GraalVM native-image metadata
+   * @param engineMode engine determining the statically referenced JDK modules
+   * @param traceRun how to run the application for tracing, or null to skip tracing
+   * @param scanConcurrency limits of the threads and open JARs of the JAR scans
+   * @return analysis result with module breakdown
+   */
+  public AnalysisResult analyzeOnly(
+      List<Path> jars,
+      boolean scanServiceLoaders,
+      boolean scanGraalVmMetadata,
+      DependencyEngineMode engineMode,
+      TrainingRun traceRun,
+      ScanConcurrency scanConcurrency) {
+    return analyzeOnly(
+        jars,
+        scanServiceLoaders,
+        scanGraalVmMetadata,
+        engineMode,
+        traceRun,
+        scanConcurrency,
+        true,
+        "zip-6");
+  }
+
+  /**
+   * Analyzes JARs and returns required modules without creating a JRE, estimating the size of the
+   * image they would link to with the given jlink options.
+   *
+   * @param jars JARs to analyze
+   * @param scanServiceLoaders whether to scan for service loader dependencies
+   * @param scanGraalVmMetadata whether to scan GraalVM native-image metadata
+   * @param engineMode engine determining the statically referenced JDK modules
+   * @param traceRun how to run the application for tracing, or null to skip tracing
+   * @param scanConcurrency limits of the threads and open JARs of the JAR scans
+   * @param stripDebug whether the estimated image strips debug attributes
+   * @param compression compression level of the estimated image, {@code zip-0} to {@code zip-9}
+   * @return analysis result with module breakdown
+   */
+  public AnalysisResult analyzeOnly(
+      List<Path> jars,
+      boolean scanServiceLoaders,
+      boolean scanGraalVmMetadata,
+      DependencyEngineMode engineMode,
+      TrainingRun traceRun,
+      ScanConcurrency scanConcurrency,
+      boolean stripDebug,
+      String compression) {
+    Objects.requireNonNull(engineMode, "engineMode must not be null");
+    Objects.requireNonNull(scanConcurrency, "scanConcurrency must not be null");
     log.info("Analyzing {} JAR(s) in parallel...", jars.size());
+    MetricsRecorder metrics = new MetricsRecorder();
 
     Set<String> jdepsModules;
     Set<String> serviceModules;
@@ -366,50 +662,73 @@ public class SlimJre {
     Set<String> jmxModules;
     Map<Path, Set<String>> perJarModules;
 
-    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-      // Submit all analysis tasks in parallel
-      Future<Set<String>> jdepsFuture =
-          executor.submit(() -> jdepsAnalyzer.analyzeRequiredModules(jars));
+    try (ScanScheduler scheduler = new ScanScheduler(scanConcurrency);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      // Submit all analysis tasks in parallel. jdeps runs once per JAR; the aggregate set is the
+      // union of the per-JAR results, so no JAR is analyzed twice.
+      Future<DependencyResult> jdepsFuture =
+          engineMode != DependencyEngineMode.BYTECODE
+              ? executor.submit(
+                  () ->
+                      metrics.measure(
+                          PipelineStage.JDEPS,
+                          jars.size(),
+                          cacheHits(JDepsAnalyzer.CACHE_ID, JDepsAnalyzer.PER_JAR_CACHE_ID),
+                          () -> jdepsAnalyzer.analyzePerJarFirst(jars)))
+              : null;
       Future<Set<String>> serviceFuture =
           scanServiceLoaders
-              ? executor.submit(() -> serviceLoaderScanner.scanForServiceModulesParallel(jars))
+              ? executor.submit(
+                  () ->
+                      metrics.measure(
+                          PipelineStage.SERVICE_LOADER,
+                          jars.size(),
+                          cacheHits(ServiceLoaderScanner.CACHE_ID),
+                          () ->
+                              serviceLoaderScanner.scanForServiceModulesParallel(jars, scheduler)))
               : null;
-      Future<Set<String>> reflectionFuture =
-          executor.submit(() -> reflectionScanner.scanJarsParallel(jars));
-      Future<Set<String>> apiUsageFuture =
-          executor.submit(() -> apiUsageScanner.scanJarsParallel(jars));
+      Future<BytecodeScanEngine.Results> bytecodeFuture =
+          executor.submit(
+              () -> bytecodeScanEngine.scan(jars, bytecodeDetectors(engineMode), scheduler));
       Future<Set<String>> graalVmFuture =
           scanGraalVmMetadata
-              ? executor.submit(() -> graalVmMetadataScanner.scanJarsParallel(jars))
+              ? executor.submit(
+                  () ->
+                      metrics.measure(
+                          PipelineStage.GRAALVM_METADATA,
+                          jars.size(),
+                          cacheHits(GraalVmMetadataScanner.CACHE_ID),
+                          () -> graalVmMetadataScanner.scanJarsParallel(jars, scheduler)))
               : null;
-      Future<CryptoDetectionResult> cryptoFuture =
-          executor.submit(() -> cryptoModuleScanner.scanJarsParallel(jars));
-      Future<LocaleDetectionResult> localeFuture =
-          executor.submit(() -> localeModuleScanner.scanJarsParallel(jars));
-      Future<ZipFsDetectionResult> zipFsFuture =
-          executor.submit(() -> zipFsModuleScanner.scanJarsParallel(jars));
-      Future<JmxDetectionResult> jmxFuture =
-          executor.submit(() -> jmxModuleScanner.scanJarsParallel(jars));
-      Future<Map<Path, Set<String>>> perJarFuture =
-          executor.submit(() -> jdepsAnalyzer.analyzeRequiredModulesPerJar(jars));
 
       // Collect results
       try {
-        jdepsModules = jdepsFuture.get();
+        BytecodeScanEngine.Results bytecodeResults = bytecodeFuture.get();
+        metrics.recordScan(bytecodeResults, stageDetectors(engineMode));
+        DependencyResult dependencyResult =
+            selectDependencies(
+                engineMode,
+                jdepsFuture != null ? jdepsFuture.get() : null,
+                engineMode != DependencyEngineMode.JDEPS
+                    ? bytecodeResults.get(bytecodeDependencyAnalyzer)
+                    : null);
+        jdepsModules = dependencyResult.requiredModules();
+        perJarModules = dependencyResult.perJarModules();
         serviceModules = serviceFuture != null ? serviceFuture.get() : Set.of();
-        reflectionModules = reflectionFuture.get();
-        apiUsageModules = apiUsageFuture.get();
+        reflectionModules = bytecodeResults.get(reflectionScanner);
+        apiUsageModules = bytecodeResults.get(apiUsageScanner);
         graalVmModules = graalVmFuture != null ? graalVmFuture.get() : Set.of();
-        cryptoModules = cryptoFuture.get().requiredModules();
-        localeModules = localeFuture.get().requiredModules();
-        zipFsModules = zipFsFuture.get().requiredModules();
-        jmxModules = jmxFuture.get().requiredModules();
-        perJarModules = perJarFuture.get();
+        cryptoModules = bytecodeResults.get(cryptoModuleScanner).requiredModules();
+        localeModules = bytecodeResults.get(localeModuleScanner).requiredModules();
+        zipFsModules = bytecodeResults.get(zipFsModuleScanner).requiredModules();
+        jmxModules = bytecodeResults.get(jmxModuleScanner).requiredModules();
       } catch (Exception e) {
         throw new SlimJreException("Parallel analysis failed: " + e.getMessage(), e);
       }
     }
 
+    evictCache();
+
     // Combine all modules
     Set<String> allModules = new TreeSet<>();
     allModules.addAll(jdepsModules);
@@ -422,6 +741,36 @@ public class SlimJre {
     allModules.addAll(zipFsModules);
     allModules.addAll(jmxModules);
 
+    // Confirm the static detection with the classes a run of the application loads
+    TraceResult trace = null;
+    if (traceRun != null) {
+      traceRun.validate();
+      Set<String> staticModules = Set.copyOf(allModules);
+      trace =
+          metrics.measure(
+              PipelineStage.TRACE,
+              () -> {
+                Set<String> resolved = resolveForReport(staticModules);
+                return classLoadTracer
+                    .trace(jars, traceRun)
+                    .comparedTo(staticModules, resolved != null ? resolved : staticModules);
+              });
+      allModules.addAll(trace.observedModules());
+    }
+
+    // Predict the size of the image these modules would link to, without running jlink
+    SizeEstimate sizeEstimate =
+        metrics.measure(
+            PipelineStage.SIZE_ESTIMATE,
+            () -> {
+              Set<String> imageModules = resolveForReport(allModules);
+              return imageModules != null
+                  ? ModuleSizeEstimator.shared(
+                          analysisCache != null ? analysisCache.directory() : null)
+                      .estimate(imageModules, stripDebug, compression)
+                  : null;
+            });
+
     return new AnalysisResult(
         jdepsModules,
         serviceModules,
@@ -433,7 +782,34 @@ public class SlimJre {
         zipFsModules,
         jmxModules,
         allModules,
-        perJarModules);
+        perJarModules,
+        metrics.snapshot(),
+        trace,
+        sizeEstimate);
+  }
+
+  /**
+   * Resolves modules for the reports of an analysis, which unlike linking must not fail on modules
+   * missing from the current JDK, such as {@code jdk.crypto.ec} on JDK 24 and later.
+   *
+   * @param modules modules to resolve
+   * @return the modules available in the current JDK with their transitive dependencies, or null if
+   *     those cannot be resolved either
+   */
+  private Set<String> resolveForReport(Set<String> modules) {
+    Set<String> available = new TreeSet<>(modules);
+    available.retainAll(moduleResolver.availableModules());
+    if (available.size() < modules.size()) {
+      Set<String> missing = new TreeSet<>(modules);
+      missing.removeAll(available);
+      log.warn("Modules not available in the current JDK, left out of the report: {}", missing);
+    }
+    try {
+      return moduleResolver.resolveWithTransitive(available);
+    } catch (ModuleResolutionException e) {
+      log.warn("Could not resolve modules for the report: {}", e.getMessage());
+      return null;
+    }
   }
 
   /** Creates a new fluent builder for SlimJre operations. */
@@ -441,6 +817,118 @@ public class SlimJre {
     return new FluentBuilder();
   }
 
+  /**
+   * Returns the ASM-based detectors that share the single bytecode pass.
+   *
+   * @param engineMode dependency engine mode; the bytecode dependency engine joins the pass unless
+   *     only jdeps is used
+   * @return detectors in a stable order
+   */
+  private List<BytecodeDetector<?, ?>> bytecodeDetectors(DependencyEngineMode engineMode) {
+    return stageDetectors(engineMode).stream()
+        .<BytecodeDetector<?, ?>>map(MetricsRecorder.StageDetector::detector)
+        .toList();
+  }
+
+  /** Returns the detectors of the single bytecode pass with the stages they are reported under. */
+  private List<MetricsRecorder.StageDetector> stageDetectors(DependencyEngineMode engineMode) {
+    List<MetricsRecorder.StageDetector> detectors = new ArrayList<>();
+    detectors.add(new MetricsRecorder.StageDetector(reflectionScanner, PipelineStage.REFLECTION));
+    detectors.add(new MetricsRecorder.StageDetector(apiUsageScanner, PipelineStage.API_USAGE));
+    detectors.add(new MetricsRecorder.StageDetector(cryptoModuleScanner, PipelineStage.CRYPTO));
+    detectors.add(new MetricsRecorder.StageDetector(localeModuleScanner, PipelineStage.LOCALE));
+    detectors.add(new MetricsRecorder.StageDetector(zipFsModuleScanner, PipelineStage.ZIP_FS));
+    detectors.add(new MetricsRecorder.StageDetector(jmxModuleScanner, PipelineStage.JMX));
+    if (engineMode != DependencyEngineMode.JDEPS) {
+      detectors.add(
+          new MetricsRecorder.StageDetector(
+              bytecodeDependencyAnalyzer, PipelineStage.BYTECODE_DEPENDENCIES));
+    }
+    return detectors;
+  }
+
+  /**
+   * Returns a running count of the analysis cache hits of some analyzers.
+   *
+   * @param analyzerIds cache ids of the analyzers
+   * @return hit count supplier, always zero without a cache
+   */
+  private LongSupplier cacheHits(String... analyzerIds) {
+    if (analysisCache == null) {
+      return () -> 0;
+    }
+    return () -> {
+      long hits = 0;
+      for (String analyzerId : analyzerIds) {
+        hits += analysisCache.hitCount(analyzerId);
+      }
+      return hits;
+    };
+  }
+
+  /**
+   * Picks the dependency result of the selected engine. In validation mode, every module on which
+   * the engines disagree is logged and the union of both results is returned.
+   *
+   * @param engineMode selected engine mode
+   * @param jdepsResult jdeps result, or null if jdeps did not run
+   * @param bytecodeResult bytecode engine result, or null if it did not run
+   * @return the dependency result to use
+   */
+  private DependencyResult selectDependencies(
+      DependencyEngineMode engineMode,
+      DependencyResult jdepsResult,
+      DependencyResult bytecodeResult) {
+    return switch (engineMode) {
+      case JDEPS -> jdepsResult;
+      case BYTECODE -> bytecodeResult;
+      case VALIDATE -> {
+        logDisagreement("jdeps", jdepsResult.requiredModules(), bytecodeResult.requiredModules());
+        logDisagreement(
+            "bytecode", bytecodeResult.requiredModules(), jdepsResult.requiredModules());
+
+        Set<String> union = new TreeSet<>(jdepsResult.requiredModules());
+        union.addAll(bytecodeResult.requiredModules());
+
+        Map<Path, Set<String>> perJar = new LinkedHashMap<>();
+        for (Map.Entry<Path, Set<String>> entry : bytecodeResult.perJarModules().entrySet()) {
+          Set<String> modules = new TreeSet<>(entry.getValue());
+          modules.addAll(jdepsResult.perJarModules().getOrDefault(entry.getKey(), Set.of()));
+          perJar.put(entry.getKey(), modules);
+        }
+        yield new DependencyResult(union, perJar);
+      }
+    };
+  }
+
+  /** Logs the modules only one dependency engine detected. */
+  private void logDisagreement(String engine, Set<String> detected, Set<String> other) {
+    Set<String> onlyDetected = new TreeSet<>(detected);
+    onlyDetected.removeAll(other);
+    if (onlyDetected.isEmpty()) {
+      log.info("Dependency engine validation: {} detected no additional modules", engine);
+    } else {
+      log.warn(
+          "Dependency engine validation: only {} detected {} module(s): {}",
+          engine,
+          onlyDetected.size(),
+          String.join(", ", onlyDetected));
+    }
+  }
+
+  /** Logs cache statistics and trims the analysis cache to its configured limits. */
+  private void evictCache() {
+    if (analysisCache == null) {
+      return;
+    }
+    log.debug(
+        "Analysis cache: {} hit(s), {} miss(es) in {}",
+        analysisCache.hitCount(),
+        analysisCache.missCount(),
+        analysisCache.directory());
+    analysisCache.evict();
+  }
+
   private String formatModules(Set<String> modules) {
     if (modules.isEmpty()) {
       return "(none)";
@@ -459,6 +947,8 @@ public class SlimJre {
     private final SlimJreConfig.Builder configBuilder = SlimJreConfig.builder();
     private SlimJre slimJre;
     private DiscoveryResult discoveryResult;
+    private AnalysisCache analysisCache;
+    private TrainingRun traceRun;
 
     /**
      * Discovers all JARs from a directory, fat JAR, or WAR file.
@@ -560,6 +1050,12 @@ public class SlimJre {
       return this;
     }
 
+    /** Sets whether to generate the default CDS archive for the linked modules. */
+    public FluentBuilder generateCdsArchive(boolean generateCdsArchive) {
+      configBuilder.generateCdsArchive(generateCdsArchive);
+      return this;
+    }
+
     /** Sets whether to scan for service loader dependencies. */
     public FluentBuilder scanServiceLoaders(boolean scan) {
       configBuilder.scanServiceLoaders(scan);
@@ -572,15 +1068,69 @@ public class SlimJre {
       return this;
     }
 
+    /** Sets the engine determining the statically referenced JDK modules. */
+    public FluentBuilder dependencyEngine(DependencyEngineMode dependencyEngine) {
+      configBuilder.dependencyEngine(dependencyEngine);
+      return this;
+    }
+
+    /** Enables an AppCDS training run of the application on the created JRE. */
+    public FluentBuilder appCds(TrainingRun training) {
+      configBuilder.appCds(training);
+      return this;
+    }
+
+    /** Enables an AOT cache training run of the application on the created JRE (JDK 24+). */
+    public FluentBuilder aotCache(TrainingRun training) {
+      configBuilder.aotCache(training);
+      return this;
+    }
+
+    /** Enables a smoke test of the application on the created JRE. */
+    public FluentBuilder smokeTest(SmokeTest smokeTest) {
+      configBuilder.smokeTest(smokeTest);
+      return this;
+    }
+
+    /** Links the JRE into a shared store and hard-links the output from it. */
+    public FluentBuilder runtimeStore(Path directory) {
+      configBuilder.runtimeStore(directory);
+      return this;
+    }
+
+    /** Writes the created JRE as reproducible OCI image layers. */
+    public FluentBuilder ociImage(OciImage ociImage) {
+      configBuilder.ociImage(ociImage);
+      return this;
+    }
+
+    /** Sets the limits of the threads and open JARs of the JAR scans. */
+    public FluentBuilder scanConcurrency(ScanConcurrency scanConcurrency) {
+      configBuilder.scanConcurrency(scanConcurrency);
+      return this;
+    }
+
+    /** Confirms the analysis with a traced run of the application; see {@link #analyze()}. */
+    public FluentBuilder trace(TrainingRun traceRun) {
+      this.traceRun = traceRun;
+      return this;
+    }
+
     /** Sets verbose output mode. */
     public FluentBuilder verbose(boolean verbose) {
       configBuilder.verbose(verbose);
       return this;
     }
 
+    /** Sets the persistent analysis cache shared by all analyzers; null disables caching. */
+    public FluentBuilder analysisCache(AnalysisCache analysisCache) {
+      this.analysisCache = analysisCache;
+      return this;
+    }
+
     /** Builds the SlimJre instance. */
     public SlimJre build() {
-      this.slimJre = new SlimJre();
+      this.slimJre = new SlimJre(analysisCache);
       return slimJre;
     }
 
@@ -593,9 +1143,12 @@ public class SlimJre {
     public Result create() {
       try {
         if (slimJre == null) {
-          slimJre = new SlimJre();
+          slimJre = new SlimJre(analysisCache);
         }
-        return slimJre.createMinimalJre(configBuilder.build());
+        Result result = slimJre.createMinimalJre(configBuilder.build());
+        return discoveryResult != null
+            ? result.withMetrics(result.metrics().with(discoveryResult.metrics()))
+            : result;
       } finally {
         cleanupDiscovery();
       }
@@ -611,11 +1164,20 @@ public class SlimJre {
     public AnalysisResult analyze() {
       try {
         if (slimJre == null) {
-          slimJre = new SlimJre();
+          slimJre = new SlimJre(analysisCache);
         }
         SlimJreConfig config = configBuilder.build();
-        return slimJre.analyzeOnly(
-            config.jars(), config.scanServiceLoaders(), config.scanGraalVmMetadata());
+        AnalysisResult result =
+            slimJre.analyzeOnly(
+                config.jars(),
+                config.scanServiceLoaders(),
+                config.scanGraalVmMetadata(),
+                config.dependencyEngine(),
+                traceRun,
+                config.scanConcurrency());
+        return discoveryResult != null
+            ? result.withMetrics(result.metrics().with(discoveryResult.metrics()))
+            : result;
       } finally {
         cleanupDiscovery();
       }
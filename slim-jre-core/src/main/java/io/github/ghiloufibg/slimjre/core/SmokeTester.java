@@ -0,0 +1,275 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import io.github.ghiloufibg.slimjre.config.ReadinessProbe;
+import io.github.ghiloufibg.slimjre.config.SmokeTest;
+import io.github.ghiloufibg.slimjre.config.SmokeTestReport;
+import io.github.ghiloufibg.slimjre.config.SmokeTestResult;
+import io.github.ghiloufibg.slimjre.exception.TrainingRunException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts the application on a runtime image and checks that it becomes ready.
+ *
+ * <p>The application is polled until its {@link ReadinessProbe} is satisfied or the timeout
+ * expires, then stopped like a training run. While it runs, the peak resident set size is read from
+ * {@code /proc/<pid>/status} (Linux only). Afterwards the output is searched for the errors a
+ * missing module causes: classes that cannot be found or loaded, modules that cannot be resolved
+ * and services, security providers or charsets that are not available.
+ */
+public class SmokeTester {
+
+  private static final Logger log = LoggerFactory.getLogger(SmokeTester.class);
+
+  /** Interval at which the probe and the memory use are checked. */
+  private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+
+  /** Timeout of each connection attempt of an HTTP probe. */
+  private static final int CONNECT_TIMEOUT_MILLIS = 200;
+
+  /** Number of distinct error lines reported. */
+  private static final int MAX_ERRORS = 20;
+
+  /** Output of a missing class, module, service, provider or charset. */
+  private static final Pattern ERROR_PATTERN =
+      Pattern.compile(
+          "ClassNotFoundException|NoClassDefFoundError|ServiceConfigurationError"
+              + "|NoSuchProviderException|NoSuchAlgorithmException|UnsupportedCharsetException"
+              + "|java\\.lang\\.module\\.FindException|Module \\S+ not found");
+
+  private final TrainingRunner trainingRunner = new TrainingRunner();
+
+  /**
+   * Runs a smoke test on a runtime image and, if requested, on the full JDK.
+   *
+   * @param jrePath the created runtime image
+   * @param jars analyzed JARs, the class path of the application
+   * @param test the smoke test
+   * @return the report of both runs
+   * @throws TrainingRunException if the application cannot be started or does not stop
+   */
+  public SmokeTestReport verify(Path jrePath, List<Path> jars, SmokeTest test) {
+    SmokeTestResult slim = run(jrePath, jars, test);
+    SmokeTestResult baseline = null;
+    if (test.compareWithBaseline()) {
+      baseline = run(Path.of(System.getProperty("java.home")), jars, test);
+    }
+    return new SmokeTestReport(test.probe(), slim, baseline);
+  }
+
+  /**
+   * Runs a smoke test on one runtime.
+   *
+   * @param runtime runtime to run the application on
+   * @param jars analyzed JARs, the class path of the application
+   * @param test the smoke test
+   * @return the result
+   * @throws TrainingRunException if the application cannot be started or does not stop
+   */
+  public SmokeTestResult run(Path runtime, List<Path> jars, SmokeTest test) {
+    List<String> command = trainingRunner.command(runtime, List.of(), jars, test.run());
+    ReadinessProbe probe = test.probe();
+    log.info("Smoke testing on {} until {}...", runtime, probe.describe());
+    log.debug("Smoke test command: {}", command);
+
+    Path outputFile = null;
+    Process process = null;
+    try {
+      outputFile = Files.createTempFile("slim-jre-smoke-", ".log");
+      ProcessBuilder pb = new ProcessBuilder(command);
+      pb.redirectErrorStream(true);
+      pb.redirectOutput(outputFile.toFile());
+
+      long started = System.nanoTime();
+      long deadline = started + test.run().timeout().toNanos();
+      process = pb.start();
+
+      OutputFollower follower = new OutputFollower(outputFile);
+      Pattern readyLine =
+          probe.type() == ReadinessProbe.Type.LOG_LINE ? Pattern.compile(probe.logPattern()) : null;
+      // Sampled while the process runs; its /proc entry is gone once it has exited
+      Long peakRss = readPeakRss(process.pid());
+      Duration timeToReady = null;
+
+      while (true) {
+        boolean exited = process.waitFor(POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        long now = System.nanoTime();
+        if (!exited) {
+          peakRss = max(peakRss, readPeakRss(process.pid()));
+        }
+
+        boolean ready =
+            switch (probe.type()) {
+              case EXIT_CODE -> exited && process.exitValue() == probe.exitCode();
+              case LOG_LINE -> follower.anyNewLineMatches(readyLine, exited);
+              case HTTP_PORT -> !exited && answersHttp(probe.port());
+            };
+        if (ready) {
+          timeToReady = Duration.ofNanos(now - started);
+          break;
+        }
+        if (exited || now - deadline >= 0) {
+          break;
+        }
+      }
+
+      Integer exitCode = null;
+      if (process.isAlive()) {
+        TrainingRunner.terminate(process);
+      } else {
+        exitCode = process.exitValue();
+      }
+
+      SmokeTestResult result =
+          new SmokeTestResult(
+              runtime,
+              timeToReady != null,
+              timeToReady,
+              exitCode,
+              peakRss,
+              findErrors(outputFile),
+              TrainingRunner.tail(outputFile));
+      log.info(
+          "Smoke test on {} {}",
+          runtime,
+          result.ready() ? "ready after " + timeToReady.toMillis() + "ms" : "did not become ready");
+      return result;
+
+    } catch (IOException e) {
+      throw new TrainingRunException("Failed to run " + command.get(0) + ": " + e.getMessage(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      process.destroyForcibly();
+      throw new TrainingRunException("Smoke test was interrupted", e);
+    } finally {
+      if (outputFile != null) {
+        try {
+          Files.deleteIfExists(outputFile);
+        } catch (IOException e) {
+          log.debug("Failed to delete smoke test output {}: {}", outputFile, e.getMessage());
+        }
+      }
+    }
+  }
+
+  /** Returns the distinct output lines reporting missing classes, modules or providers. */
+  static List<String> findErrors(Path outputFile) throws IOException {
+    // Decoded leniently, the application may print in any encoding
+    Set<String> errors = new LinkedHashSet<>();
+    new String(Files.readAllBytes(outputFile), Charset.defaultCharset())
+        .lines()
+        .filter(line -> ERROR_PATTERN.matcher(line).find())
+        .map(String::strip)
+        .takeWhile(line -> errors.size() < MAX_ERRORS)
+        .forEach(errors::add);
+    return new ArrayList<>(errors);
+  }
+
+  /**
+   * Returns the peak resident set size of a process, or null if it is not available.
+   *
+   * @param pid the process id
+   * @return the {@code VmHWM} value of {@code /proc/<pid>/status} in bytes
+   */
+  static Long readPeakRss(long pid) {
+    Path status = Path.of("/proc", Long.toString(pid), "status");
+    if (!Files.isReadable(status)) {
+      return null;
+    }
+    try {
+      for (String line : Files.readAllLines(status, StandardCharsets.US_ASCII)) {
+        if (line.startsWith("VmHWM:")) {
+          // "VmHWM:     51234 kB"
+          String value = line.substring("VmHWM:".length()).trim();
+          int space = value.indexOf(' ');
+          return Long.parseLong(space > 0 ? value.substring(0, space) : value) * 1024;
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      // The process may exit while its status is read
+      log.trace("Failed to read peak RSS of {}: {}", pid, e.getMessage());
+    }
+    return null;
+  }
+
+  /** Returns whether a local port answers an HTTP request with any status. */
+  private static boolean answersHttp(int port) {
+    try (Socket socket = new Socket()) {
+      socket.connect(
+          new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+      socket.setSoTimeout(1000);
+      OutputStream out = socket.getOutputStream();
+      out.write(
+          "GET / HTTP/1.0\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+              .getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+      InputStream in = socket.getInputStream();
+      byte[] status = in.readNBytes(5);
+      return new String(status, StandardCharsets.US_ASCII).equals("HTTP/");
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static Long max(Long current, Long sample) {
+    if (sample == null) {
+      return current;
+    }
+    return current == null ? sample : Math.max(current, sample);
+  }
+
+  /** Reads the lines an application appends to its output file. */
+  private static final class OutputFollower {
+    private final Path outputFile;
+    private long position;
+    private String partialLine = "";
+
+    OutputFollower(Path outputFile) {
+      this.outputFile = outputFile;
+    }
+
+    /**
+     * Returns whether a line written since the last call matches a pattern.
+     *
+     * @param pattern the pattern, found anywhere in a line
+     * @param complete whether the output is complete, so that an unterminated last line counts
+     */
+    boolean anyNewLineMatches(Pattern pattern, boolean complete) throws IOException {
+      String text;
+      try (RandomAccessFile file = new RandomAccessFile(outputFile.toFile(), "r")) {
+        long length = file.length();
+        if (length <= position && !complete) {
+          return false;
+        }
+        byte[] bytes = new byte[(int) Math.max(0, length - position)];
+        file.seek(position);
+        file.readFully(bytes);
+        position = length;
+        text = partialLine + new String(bytes, Charset.defaultCharset());
+      }
+
+      int end = text.lastIndexOf('\n');
+      String completeLines = complete ? text : text.substring(0, end + 1);
+      partialLine = complete ? "" : text.substring(end + 1);
+      return completeLines.lines().anyMatch(line -> pattern.matcher(line).find());
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import io.github.ghiloufibg.slimjre.config.TrainingRun;
+import io.github.ghiloufibg.slimjre.exception.TrainingRunException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the application, or a JVM command, on a created runtime image.
+ *
+ * <p>Output is written to a temporary file rather than a pipe, so a chatty application cannot block
+ * on a full pipe buffer. A process still running at its timeout is asked to terminate, which runs
+ * the JVM's exit hooks such as archive dumping, and is killed if it does not stop shortly after.
+ */
+final class TrainingRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(TrainingRunner.class);
+
+  /** Time a terminated process is given to complete its shutdown. */
+  private static final Duration SHUTDOWN_GRACE = Duration.ofSeconds(30);
+
+  /** Number of output lines kept for error messages. */
+  private static final int OUTPUT_TAIL_LINES = 20;
+
+  /**
+   * Outcome of a finished process.
+   *
+   * @param exitCode Exit code of the process
+   * @param timedOut Whether the process was terminated at its timeout
+   * @param output Last lines of the combined standard output and error
+   */
+  record Outcome(int exitCode, boolean timedOut, String output) {}
+
+  /**
+   * Runs the application of a training run on a runtime image.
+   *
+   * @param jrePath runtime image to run on
+   * @param jvmOptions JVM options added before the application
+   * @param jars analyzed JARs; nested JARs are skipped as they cannot be on a class path
+   * @param training the training run
+   * @return the outcome
+   * @throws TrainingRunException if the application cannot be started or does not stop
+   */
+  Outcome run(Path jrePath, List<String> jvmOptions, List<Path> jars, TrainingRun training) {
+    List<String> command = command(jrePath, jvmOptions, jars, training);
+    log.info("Starting training run (timeout {}s)...", training.timeout().toSeconds());
+    return exec(command, training.timeout());
+  }
+
+  /**
+   * Returns the command line starting the application of a run on a runtime image.
+   *
+   * @param jrePath runtime image to run on
+   * @param jvmOptions JVM options added before the application
+   * @param jars analyzed JARs; nested JARs are skipped as they cannot be on a class path
+   * @param training the run
+   * @return the command line
+   * @throws TrainingRunException if no JAR can be started
+   */
+  List<String> command(
+      Path jrePath, List<String> jvmOptions, List<Path> jars, TrainingRun training) {
+    List<String> command = new ArrayList<>();
+    command.add(JLinkExecutor.javaExecutable(jrePath).toString());
+    command.addAll(jvmOptions);
+
+    if (training.mainClass() != null) {
+      List<Path> classpath = jars.stream().filter(jar -> !NestedJar.isNested(jar)).toList();
+      if (classpath.isEmpty()) {
+        throw new TrainingRunException("No JAR can be put on the class path of the training run");
+      }
+      command.add("-cp");
+      command.add(
+          classpath.stream()
+              .map(jar -> jar.toAbsolutePath().toString())
+              .collect(Collectors.joining(File.pathSeparator)));
+      command.add(training.mainClass());
+    } else {
+      if (jars.isEmpty() || NestedJar.isNested(jars.get(0))) {
+        throw new TrainingRunException(
+            "The training run needs a main class when the first JAR cannot be run with -jar");
+      }
+      command.add("-jar");
+      command.add(jars.get(0).toAbsolutePath().toString());
+    }
+    command.addAll(training.arguments());
+    return command;
+  }
+
+  /**
+   * Runs a command, terminating it at the timeout.
+   *
+   * @param command the command line
+   * @param timeout how long the process may run before it is terminated
+   * @return the outcome
+   * @throws TrainingRunException if the process cannot be started or does not stop
+   */
+  Outcome exec(List<String> command, Duration timeout) {
+    log.debug("Training command: {}", command);
+
+    Path outputFile = null;
+    Process process = null;
+    try {
+      outputFile = Files.createTempFile("slim-jre-training-", ".log");
+      ProcessBuilder pb = new ProcessBuilder(command);
+      pb.redirectErrorStream(true);
+      pb.redirectOutput(outputFile.toFile());
+      process = pb.start();
+
+      boolean timedOut = !process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+      if (timedOut) {
+        log.debug("Training run still running after {}s, terminating it", timeout.toSeconds());
+        terminate(process);
+      }
+
+      String output = tail(outputFile);
+      if (!output.isEmpty()) {
+        log.debug("Training run output:\n{}", output);
+      }
+      return new Outcome(process.exitValue(), timedOut, output);
+
+    } catch (IOException e) {
+      throw new TrainingRunException("Failed to run " + command.get(0) + ": " + e.getMessage(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      process.destroyForcibly();
+      throw new TrainingRunException("Training run was interrupted", e);
+    } finally {
+      if (outputFile != null) {
+        try {
+          Files.deleteIfExists(outputFile);
+        } catch (IOException e) {
+          log.debug("Failed to delete training output {}: {}", outputFile, e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Asks a process to terminate and waits for its shutdown, killing it if it does not stop.
+   *
+   * @param process the running process
+   * @throws InterruptedException if interrupted while waiting
+   * @throws TrainingRunException if the process does not stop within the grace period
+   */
+  static void terminate(Process process) throws InterruptedException {
+    process.destroy();
+    if (!process.waitFor(SHUTDOWN_GRACE.toMillis(), TimeUnit.MILLISECONDS)) {
+      process.destroyForcibly().waitFor();
+      throw new TrainingRunException(
+          "Process "
+              + process.pid()
+              + " did not stop within "
+              + SHUTDOWN_GRACE.toSeconds()
+              + "s of being terminated");
+    }
+  }
+
+  /** Returns the last lines of a process output file. */
+  static String tail(Path outputFile) throws IOException {
+    // Decoded leniently, the application may print in any encoding
+    List<String> lines =
+        new String(Files.readAllBytes(outputFile), Charset.defaultCharset()).lines().toList();
+    return String.join(
+        "\n", lines.subList(Math.max(0, lines.size() - OUTPUT_TAIL_LINES), lines.size()));
+  }
+}
@@ -1,22 +1,13 @@
 package io.github.ghiloufibg.slimjre.core;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Enumeration;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
@@ -56,7 +47,8 @@ import org.slf4j.LoggerFactory;
  * @see <a href="https://docs.oracle.com/en/java/javase/21/docs/api/jdk.zipfs/module-summary.html">
  *     jdk.zipfs module documentation</a>
  */
-public class ZipFsModuleScanner {
+public class ZipFsModuleScanner
+    implements BytecodeDetector<ZipFsModuleScanner.JarScanResult, ZipFsDetectionResult> {
 
   private static final Logger log = LoggerFactory.getLogger(ZipFsModuleScanner.class);
 
@@ -79,6 +71,39 @@ public class ZipFsModuleScanner {
   private static final Set<String> FILESYSTEM_FACTORY_METHODS =
       Set.of("newFileSystem", "getFileSystem");
 
+  /** Constant pool fragments of the classes and string constants the patterns above match. */
+  private static final ConstantPool.Fragments FRAGMENTS =
+      ConstantPool.fragments(
+          "java/nio/file/FileSystems", "java/nio/file/spi/FileSystemProvider", "jar", "zip");
+
+  /** Persists per-JAR patterns; bump the version whenever the patterns above change. */
+  private static final JarStateCodec<JarScanResult> JAR_STATE_CODEC =
+      new JarStateCodec<>() {
+        @Override
+        public String id() {
+          return "zipfs";
+        }
+
+        @Override
+        public int version() {
+          return 1;
+        }
+
+        @Override
+        public Map<String, Set<String>> encode(JarScanResult jarState) {
+          return Map.of("patterns", jarState.patterns());
+        }
+
+        @Override
+        public JarScanResult decode(Path jarPath, Map<String, Set<String>> sections) {
+          return new JarScanResult(
+              jarPath.getFileName().toString(),
+              new LinkedHashSet<>(sections.getOrDefault("patterns", Set.of())));
+        }
+      };
+
+  private final BytecodeScanEngine scanEngine = new BytecodeScanEngine();
+
   /** Creates a new ZipFsModuleScanner. */
   public ZipFsModuleScanner() {
     log.debug("Initialized ZipFsModuleScanner with {} class patterns", ZIPFS_CLASSES.size());
@@ -101,23 +126,32 @@ public class ZipFsModuleScanner {
 
     log.debug("Scanning {} JAR(s) for ZIP filesystem patterns...", jars.size());
 
-    Set<String> detectedInJars = ConcurrentHashMap.newKeySet();
-    Set<String> detectedPatterns = ConcurrentHashMap.newKeySet();
+    return scanEngine.scan(jars, this);
+  }
 
-    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-      List<Future<JarScanResult>> futures =
-          jars.stream().map(jar -> executor.submit(() -> scanJar(jar))).toList();
+  @Override
+  public JarScanResult newJarState(Path jarPath) {
+    return new JarScanResult(jarPath.getFileName().toString(), new LinkedHashSet<>());
+  }
 
-      for (Future<JarScanResult> future : futures) {
-        try {
-          JarScanResult result = future.get();
-          if (!result.patterns.isEmpty()) {
-            detectedInJars.add(result.jarName);
-            detectedPatterns.addAll(result.patterns);
-          }
-        } catch (Exception e) {
-          log.warn("Failed to get ZIP filesystem scan result: {}", e.getMessage());
-        }
+  @Override
+  public ClassVisitor newClassVisitor(JarScanResult jarState, String entryName) {
+    // Skip module-info.class as it doesn't contain API usage
+    if (BytecodeScanEngine.isModuleInfo(entryName)) {
+      return null;
+    }
+    return new ZipFsPatternVisitor(jarState.patterns());
+  }
+
+  @Override
+  public ZipFsDetectionResult aggregate(List<JarScanResult> jarStates) {
+    Set<String> detectedInJars = new LinkedHashSet<>();
+    Set<String> detectedPatterns = new TreeSet<>();
+
+    for (JarScanResult result : jarStates) {
+      if (!result.patterns().isEmpty()) {
+        detectedInJars.add(result.jarName());
+        detectedPatterns.addAll(result.patterns());
       }
     }
 
@@ -135,8 +169,33 @@ public class ZipFsModuleScanner {
       log.debug("ZipFs detection: No ZIP filesystem patterns found");
     }
 
-    return new ZipFsDetectionResult(
-        requiredModules, new TreeSet<>(detectedPatterns), new LinkedHashSet<>(detectedInJars));
+    return new ZipFsDetectionResult(requiredModules, detectedPatterns, detectedInJars);
+  }
+
+  @Override
+  public boolean mayMatch(ConstantPool constantPool) {
+    return constantPool.mentions(FRAGMENTS);
+  }
+
+  @Override
+  public boolean decides(JarScanResult jarState) {
+    // Any pattern makes the module required
+    return !jarState.patterns().isEmpty();
+  }
+
+  @Override
+  public boolean canMergeJarStates() {
+    return true;
+  }
+
+  @Override
+  public void mergeJarStates(JarScanResult jarState, JarScanResult batchState) {
+    jarState.patterns().addAll(batchState.patterns());
+  }
+
+  @Override
+  public JarStateCodec<JarScanResult> jarStateCodec() {
+    return JAR_STATE_CODEC;
   }
 
   /**
@@ -146,41 +205,7 @@ public class ZipFsModuleScanner {
    * @return scan result with JAR name and detected patterns
    */
   JarScanResult scanJar(Path jarPath) {
-    Objects.requireNonNull(jarPath, "jarPath must not be null");
-
-    String jarName = jarPath.getFileName().toString();
-
-    if (!Files.exists(jarPath)) {
-      log.warn("JAR file does not exist: {}", jarPath);
-      return new JarScanResult(jarName, Set.of());
-    }
-
-    Set<String> detectedPatterns = new LinkedHashSet<>();
-
-    try (JarFile jar = new JarFile(jarPath.toFile())) {
-      Enumeration<JarEntry> entries = jar.entries();
-      while (entries.hasMoreElements()) {
-        JarEntry entry = entries.nextElement();
-        if (entry.getName().endsWith(".class") && !entry.isDirectory()) {
-          // Skip module-info.class as it doesn't contain API usage
-          if (entry.getName().equals("module-info.class")
-              || entry.getName().endsWith("/module-info.class")) {
-            continue;
-          }
-          try (InputStream is = jar.getInputStream(entry);
-              BufferedInputStream bis = new BufferedInputStream(is, 8192)) {
-            detectedPatterns.addAll(scanClass(bis));
-          } catch (IOException e) {
-            log.trace("Failed to scan class {}: {}", entry.getName(), e.getMessage());
-          }
-        }
-      }
-    } catch (IOException e) {
-      log.warn("Failed to scan JAR {}: {}", jarPath, e.getMessage());
-      return new JarScanResult(jarName, Set.of());
-    }
-
-    return new JarScanResult(jarName, detectedPatterns);
+    return scanEngine.scanJar(jarPath, this);
   }
 
   /**
@@ -191,7 +216,7 @@ public class ZipFsModuleScanner {
    */
   Set<String> scanClass(InputStream classInputStream) throws IOException {
     ClassReader reader = new ClassReader(classInputStream);
-    ZipFsPatternVisitor visitor = new ZipFsPatternVisitor();
+    ZipFsPatternVisitor visitor = new ZipFsPatternVisitor(new LinkedHashSet<>());
     reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
     return visitor.getDetectedPatterns();
   }
@@ -240,10 +265,11 @@ public class ZipFsModuleScanner {
   /** ASM ClassVisitor that detects ZIP filesystem API usage patterns. */
   private class ZipFsPatternVisitor extends ClassVisitor {
 
-    private final Set<String> detectedPatterns = new LinkedHashSet<>();
+    private final Set<String> detectedPatterns;
 
-    ZipFsPatternVisitor() {
+    ZipFsPatternVisitor(Set<String> detectedPatterns) {
       super(Opcodes.ASM9);
+      this.detectedPatterns = detectedPatterns;
     }
 
     @Override
@@ -0,0 +1,19 @@
+package io.github.ghiloufibg.slimjre.exception;
+
+import io.github.ghiloufibg.slimjre.config.SmokeTestReport;
+
+/** Exception thrown when the application does not start correctly on the created runtime. */
+public class SmokeTestException extends SlimJreException {
+
+  private final transient SmokeTestReport report;
+
+  public SmokeTestException(String message, SmokeTestReport report) {
+    super(message);
+    this.report = report;
+  }
+
+  /** Returns the report of the failed smoke test. */
+  public SmokeTestReport report() {
+    return report;
+  }
+}
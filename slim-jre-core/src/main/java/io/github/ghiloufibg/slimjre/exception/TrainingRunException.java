@@ -0,0 +1,13 @@
+package io.github.ghiloufibg.slimjre.exception;
+
+/** Exception thrown when a training run of the application on the created runtime fails. */
+public class TrainingRunException extends SlimJreException {
+
+  public TrainingRunException(String message) {
+    super(message);
+  }
+
+  public TrainingRunException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
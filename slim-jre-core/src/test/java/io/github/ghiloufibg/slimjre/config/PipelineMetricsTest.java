@@ -0,0 +1,99 @@
+package io.github.ghiloufibg.slimjre.config;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/** Tests for PipelineMetrics. */
+class PipelineMetricsTest {
+
+  @Test
+  void shouldKeepStagesInPipelineOrder() {
+    PipelineMetrics metrics =
+        new PipelineMetrics(
+            List.of(
+                StageMetrics.timed(PipelineStage.JLINK, Duration.ofMillis(30), null),
+                StageMetrics.timed(PipelineStage.JDEPS, Duration.ofMillis(20), null)),
+            Duration.ofMillis(60),
+            null);
+
+    PipelineMetrics withDiscovery =
+        metrics.with(StageMetrics.timed(PipelineStage.DISCOVERY, Duration.ofMillis(5), null));
+
+    assertThat(withDiscovery.stages())
+        .extracting(StageMetrics::stage)
+        .containsExactly(PipelineStage.DISCOVERY, PipelineStage.JDEPS, PipelineStage.JLINK);
+    assertThat(withDiscovery.stage(PipelineStage.JDEPS)).isPresent();
+    assertThat(withDiscovery.stage(PipelineStage.CRYPTO)).isEmpty();
+    assertThat(withDiscovery.wallTime()).isEqualTo(Duration.ofMillis(60));
+  }
+
+  @Test
+  void shouldReplaceMetricsOfSameStage() {
+    PipelineMetrics metrics =
+        PipelineMetrics.empty()
+            .with(StageMetrics.timed(PipelineStage.DISCOVERY, Duration.ofMillis(5), null))
+            .with(StageMetrics.timed(PipelineStage.DISCOVERY, Duration.ofMillis(7), null));
+
+    assertThat(metrics.stages()).hasSize(1);
+    assertThat(metrics.stage(PipelineStage.DISCOVERY).orElseThrow().wallTime())
+        .isEqualTo(Duration.ofMillis(7));
+  }
+
+  @Test
+  void shouldExportJson() {
+    PipelineMetrics metrics =
+        new PipelineMetrics(
+            List.of(
+                new StageMetrics(
+                    PipelineStage.BYTECODE_SCAN,
+                    Duration.ofNanos(1_500_000),
+                    null,
+                    3,
+                    120,
+                    4096,
+                    1),
+                StageMetrics.timed(
+                    PipelineStage.RESOLUTION, Duration.ofMillis(2), Duration.ofMillis(1))),
+            Duration.ofMillis(10),
+            Duration.ofMillis(25));
+
+    String json = metrics.toJson();
+
+    assertThat(json)
+        .contains("\"wallTimeMillis\": 10.000")
+        .contains("\"cpuTimeMillis\": 25.000")
+        .contains(
+            "{\"stage\": \"bytecode-scan\", \"wallTimeMillis\": 1.500, \"cpuTimeMillis\": null,"
+                + " \"jars\": 3, \"classes\": 120, \"bytesInflated\": 4096, \"cacheHits\": 1}")
+        .contains(
+            "{\"stage\": \"resolution\", \"wallTimeMillis\": 2.000, \"cpuTimeMillis\": 1.000");
+    assertThat(PipelineMetrics.empty().toJson()).contains("\"stages\": []");
+  }
+
+  @Test
+  void shouldFormatSummaryTable() {
+    PipelineMetrics metrics =
+        new PipelineMetrics(
+            List.of(
+                new StageMetrics(PipelineStage.JDEPS, Duration.ofMillis(1500), null, 12, 0, 0, 12)),
+            Duration.ofMillis(1800),
+            null);
+
+    assertThat(metrics.summary())
+        .contains("Stage metrics:")
+        .containsPattern("jdeps\\s+1\\.5s\\s+-\\s+12\\s+0\\s+0 B\\s+12")
+        .containsPattern("total\\s+1\\.8s\\s+-");
+  }
+
+  @Test
+  void shouldDefaultToEmptyMetricsOnResults() {
+    Result result = new Result(Path.of("jre"), Set.of("java.base"), 0, 0, Duration.ZERO);
+
+    assertThat(result.metrics()).isEqualTo(PipelineMetrics.empty());
+  }
+}
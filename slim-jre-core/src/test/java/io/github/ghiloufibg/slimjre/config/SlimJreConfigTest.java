@@ -6,6 +6,7 @@ import io.github.ghiloufibg.slimjre.exception.ConfigurationException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
 import org.junit.jupiter.api.Test;
@@ -30,6 +31,7 @@ class SlimJreConfigTest {
     assertThat(config.noManPages()).isTrue();
     assertThat(config.scanServiceLoaders()).isTrue();
     assertThat(config.verbose()).isFalse();
+    assertThat(config.measureStartup()).isFalse();
   }
 
   @Test
@@ -46,6 +48,7 @@ class SlimJreConfigTest {
             .noManPages(false)
             .scanServiceLoaders(false)
             .verbose(true)
+            .measureStartup(true)
             .addModule("java.management")
             .excludeModule("java.desktop")
             .build();
@@ -56,6 +59,7 @@ class SlimJreConfigTest {
     assertThat(config.noManPages()).isFalse();
     assertThat(config.scanServiceLoaders()).isFalse();
     assertThat(config.verbose()).isTrue();
+    assertThat(config.measureStartup()).isTrue();
     assertThat(config.includeModules()).contains("java.management");
     assertThat(config.excludeModules()).contains("java.desktop");
   }
@@ -148,6 +152,38 @@ class SlimJreConfigTest {
     }
   }
 
+  @Test
+  void shouldRejectNonPositiveTrainingTimeout() throws IOException {
+    Path jar = createTempJar("test.jar");
+
+    SlimJreConfig config =
+        SlimJreConfig.builder()
+            .jar(jar)
+            .outputPath(tempDir.resolve("output"))
+            .appCds(TrainingRun.builder().timeout(Duration.ZERO).build())
+            .build();
+
+    assertThatThrownBy(config::validate)
+        .isInstanceOf(ConfigurationException.class)
+        .hasMessageContaining("Training timeout must be positive");
+  }
+
+  @Test
+  void shouldRejectInvalidReadinessPattern() throws IOException {
+    Path jar = createTempJar("test.jar");
+
+    SlimJreConfig config =
+        SlimJreConfig.builder()
+            .jar(jar)
+            .outputPath(tempDir.resolve("output"))
+            .smokeTest(SmokeTest.builder().probe(ReadinessProbe.logLine("Started (")).build())
+            .build();
+
+    assertThatThrownBy(config::validate)
+        .isInstanceOf(ConfigurationException.class)
+        .hasMessageContaining("Invalid readiness log pattern");
+  }
+
   @Test
   void shouldMakeDefensiveCopies() throws IOException {
     Path jar = createTempJar("test.jar");
@@ -0,0 +1,237 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.config.DependencyEngineMode;
+import io.github.ghiloufibg.slimjre.config.PipelineMetrics;
+import io.github.ghiloufibg.slimjre.config.PipelineStage;
+import io.github.ghiloufibg.slimjre.config.StageMetrics;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** Tests for AnalysisCache. */
+class AnalysisCacheTest {
+
+  @TempDir Path tempDir;
+
+  private Path cacheDir;
+  private AnalysisCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cacheDir = tempDir.resolve("cache");
+    cache = new AnalysisCache(cacheDir);
+  }
+
+  @Test
+  void shouldReturnStoredEntry() throws IOException {
+    Path jar = createJar("app.jar", "com/example/A");
+
+    cache.put(jar, "test", 1, Map.of("modules", Set.of("java.sql", "java.xml")));
+
+    assertThat(cache.get(jar, "test", 1))
+        .hasValueSatisfying(
+            sections -> assertThat(sections.get("modules")).containsOnly("java.sql", "java.xml"));
+    assertThat(cache.hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldMissForUnknownAnalyzerOrVersion() throws IOException {
+    Path jar = createJar("app.jar", "com/example/A");
+    cache.put(jar, "test", 1, Map.of("modules", Set.of("java.sql")));
+
+    assertThat(cache.get(jar, "other", 1)).isEmpty();
+    assertThat(cache.get(jar, "test", 2)).isEmpty();
+    assertThat(cache.missCount()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldKeyEntriesByContentNotPath() throws IOException {
+    Path jar = createJar("app.jar", "com/example/A");
+    cache.put(jar, "test", 1, Map.of("modules", Set.of("java.sql")));
+
+    Path copy = Files.copy(jar, tempDir.resolve("renamed.jar"));
+
+    assertThat(cache.get(copy, "test", 1)).isPresent();
+  }
+
+  @Test
+  void shouldMissWhenJarContentChanges() throws IOException {
+    Path jar = createJar("app.jar", "com/example/A");
+    cache.put(jar, "test", 1, Map.of("modules", Set.of("java.sql")));
+
+    createJar("app.jar", "com/example/Changed");
+    Files.setLastModifiedTime(jar, FileTime.from(Instant.now().plusSeconds(60)));
+
+    assertThat(cache.get(jar, "test", 1)).isEmpty();
+  }
+
+  @Test
+  void shouldKeyClasspathEntriesByAllJarsInOrder() throws IOException {
+    Path first = createJar("first.jar", "com/example/A");
+    Path second = createJar("second.jar", "com/example/B");
+    cache.put(List.of(first, second), "test", 1, Map.of("modules", Set.of("java.sql")));
+
+    assertThat(cache.get(List.of(first, second), "test", 1)).isPresent();
+    assertThat(cache.get(List.of(second, first), "test", 1)).isEmpty();
+    assertThat(cache.get(first, "test", 1)).isEmpty();
+  }
+
+  @Test
+  void shouldDiscardCorruptEntries() throws IOException {
+    Path jar = createJar("app.jar", "com/example/A");
+    cache.put(jar, "test", 1, Map.of("modules", Set.of("java.sql")));
+
+    Path entry = singleEntry();
+    Files.write(entry, new byte[] {1, 2, 3});
+
+    assertThat(cache.get(jar, "test", 1)).isEmpty();
+    assertThat(entry).doesNotExist();
+  }
+
+  @Test
+  void shouldEvictEntriesOlderThanMaxAge() throws IOException {
+    AnalysisCache agedCache = new AnalysisCache(cacheDir, Long.MAX_VALUE, Duration.ofDays(1));
+    Path jar = createJar("app.jar", "com/example/A");
+    agedCache.put(jar, "test", 1, Map.of("modules", Set.of("java.sql")));
+    Files.setLastModifiedTime(
+        singleEntry(), FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+
+    assertThat(agedCache.evict()).isEqualTo(1);
+    assertThat(agedCache.get(jar, "test", 1)).isEmpty();
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntriesOverSizeLimit() throws IOException {
+    Path oldJar = createJar("old.jar", "com/example/Old");
+    Path newJar = createJar("new.jar", "com/example/New");
+    cache.put(oldJar, "test", 1, Map.of("modules", Set.of("java.sql")));
+    cache.put(newJar, "test", 1, Map.of("modules", Set.of("java.xml")));
+
+    long entrySize;
+    try (Stream<Path> files = Files.walk(cacheDir)) {
+      List<Path> entries = files.filter(Files::isRegularFile).toList();
+      entrySize = Files.size(entries.get(0));
+    }
+    AnalysisCache boundedCache = new AnalysisCache(cacheDir, entrySize, Duration.ofDays(30));
+    Path oldEntry = findEntry(boundedCache, oldJar);
+    Files.setLastModifiedTime(oldEntry, FileTime.from(Instant.now().minusSeconds(3600)));
+
+    assertThat(boundedCache.evict()).isEqualTo(1);
+    assertThat(boundedCache.get(oldJar, "test", 1)).isEmpty();
+    assertThat(boundedCache.get(newJar, "test", 1)).isPresent();
+  }
+
+  @Test
+  void shouldServeScanEngineStatesFromCache() throws IOException {
+    Path jar = createJar("ssl.jar", "com/example/Ssl", "javax/net/ssl/SSLContext");
+    CryptoModuleScanner scanner = new CryptoModuleScanner();
+
+    CryptoDetectionResult first = new BytecodeScanEngine(cache).scan(List.of(jar), scanner);
+    long missesAfterFirstScan = cache.missCount();
+    CryptoDetectionResult second = new BytecodeScanEngine(cache).scan(List.of(jar), scanner);
+
+    assertThat(first.requiredModules()).containsExactly("jdk.crypto.ec");
+    assertThat(second).isEqualTo(first);
+    assertThat(cache.hitCount()).isEqualTo(1);
+    assertThat(cache.missCount()).isEqualTo(missesAfterFirstScan);
+  }
+
+  @Test
+  void shouldCountHitsPerAnalyzer() throws IOException {
+    Path jar = createJar("app.jar", "com/example/A");
+    cache.put(jar, "test", 1, Map.of("modules", Set.of("java.sql")));
+
+    cache.get(jar, "test", 1);
+    cache.get(jar, "other", 1);
+
+    assertThat(cache.hitCount("test")).isEqualTo(1);
+    assertThat(cache.hitCount("other")).isZero();
+  }
+
+  @Test
+  void shouldReportCachedJarsInStageMetrics() throws IOException {
+    Path jar = createJar("ssl.jar", "com/example/Ssl", "javax/net/ssl/SSLContext");
+    SlimJre slimJre = new SlimJre(cache);
+
+    slimJre.analyzeOnly(List.of(jar), true, true, DependencyEngineMode.BYTECODE);
+    PipelineMetrics metrics =
+        slimJre.analyzeOnly(List.of(jar), true, true, DependencyEngineMode.BYTECODE).metrics();
+
+    StageMetrics scan = metrics.stage(PipelineStage.BYTECODE_SCAN).orElseThrow();
+    assertThat(scan.jars()).isEqualTo(1);
+    assertThat(scan.cacheHits()).isEqualTo(1);
+    assertThat(metrics.stage(PipelineStage.CRYPTO)).isPresent();
+    assertThat(metrics.stage(PipelineStage.REFLECTION)).isPresent();
+    assertThat(metrics.stage(PipelineStage.JDEPS)).isEmpty();
+    assertThat(metrics.stage(PipelineStage.SIZE_ESTIMATE)).isPresent();
+  }
+
+  @Test
+  void shouldUseXdgOrHomeCacheAsDefaultDirectory() {
+    assertThat(AnalysisCache.defaultDirectory().getFileName().toString()).isEqualTo("slim-jre");
+  }
+
+  // ==================== Helper Methods ====================
+
+  private Path singleEntry() throws IOException {
+    try (Stream<Path> files = Files.walk(cacheDir)) {
+      List<Path> entries = files.filter(Files::isRegularFile).toList();
+      assertThat(entries).hasSize(1);
+      return entries.get(0);
+    }
+  }
+
+  private Path findEntry(AnalysisCache analysisCache, Path jar) throws IOException {
+    String digest = analysisCache.digest(jar);
+    try (Stream<Path> files = Files.walk(cacheDir)) {
+      return files
+          .filter(f -> f.getFileName().toString().startsWith(digest))
+          .findFirst()
+          .orElseThrow();
+    }
+  }
+
+  private Path createJar(String jarName, String className) throws IOException {
+    return createJar(jarName, className, "java/lang/Object");
+  }
+
+  /** Creates a JAR with one class whose single method invokes a static method on the owner. */
+  private Path createJar(String jarName, String className, String owner) throws IOException {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+    MethodVisitor mv =
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+    mv.visitCode();
+    mv.visitMethodInsn(Opcodes.INVOKESTATIC, owner, "getDefault", "()V", false);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+
+    Path jarPath = tempDir.resolve(jarName);
+    try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jarPath.toFile()))) {
+      jos.putNextEntry(new JarEntry(className + ".class"));
+      jos.write(cw.toByteArray());
+      jos.closeEntry();
+    }
+    return jarPath;
+  }
+}
@@ -0,0 +1,113 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.github.ghiloufibg.slimjre.config.CdsArchive;
+import io.github.ghiloufibg.slimjre.config.JLinkOptions;
+import io.github.ghiloufibg.slimjre.config.TrainingRun;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** Tests for AotCacheGenerator. */
+@DisabledOnOs(OS.WINDOWS)
+class AotCacheGeneratorTest {
+
+  @TempDir Path tempDir;
+
+  private final AotCacheGenerator generator = new AotCacheGenerator();
+
+  @Test
+  void shouldReadJavaVersionOfImage() throws IOException {
+    Path jre = fakeImage("24.0.1");
+
+    assertThat(new JLinkExecutor().getJavaVersion(jre)).isEqualTo(24);
+    assertThat(generator.isSupported(jre)).isTrue();
+    assertThat(generator.isSupported(fakeImage("21.0.1"))).isFalse();
+  }
+
+  @Test
+  void shouldSkipImagesOfJdkWithoutAotCache() throws IOException {
+    Path jre = fakeImage("21.0.1");
+
+    Optional<CdsArchive> cache =
+        generator.generate(jre, List.of(tempDir.resolve("app.jar")), TrainingRun.builder().build());
+
+    assertThat(cache).isEmpty();
+    assertThat(jre.resolve("bin").resolve(AotCacheGenerator.LAUNCHER_NAME)).doesNotExist();
+  }
+
+  @Test
+  void shouldCreateCacheOnJdk24OrLater() throws IOException {
+    assumeTrue(Runtime.version().feature() >= AotCacheGenerator.MIN_JAVA_VERSION);
+
+    Path jre =
+        new JLinkExecutor()
+            .createRuntime(
+                JLinkOptions.builder()
+                    .addModule("java.base")
+                    .outputPath(tempDir.resolve("jre"))
+                    .build());
+    Path jar = createJar("app.jar", "com/example/Main");
+
+    CdsArchive cache =
+        generator
+            .generate(
+                jre, List.of(jar), TrainingRun.builder().mainClass("com.example.Main").build())
+            .orElseThrow();
+
+    assertThat(cache.path()).isRegularFile();
+    assertThat(jre.resolve("lib").resolve("app.aotconf")).doesNotExist();
+    assertThat(jre.resolve("bin").resolve(AotCacheGenerator.LAUNCHER_NAME)).isExecutable();
+  }
+
+  // ==================== Helper Methods ====================
+
+  /** Creates a directory with only the release file of a runtime image. */
+  private Path fakeImage(String javaVersion) throws IOException {
+    Path jre = Files.createDirectories(tempDir.resolve("jre-" + javaVersion));
+    Files.createDirectories(jre.resolve("bin"));
+    Files.writeString(
+        jre.resolve("release"), "JAVA_VERSION=\"" + javaVersion + "\"\nMODULES=\"java.base\"\n");
+    return jre;
+  }
+
+  /** Creates a JAR with a main class that instantiates a collection. */
+  private Path createJar(String jarName, String className) throws IOException {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+    MethodVisitor mv =
+        cw.visitMethod(
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "main", "([Ljava/lang/String;)V", null, null);
+    mv.visitCode();
+    mv.visitTypeInsn(Opcodes.NEW, "java/util/ArrayList");
+    mv.visitInsn(Opcodes.DUP);
+    mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
+    mv.visitInsn(Opcodes.POP);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+
+    Path jarPath = tempDir.resolve(jarName);
+    try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jarPath.toFile()))) {
+      jos.putNextEntry(new JarEntry(className + ".class"));
+      jos.write(cw.toByteArray());
+      jos.closeEntry();
+    }
+    return jarPath;
+  }
+}
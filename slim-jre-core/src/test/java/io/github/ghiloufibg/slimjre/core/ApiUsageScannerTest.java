@@ -105,6 +105,22 @@ class ApiUsageScannerTest {
     assertThat(scanner.mapToModule("org/apache/logging/Logger")).isNull();
   }
 
+  @Test
+  void shouldPreferLongestMatchingPackage() {
+    assertThat(scanner.mapToModule("org/w3c/dom/css/CSSRule")).isEqualTo("jdk.xml.dom");
+    assertThat(scanner.mapToModule("org/w3c/dom/xpath/XPathResult")).isEqualTo("jdk.xml.dom");
+    assertThat(scanner.mapToModule("org/w3c/dom/Document")).isEqualTo("java.xml");
+  }
+
+  @Test
+  void shouldMatchWholePackageSegmentsOnly() {
+    assertThat(scanner.mapToModule("java/sql")).isEqualTo("java.sql");
+    assertThat(scanner.mapToModule("java/sqlx/Driver")).isNull();
+    assertThat(scanner.mapToModule("javax/xmlfoo/Parser")).isNull();
+    assertThat(scanner.mapToModule(null)).isNull();
+    assertThat(scanner.mapToModule("")).isNull();
+  }
+
   @Test
   void shouldReturnNullForJavaBasePackages() {
     // java.base packages should not be in the mapping since java.base is always included
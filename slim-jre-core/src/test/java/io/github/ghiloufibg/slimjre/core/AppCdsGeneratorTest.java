@@ -0,0 +1,139 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.config.CdsArchive;
+import io.github.ghiloufibg.slimjre.config.JLinkOptions;
+import io.github.ghiloufibg.slimjre.config.TrainingRun;
+import io.github.ghiloufibg.slimjre.exception.TrainingRunException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** Tests for AppCdsGenerator, training an application on a java.base runtime. */
+@DisabledOnOs(OS.WINDOWS)
+class AppCdsGeneratorTest {
+
+  @TempDir static Path sharedDir;
+
+  private static Path jre;
+
+  @TempDir Path tempDir;
+
+  private final AppCdsGenerator generator = new AppCdsGenerator();
+
+  @BeforeAll
+  static void linkRuntime() {
+    // Linked without a default CDS archive, which the generator must then create itself
+    jre =
+        new JLinkExecutor()
+            .createRuntime(
+                JLinkOptions.builder()
+                    .addModule("java.base")
+                    .outputPath(sharedDir.resolve("jre"))
+                    .generateCdsArchive(false)
+                    .build());
+  }
+
+  @Test
+  void shouldDumpArchiveOfApplicationThatExits() throws Exception {
+    Path jar = createJar("app.jar", "com/example/Main", 0);
+
+    CdsArchive archive =
+        generator.generate(
+            jre, List.of(jar), TrainingRun.builder().mainClass("com.example.Main").build());
+
+    assertThat(archive.path()).isEqualTo(jre.resolve("lib").resolve("app-cds.jsa"));
+    assertThat(archive.path()).isRegularFile();
+    assertThat(archive.size()).isEqualTo(Files.size(archive.path()));
+    assertThat(new JLinkExecutor().findDefaultCdsArchive(jre)).isPresent();
+
+    Path launcher = jre.resolve("bin").resolve(AppCdsGenerator.LAUNCHER_NAME);
+    assertThat(launcher).isExecutable();
+
+    // -Xshare:on fails the launch if the archive cannot be mapped
+    Process process =
+        new ProcessBuilder(
+                launcher.toString(), "-Xshare:on", "-cp", jar.toString(), "com.example.Main")
+            .redirectErrorStream(true)
+            .start();
+    String output = new String(process.getInputStream().readAllBytes());
+    assertThat(process.waitFor(30, TimeUnit.SECONDS)).isTrue();
+    assertThat(process.exitValue()).as(output).isZero();
+  }
+
+  @Test
+  void shouldDumpArchiveWhenApplicationIsTerminatedAtTimeout() throws IOException {
+    Path jar = createJar("server.jar", "com/example/Server", 60_000);
+
+    CdsArchive archive =
+        generator.generate(
+            jre,
+            List.of(jar),
+            TrainingRun.builder()
+                .mainClass("com.example.Server")
+                .timeout(Duration.ofSeconds(2))
+                .build());
+
+    assertThat(archive.path()).isRegularFile();
+  }
+
+  @Test
+  void shouldRequireMainClassForNestedJar() {
+    Path nested = Path.of("app.jar!/BOOT-INF/lib/lib.jar");
+
+    assertThatThrownBy(
+            () -> generator.generate(jre, List.of(nested), TrainingRun.builder().build()))
+        .isInstanceOf(TrainingRunException.class)
+        .hasMessageContaining("main class");
+  }
+
+  // ==================== Helper Methods ====================
+
+  /** Creates a JAR with a main class that instantiates a collection and sleeps. */
+  private Path createJar(String jarName, String className, long sleepMillis) throws IOException {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+    MethodVisitor mv =
+        cw.visitMethod(
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC,
+            "main",
+            "([Ljava/lang/String;)V",
+            null,
+            new String[] {"java/lang/InterruptedException"});
+    mv.visitCode();
+    mv.visitTypeInsn(Opcodes.NEW, "java/util/concurrent/ConcurrentHashMap");
+    mv.visitInsn(Opcodes.DUP);
+    mv.visitMethodInsn(
+        Opcodes.INVOKESPECIAL, "java/util/concurrent/ConcurrentHashMap", "<init>", "()V", false);
+    mv.visitInsn(Opcodes.POP);
+    mv.visitLdcInsn(sleepMillis);
+    mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Thread", "sleep", "(J)V", false);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+
+    Path jarPath = tempDir.resolve(jarName);
+    try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jarPath.toFile()))) {
+      jos.putNextEntry(new JarEntry(className + ".class"));
+      jos.write(cw.toByteArray());
+      jos.closeEntry();
+    }
+    return jarPath;
+  }
+}
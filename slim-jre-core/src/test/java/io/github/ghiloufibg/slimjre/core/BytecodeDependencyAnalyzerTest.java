@@ -0,0 +1,185 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.exception.SlimJreException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** Tests for BytecodeDependencyAnalyzer. */
+class BytecodeDependencyAnalyzerTest {
+
+  private BytecodeDependencyAnalyzer analyzer;
+
+  @TempDir Path tempDir;
+
+  @BeforeEach
+  void setUp() {
+    analyzer = new BytecodeDependencyAnalyzer();
+  }
+
+  @Test
+  void shouldDetectModulesOfReferencedJdkClasses() throws IOException {
+    Path jar =
+        createJar(
+            "app.jar",
+            Map.of(
+                "com/example/Db.class", classCalling("com/example/Db", "java/sql/DriverManager")));
+
+    DependencyResult result = analyzer.analyzePerJarFirst(List.of(jar));
+
+    assertThat(result.requiredModules()).containsExactly("java.base", "java.sql");
+    assertThat(result.perJarModules()).containsEntry(jar, Set.of("java.base", "java.sql"));
+  }
+
+  @Test
+  void shouldAttributeModulesToReferencingClasses() throws IOException {
+    Map<String, byte[]> entries = new LinkedHashMap<>();
+    entries.put("com/example/Db.class", classCalling("com/example/Db", "java/sql/DriverManager"));
+    entries.put("com/example/Xml.class", classCalling("com/example/Xml", "javax/xml/XMLConstants"));
+    Path jar = createJar("app.jar", entries);
+
+    Map<String, Set<String>> references = analyzer.attribute(jar);
+
+    assertThat(references.get("java.sql")).containsExactly("com/example/Db");
+    assertThat(references.get("java.xml")).containsExactly("com/example/Xml");
+    assertThat(references.get("java.base")).containsExactly("com/example/Db", "com/example/Xml");
+  }
+
+  @Test
+  void shouldIgnoreNonJdkReferences() throws IOException {
+    Path jar =
+        createJar(
+            "app.jar",
+            Map.of("com/example/A.class", classCalling("com/example/A", "org/acme/Missing")));
+
+    assertThat(analyzer.analyzeRequiredModules(List.of(jar))).containsExactly("java.base");
+  }
+
+  @Test
+  void shouldUseHighestApplicableMultiReleaseVersion() throws IOException {
+    int feature = Runtime.version().feature();
+    Map<String, byte[]> entries = new LinkedHashMap<>();
+    entries.put("com/example/A.class", classCalling("com/example/A", "java/sql/DriverManager"));
+    entries.put(
+        "META-INF/versions/11/com/example/A.class",
+        classCalling("com/example/A", "javax/xml/XMLConstants"));
+    entries.put(
+        "META-INF/versions/" + (feature + 1) + "/com/example/A.class",
+        classCalling("com/example/A", "java/util/logging/Logger"));
+    Path jar = createJar("mr.jar", entries);
+
+    assertThat(analyzer.analyzeRequiredModules(List.of(jar)))
+        .containsExactly("java.base", "java.xml");
+  }
+
+  @Test
+  void shouldUseRequiresOfModularJar() throws IOException {
+    Map<String, byte[]> entries = new LinkedHashMap<>();
+    entries.put(
+        "module-info.class", moduleInfo("com.example", "java.base", "java.net.http", "org.acme"));
+    entries.put("com/example/A.class", classCalling("com/example/A", "java/sql/DriverManager"));
+    Path jar = createJar("modular.jar", entries);
+
+    assertThat(analyzer.analyzeRequiredModules(List.of(jar)))
+        .containsExactly("java.base", "java.net.http");
+  }
+
+  @Test
+  void shouldAgreeWithJdepsOnDirectReferences() throws IOException {
+    Path jar =
+        createJar(
+            "app.jar",
+            Map.of(
+                "com/example/Db.class", classCalling("com/example/Db", "java/sql/DriverManager")));
+
+    assertThat(analyzer.analyzeRequiredModules(List.of(jar)))
+        .containsAll(new JDepsAnalyzer().analyzeRequiredModules(List.of(jar)));
+  }
+
+  @Test
+  void shouldServeAttributionsFromCache() throws IOException {
+    AnalysisCache cache = new AnalysisCache(tempDir.resolve("cache"));
+    Path jar =
+        createJar(
+            "app.jar",
+            Map.of(
+                "com/example/Db.class", classCalling("com/example/Db", "java/sql/DriverManager")));
+
+    DependencyResult first = new BytecodeDependencyAnalyzer(cache).analyzePerJarFirst(List.of(jar));
+    DependencyResult second =
+        new BytecodeDependencyAnalyzer(cache).analyzePerJarFirst(List.of(jar));
+
+    assertThat(second).isEqualTo(first);
+    assertThat(cache.hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRejectEmptyJarList() {
+    assertThatThrownBy(() -> analyzer.analyzePerJarFirst(List.of()))
+        .isInstanceOf(SlimJreException.class)
+        .hasMessageContaining("At least one JAR file must be specified");
+  }
+
+  // ==================== Helper Methods ====================
+
+  /** Creates a class whose single method invokes a static method on the owner. */
+  private byte[] classCalling(String className, String owner) {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+    MethodVisitor mv =
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+    mv.visitCode();
+    mv.visitMethodInsn(Opcodes.INVOKESTATIC, owner, "getDrivers", "()V", false);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+
+  private byte[] moduleInfo(String name, String... requires) {
+    ClassWriter cw = new ClassWriter(0);
+    cw.visit(Opcodes.V17, Opcodes.ACC_MODULE, "module-info", null, null, null);
+    ModuleVisitor mv = cw.visitModule(name, 0, null);
+    for (String module : requires) {
+      mv.visitRequire(module, 0, null);
+    }
+    mv.visitEnd();
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+
+  private Path createJar(String jarName, Map<String, byte[]> entries) throws IOException {
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().put(Attributes.Name.MULTI_RELEASE, "true");
+
+    Path jarPath = tempDir.resolve(jarName);
+    try (JarOutputStream jos =
+        new JarOutputStream(new FileOutputStream(jarPath.toFile()), manifest)) {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        jos.putNextEntry(new JarEntry(entry.getKey()));
+        jos.write(entry.getValue());
+        jos.closeEntry();
+      }
+    }
+    return jarPath;
+  }
+}
@@ -0,0 +1,383 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.config.ScanConcurrency;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** Tests for BytecodeScanEngine. */
+class BytecodeScanEngineTest {
+
+  private BytecodeScanEngine engine;
+
+  @TempDir Path tempDir;
+
+  @BeforeEach
+  void setUp() {
+    engine = new BytecodeScanEngine();
+  }
+
+  @Test
+  void shouldDispatchEachClassToAllDetectorsInSinglePass() throws IOException {
+    Path jar =
+        createJar(
+            "app.jar",
+            Map.of(
+                "com/example/A.class", createClassCalling("com/example/A", "java/lang/Object"),
+                "com/example/B.class", createClassCalling("com/example/B", "java/lang/Object")));
+
+    CountingDetector first = new CountingDetector();
+    CountingDetector second = new CountingDetector();
+
+    BytecodeScanEngine.Results results = engine.scan(List.of(jar), List.of(first, second));
+
+    assertThat(results.get(first)).containsExactlyInAnyOrder("com/example/A", "com/example/B");
+    assertThat(results.get(second)).containsExactlyInAnyOrder("com/example/A", "com/example/B");
+  }
+
+  @Test
+  void shouldProduceSameResultsAsIndividualScanners() throws IOException {
+    Path jar =
+        createJar(
+            "mixed.jar",
+            Map.of(
+                "com/example/Ssl.class",
+                createClassCalling("com/example/Ssl", "javax/net/ssl/SSLContext"),
+                "com/example/Sql.class",
+                createClassCalling("com/example/Sql", "java/sql/DriverManager"),
+                "com/example/Jmx.class",
+                createClassCalling(
+                    "com/example/Jmx", "javax/management/remote/JMXConnectorFactory")));
+
+    CryptoModuleScanner crypto = new CryptoModuleScanner();
+    ApiUsageScanner apiUsage = new ApiUsageScanner();
+    JmxModuleScanner jmx = new JmxModuleScanner();
+
+    BytecodeScanEngine.Results results = engine.scan(List.of(jar), List.of(crypto, apiUsage, jmx));
+
+    assertThat(results.get(crypto)).isEqualTo(crypto.scanJarsParallel(List.of(jar)));
+    assertThat(results.get(apiUsage)).isEqualTo(apiUsage.scanJarsParallel(List.of(jar)));
+    assertThat(results.get(jmx)).isEqualTo(jmx.scanJarsParallel(List.of(jar)));
+    assertThat(results.get(apiUsage)).contains("java.sql", "java.management");
+  }
+
+  @Test
+  void shouldAggregateJarStatesInInputOrder() throws IOException {
+    Path jar1 =
+        createJar(
+            "first.jar",
+            Map.of("com/example/A.class", createClassCalling("com/example/A", "java/lang/Object")));
+    Path jar2 =
+        createJar(
+            "second.jar",
+            Map.of("com/example/B.class", createClassCalling("com/example/B", "java/lang/Object")));
+
+    CountingDetector detector = new CountingDetector();
+
+    List<String> classes = engine.scan(List.of(jar2, jar1), detector);
+
+    assertThat(classes).containsExactly("com/example/B", "com/example/A");
+  }
+
+  @Test
+  void shouldSkipEntriesNoDetectorIsInterestedIn() throws IOException {
+    Path jar =
+        createJar(
+            "broken.jar",
+            Map.of(
+                "module-info.class",
+                new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE},
+                "com/example/A.class",
+                createClassCalling("com/example/A", "java/lang/Object")));
+
+    CryptoModuleScanner.JarScanResult result = engine.scanJar(jar, new CryptoModuleScanner());
+
+    assertThat(result.jarName()).isEqualTo("broken.jar");
+    assertThat(result.patterns()).isEmpty();
+  }
+
+  @Test
+  void shouldContinueAfterMalformedClass() throws IOException {
+    Path jar =
+        createJar(
+            "partial.jar",
+            Map.of(
+                "com/example/Bad.class",
+                new byte[] {1, 2, 3},
+                "com/example/Good.class",
+                createClassCalling("com/example/Good", "java/lang/Object")));
+
+    List<String> classes = engine.scan(List.of(jar), new CountingDetector());
+
+    assertThat(classes).containsExactly("com/example/Good");
+  }
+
+  @Test
+  void shouldReturnEmptyStateForNonExistentJar() {
+    List<String> classes = engine.scanJar(tempDir.resolve("missing.jar"), new CountingDetector());
+
+    assertThat(classes).isEmpty();
+  }
+
+  @Test
+  void shouldAggregateEmptyResultsForEmptyJarList() {
+    CountingDetector detector = new CountingDetector();
+
+    BytecodeScanEngine.Results results = engine.scan(List.of(), List.of(detector));
+
+    assertThat(results.get(detector)).isEmpty();
+  }
+
+  @Test
+  void shouldReportScanStatistics() throws IOException {
+    byte[] a = createClassCalling("com/example/A", "java/lang/Object");
+    byte[] b = createClassCalling("com/example/B", "java/lang/Object");
+    Path jar = createJar("app.jar", Map.of("com/example/A.class", a, "com/example/B.class", b));
+
+    CountingDetector detector = new CountingDetector();
+    BytecodeScanEngine.Results results = engine.scan(List.of(jar), List.of(detector));
+
+    assertThat(results.statistics().jars()).isEqualTo(1);
+    assertThat(results.statistics().jarsFromCache()).isZero();
+    assertThat(results.statistics().classes()).isEqualTo(2);
+    assertThat(results.statistics().bytesRead()).isEqualTo(a.length + b.length);
+    assertThat(results.statistics(detector).classes()).isEqualTo(2);
+    assertThat(results.statistics(detector).cacheHits()).isZero();
+  }
+
+  @Test
+  void shouldScanLargeJarInBatchesWithSequentialResults() throws IOException {
+    Map<String, byte[]> entries = new HashMap<>();
+    String[] owners = {
+      "javax/net/ssl/SSLContext",
+      "java/sql/DriverManager",
+      "java/util/logging/Logger",
+      "java/lang/Object"
+    };
+    for (int i = 0; i < 40; i++) {
+      String name = String.format("com/example/C%02d", i);
+      entries.put(name + ".class", createClassCalling(name, owners[i % owners.length]));
+    }
+    Path jar = createJar("large.jar", entries);
+
+    CountingDetector ordered = new CountingDetector(true);
+    CountingDetector unmergeable = new CountingDetector(false);
+    CryptoModuleScanner crypto = new CryptoModuleScanner();
+    ApiUsageScanner apiUsage = new ApiUsageScanner();
+
+    BytecodeScanEngine.Results batched;
+    try (ScanScheduler scheduler = new ScanScheduler(new ScanConcurrency(4, 0))) {
+      batched =
+          new BytecodeScanEngine(null, 4)
+              .scan(List.of(jar), List.of(ordered, crypto, apiUsage), scheduler);
+    }
+    BytecodeScanEngine.Results sequential =
+        engine.scan(List.of(jar), List.of(unmergeable, crypto, apiUsage));
+
+    assertThat(batched.get(ordered)).hasSize(40).isEqualTo(sequential.get(unmergeable));
+    assertThat(batched.get(crypto)).isEqualTo(sequential.get(crypto));
+    assertThat(batched.get(apiUsage)).isEqualTo(sequential.get(apiUsage)).contains("java.sql");
+    assertThat(batched.statistics().classes()).isEqualTo(40);
+    assertThat(batched.statistics(ordered).classes()).isEqualTo(40);
+  }
+
+  @Test
+  @Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+  void shouldScanLargeJarsInBatchesWithAsManyOpenJarsAsThreads() throws IOException {
+    int classesPerJar = 2 * BytecodeScanEngine.DEFAULT_BATCH_SIZE;
+    List<Path> jars = new ArrayList<>();
+    for (int j = 0; j < 4; j++) {
+      Map<String, byte[]> entries = new HashMap<>();
+      for (int i = 0; i < classesPerJar; i++) {
+        String name = String.format("com/example/j%d/C%04d", j, i);
+        entries.put(name + ".class", createClassCalling(name, "java/sql/DriverManager"));
+      }
+      jars.add(createJar("large" + j + ".jar", entries));
+    }
+
+    CountingDetector detector = new CountingDetector(true);
+    BytecodeScanEngine.Results results;
+    // Threads joining the batches of an open JAR must not starve those waiting for a permit
+    try (ScanScheduler scheduler = new ScanScheduler(new ScanConcurrency(2, 2))) {
+      results = engine.scan(jars, List.of(detector), scheduler);
+    }
+
+    assertThat(results.get(detector)).hasSize(4 * classesPerJar);
+    assertThat(results.statistics().classes()).isEqualTo(4 * classesPerJar);
+  }
+
+  @Test
+  void shouldStopFeedingDetectorOnceDecisionIsSettled() throws IOException {
+    Path first =
+        createJar(
+            "first.jar",
+            Map.of(
+                "com/example/A.class",
+                createClassCalling("com/example/A", "javax/net/ssl/SSLContext"),
+                "com/example/B.class",
+                createClassCalling("com/example/B", "javax/net/ssl/SSLSocket")));
+    Path second =
+        createJar(
+            "second.jar",
+            Map.of(
+                "com/example/C.class",
+                createClassCalling("com/example/C", "javax/net/ssl/SSLEngine")));
+    AnalysisCache cache = new AnalysisCache(tempDir.resolve("cache"));
+    CryptoModuleScanner crypto = new CryptoModuleScanner();
+
+    BytecodeScanEngine.Results decided;
+    try (ScanScheduler scheduler = new ScanScheduler(new ScanConcurrency(1, 0))) {
+      decided =
+          new BytecodeScanEngine(cache)
+              .scan(List.of(first, second), List.of(crypto), scheduler, true);
+    }
+    CryptoDetectionResult exhaustive =
+        new BytecodeScanEngine(cache).scan(List.of(first, second), crypto);
+
+    assertThat(decided.get(crypto).requiredModules()).containsExactly("jdk.crypto.ec");
+    assertThat(decided.get(crypto).detectedPatterns()).hasSize(1);
+    assertThat(decided.statistics(crypto).classes()).isEqualTo(1);
+    // States cut short by the decision are not cached
+    assertThat(exhaustive.detectedInJars()).containsExactlyInAnyOrder("first.jar", "second.jar");
+    assertThat(exhaustive.detectedPatterns()).hasSize(3);
+  }
+
+  @Test
+  void shouldNotParseClassesNoDetectorMayMatch() throws IOException {
+    Path jar =
+        createJar(
+            "app.jar",
+            Map.of(
+                "com/example/Ssl.class",
+                createClassCalling("com/example/Ssl", "javax/net/ssl/SSLContext"),
+                "com/example/Plain.class",
+                createClassCalling("com/example/Plain", "java/lang/Object")));
+
+    CryptoModuleScanner crypto = new CryptoModuleScanner();
+    JmxModuleScanner jmx = new JmxModuleScanner();
+    CountingDetector counting = new CountingDetector();
+    BytecodeScanEngine.Results results = engine.scan(List.of(jar), List.of(crypto, jmx, counting));
+
+    assertThat(results.get(crypto).detectedPatterns()).containsExactly("javax/net/ssl/SSLContext");
+    assertThat(results.statistics(crypto).classes()).isEqualTo(1);
+    assertThat(results.statistics(jmx).classes()).isZero();
+    assertThat(results.statistics(counting).classes()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldRejectDetectorThatWasNotPartOfScan() {
+    BytecodeScanEngine.Results results = engine.scan(List.of(), List.of(new CountingDetector()));
+
+    assertThatThrownBy(() -> results.get(new CountingDetector()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldRecognizeModuleInfoEntries() {
+    assertThat(BytecodeScanEngine.isModuleInfo("module-info.class")).isTrue();
+    assertThat(BytecodeScanEngine.isModuleInfo("META-INF/versions/11/module-info.class")).isTrue();
+    assertThat(BytecodeScanEngine.isModuleInfo("com/example/module-infoX.class")).isFalse();
+  }
+
+  // ==================== Helper Methods ====================
+
+  /** Detector recording the name of every class it visits. */
+  private static class CountingDetector implements BytecodeDetector<List<String>, List<String>> {
+
+    private final boolean mergeable;
+
+    CountingDetector() {
+      this(false);
+    }
+
+    CountingDetector(boolean mergeable) {
+      this.mergeable = mergeable;
+    }
+
+    @Override
+    public List<String> newJarState(Path jarPath) {
+      return new ArrayList<>();
+    }
+
+    @Override
+    public ClassVisitor newClassVisitor(List<String> jarState, String entryName) {
+      return new ClassVisitor(Opcodes.ASM9) {
+        @Override
+        public void visit(
+            int version,
+            int access,
+            String name,
+            String signature,
+            String superName,
+            String[] interfaces) {
+          jarState.add(name);
+        }
+      };
+    }
+
+    @Override
+    public List<String> aggregate(List<List<String>> jarStates) {
+      List<String> all = new ArrayList<>();
+      jarStates.forEach(all::addAll);
+      return all;
+    }
+
+    @Override
+    public boolean canMergeJarStates() {
+      return mergeable;
+    }
+
+    @Override
+    public void mergeJarStates(List<String> jarState, List<String> batchState) {
+      jarState.addAll(batchState);
+    }
+  }
+
+  /** Creates a class with a single static method invoking a static method on the given owner. */
+  private byte[] createClassCalling(String className, String owner) {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+
+    MethodVisitor mv =
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+    mv.visitCode();
+    mv.visitMethodInsn(Opcodes.INVOKESTATIC, owner, "getDefault", "()V", false);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+
+  /** Creates a JAR file containing the given entries in a stable order. */
+  private Path createJar(String jarName, Map<String, byte[]> entries) throws IOException {
+    Path jarPath = tempDir.resolve(jarName);
+
+    try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jarPath.toFile()))) {
+      for (String name : entries.keySet().stream().sorted().toList()) {
+        jos.putNextEntry(new JarEntry(name));
+        jos.write(entries.get(name));
+        jos.closeEntry();
+      }
+    }
+
+    return jarPath;
+  }
+}
@@ -0,0 +1,191 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.config.AnalysisResult;
+import io.github.ghiloufibg.slimjre.config.DependencyEngineMode;
+import io.github.ghiloufibg.slimjre.config.PipelineStage;
+import io.github.ghiloufibg.slimjre.config.TraceResult;
+import io.github.ghiloufibg.slimjre.config.TrainingRun;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** Tests for ClassLoadTracer and the comparison of traced with detected modules. */
+class ClassLoadTracerTest {
+
+  @TempDir Path tempDir;
+
+  private final ClassLoadTracer tracer = new ClassLoadTracer();
+
+  @Test
+  void shouldMapLoggedClassesToModules() throws IOException {
+    Path logFile =
+        Files.write(
+            tempDir.resolve("class-load.log"),
+            List.of(
+                "java.lang.Object source: shared objects file",
+                "java.sql.DriverManager source: jrt:/java.sql",
+                "java.lang.invoke.LambdaForm$MH/0x0000000801001000 source: __JVM_LambdaForm__",
+                "com.example.Main source: file:/tmp/app.jar",
+                "com.vendor.Extension source: jrt:/com.vendor.ext",
+                ""));
+
+    TraceResult result = tracer.parse(logFile);
+
+    assertThat(result.observedModules()).containsOnly("java.base", "java.sql", "com.vendor.ext");
+    assertThat(result.loadedJdkClasses()).isEqualTo(4);
+  }
+
+  @Test
+  void shouldCompareObservedWithDetectedModules() {
+    TraceResult observed = new TraceResult(Set.of("java.base", "java.sql"), 2, Set.of(), Set.of());
+
+    TraceResult compared =
+        observed.comparedTo(
+            Set.of("java.logging", "java.xml"), Set.of("java.base", "java.logging", "java.xml"));
+
+    assertThat(compared.missedByStaticAnalysis()).containsOnly("java.sql");
+    assertThat(compared.notObserved()).containsOnly("java.logging", "java.xml");
+  }
+
+  @Test
+  void shouldObserveModuleLoadedByComputedClassName() throws IOException {
+    Path jar = createJar("app.jar", "com/example/Main");
+
+    AnalysisResult result =
+        new SlimJre()
+            .analyzeOnly(
+                List.of(jar),
+                true,
+                true,
+                DependencyEngineMode.BYTECODE,
+                TrainingRun.builder()
+                    .mainClass("com.example.Main")
+                    .arguments(List.of("java.sql.DriverManager"))
+                    .build());
+
+    assertThat(result.trace()).isNotNull();
+    assertThat(result.trace().observedModules()).contains("java.base", "java.sql");
+    assertThat(result.trace().missedByStaticAnalysis()).contains("java.sql");
+    assertThat(result.allModules()).contains("java.sql");
+    assertThat(result.sizeEstimate().moduleBytes()).containsKeys("java.base", "java.sql");
+    assertThat(result.metrics().stage(PipelineStage.TRACE)).isPresent();
+  }
+
+  @Test
+  void shouldTraceWhenDetectedModuleIsMissingFromJdk() throws IOException {
+    Path jar = createJar("ssl.jar", "com/example/Main", "javax/net/ssl/SSLContext");
+    SlimJre slimJre =
+        new SlimJre(
+            new JDepsAnalyzer(),
+            new ServiceLoaderScanner(),
+            new ReflectionBytecodeScanner(),
+            new ApiUsageScanner(),
+            new GraalVmMetadataScanner(),
+            new CryptoModuleScanner(),
+            new LocaleModuleScanner(),
+            new ZipFsModuleScanner(),
+            new JmxModuleScanner(),
+            new ModuleResolver(systemModulesWithout("jdk.crypto.ec")),
+            new JLinkExecutor());
+
+    AnalysisResult result =
+        slimJre.analyzeOnly(
+            List.of(jar),
+            true,
+            true,
+            DependencyEngineMode.BYTECODE,
+            TrainingRun.builder()
+                .mainClass("com.example.Main")
+                .arguments(List.of("java.sql.DriverManager"))
+                .build());
+
+    assertThat(result.allModules()).contains("jdk.crypto.ec", "java.sql");
+    assertThat(result.trace().missedByStaticAnalysis()).contains("java.sql");
+    assertThat(result.trace().notObserved()).contains("jdk.crypto.ec");
+  }
+
+  // ==================== Helper Methods ====================
+
+  /** Returns the system modules of the current JDK except one, as on a JDK that dropped it. */
+  private static ModuleFinder systemModulesWithout(String module) {
+    ModuleFinder system = ModuleFinder.ofSystem();
+    return new ModuleFinder() {
+      @Override
+      public Optional<ModuleReference> find(String name) {
+        return name.equals(module) ? Optional.empty() : system.find(name);
+      }
+
+      @Override
+      public Set<ModuleReference> findAll() {
+        return system.findAll().stream()
+            .filter(reference -> !reference.descriptor().name().equals(module))
+            .collect(Collectors.toSet());
+      }
+    };
+  }
+
+  /**
+   * Creates a JAR with a main class that loads the class named by its first argument, and a method
+   * calling {@code getDefault()} on each of the given owners.
+   */
+  private Path createJar(String jarName, String className, String... staticOwners)
+      throws IOException {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+    MethodVisitor mv =
+        cw.visitMethod(
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC,
+            "main",
+            "([Ljava/lang/String;)V",
+            null,
+            new String[] {"java/lang/ClassNotFoundException"});
+    mv.visitCode();
+    mv.visitVarInsn(Opcodes.ALOAD, 0);
+    mv.visitInsn(Opcodes.ICONST_0);
+    mv.visitInsn(Opcodes.AALOAD);
+    mv.visitMethodInsn(
+        Opcodes.INVOKESTATIC,
+        "java/lang/Class",
+        "forName",
+        "(Ljava/lang/String;)Ljava/lang/Class;",
+        false);
+    mv.visitInsn(Opcodes.POP);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    MethodVisitor run =
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+    run.visitCode();
+    for (String owner : staticOwners) {
+      run.visitMethodInsn(Opcodes.INVOKESTATIC, owner, "getDefault", "()V", false);
+    }
+    run.visitInsn(Opcodes.RETURN);
+    run.visitMaxs(0, 0);
+    run.visitEnd();
+    cw.visitEnd();
+
+    Path jarPath = tempDir.resolve(jarName);
+    try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jarPath.toFile()))) {
+      jos.putNextEntry(new JarEntry(className + ".class"));
+      jos.write(cw.toByteArray());
+      jos.closeEntry();
+    }
+    return jarPath;
+  }
+}
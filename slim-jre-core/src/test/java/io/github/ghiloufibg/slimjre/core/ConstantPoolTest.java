@@ -0,0 +1,101 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** Tests for ConstantPool. */
+class ConstantPoolTest {
+
+  @Test
+  void shouldFindFragmentsInNamesDescriptorsAndStrings() {
+    ConstantPool constantPool = constantPoolOf(createClass());
+
+    assertThat(constantPool.mentions(ConstantPool.fragments("javax/net/ssl/"))).isTrue();
+    assertThat(constantPool.mentions(ConstantPool.fragments("java/util/Locale"))).isTrue();
+    assertThat(constantPool.mentions(ConstantPool.fragments("jar:file"))).isTrue();
+    assertThat(constantPool.mentions(ConstantPool.fragments("javax/management/", "zip"))).isFalse();
+  }
+
+  @Test
+  void shouldSkipSlotsAfterLongAndDoubleConstants() {
+    // The UTF8 entry of the string follows a long constant taking two slots
+    ConstantPool constantPool = constantPoolOf(createClass());
+
+    assertThat(constantPool.mentions(ConstantPool.fragments("after-long"))).isTrue();
+    assertThatThrownBy(() -> ConstantPool.fragments(""))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldLetScannersSkipClassesWithoutRelevantReferences() {
+    ConstantPool plain = constantPoolOf(createClass());
+    ConstantPool reflective = constantPoolOf(createClassLoading("java.sql.Driver"));
+
+    assertThat(new LocaleModuleScanner().mayMatch(plain)).isTrue();
+    assertThat(new ApiUsageScanner().mayMatch(plain)).isFalse();
+    assertThat(new ReflectionBytecodeScanner().mayMatch(plain)).isFalse();
+    assertThat(new ReflectionBytecodeScanner().mayMatch(reflective)).isTrue();
+    assertThat(new ApiUsageScanner().mayMatch(reflective)).isFalse();
+  }
+
+  private static ConstantPool constantPoolOf(byte[] classFile) {
+    return new ConstantPool(new ClassReader(classFile), classFile);
+  }
+
+  private static byte[] createClass() {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "com/example/App", null, "java/lang/Object", null);
+    cw.visitField(Opcodes.ACC_PRIVATE, "locale", "Ljava/util/Locale;", null, null).visitEnd();
+
+    MethodVisitor mv =
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+    mv.visitCode();
+    mv.visitLdcInsn(42L);
+    mv.visitInsn(Opcodes.POP2);
+    mv.visitLdcInsn("after-long");
+    mv.visitInsn(Opcodes.POP);
+    mv.visitLdcInsn("jar:file:/app.jar!/");
+    mv.visitInsn(Opcodes.POP);
+    mv.visitMethodInsn(
+        Opcodes.INVOKESTATIC,
+        "javax/net/ssl/SSLContext",
+        "getDefault",
+        "()Ljavax/net/ssl/SSLContext;",
+        false);
+    mv.visitInsn(Opcodes.POP);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+
+  private static byte[] createClassLoading(String className) {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "com/example/Loader", null, "java/lang/Object", null);
+
+    MethodVisitor mv =
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "load", "()V", null, null);
+    mv.visitCode();
+    mv.visitLdcInsn(className);
+    mv.visitMethodInsn(
+        Opcodes.INVOKESTATIC,
+        "java/lang/Class",
+        "forName",
+        "(Ljava/lang/String;)Ljava/lang/Class;",
+        false);
+    mv.visitInsn(Opcodes.POP);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+}
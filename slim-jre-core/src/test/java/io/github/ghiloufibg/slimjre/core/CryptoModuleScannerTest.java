@@ -192,6 +192,18 @@ class CryptoModuleScannerTest {
         .contains("javax/net/ssl/SSLContext", "java/net/http/HttpClient");
   }
 
+  @Test
+  void shouldDetectKeyStoreOnlyJar() throws IOException {
+    byte[] classBytes = createClassWithKeyStoreUsage();
+    Path jar = createJarWithClass(tempDir, "keystore.jar", "com/example/KeyStoreUser", classBytes);
+
+    CryptoDetectionResult result = scanner.scanJarsParallel(List.of(jar));
+
+    assertThat(result.isRequired()).isTrue();
+    assertThat(result.requiredModules()).contains("jdk.crypto.ec");
+    assertThat(result.detectedPatterns()).contains("java/security/KeyStore");
+  }
+
   @Test
   void shouldReturnEmptyResultForNonCryptoJars() throws IOException {
     byte[] classBytes = createSimpleClass();
@@ -15,6 +15,9 @@ import java.util.jar.Manifest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 
 /** Tests for JDepsAnalyzer. */
 class JDepsAnalyzerTest {
@@ -89,6 +92,62 @@ class JDepsAnalyzerTest {
     assertThat(perJar.get(jar2)).contains("java.base");
   }
 
+  @Test
+  void shouldDeriveAggregateFromPerJarResults() throws IOException {
+    Path sqlJar = createJarCalling(tempDir, "sql.jar", "com/example/Db", "java/sql/DriverManager");
+    Path simpleJar = createSimpleJar(tempDir, "simple.jar");
+
+    DependencyResult result = analyzer.analyzePerJarFirst(List.of(sqlJar, simpleJar));
+
+    assertThat(result.perJarModules()).containsOnlyKeys(sqlJar, simpleJar);
+    assertThat(result.perJarModules().get(sqlJar)).contains("java.sql");
+    assertThat(result.requiredModules()).contains("java.base", "java.sql");
+    assertThat(result.requiredModules())
+        .containsAll(analyzer.analyzeRequiredModules(List.of(sqlJar, simpleJar)));
+  }
+
+  @Test
+  void shouldPreserveInputOrderInPerJarResults() throws IOException {
+    Path jar1 = createSimpleJar(tempDir, "b.jar");
+    Path jar2 = createSimpleJar(tempDir, "a.jar");
+    Path jar3 = createSimpleJar(tempDir, "c.jar");
+
+    DependencyResult result =
+        new JDepsAnalyzer(null, 2).analyzePerJarFirst(List.of(jar1, jar2, jar3));
+
+    assertThat(result.perJarModules().keySet()).containsExactly(jar1, jar2, jar3);
+  }
+
+  @Test
+  void shouldFailPerJarFirstAnalysisForInvalidJar() throws IOException {
+    Path invalidJar = tempDir.resolve("invalid.jar");
+    java.nio.file.Files.write(invalidJar, "not a jar".getBytes());
+
+    assertThatThrownBy(
+            () ->
+                analyzer.analyzePerJarFirst(
+                    List.of(createSimpleJar(tempDir, "ok.jar"), invalidJar)))
+        .isInstanceOf(JDepsException.class)
+        .hasMessageContaining("invalid.jar");
+  }
+
+  @Test
+  void shouldMapInvalidJarToEmptySetInPerJarBreakdown() throws IOException {
+    Path invalidJar = tempDir.resolve("invalid.jar");
+    java.nio.file.Files.write(invalidJar, "not a jar".getBytes());
+
+    var perJar = analyzer.analyzeRequiredModulesPerJar(List.of(invalidJar));
+
+    assertThat(perJar.get(invalidJar)).isEmpty();
+  }
+
+  @Test
+  void shouldRejectEmptyJarListForPerJarFirstAnalysis() {
+    assertThatThrownBy(() -> analyzer.analyzePerJarFirst(List.of()))
+        .isInstanceOf(JDepsException.class)
+        .hasMessageContaining("At least one JAR file");
+  }
+
   @Test
   void shouldHandleInvalidJar() {
     Path invalidJar = tempDir.resolve("invalid.jar");
@@ -111,6 +170,29 @@ class JDepsAnalyzerTest {
     assertThat(version).isEqualTo(Runtime.version().feature());
   }
 
+  /** Creates a JAR with one class whose single method invokes a static method on the owner. */
+  private Path createJarCalling(Path dir, String jarName, String className, String owner)
+      throws IOException {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+    MethodVisitor mv =
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+    mv.visitCode();
+    mv.visitMethodInsn(Opcodes.INVOKESTATIC, owner, "getDrivers", "()V", false);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+
+    Path jarPath = dir.resolve(jarName);
+    try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jarPath.toFile()))) {
+      jos.putNextEntry(new JarEntry(className + ".class"));
+      jos.write(cw.toByteArray());
+      jos.closeEntry();
+    }
+    return jarPath;
+  }
+
   /** Creates a simple JAR with a minimal class file. */
   private Path createSimpleJar(Path dir, String jarName) throws IOException {
     Path jarPath = dir.resolve(jarName);
@@ -0,0 +1,170 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.config.CdsArchive;
+import io.github.ghiloufibg.slimjre.config.JLinkOptions;
+import io.github.ghiloufibg.slimjre.config.Result;
+import io.github.ghiloufibg.slimjre.config.StartupMeasurement;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for JLinkExecutor. */
+class JLinkExecutorTest {
+
+  @TempDir Path tempDir;
+
+  private final JLinkExecutor executor = new JLinkExecutor();
+
+  @Test
+  void shouldGenerateDefaultCdsArchiveByDefault() {
+    JLinkOptions options =
+        JLinkOptions.builder().addModule("java.base").outputPath(tempDir.resolve("jre")).build();
+
+    assertThat(options.generateCdsArchive()).isTrue();
+    assertThat(options.toArguments()).contains("--generate-cds-archive");
+    assertThat(executor.supportsCdsArchiveGeneration()).isTrue();
+
+    Path jre = executor.createRuntime(options);
+
+    CdsArchive archive = executor.findDefaultCdsArchive(jre).orElseThrow();
+    assertThat(archive.path()).startsWith(jre).hasFileName("classes.jsa");
+    assertThat(archive.size()).isPositive();
+    assertThat(executor.getJavaVersion(jre)).isEqualTo(Runtime.version().feature());
+  }
+
+  @Test
+  void shouldCreateRuntimeWithoutCdsArchiveWhenDisabled() {
+    Path jre =
+        executor.createRuntime(
+            JLinkOptions.builder()
+                .addModule("java.base")
+                .outputPath(tempDir.resolve("jre"))
+                .generateCdsArchive(false)
+                .build());
+
+    assertThat(executor.findDefaultCdsArchive(jre)).isEmpty();
+    assertThat(executor.verifyJre(jre)).isTrue();
+  }
+
+  @Test
+  void shouldReuseUnchangedRuntimeAndRemoveFilesAddedAfterLinking() throws IOException {
+    JLinkOptions options =
+        JLinkOptions.builder().addModule("java.base").outputPath(tempDir.resolve("jre")).build();
+    Path jre = executor.createRuntime(options);
+    Path modules = jre.resolve("lib/modules");
+    FileTime linked = Files.getLastModifiedTime(modules);
+    Path appCds = Files.writeString(jre.resolve("lib/app.jsa"), "archive");
+
+    Path reused = executor.createRuntime(options);
+
+    assertThat(reused).isEqualTo(jre);
+    assertThat(Files.getLastModifiedTime(modules)).isEqualTo(linked);
+    assertThat(appCds).doesNotExist();
+    assertThat(jre.resolve(JLinkExecutor.FINGERPRINT_FILE)).isRegularFile();
+    assertThat(executor.verifyJre(jre)).isTrue();
+  }
+
+  @Test
+  void shouldRelinkWhenOptionsChangeOrImageIsIncomplete() throws IOException {
+    Path jre =
+        executor.createRuntime(
+            JLinkOptions.builder()
+                .addModule("java.base")
+                .outputPath(tempDir.resolve("jre"))
+                .generateCdsArchive(false)
+                .build());
+    assertThat(executor.findDefaultCdsArchive(jre)).isEmpty();
+
+    JLinkOptions withCds =
+        JLinkOptions.builder().addModule("java.base").outputPath(tempDir.resolve("jre")).build();
+    executor.createRuntime(withCds);
+    assertThat(executor.findDefaultCdsArchive(jre)).isPresent();
+
+    Files.delete(JLinkExecutor.javaExecutable(jre));
+    executor.createRuntime(withCds);
+    assertThat(executor.verifyJre(jre)).isTrue();
+
+    // Staging and previous images are not left behind
+    try (Stream<Path> files = Files.list(tempDir)) {
+      assertThat(files).containsExactly(jre);
+    }
+  }
+
+  @Test
+  void shouldFingerprintToolVersion() {
+    JLinkOptions options =
+        JLinkOptions.builder().addModule("java.base").outputPath(tempDir.resolve("jre")).build();
+
+    List<String> fingerprint = executor.fingerprint(options);
+
+    assertThat(fingerprint.get(0)).isEqualTo("format 2");
+    assertThat(fingerprint.get(1)).startsWith("tool ");
+  }
+
+  @Test
+  void shouldMeasureStartupWithAndWithoutCds() {
+    Path jre =
+        executor.createRuntime(
+            JLinkOptions.builder()
+                .addModule("java.base")
+                .outputPath(tempDir.resolve("jre"))
+                .build());
+
+    StartupMeasurement startup = executor.measureStartup(jre).orElseThrow();
+
+    assertThat(startup.withCds()).isPositive();
+    assertThat(startup.withoutCds()).isPositive();
+    assertThat(startup.saved()).isEqualTo(startup.withoutCds().minus(startup.withCds()));
+
+    StartupMeasurement single = executor.verifyAndTimeStartup(jre).orElseThrow();
+
+    assertThat(single.withCds()).isPositive();
+    assertThat(single.withoutCds()).isPositive();
+  }
+
+  @Test
+  void shouldNotMeasureStartupOfMissingRuntime() {
+    assertThat(executor.measureStartup(tempDir.resolve("missing"))).isEmpty();
+    assertThat(executor.verifyAndTimeStartup(tempDir.resolve("missing"))).isEmpty();
+  }
+
+  @Test
+  void shouldKeepBackwardCompatibleOptionsWithoutCdsArchive() {
+    JLinkOptions options =
+        new JLinkOptions(
+            Set.of("java.base"), tempDir.resolve("jre"), true, "zip-6", true, true, List.of());
+
+    assertThat(options.toArguments()).doesNotContain("--generate-cds-archive");
+  }
+
+  @Test
+  void shouldReportStartupSavingInResultSummary() {
+    Result result =
+        new Result(
+            tempDir,
+            Set.of("java.base"),
+            0,
+            0,
+            Duration.ofSeconds(1),
+            null,
+            null,
+            new CdsArchive(tempDir.resolve("lib/server/classes.jsa"), 2 * 1024 * 1024),
+            new StartupMeasurement(Duration.ofMillis(40), Duration.ofMillis(100)),
+            null,
+            null,
+            null);
+
+    assertThat(result.summary())
+        .contains("CDS archive: lib/server/classes.jsa (2.0 MB)")
+        .contains("Startup (java -version): 40ms with CDS, 100ms without (60ms faster)");
+  }
+}
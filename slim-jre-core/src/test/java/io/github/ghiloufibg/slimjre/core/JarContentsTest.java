@@ -0,0 +1,102 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for JarContents reading regular JARs. */
+class JarContentsTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void shouldReadStoredAndDeflatedEntriesIntoReusedBuffer() throws IOException {
+    byte[] deflated = content(5000, 7);
+    byte[] stored = content(300, 11);
+    Path jar = tempDir.resolve("app.jar");
+    try (OutputStream out = Files.newOutputStream(jar);
+        JarOutputStream jos = new JarOutputStream(out)) {
+      jos.putNextEntry(new JarEntry("com/example/A.class"));
+      jos.write(deflated);
+      jos.closeEntry();
+
+      JarEntry entry = new JarEntry("com/example/B.class");
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(stored.length);
+      CRC32 crc = new CRC32();
+      crc.update(stored);
+      entry.setCrc(crc.getValue());
+      jos.putNextEntry(entry);
+      jos.write(stored);
+      jos.closeEntry();
+    }
+
+    JarContents.EntryBuffer buffer = JarContents.EntryBuffer.perThread();
+    List<byte[]> read = new ArrayList<>();
+    try (JarContents contents = JarContents.open(jar)) {
+      for (JarContents.Entry entry : contents.entries()) {
+        entry.read(buffer);
+        read.add(Arrays.copyOf(buffer.bytes(), buffer.length()));
+        assertThat(entry.read()).isEqualTo(read.get(read.size() - 1));
+      }
+    }
+
+    assertThat(read).containsExactly(deflated, stored);
+  }
+
+  @Test
+  void shouldRetainOnlyBuffersOfUsualClassSizesAndClearStaleBytes() {
+    JarContents.EntryBuffer buffer = JarContents.EntryBuffer.perThread();
+    byte[] usual = buffer.reserve(20_000);
+    Arrays.fill(usual, 0, 20_000, (byte) 1);
+
+    byte[] huge = buffer.reserve(4 << 20);
+
+    assertThat(huge).isNotSameAs(usual).hasSize(4 << 20);
+    assertThat(buffer.reserve(100)).isSameAs(usual);
+    assertThat(buffer.length()).isEqualTo(100);
+    assertThat(Arrays.copyOfRange(usual, 100, 20_000)).containsOnly((byte) 0);
+  }
+
+  @Test
+  void shouldRejectClassLargerThanAnyRealClassBeforeAllocating() throws IOException {
+    Path jar = tempDir.resolve("huge.jar");
+    try (OutputStream out = Files.newOutputStream(jar);
+        JarOutputStream jos = new JarOutputStream(out)) {
+      jos.putNextEntry(new JarEntry("com/example/Huge.class"));
+      byte[] zeros = new byte[1 << 20];
+      for (int i = 0; i <= JarContents.EntryBuffer.MAX_CLASS_SIZE >> 20; i++) {
+        jos.write(zeros);
+      }
+      jos.closeEntry();
+    }
+
+    try (JarContents contents = JarContents.open(jar)) {
+      JarContents.Entry entry = contents.entries().iterator().next();
+      assertThatThrownBy(() -> entry.read(JarContents.EntryBuffer.perThread()))
+          .isInstanceOf(ZipException.class)
+          .hasMessageContaining("too large for a class");
+    }
+  }
+
+  private static byte[] content(int size, int seed) {
+    byte[] content = new byte[size];
+    for (int i = 0; i < size; i++) {
+      content[i] = (byte) ((i * seed) % 31);
+    }
+    return content;
+  }
+}
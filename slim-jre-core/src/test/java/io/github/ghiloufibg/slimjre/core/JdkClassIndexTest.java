@@ -0,0 +1,84 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for JdkClassIndex. */
+class JdkClassIndexTest {
+
+  @TempDir Path tempDir;
+
+  private final JdkClassIndex index = JdkClassIndex.build();
+
+  @Test
+  void shouldMapClassesInAllNameForms() {
+    assertThat(index.moduleOfClass("java.sql.Driver")).isEqualTo("java.sql");
+    assertThat(index.moduleOfClass("java.util.Map$Entry")).isEqualTo("java.base");
+    assertThat(index.moduleOfInternalName("javax/xml/parsers/SAXParser")).isEqualTo("java.xml");
+    assertThat(index.moduleOfPackage("java.net.http")).isEqualTo("java.net.http");
+    assertThat(index.moduleOfPackage("java/net/http")).isEqualTo("java.net.http");
+  }
+
+  @Test
+  void shouldReturnNullOutsideJdk() {
+    assertThat(index.moduleOfClass("com.example.NonExistent")).isNull();
+    assertThat(index.moduleOfClass("NoPackage")).isNull();
+    assertThat(index.moduleOfInternalName("org/acme/Missing")).isNull();
+    assertThat(index.moduleOfPackage("")).isNull();
+    // Prefixes of JDK packages are not packages themselves
+    assertThat(index.moduleOfPackage("java")).isNull();
+  }
+
+  @Test
+  void shouldKnowSystemModules() {
+    assertThat(List.copyOf(index.moduleNames())).contains("java.base", "java.sql").isSorted();
+    assertThat(index.isJdkModule("java.logging")).isTrue();
+    assertThat(index.isJdkModule("org.acme")).isFalse();
+    assertThat(index.packageCount()).isGreaterThan(100);
+  }
+
+  @Test
+  void shouldPersistAndReloadIndex() throws IOException {
+    JdkClassIndex built = JdkClassIndex.loadOrBuild(tempDir);
+    List<Path> files = indexFiles();
+    assertThat(files).hasSize(1);
+
+    long lastModified = Files.getLastModifiedTime(files.get(0)).toMillis();
+    JdkClassIndex loaded = JdkClassIndex.loadOrBuild(tempDir);
+
+    assertThat(Files.getLastModifiedTime(files.get(0)).toMillis()).isEqualTo(lastModified);
+    assertThat(loaded.packageCount()).isEqualTo(built.packageCount());
+    assertThat(loaded.moduleNames()).isEqualTo(built.moduleNames());
+    assertThat(loaded.moduleOfClass("java.sql.Driver")).isEqualTo("java.sql");
+  }
+
+  @Test
+  void shouldRebuildCorruptIndex() throws IOException {
+    JdkClassIndex.loadOrBuild(tempDir);
+    Path file = indexFiles().get(0);
+    Files.write(file, new byte[] {1, 2, 3});
+
+    JdkClassIndex rebuilt = JdkClassIndex.loadOrBuild(tempDir);
+
+    assertThat(rebuilt.moduleOfInternalName("java/sql/Driver")).isEqualTo("java.sql");
+    assertThat(Files.size(file)).isGreaterThan(3);
+  }
+
+  @Test
+  void shouldShareOneIndexPerJvm() {
+    assertThat(JdkClassIndex.shared()).isSameAs(JdkClassIndex.shared(tempDir));
+  }
+
+  private List<Path> indexFiles() throws IOException {
+    try (Stream<Path> files = Files.walk(tempDir)) {
+      return files.filter(f -> f.toString().endsWith(".index")).toList();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/** Tests for MappedZip. */
+class MappedZipTest {
+
+  private static final int CEN_SIGNATURE = 0x02014b50;
+
+  @Test
+  void shouldReadDeflatedEntry() throws IOException {
+    byte[] content = "hello, mapped zip".repeat(50).getBytes();
+    MappedZip zip = MappedZip.of(ByteBuffer.wrap(zip(content)));
+
+    assertThat(zip.read(zip.entry("a.txt"))).isEqualTo(content);
+  }
+
+  @Test
+  @Timeout(value = 10, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+  void shouldRejectDeflatedEntryEndingBeforeDeclaredSize() throws IOException {
+    byte[] content = "hello, mapped zip".repeat(50).getBytes();
+    ByteBuffer bytes = ByteBuffer.wrap(zip(content)).order(ByteOrder.LITTLE_ENDIAN);
+    // Declare more content than the stream holds, with data left over after its end
+    int cen = centralDirectoryHeader(bytes);
+    bytes.putInt(cen + 20, bytes.getInt(cen + 20) + 16);
+    bytes.putInt(cen + 24, content.length + 100);
+    MappedZip zip = MappedZip.of(bytes);
+
+    assertThatThrownBy(() -> zip.read(zip.entry("a.txt")))
+        .isInstanceOf(ZipException.class)
+        .hasMessageContaining("Truncated deflated entry");
+  }
+
+  @Test
+  void shouldRejectEntrySizesBeforeAllocating() throws IOException {
+    byte[] content = "hello, mapped zip".repeat(50).getBytes();
+    ByteBuffer bytes = ByteBuffer.wrap(zip(content)).order(ByteOrder.LITTLE_ENDIAN);
+    int cen = centralDirectoryHeader(bytes);
+
+    // Above 2 GiB, negative once cast to int
+    bytes.putInt(cen + 24, 0x80000010);
+    MappedZip huge = MappedZip.of(bytes);
+    assertThatThrownBy(() -> huge.read(huge.entry("a.txt")))
+        .isInstanceOf(ZipException.class)
+        .hasMessageContaining("Entry too large");
+
+    // More than deflate can expand the compressed data to
+    bytes.putInt(cen + 24, 100 << 20);
+    MappedZip inflated = MappedZip.of(bytes);
+    assertThatThrownBy(() -> inflated.read(inflated.entry("a.txt")))
+        .isInstanceOf(ZipException.class)
+        .hasMessageContaining("Inconsistent sizes");
+  }
+
+  private static byte[] zip(byte[] content) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ZipOutputStream zos = new ZipOutputStream(out)) {
+      zos.putNextEntry(new ZipEntry("a.txt"));
+      zos.write(content);
+      zos.closeEntry();
+    }
+    return out.toByteArray();
+  }
+
+  private static int centralDirectoryHeader(ByteBuffer bytes) {
+    for (int pos = 0; pos <= bytes.limit() - 4; pos++) {
+      if (bytes.getInt(pos) == CEN_SIGNATURE) {
+        return pos;
+      }
+    }
+    throw new AssertionError("No central directory header");
+  }
+}
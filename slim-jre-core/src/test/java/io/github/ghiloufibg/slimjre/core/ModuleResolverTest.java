@@ -3,7 +3,18 @@ package io.github.ghiloufibg.slimjre.core;
 import static org.assertj.core.api.Assertions.*;
 
 import io.github.ghiloufibg.slimjre.exception.ModuleResolutionException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -68,6 +79,25 @@ class ModuleResolverTest {
         .hasMessageContaining("java.nonexistent");
   }
 
+  @Test
+  void shouldThrowForMissingTransitiveJdkModule() {
+    ModuleResolver partial =
+        new ModuleResolver(
+            finderOf(
+                ModuleDescriptor.newModule("java.base").build(),
+                ModuleDescriptor.newModule("jdk.app.support").requires("jdk.missing").build(),
+                ModuleDescriptor.newModule("jdk.app").requires("jdk.app.support").build(),
+                ModuleDescriptor.newModule("jdk.other").requires("com.example.lib").build()));
+
+    assertThatThrownBy(() -> partial.resolveWithTransitive(Set.of("jdk.app")))
+        .isInstanceOf(ModuleResolutionException.class)
+        .hasMessageContaining("'jdk.missing' required by 'jdk.app.support'")
+        .extracting(e -> ((ModuleResolutionException) e).getModuleName())
+        .isEqualTo("jdk.missing");
+    assertThat(partial.resolveWithTransitive(Set.of("jdk.other")))
+        .containsExactly("java.base", "jdk.other");
+  }
+
   @Test
   void shouldGetDirectDependencies() {
     Set<String> deps = resolver.getDirectDependencies("java.sql");
@@ -92,10 +122,73 @@ class ModuleResolverTest {
         .doesNotContain("com.example.app", "nonexistent");
   }
 
+  @Test
+  void shouldMatchBreadthFirstResolutionForEveryModule() {
+    for (String module : resolver.availableModules()) {
+      Set<String> expected = new TreeSet<>();
+      Deque<String> toProcess = new ArrayDeque<>(List.of(module));
+      while (!toProcess.isEmpty()) {
+        String next = toProcess.pop();
+        if (expected.add(next)) {
+          toProcess.addAll(resolver.getDirectDependencies(next));
+        }
+      }
+      expected.add("java.base");
+
+      assertThat(resolver.resolveWithTransitive(Set.of(module))).as(module).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void shouldResolveBitSetsLikeModuleNames() {
+    BitSet direct = new BitSet();
+    direct.set(resolver.moduleId("java.sql"));
+    direct.set(resolver.moduleId("java.net.http"));
+
+    BitSet closure = resolver.closure(direct);
+
+    assertThat(resolver.moduleNames(closure))
+        .isEqualTo(resolver.resolveWithTransitive(Set.of("java.sql", "java.net.http")));
+    assertThat(direct.cardinality()).isEqualTo(2);
+    assertThat(resolver.moduleId("com.example.app")).isEqualTo(-1);
+  }
+
+  @Test
+  void shouldReturnIndependentCopiesOfMemoizedResults() {
+    Set<String> first = resolver.resolveWithTransitive(Set.of("java.sql"));
+    first.clear();
+
+    assertThat(resolver.resolveWithTransitive(Set.of("java.sql"))).contains("java.sql", "java.xml");
+  }
+
   @Test
   void shouldProvideOptionalModulesList() {
     Set<String> optional = resolver.getOptionalModules();
 
     assertThat(optional).contains("java.desktop", "java.rmi", "java.compiler");
   }
+
+  private static ModuleFinder finderOf(ModuleDescriptor... descriptors) {
+    Set<ModuleReference> references = new HashSet<>();
+    for (ModuleDescriptor descriptor : descriptors) {
+      references.add(
+          new ModuleReference(descriptor, null) {
+            @Override
+            public ModuleReader open() {
+              throw new UnsupportedOperationException();
+            }
+          });
+    }
+    return new ModuleFinder() {
+      @Override
+      public Optional<ModuleReference> find(String name) {
+        return references.stream().filter(r -> r.descriptor().name().equals(name)).findFirst();
+      }
+
+      @Override
+      public Set<ModuleReference> findAll() {
+        return references;
+      }
+    };
+  }
 }
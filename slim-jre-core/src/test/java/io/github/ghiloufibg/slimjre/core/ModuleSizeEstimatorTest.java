@@ -0,0 +1,175 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.config.AnalysisResult;
+import io.github.ghiloufibg.slimjre.config.DependencyEngineMode;
+import io.github.ghiloufibg.slimjre.config.ModuleSize;
+import io.github.ghiloufibg.slimjre.config.ScanConcurrency;
+import io.github.ghiloufibg.slimjre.config.SizeEstimate;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** Tests for ModuleSizeEstimator. */
+class ModuleSizeEstimatorTest {
+
+  @TempDir Path tempDir;
+
+  private final ModuleSizeEstimator estimator = ModuleSizeEstimator.shared();
+
+  @Test
+  void shouldModelEverySystemModule() {
+    assertThat(estimator.sizes()).containsKeys("java.base", "java.sql", "java.logging");
+    assertThat(estimator.size("org.acme")).isNull();
+
+    ModuleSize base = estimator.size("java.base");
+    assertThat(base.classBytes()).isGreaterThan(estimator.size("java.sql").classBytes());
+    assertThat(base.strippedClassBytes()).isPositive().isLessThanOrEqualTo(base.classBytes());
+    assertThat(base.compressedClassBytes()).isPositive().isLessThan(base.strippedClassBytes());
+  }
+
+  @Test
+  void shouldEstimateImageAsSumOfModules() {
+    SizeEstimate estimate =
+        estimator.estimate(Set.of("java.base", "java.sql", "org.acme"), true, "zip-6");
+
+    assertThat(estimate.moduleBytes()).containsOnlyKeys("java.base", "java.sql");
+    assertThat(List.copyOf(estimate.moduleBytes().keySet()))
+        .containsExactly("java.base", "java.sql");
+    assertThat(estimate.totalBytes())
+        .isEqualTo(estimate.bytesOf("java.base") + estimate.bytesOf("java.sql"));
+    assertThat(estimate.bytesOf("org.acme")).isZero();
+  }
+
+  @Test
+  void shouldEstimateLargerImagesWithoutStrippingOrCompression() {
+    Set<String> modules = Set.of("java.base", "java.xml");
+
+    long smallest = estimator.estimate(modules, true, "zip-6").totalBytes();
+    long unstripped = estimator.estimate(modules, false, "zip-6").totalBytes();
+    long uncompressed = estimator.estimate(modules, true, "zip-0").totalBytes();
+
+    assertThat(unstripped).isGreaterThan(smallest);
+    assertThat(uncompressed).isGreaterThan(smallest);
+    assertThat(estimator.estimate(modules, false, "zip-0").totalBytes())
+        .isGreaterThan(Math.max(unstripped, uncompressed));
+  }
+
+  @Test
+  void shouldPersistAndReloadModel() throws IOException {
+    ModuleSizeEstimator built = ModuleSizeEstimator.loadOrBuild(tempDir);
+    List<Path> files = modelFiles();
+    assertThat(files).hasSize(1);
+
+    long lastModified = Files.getLastModifiedTime(files.get(0)).toMillis();
+    ModuleSizeEstimator loaded = ModuleSizeEstimator.loadOrBuild(tempDir);
+
+    assertThat(Files.getLastModifiedTime(files.get(0)).toMillis()).isEqualTo(lastModified);
+    assertThat(loaded.sizes()).isEqualTo(built.sizes());
+  }
+
+  @Test
+  void shouldShareOneModelPerJvm() {
+    assertThat(ModuleSizeEstimator.shared()).isSameAs(ModuleSizeEstimator.shared(tempDir));
+  }
+
+  @Test
+  void shouldEstimateAnalysisWithoutModulesMissingFromJdk() throws IOException {
+    Path jar = createSslJar();
+    SlimJre slimJre =
+        new SlimJre(
+            new JDepsAnalyzer(),
+            new ServiceLoaderScanner(),
+            new ReflectionBytecodeScanner(),
+            new ApiUsageScanner(),
+            new GraalVmMetadataScanner(),
+            new CryptoModuleScanner(),
+            new LocaleModuleScanner(),
+            new ZipFsModuleScanner(),
+            new JmxModuleScanner(),
+            new ModuleResolver(systemModulesWithout("jdk.crypto.ec")),
+            new JLinkExecutor());
+
+    AnalysisResult result =
+        slimJre.analyzeOnly(
+            List.of(jar),
+            true,
+            true,
+            DependencyEngineMode.BYTECODE,
+            null,
+            ScanConcurrency.defaults(),
+            false,
+            "zip-0");
+
+    assertThat(result.allModules()).contains("jdk.crypto.ec");
+    assertThat(result.sizeEstimate()).isNotNull();
+    assertThat(result.sizeEstimate().moduleBytes())
+        .containsKey("java.base")
+        .doesNotContainKey("jdk.crypto.ec");
+    assertThat(result.sizeEstimate().stripDebug()).isFalse();
+    assertThat(result.sizeEstimate().compression()).isEqualTo("zip-0");
+  }
+
+  private List<Path> modelFiles() throws IOException {
+    try (Stream<Path> files = Files.walk(tempDir)) {
+      return files.filter(f -> f.toString().endsWith(".sizes")).toList();
+    }
+  }
+
+  /** Returns the system modules of the current JDK except one, as on a JDK that dropped it. */
+  private static ModuleFinder systemModulesWithout(String module) {
+    ModuleFinder system = ModuleFinder.ofSystem();
+    return new ModuleFinder() {
+      @Override
+      public Optional<ModuleReference> find(String name) {
+        return name.equals(module) ? Optional.empty() : system.find(name);
+      }
+
+      @Override
+      public Set<ModuleReference> findAll() {
+        return system.findAll().stream()
+            .filter(reference -> !reference.descriptor().name().equals(module))
+            .collect(Collectors.toSet());
+      }
+    };
+  }
+
+  /** Creates a JAR with one class that calls SSLContext, which the crypto scan maps to EC. */
+  private Path createSslJar() throws IOException {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "com/example/Ssl", null, "java/lang/Object", null);
+    MethodVisitor mv =
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+    mv.visitCode();
+    mv.visitMethodInsn(
+        Opcodes.INVOKESTATIC, "javax/net/ssl/SSLContext", "getDefault", "()V", false);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+
+    Path jarPath = tempDir.resolve("ssl.jar");
+    try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jarPath.toFile()))) {
+      jos.putNextEntry(new JarEntry("com/example/Ssl.class"));
+      jos.write(cw.toByteArray());
+      jos.closeEntry();
+    }
+    return jarPath;
+  }
+}
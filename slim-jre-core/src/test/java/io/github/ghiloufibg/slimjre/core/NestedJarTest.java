@@ -0,0 +1,187 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** Tests for NestedJar and in-place reading of JARs nested in fat JARs and WARs. */
+class NestedJarTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void shouldRoundTripVirtualPath() {
+    NestedJar nested = new NestedJar(tempDir.resolve("app.jar"), "BOOT-INF/lib/db.jar");
+
+    assertThat(NestedJar.fromPath(nested.path())).contains(nested);
+    assertThat(nested.fileName()).isEqualTo("db.jar");
+    assertThat(nested.path().getFileName().toString()).isEqualTo("db.jar");
+    assertThat(NestedJar.isNested(tempDir.resolve("app.jar"))).isFalse();
+  }
+
+  @Test
+  void shouldScanStoredNestedJarInPlace() throws IOException {
+    Path fatJar = createFatJar("app.jar", new byte[0], ZipEntry.STORED);
+    Path nested = new NestedJar(fatJar, "BOOT-INF/lib/db.jar").path();
+
+    assertThat(NestedJar.exists(nested)).isTrue();
+    assertThat(new BytecodeDependencyAnalyzer().analyzeRequiredModules(List.of(nested)))
+        .containsExactly("java.base", "java.sql");
+    assertThat(new ServiceLoaderScanner().scanForServiceModules(List.of(nested)))
+        .contains("java.sql");
+  }
+
+  @Test
+  void shouldStreamDeflatedNestedJar() throws IOException {
+    Path fatJar = createFatJar("app.war", new byte[0], ZipEntry.DEFLATED);
+    Path nested = new NestedJar(fatJar, "BOOT-INF/lib/db.jar").path();
+
+    assertThat(new BytecodeDependencyAnalyzer().analyzeRequiredModules(List.of(nested)))
+        .containsExactly("java.base", "java.sql");
+  }
+
+  @Test
+  void shouldReadArchiveWithLaunchScriptPrefix() throws IOException {
+    byte[] script = "#!/bin/bash\nexec java -jar \"$0\" \"$@\"\n".getBytes(StandardCharsets.UTF_8);
+    Path fatJar = createFatJar("executable.jar", script, ZipEntry.STORED);
+    Path nested = new NestedJar(fatJar, "BOOT-INF/lib/db.jar").path();
+
+    assertThat(new BytecodeDependencyAnalyzer().analyzeRequiredModules(List.of(nested)))
+        .containsExactly("java.base", "java.sql");
+  }
+
+  @Test
+  void shouldDiscoverNestedJarsWithoutExtraction() throws IOException {
+    Path fatJar = createFatJar("app.jar", new byte[0], ZipEntry.STORED);
+
+    try (DiscoveryResult result = new JarDiscovery().discover(fatJar)) {
+      assertThat(result.tempDirectory()).isNull();
+      assertThat(result.hasNestedJars()).isTrue();
+      assertThat(result.jars()).contains(fatJar);
+      assertThat(result.nestedJars()).containsExactly(new NestedJar(fatJar, "BOOT-INF/lib/db.jar"));
+    }
+  }
+
+  @Test
+  void shouldStillExtractNestedJarsOnRequest() throws IOException {
+    Path fatJar = createFatJar("app.jar", new byte[0], ZipEntry.STORED);
+
+    try (DiscoveryResult result = new JarDiscovery(true).discover(fatJar)) {
+      assertThat(result.tempDirectory()).isNotNull();
+      assertThat(result.nestedJars()).isEmpty();
+      assertThat(result.jars()).anyMatch(jar -> jar.getFileName().toString().equals("db.jar"));
+    }
+  }
+
+  @Test
+  void shouldCacheNestedJarsByContent() throws IOException {
+    Path fatJar = createFatJar("app.jar", new byte[0], ZipEntry.STORED);
+    Path nested = new NestedJar(fatJar, "BOOT-INF/lib/db.jar").path();
+    AnalysisCache cache = new AnalysisCache(tempDir.resolve("cache"));
+
+    new BytecodeDependencyAnalyzer(cache).analyzeRequiredModules(List.of(nested));
+    new BytecodeDependencyAnalyzer(cache).analyzeRequiredModules(List.of(nested));
+
+    assertThat(cache.hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldMaterializeNestedJarsOnlyForJdeps() throws IOException {
+    Path fatJar = createFatJar("app.jar", new byte[0], ZipEntry.STORED);
+    Path nested = new NestedJar(fatJar, "BOOT-INF/lib/db.jar").path();
+
+    assertThat(new JDepsAnalyzer().analyzeRequiredModules(List.of(nested))).contains("java.sql");
+    try (Stream<Path> leftovers =
+        Files.list(Path.of(System.getProperty("java.io.tmpdir")))
+            .filter(p -> p.getFileName().toString().startsWith("slim-jre-jdeps-"))
+            .filter(p -> Files.exists(p.resolve("db.jar")))) {
+      assertThat(leftovers).isEmpty();
+    }
+  }
+
+  // ==================== Helper Methods ====================
+
+  /**
+   * Creates a fat JAR with a library at BOOT-INF/lib/db.jar that references java.sql from bytecode
+   * and registers a JDBC driver service.
+   */
+  private Path createFatJar(String name, byte[] prefix, int method) throws IOException {
+    byte[] library =
+        jarBytes(
+            Map.of(
+                "com/example/Db.class",
+                classCalling("com/example/Db", "java/sql/DriverManager"),
+                "META-INF/services/java.sql.Driver",
+                "com.example.Db\n".getBytes(StandardCharsets.UTF_8)));
+
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    try (JarOutputStream jos = new JarOutputStream(zip)) {
+      jos.putNextEntry(new JarEntry("BOOT-INF/lib/"));
+      jos.closeEntry();
+
+      JarEntry entry = new JarEntry("BOOT-INF/lib/db.jar");
+      if (method == ZipEntry.STORED) {
+        CRC32 crc = new CRC32();
+        crc.update(library);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(library.length);
+        entry.setCompressedSize(library.length);
+        entry.setCrc(crc.getValue());
+      }
+      jos.putNextEntry(entry);
+      jos.write(library);
+      jos.closeEntry();
+    }
+
+    Path path = tempDir.resolve(name);
+    try (OutputStream out = Files.newOutputStream(path)) {
+      out.write(prefix);
+      out.write(zip.toByteArray());
+    }
+    return path;
+  }
+
+  private byte[] jarBytes(Map<String, byte[]> entries) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JarOutputStream jos = new JarOutputStream(bytes)) {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        jos.putNextEntry(new JarEntry(entry.getKey()));
+        jos.write(entry.getValue());
+        jos.closeEntry();
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /** Creates a class whose single method invokes a static method on the owner. */
+  private byte[] classCalling(String className, String owner) {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+    MethodVisitor mv =
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+    mv.visitCode();
+    mv.visitMethodInsn(Opcodes.INVOKESTATIC, owner, "getDrivers", "()V", false);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+}
@@ -0,0 +1,271 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.config.OciImage;
+import io.github.ghiloufibg.slimjre.config.OciImageOutput;
+import io.github.ghiloufibg.slimjre.exception.ConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for OciImageWriter. */
+class OciImageWriterTest {
+
+  @TempDir Path tempDir;
+
+  private final OciImageWriter writer = new OciImageWriter();
+
+  @Test
+  void shouldWriteIdenticalLayersForEqualRuntimes() throws IOException {
+    Path first = createRuntime(tempDir.resolve("first"));
+    Path second = createRuntime(tempDir.resolve("second"));
+    try (Stream<Path> files = Files.walk(second)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse("2024-05-01T10:00:00Z")));
+      }
+    }
+    Files.writeString(second.resolve(JLinkExecutor.FINGERPRINT_FILE), "jdk /elsewhere\n");
+
+    OciImageOutput a = writer.write(first, List.of(), layer("first.tar.gz"));
+    OciImageOutput b = writer.write(second, List.of(), layer("second.tar.gz"));
+
+    assertThat(a.layerDigest()).startsWith("sha256:").isEqualTo(b.layerDigest());
+    assertThat(a.layerDiffId()).isEqualTo(b.layerDiffId()).isNotEqualTo(a.layerDigest());
+    assertThat(Files.readAllBytes(a.layerFile())).isEqualTo(Files.readAllBytes(b.layerFile()));
+    assertThat(a.layerSize()).isEqualTo(Files.size(a.layerFile()));
+    assertThat(a.layoutDirectory()).isNull();
+    try (Stream<Path> files = Files.list(tempDir)) {
+      assertThat(files.map(f -> f.getFileName().toString()))
+          .containsExactlyInAnyOrder("first", "second", "first.tar.gz", "second.tar.gz");
+    }
+  }
+
+  @Test
+  void shouldWriteSortedEntriesWithNormalizedMetadata() throws IOException {
+    Path jre = createRuntime(tempDir.resolve("jre"));
+    String longName = "legal/" + "a".repeat(120) + "/" + "b".repeat(120) + ".md";
+    Files.createDirectories(jre.resolve(longName).getParent());
+    Files.writeString(jre.resolve(longName), "license");
+
+    OciImageOutput output =
+        writer.write(
+            jre,
+            List.of(),
+            OciImage.builder()
+                .layerFile(tempDir.resolve("layer.tar.gz"))
+                .created(Instant.ofEpochSecond(1_700_000_000))
+                .build());
+    List<TarEntry> entries = readTar(output.layerFile());
+
+    assertThat(entries)
+        .extracting(TarEntry::name)
+        .startsWith("opt/", "opt/java/", "opt/java/bin/", "opt/java/bin/java")
+        .contains("opt/java/" + longName, "opt/java/lib/modules", "opt/java/release")
+        .doesNotContain("opt/java/" + JLinkExecutor.FINGERPRINT_FILE)
+        .isSorted();
+    assertThat(entries)
+        .allSatisfy(
+            entry -> {
+              assertThat(entry.uid()).isZero();
+              assertThat(entry.gid()).isZero();
+              assertThat(entry.mtime()).isEqualTo(1_700_000_000L);
+            });
+    assertThat(entry(entries, "opt/java/bin/java").mode()).isEqualTo(0755);
+    assertThat(entry(entries, "opt/java/release").mode()).isEqualTo(0644);
+    assertThat(entry(entries, "opt/java/lib/").mode()).isEqualTo(0755);
+    assertThat(entry(entries, "opt/java/lib/modules").size()).isEqualTo(3000);
+  }
+
+  @Test
+  void shouldWriteImageLayoutWithApplicationLayer() throws Exception {
+    Path jre = createRuntime(tempDir.resolve("jre"));
+    Path app = Files.writeString(tempDir.resolve("app.jar"), "app");
+    Path lib = Files.writeString(tempDir.resolve("lib.jar"), "lib");
+    Path layout = tempDir.resolve("image");
+
+    OciImageOutput output =
+        writer.write(
+            jre,
+            List.of(app, lib, Path.of(app + "!/BOOT-INF/lib/nested.jar")),
+            OciImage.builder()
+                .layoutDirectory(layout)
+                .layerFile(tempDir.resolve("jre.tar.gz"))
+                .build());
+
+    assertThat(layout.resolve("oci-layout")).content().contains("\"imageLayoutVersion\":\"1.0.0\"");
+    assertThat(layout.resolve("index.json")).content().contains(output.manifestDigest());
+    Path blobs = layout.resolve("blobs/sha256");
+    try (Stream<Path> files = Files.list(blobs)) {
+      for (Path blob : (Iterable<Path>) files::iterator) {
+        assertThat(blob.getFileName().toString()).isEqualTo(sha256(Files.readAllBytes(blob)));
+      }
+    }
+
+    String manifest = Files.readString(blobs.resolve(hex(output.manifestDigest())));
+    assertThat(manifest)
+        .contains(OciImageWriter.MANIFEST_MEDIA_TYPE, OciImageWriter.CONFIG_MEDIA_TYPE)
+        .contains(output.layerDigest());
+    assertThat(Files.readAllBytes(output.layerFile()))
+        .isEqualTo(Files.readAllBytes(blobs.resolve(hex(output.layerDigest()))));
+
+    try (Stream<Path> files = Files.list(blobs)) {
+      List<Path> appLayers =
+          files
+              .filter(f -> !f.getFileName().toString().equals(hex(output.layerDigest())))
+              .filter(f -> f.getFileName().toString().length() == 64 && isGzip(f))
+              .toList();
+      assertThat(appLayers).hasSize(1);
+      assertThat(readTar(appLayers.get(0)))
+          .extracting(TarEntry::name)
+          .containsExactly("app/", "app/app.jar", "app/lib.jar");
+    }
+
+    String config;
+    try (Stream<Path> files = Files.list(blobs)) {
+      config =
+          files
+              .map(OciImageWriterTest::readString)
+              .filter(content -> content.contains("\"rootfs\""))
+              .findFirst()
+              .orElseThrow();
+    }
+    assertThat(config)
+        .contains("\"Entrypoint\":[\"/opt/java/bin/java\",\"-jar\",\"/app/app.jar\"]")
+        .contains("\"JAVA_HOME=/opt/java\"")
+        .contains("\"architecture\":\"" + OciImageWriter.architecture() + "\"")
+        .contains("\"created\":\"1970-01-01T00:00:00Z\"")
+        .contains(output.layerDiffId());
+  }
+
+  @Test
+  void shouldRejectImageWithoutOutputOrWithNestedDirectories() {
+    assertThatThrownBy(() -> OciImage.builder().build().validate())
+        .isInstanceOf(ConfigurationException.class);
+    assertThatThrownBy(
+            () ->
+                OciImage.builder()
+                    .layerFile(tempDir.resolve("layer.tar.gz"))
+                    .appDirectory("/opt/java/app")
+                    .build()
+                    .validate())
+        .isInstanceOf(ConfigurationException.class);
+    assertThatThrownBy(
+            () ->
+                OciImage.builder()
+                    .layerFile(tempDir.resolve("layer.tar.gz"))
+                    .runtimeDirectory("opt/java")
+                    .build()
+                    .validate())
+        .isInstanceOf(ConfigurationException.class);
+  }
+
+  private OciImage layer(String fileName) {
+    return OciImage.builder().layerFile(tempDir.resolve(fileName)).build();
+  }
+
+  private static Path createRuntime(Path jre) throws IOException {
+    Files.createDirectories(jre.resolve("bin"));
+    Files.createDirectories(jre.resolve("lib"));
+    Path java = Files.writeString(jre.resolve("bin/java"), "#!/bin/sh\n");
+    java.toFile().setExecutable(true);
+    Files.write(jre.resolve("lib/modules"), new byte[3000]);
+    Files.writeString(jre.resolve("release"), "JAVA_VERSION=\"21\"\n");
+    Files.writeString(jre.resolve(JLinkExecutor.FINGERPRINT_FILE), "jdk /here\n");
+    return jre;
+  }
+
+  private record TarEntry(String name, int mode, long uid, long gid, long size, long mtime) {}
+
+  private static TarEntry entry(List<TarEntry> entries, String name) {
+    return entries.stream().filter(e -> e.name().equals(name)).findFirst().orElseThrow();
+  }
+
+  /** Reads the entries of a gzipped tar, applying PAX path records. */
+  private static List<TarEntry> readTar(Path layer) throws IOException {
+    List<TarEntry> entries = new ArrayList<>();
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(layer))) {
+      String paxPath = null;
+      while (true) {
+        byte[] header = in.readNBytes(512);
+        if (header.length < 512 || header[0] == 0) {
+          break;
+        }
+        long size = octal(header, 124, 12);
+        byte[] data = in.readNBytes((int) size);
+        in.skipNBytes((512 - size % 512) % 512);
+        if (header[156] == 'x') {
+          String records = new String(data, StandardCharsets.UTF_8);
+          int start = records.indexOf(" path=") + " path=".length();
+          paxPath = records.substring(start, records.indexOf('\n', start));
+          continue;
+        }
+        String name = string(header, 0, 100);
+        String prefix = string(header, 345, 155);
+        if (paxPath != null) {
+          name = paxPath;
+          paxPath = null;
+        } else if (!prefix.isEmpty()) {
+          name = prefix + "/" + name;
+        }
+        entries.add(
+            new TarEntry(
+                name,
+                (int) octal(header, 100, 8),
+                octal(header, 108, 8),
+                octal(header, 116, 8),
+                size,
+                octal(header, 136, 12)));
+      }
+    }
+    return entries;
+  }
+
+  private static String string(byte[] header, int offset, int length) {
+    int end = offset;
+    while (end < offset + length && header[end] != 0) {
+      end++;
+    }
+    return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+  }
+
+  private static long octal(byte[] header, int offset, int length) {
+    return Long.parseLong(string(header, offset, length - 1).trim(), 8);
+  }
+
+  private static boolean isGzip(Path file) {
+    try (InputStream in = Files.newInputStream(file)) {
+      return in.read() == 0x1f && in.read() == 0x8b;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static String readString(Path file) {
+    try {
+      return isGzip(file) ? "" : Files.readString(file);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String hex(String digest) {
+    return digest.substring("sha256:".length());
+  }
+
+  private static String sha256(byte[] bytes) throws Exception {
+    return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+  }
+}
@@ -0,0 +1,80 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.config.JLinkOptions;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for RuntimeStore. */
+class RuntimeStoreTest {
+
+  @TempDir Path tempDir;
+
+  private final JLinkExecutor executor = new JLinkExecutor();
+
+  @Test
+  void shouldLinkOnceAndMaterializeOutputsAsHardLinks() throws IOException {
+    RuntimeStore store = new RuntimeStore(tempDir.resolve("store"), executor);
+
+    Path first = store.materialize(options(tempDir.resolve("first")));
+    Path second = store.materialize(options(tempDir.resolve("second")));
+
+    assertThat(executor.verifyJre(first)).isTrue();
+    assertThat(executor.verifyJre(second)).isTrue();
+    assertThat(entries(store)).hasSize(1);
+    assertThat(Files.isSameFile(first.resolve("lib/modules"), second.resolve("lib/modules")))
+        .isTrue();
+    assertThat(store.key(options(first))).isEqualTo(store.key(options(second)));
+    assertThat(RuntimeStore.entryLockCount()).isZero();
+  }
+
+  @Test
+  void shouldKeyEntriesByImageContent() {
+    RuntimeStore store = new RuntimeStore(tempDir.resolve("store"), executor);
+
+    JLinkOptions withoutCds =
+        JLinkOptions.builder()
+            .addModule("java.base")
+            .outputPath(tempDir.resolve("jre"))
+            .generateCdsArchive(false)
+            .build();
+
+    assertThat(store.key(options(tempDir.resolve("jre"))))
+        .hasSize(64)
+        .isNotEqualTo(store.key(withoutCds));
+  }
+
+  @Test
+  void shouldRemoveOnlyEntriesNoOutputLinksTo() throws IOException {
+    RuntimeStore store = new RuntimeStore(tempDir.resolve("store"), executor);
+    Path jre = store.materialize(options(tempDir.resolve("jre")));
+
+    assertThat(store.gc(Duration.ZERO)).isZero();
+    assertThat(store.gc(Duration.ofDays(1))).isZero();
+    assertThat(entries(store)).hasSize(1);
+
+    JLinkExecutor.deleteDirectory(jre);
+
+    assertThat(store.gc(Duration.ofDays(1))).isZero();
+    assertThat(store.gc(Duration.ZERO)).isEqualTo(1);
+    assertThat(entries(store)).isEmpty();
+    assertThat(RuntimeStore.entryLockCount()).isZero();
+  }
+
+  private static JLinkOptions options(Path outputPath) {
+    return JLinkOptions.builder().addModule("java.base").outputPath(outputPath).build();
+  }
+
+  private static List<Path> entries(RuntimeStore store) throws IOException {
+    try (Stream<Path> files = Files.list(store.directory())) {
+      return files.filter(Files::isDirectory).toList();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.config.ScanConcurrency;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for ScanScheduler. */
+class ScanSchedulerTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void shouldReturnResultsInInputOrderAndOmitFailures() throws IOException {
+    List<Path> jars = jars(6);
+
+    try (ScanScheduler scheduler = new ScanScheduler(new ScanConcurrency(3, 2))) {
+      List<String> parsed =
+          scheduler.parse(
+              jars,
+              jar -> {
+                if (jar.getFileName().toString().equals("lib2.jar")) {
+                  throw new IllegalStateException("corrupt");
+                }
+                return jar.getFileName().toString();
+              });
+      List<String> read = scheduler.read(jars, jar -> jar.getFileName().toString());
+
+      assertThat(parsed)
+          .containsExactly("lib0.jar", "lib1.jar", "lib3.jar", "lib4.jar", "lib5.jar");
+      assertThat(read)
+          .containsExactly("lib0.jar", "lib1.jar", "lib2.jar", "lib3.jar", "lib4.jar", "lib5.jar");
+    }
+  }
+
+  @Test
+  void shouldBoundJarsOpenAtTheSameTime() throws IOException {
+    List<Path> jars = jars(16);
+    AtomicInteger open = new AtomicInteger();
+    AtomicInteger maxOpen = new AtomicInteger();
+
+    try (ScanScheduler scheduler = new ScanScheduler(new ScanConcurrency(4, 3))) {
+      scheduler.read(jars, jar -> holdOpen(open, maxOpen));
+      scheduler.parse(
+          jars,
+          jar -> {
+            try {
+              return scheduler.withOpenJar(() -> holdOpen(open, maxOpen));
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    }
+
+    assertThat(maxOpen.get()).isBetween(1, 3);
+    assertThat(open.get()).isZero();
+  }
+
+  @Test
+  void shouldDefaultLimitsToAvailableProcessors() {
+    ScanConcurrency limits = ScanConcurrency.defaults();
+
+    assertThat(limits.parsingThreads()).isEqualTo(Runtime.getRuntime().availableProcessors());
+    assertThat(limits.openJars()).isGreaterThanOrEqualTo(Math.max(8, limits.parsingThreads()));
+    assertThat(ScanScheduler.shared()).isSameAs(ScanScheduler.shared());
+  }
+
+  private static int holdOpen(AtomicInteger open, AtomicInteger maxOpen) {
+    int now = open.incrementAndGet();
+    maxOpen.accumulateAndGet(now, Math::max);
+    try {
+      Thread.sleep(5);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      open.decrementAndGet();
+    }
+    return now;
+  }
+
+  private List<Path> jars(int count) throws IOException {
+    List<Path> jars = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      // Differing sizes exercise the largest-first submission order
+      jars.add(Files.write(tempDir.resolve("lib" + i + ".jar"), new byte[(i % 3) * 100]));
+    }
+    return jars;
+  }
+}
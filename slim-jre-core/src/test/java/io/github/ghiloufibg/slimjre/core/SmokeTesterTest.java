@@ -0,0 +1,250 @@
+package io.github.ghiloufibg.slimjre.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.github.ghiloufibg.slimjre.config.JLinkOptions;
+import io.github.ghiloufibg.slimjre.config.ReadinessProbe;
+import io.github.ghiloufibg.slimjre.config.SmokeTest;
+import io.github.ghiloufibg.slimjre.config.SmokeTestReport;
+import io.github.ghiloufibg.slimjre.config.SmokeTestResult;
+import io.github.ghiloufibg.slimjre.config.TrainingRun;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** Tests for SmokeTester, running applications on a java.base runtime. */
+@EnabledOnOs(OS.LINUX)
+class SmokeTesterTest {
+
+  @TempDir static Path sharedDir;
+
+  private static Path jre;
+
+  @TempDir Path tempDir;
+
+  private final SmokeTester tester = new SmokeTester();
+
+  @BeforeAll
+  static void linkRuntime() {
+    jre =
+        new JLinkExecutor()
+            .createRuntime(
+                JLinkOptions.builder()
+                    .addModule("java.base")
+                    .outputPath(sharedDir.resolve("jre"))
+                    .build());
+  }
+
+  @Test
+  void shouldPassWhenApplicationExitsWithExpectedCode() throws IOException {
+    Path jar = createJar("app.jar", "com/example/Main", mv -> {});
+
+    SmokeTestResult result = tester.run(jre, List.of(jar), smokeTest("com.example.Main", null));
+
+    assertThat(result.passed()).isTrue();
+    assertThat(result.exitCode()).isZero();
+    assertThat(result.timeToReady()).isPositive();
+  }
+
+  @Test
+  void shouldStopApplicationOnceReadyLineIsLogged() throws IOException {
+    Path jar =
+        createJar(
+            "server.jar",
+            "com/example/Server",
+            mv -> {
+              mv.visitFieldInsn(
+                  Opcodes.GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+              mv.visitLdcInsn("Server started in 0.1 seconds");
+              mv.visitMethodInsn(
+                  Opcodes.INVOKEVIRTUAL,
+                  "java/io/PrintStream",
+                  "println",
+                  "(Ljava/lang/String;)V",
+                  false);
+              mv.visitLdcInsn(60_000L);
+              mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Thread", "sleep", "(J)V", false);
+            });
+
+    SmokeTestResult result =
+        tester.run(
+            jre,
+            List.of(jar),
+            smokeTest("com.example.Server", ReadinessProbe.logLine("Server started in")));
+
+    assertThat(result.passed()).isTrue();
+    assertThat(result.exitCode()).isNull();
+    assertThat(result.timeToReady()).isLessThan(Duration.ofSeconds(30));
+    assertThat(result.peakRssBytes()).isPositive();
+  }
+
+  @Test
+  void shouldWaitForHttpResponseOnPort() throws IOException {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    Path jar = createJar("http.jar", "com/example/Http", SmokeTesterTest::serveHttp);
+
+    SmokeTestResult result =
+        tester.run(
+            jre,
+            List.of(jar),
+            SmokeTest.builder()
+                .run(
+                    TrainingRun.builder()
+                        .mainClass("com.example.Http")
+                        .argument(Integer.toString(port))
+                        .timeout(Duration.ofSeconds(30))
+                        .build())
+                .probe(ReadinessProbe.httpPort(port))
+                .build());
+
+    assertThat(result.passed()).isTrue();
+    assertThat(result.exitCode()).isNull();
+  }
+
+  @Test
+  void shouldFailWhenModuleIsMissingFromRuntime() throws IOException {
+    Path jar =
+        createJar(
+            "sql.jar",
+            "com/example/Sql",
+            mv -> {
+              mv.visitLdcInsn("java.sql.DriverManager");
+              mv.visitMethodInsn(
+                  Opcodes.INVOKESTATIC,
+                  "java/lang/Class",
+                  "forName",
+                  "(Ljava/lang/String;)Ljava/lang/Class;",
+                  false);
+              mv.visitInsn(Opcodes.POP);
+            });
+
+    SmokeTestReport report = tester.verify(jre, List.of(jar), smokeTest("com.example.Sql", null));
+
+    assertThat(report.passed()).isFalse();
+    assertThat(report.slim().exitCode()).isEqualTo(1);
+    assertThat(report.newErrors())
+        .singleElement()
+        .asString()
+        .contains("ClassNotFoundException: java.sql.DriverManager");
+    assertThat(report.baseline().passed()).isTrue();
+    assertThat(report.summary()).contains("FAILED").contains("(full JDK: ");
+  }
+
+  @Test
+  void shouldNotBlameRuntimeForErrorsAlsoSeenOnFullJdk() {
+    SmokeTestResult slim =
+        new SmokeTestResult(
+            jre, true, Duration.ofMillis(200), 0, null, List.of("NoClassDefFoundError: x/Y"), "");
+    SmokeTestResult baseline =
+        new SmokeTestResult(
+            jre, true, Duration.ofMillis(300), 0, null, List.of("NoClassDefFoundError: x/Y"), "");
+
+    SmokeTestReport report = new SmokeTestReport(ReadinessProbe.exitCode(0), slim, baseline);
+
+    assertThat(report.passed()).isTrue();
+    assertThat(report.newErrors()).isEmpty();
+    assertThat(report.summary())
+        .contains("Time to ready: 200ms (full JDK: 300ms)")
+        .contains("does not start cleanly on the full JDK either");
+  }
+
+  // ==================== Helper Methods ====================
+
+  private static SmokeTest smokeTest(String mainClass, ReadinessProbe probe) {
+    return SmokeTest.builder()
+        .run(TrainingRun.builder().mainClass(mainClass).timeout(Duration.ofSeconds(30)).build())
+        .probe(probe)
+        .build();
+  }
+
+  /** Emits a loop answering every connection on the port of the first argument with HTTP 200. */
+  private static void serveHttp(MethodVisitor mv) {
+    mv.visitTypeInsn(Opcodes.NEW, "java/net/ServerSocket");
+    mv.visitInsn(Opcodes.DUP);
+    mv.visitVarInsn(Opcodes.ALOAD, 0);
+    mv.visitInsn(Opcodes.ICONST_0);
+    mv.visitInsn(Opcodes.AALOAD);
+    mv.visitMethodInsn(
+        Opcodes.INVOKESTATIC, "java/lang/Integer", "parseInt", "(Ljava/lang/String;)I", false);
+    mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/net/ServerSocket", "<init>", "(I)V", false);
+    mv.visitVarInsn(Opcodes.ASTORE, 1);
+
+    Label loop = new Label();
+    mv.visitLabel(loop);
+    mv.visitVarInsn(Opcodes.ALOAD, 1);
+    mv.visitMethodInsn(
+        Opcodes.INVOKEVIRTUAL, "java/net/ServerSocket", "accept", "()Ljava/net/Socket;", false);
+    mv.visitVarInsn(Opcodes.ASTORE, 2);
+    // Read the request before answering, so closing the socket does not reset the connection
+    mv.visitVarInsn(Opcodes.ALOAD, 2);
+    mv.visitMethodInsn(
+        Opcodes.INVOKEVIRTUAL,
+        "java/net/Socket",
+        "getInputStream",
+        "()Ljava/io/InputStream;",
+        false);
+    mv.visitIntInsn(Opcodes.SIPUSH, 1024);
+    mv.visitIntInsn(Opcodes.NEWARRAY, Opcodes.T_BYTE);
+    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/InputStream", "read", "([B)I", false);
+    mv.visitInsn(Opcodes.POP);
+    mv.visitVarInsn(Opcodes.ALOAD, 2);
+    mv.visitMethodInsn(
+        Opcodes.INVOKEVIRTUAL,
+        "java/net/Socket",
+        "getOutputStream",
+        "()Ljava/io/OutputStream;",
+        false);
+    mv.visitLdcInsn("HTTP/1.0 200 OK\r\nContent-Length: 0\r\n\r\n");
+    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "getBytes", "()[B", false);
+    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/OutputStream", "write", "([B)V", false);
+    mv.visitVarInsn(Opcodes.ALOAD, 2);
+    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/net/Socket", "close", "()V", false);
+    mv.visitJumpInsn(Opcodes.GOTO, loop);
+  }
+
+  /** Creates a JAR with a main class whose body is emitted by the given code. */
+  private Path createJar(String jarName, String className, Consumer<MethodVisitor> body)
+      throws IOException {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+    MethodVisitor mv =
+        cw.visitMethod(
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC,
+            "main",
+            "([Ljava/lang/String;)V",
+            null,
+            new String[] {"java/lang/Exception"});
+    mv.visitCode();
+    body.accept(mv);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+
+    Path jarPath = tempDir.resolve(jarName);
+    try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jarPath.toFile()))) {
+      jos.putNextEntry(new JarEntry(className + ".class"));
+      jos.write(cw.toByteArray());
+      jos.closeEntry();
+    }
+    return jarPath;
+  }
+}
@@ -0,0 +1,19 @@
+package io.github.ghiloufibg.slimjre.gradle
+
+import io.github.ghiloufibg.slimjre.core.AnalysisCache
+import io.github.ghiloufibg.slimjre.core.SlimJre
+import java.nio.file.Path
+
+/**
+ * Creates a SlimJre instance backed by the persistent analysis cache,
+ * unless caching has been disabled.
+ *
+ * @param noCache whether to disable the cache
+ * @param cacheDirectory cache directory, or null for the default location
+ */
+internal fun createSlimJre(noCache: Boolean, cacheDirectory: Path?): SlimJre {
+    if (noCache) {
+        return SlimJre()
+    }
+    return SlimJre(AnalysisCache(cacheDirectory ?: AnalysisCache.defaultDirectory()))
+}
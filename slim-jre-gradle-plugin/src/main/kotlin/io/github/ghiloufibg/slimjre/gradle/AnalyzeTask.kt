@@ -1,9 +1,9 @@
 package io.github.ghiloufibg.slimjre.gradle
 
 import io.github.ghiloufibg.slimjre.config.AnalysisResult
-import io.github.ghiloufibg.slimjre.core.SlimJre
 import org.gradle.api.DefaultTask
 import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.file.DirectoryProperty
 import org.gradle.api.file.RegularFileProperty
 import org.gradle.api.provider.Property
 import org.gradle.api.provider.SetProperty
@@ -46,6 +46,13 @@ abstract class AnalyzeTask : DefaultTask() {
     @get:Input
     abstract val verbose: Property<Boolean>
 
+    /** The analysis cache only affects speed, never the result, so it is not a task input. */
+    @get:Internal
+    abstract val noCache: Property<Boolean>
+
+    @get:Internal
+    abstract val cacheDirectory: DirectoryProperty
+
     init {
         group = "slim-jre"
         description = "Analyzes the project to determine required JDK modules (dry-run)"
@@ -72,7 +79,7 @@ abstract class AnalyzeTask : DefaultTask() {
             logger.lifecycle("")
         }
 
-        val slimJre = SlimJre()
+        val slimJre = createSlimJre(noCache.getOrElse(false), cacheDirectory.orNull?.asFile?.toPath())
         val result = slimJre.analyzeOnly(jars, scanServiceLoaders.get(), scanGraalVmMetadata.get())
 
         logAnalysis(result, jars)
@@ -1,18 +1,26 @@
 package io.github.ghiloufibg.slimjre.gradle
 
 import io.github.ghiloufibg.slimjre.config.CryptoMode
+import io.github.ghiloufibg.slimjre.config.OciImage
+import io.github.ghiloufibg.slimjre.config.PipelineMetrics
+import io.github.ghiloufibg.slimjre.config.ReadinessProbe
 import io.github.ghiloufibg.slimjre.config.Result
+import io.github.ghiloufibg.slimjre.config.ScanConcurrency
 import io.github.ghiloufibg.slimjre.config.SlimJreConfig
-import io.github.ghiloufibg.slimjre.core.SlimJre
+import io.github.ghiloufibg.slimjre.config.SmokeTest
+import io.github.ghiloufibg.slimjre.config.TrainingRun
+import io.github.ghiloufibg.slimjre.core.RuntimeStore
 import org.gradle.api.DefaultTask
 import org.gradle.api.file.ConfigurableFileCollection
 import org.gradle.api.file.DirectoryProperty
 import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.provider.ListProperty
 import org.gradle.api.provider.Property
 import org.gradle.api.provider.SetProperty
 import org.gradle.api.tasks.*
 import java.io.File
 import java.nio.file.Path
+import java.time.Duration
 
 /**
  * Task that creates a minimal custom JRE for the project.
@@ -40,6 +48,14 @@ abstract class CreateJreTask : DefaultTask() {
     @get:OutputDirectory
     abstract val outputDirectory: DirectoryProperty
 
+    @get:OutputFile
+    @get:Optional
+    abstract val ociLayerFile: RegularFileProperty
+
+    @get:OutputDirectory
+    @get:Optional
+    abstract val ociLayoutDirectory: DirectoryProperty
+
     @get:Input
     abstract val includeModules: SetProperty<String>
 
@@ -58,6 +74,12 @@ abstract class CreateJreTask : DefaultTask() {
     @get:Input
     abstract val noManPages: Property<Boolean>
 
+    @get:Input
+    abstract val generateCdsArchive: Property<Boolean>
+
+    @get:Internal
+    abstract val measureStartup: Property<Boolean>
+
     @get:Input
     abstract val scanServiceLoaders: Property<Boolean>
 
@@ -67,9 +89,67 @@ abstract class CreateJreTask : DefaultTask() {
     @get:Input
     abstract val cryptoMode: Property<CryptoMode>
 
+    /** Scan limits only affect speed, never the result, so they are not task inputs. */
+    @get:Internal
+    abstract val scanThreads: Property<Int>
+
+    @get:Internal
+    abstract val scanOpenJars: Property<Int>
+
     @get:Input
     abstract val verbose: Property<Boolean>
 
+    /** The analysis cache only affects speed, never the result, so it is not a task input. */
+    @get:Internal
+    abstract val noCache: Property<Boolean>
+
+    @get:Internal
+    abstract val cacheDirectory: DirectoryProperty
+
+    /** Stage metrics are a diagnostic report, not a task output. */
+    @get:Internal
+    abstract val metricsFile: RegularFileProperty
+
+    /** The runtime store only changes how the JRE files are stored, never their content. */
+    @get:Internal
+    abstract val runtimeStore: Property<Boolean>
+
+    @get:Internal
+    abstract val runtimeStoreDirectory: DirectoryProperty
+
+    @get:Input
+    abstract val appCds: Property<Boolean>
+
+    @get:Input
+    abstract val aotCache: Property<Boolean>
+
+    @get:Input
+    @get:Optional
+    abstract val trainingMainClass: Property<String>
+
+    @get:Input
+    abstract val trainingArguments: ListProperty<String>
+
+    @get:Input
+    abstract val trainingTimeout: Property<Duration>
+
+    @get:Input
+    abstract val smokeTest: Property<Boolean>
+
+    @get:Input
+    @get:Optional
+    abstract val readyLogPattern: Property<String>
+
+    @get:Input
+    @get:Optional
+    abstract val readyPort: Property<Int>
+
+    @get:Input
+    abstract val readyExitCode: Property<Int>
+
+    @get:Input
+    abstract val smokeTestBaseline: Property<Boolean>
+
     init {
         group = "slim-jre"
         description = "Creates a minimal custom JRE for the project"
@@ -93,7 +173,7 @@ abstract class CreateJreTask : DefaultTask() {
         }
 
         val config = buildConfig(jars)
-        val slimJre = SlimJre()
+        val slimJre = createSlimJre(noCache.getOrElse(false), cacheDirectory.orNull?.asFile?.toPath())
         val result = slimJre.createMinimalJre(config)
 
         logResult(result)
@@ -138,10 +218,58 @@ abstract class CreateJreTask : DefaultTask() {
             .compression(compression.get())
             .noHeaderFiles(noHeaderFiles.get())
             .noManPages(noManPages.get())
+            .generateCdsArchive(generateCdsArchive.getOrElse(true))
+            .measureStartup(measureStartup.getOrElse(false))
             .scanServiceLoaders(scanServiceLoaders.get())
             .scanGraalVmMetadata(scanGraalVmMetadata.get())
             .cryptoMode(cryptoMode.get())
+            .scanConcurrency(ScanConcurrency(scanThreads.getOrElse(0), scanOpenJars.getOrElse(0)))
             .verbose(verbose.get())
+            .appCds(if (appCds.getOrElse(false)) trainingRun() else null)
+            .aotCache(if (aotCache.getOrElse(false)) trainingRun() else null)
+            .smokeTest(if (smokeTest.getOrElse(false)) smokeTest() else null)
+            .runtimeStore(if (runtimeStore.getOrElse(false)) runtimeStoreDirectory() else null)
+            .ociImage(ociImage())
+            .build()
+    }
+
+    private fun runtimeStoreDirectory(): Path {
+        return runtimeStoreDirectory.orNull?.asFile?.toPath() ?: RuntimeStore.defaultDirectory()
+    }
+
+    private fun trainingRun(): TrainingRun {
+        return TrainingRun.builder()
+            .mainClass(trainingMainClass.orNull)
+            .arguments(trainingArguments.getOrElse(emptyList()))
+            .timeout(trainingTimeout.getOrElse(TrainingRun.DEFAULT_TIMEOUT))
+            .build()
+    }
+
+    private fun ociImage(): OciImage? {
+        if (!ociLayerFile.isPresent && !ociLayoutDirectory.isPresent) {
+            return null
+        }
+        return OciImage.builder()
+            .layerFile(ociLayerFile.orNull?.asFile?.toPath())
+            .layoutDirectory(ociLayoutDirectory.orNull?.asFile?.toPath())
+            .mainClass(trainingMainClass.orNull)
+            .created(OciImage.sourceDateEpoch())
+            .build()
+    }
+
+    private fun smokeTest(): SmokeTest {
+        if (readyLogPattern.isPresent && readyPort.isPresent) {
+            throw IllegalArgumentException("Set only one of readyLogPattern and readyPort")
+        }
+        val probe = when {
+            readyLogPattern.isPresent -> ReadinessProbe.logLine(readyLogPattern.get())
+            readyPort.isPresent -> ReadinessProbe.httpPort(readyPort.get())
+            else -> ReadinessProbe.exitCode(readyExitCode.getOrElse(0))
+        }
+        return SmokeTest.builder()
+            .run(trainingRun())
+            .probe(probe)
+            .compareWithBaseline(smokeTestBaseline.getOrElse(true))
             .build()
     }
 
@@ -156,7 +284,55 @@ abstract class CreateJreTask : DefaultTask() {
             logger.lifecycle("  Reduction: ${String.format("%.0f%%", result.reductionPercentage())}")
         }
 
+        result.defaultCdsArchive()?.let { archive ->
+            logger.lifecycle("  CDS archive: ${formatSize(archive.size())}")
+        }
+        result.startup()?.let { startup ->
+            logger.lifecycle(
+                "  Startup: ${startup.withCds().toMillis()}ms with CDS, " +
+                    "${startup.withoutCds().toMillis()}ms without"
+            )
+        }
+        result.appCdsArchive()?.let { archive ->
+            logger.lifecycle("  AppCDS archive: ${formatSize(archive.size())}")
+        }
+
+        result.aotCache()?.let { cache ->
+            logger.lifecycle("  AOT cache: ${formatSize(cache.size())}")
+        }
+
+        result.smokeTest()?.let { report ->
+            report.summary().lines().filter { it.isNotEmpty() }.forEach { line ->
+                logger.lifecycle("  $line")
+            }
+        }
+
+        result.ociImage()?.let { image ->
+            image.summary().lines().filter { it.isNotEmpty() }.forEach { line ->
+                logger.lifecycle("  $line")
+            }
+        }
+
         logger.lifecycle("  Time: ${formatDuration(result.duration().toMillis())}")
+
+        logMetrics(result.metrics())
+    }
+
+    private fun logMetrics(metrics: PipelineMetrics) {
+        metrics.summary().lines().filter { it.isNotEmpty() }.forEach { line ->
+            if (verbose.get()) {
+                logger.lifecycle(line)
+            } else {
+                logger.info(line)
+            }
+        }
+
+        if (metricsFile.isPresent) {
+            val file = metricsFile.get().asFile
+            file.parentFile?.mkdirs()
+            file.writeText(metrics.toJson())
+            logger.lifecycle("  Stage metrics: $file")
+        }
     }
 
     private fun formatSize(bytes: Long): String {
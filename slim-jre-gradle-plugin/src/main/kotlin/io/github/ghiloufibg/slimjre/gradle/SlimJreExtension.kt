@@ -1,12 +1,14 @@
 package io.github.ghiloufibg.slimjre.gradle
 
 import io.github.ghiloufibg.slimjre.config.CryptoMode
+import io.github.ghiloufibg.slimjre.config.TrainingRun
 import org.gradle.api.file.DirectoryProperty
 import org.gradle.api.file.RegularFileProperty
 import org.gradle.api.model.ObjectFactory
 import org.gradle.api.provider.ListProperty
 import org.gradle.api.provider.Property
 import org.gradle.api.provider.SetProperty
+import java.time.Duration
 import javax.inject.Inject
 
 /**
@@ -40,6 +42,20 @@ abstract class SlimJreExtension @Inject constructor(objects: ObjectFactory) {
      */
     abstract val outputDirectory: DirectoryProperty
 
+    /**
+     * File to also write the JRE to as a reproducible OCI image layer (gzipped tar).
+     * Entry timestamps come from SOURCE_DATE_EPOCH, or the epoch if it is not set.
+     * Default: not written
+     */
+    abstract val ociLayerFile: RegularFileProperty
+
+    /**
+     * Directory to also write an OCI image layout to, with the JRE and the project's JARs as
+     * separate layers and an entrypoint starting the application like the training run.
+     * Default: not written
+     */
+    abstract val ociLayoutDirectory: DirectoryProperty
+
     /**
      * Additional modules to include beyond those detected.
      * Default: empty
@@ -76,6 +92,20 @@ abstract class SlimJreExtension @Inject constructor(objects: ObjectFactory) {
      */
     abstract val noManPages: Property<Boolean>
 
+    /**
+     * Whether to generate the default CDS archive for the linked modules, if the JDK's jlink
+     * supports it.
+     * Default: true
+     */
+    abstract val generateCdsArchive: Property<Boolean>
+
+    /**
+     * Whether to sample the startup of the created JRE with and without its default CDS archive
+     * over 12 JVM launches instead of one launch of each.
+     * Default: false
+     */
+    abstract val measureStartup: Property<Boolean>
+
     /**
      * Whether to scan for service loader dependencies.
      * Default: true
@@ -96,12 +126,121 @@ abstract class SlimJreExtension @Inject constructor(objects: ObjectFactory) {
      */
     abstract val cryptoMode: Property<CryptoMode>
 
+    /**
+     * Threads parsing class files.
+     * Default: one per available processor
+     */
+    abstract val scanThreads: Property<Int>
+
+    /**
+     * JARs the scanners hold open at the same time.
+     * Default: twice the scan threads, at least 8
+     */
+    abstract val scanOpenJars: Property<Int>
+
     /**
      * Whether to output verbose logging.
      * Default: false
      */
     abstract val verbose: Property<Boolean>
 
+    /**
+     * Whether to disable the persistent analysis cache and re-analyze every JAR.
+     * Default: false
+     */
+    abstract val noCache: Property<Boolean>
+
+    /**
+     * Directory of the persistent analysis cache. Entries are keyed by JAR content,
+     * so the cache can be shared across projects.
+     * Default: $XDG_CACHE_HOME/slim-jre or ~/.cache/slim-jre
+     */
+    abstract val cacheDirectory: DirectoryProperty
+
+    /**
+     * File to write the timing and counters of every stage to as JSON, e.g. for CI dashboards.
+     * Default: not written
+     */
+    abstract val metricsFile: RegularFileProperty
+
+    /**
+     * Whether to link the JRE into a content-addressed store and create the output as hard links
+     * to it, so projects resolving to the same modules share one image on disk.
+     * Default: false
+     */
+    abstract val runtimeStore: Property<Boolean>
+
+    /**
+     * Directory of the runtime store.
+     * Default: runtimes in the analysis cache directory
+     */
+    abstract val runtimeStoreDirectory: DirectoryProperty
+
+    /**
+     * Whether to run the application once on the created JRE and store an AppCDS archive of the
+     * classes it loads. The generated bin/java-app-cds launcher uses the archive.
+     * Default: false
+     */
+    abstract val appCds: Property<Boolean>
+
+    /**
+     * Whether to run the application once on the created JRE and store an AOT cache of the
+     * classes it loads and links. Requires JDK 24+ and is skipped on older JDKs. The generated
+     * bin/java-aot launcher uses the cache.
+     * Default: false
+     */
+    abstract val aotCache: Property<Boolean>
+
+    /**
+     * Main class of the training run.
+     * Default: the first JAR is run with -jar
+     */
+    abstract val trainingMainClass: Property<String>
+
+    /**
+     * Arguments passed to the application in the training run.
+     * Default: empty
+     */
+    abstract val trainingArguments: ListProperty<String>
+
+    /**
+     * How long the training run may take before the application is terminated.
+     * Default: 60 seconds
+     */
+    abstract val trainingTimeout: Property<Duration>
+
+    /**
+     * Whether to start the application on the created JRE, like the training run, and fail the
+     * build if it does not become ready or reports missing classes, modules or providers.
+     * Default: false
+     */
+    abstract val smokeTest: Property<Boolean>
+
+    /**
+     * Regular expression of an output line signalling the smoke-tested application is ready.
+     * Default: none
+     */
+    abstract val readyLogPattern: Property<String>
+
+    /**
+     * Local port on which the smoke-tested application is ready once it answers HTTP.
+     * Default: none
+     */
+    abstract val readyPort: Property<Int>
+
+    /**
+     * Exit code of a smoke-tested application that runs to completion, used when neither
+     * readyLogPattern nor readyPort is set.
+     * Default: 0
+     */
+    abstract val readyExitCode: Property<Int>
+
+    /**
+     * Whether to also run the smoke test on the full JDK and compare startup time and memory.
+     * Default: true
+     */
+    abstract val smokeTestBaseline: Property<Boolean>
+
     /**
      * Whether to skip execution of the plugin.
      * Default: false
@@ -120,10 +259,23 @@ abstract class SlimJreExtension @Inject constructor(objects: ObjectFactory) {
         compression.convention("zip-6")
         noHeaderFiles.convention(true)
         noManPages.convention(true)
+        generateCdsArchive.convention(true)
+        measureStartup.convention(false)
         scanServiceLoaders.convention(true)
         scanGraalVmMetadata.convention(true)
         cryptoMode.convention(CryptoMode.AUTO)
+        scanThreads.convention(0)
+        scanOpenJars.convention(0)
         verbose.convention(false)
+        noCache.convention(false)
+        runtimeStore.convention(false)
+        appCds.convention(false)
+        aotCache.convention(false)
+        trainingArguments.convention(emptyList())
+        trainingTimeout.convention(TrainingRun.DEFAULT_TIMEOUT)
+        smokeTest.convention(false)
+        readyExitCode.convention(0)
+        smokeTestBaseline.convention(true)
         skip.convention(false)
         includeModules.convention(emptySet())
         excludeModules.convention(emptySet())
@@ -79,10 +79,31 @@ class SlimJrePlugin : Plugin<Project> {
             compression.set(extension.compression)
             noHeaderFiles.set(extension.noHeaderFiles)
             noManPages.set(extension.noManPages)
+            generateCdsArchive.set(extension.generateCdsArchive)
+            measureStartup.set(extension.measureStartup)
             scanServiceLoaders.set(extension.scanServiceLoaders)
             scanGraalVmMetadata.set(extension.scanGraalVmMetadata)
             cryptoMode.set(extension.cryptoMode)
+            scanThreads.set(extension.scanThreads)
+            scanOpenJars.set(extension.scanOpenJars)
             verbose.set(extension.verbose)
+            noCache.set(extension.noCache)
+            cacheDirectory.set(extension.cacheDirectory)
+            metricsFile.set(extension.metricsFile)
+            runtimeStore.set(extension.runtimeStore)
+            ociLayerFile.set(extension.ociLayerFile)
+            ociLayoutDirectory.set(extension.ociLayoutDirectory)
+            runtimeStoreDirectory.set(extension.runtimeStoreDirectory)
+            appCds.set(extension.appCds)
+            aotCache.set(extension.aotCache)
+            trainingMainClass.set(extension.trainingMainClass)
+            trainingArguments.set(extension.trainingArguments)
+            trainingTimeout.set(extension.trainingTimeout)
+            smokeTest.set(extension.smokeTest)
+            readyLogPattern.set(extension.readyLogPattern)
+            readyPort.set(extension.readyPort)
+            readyExitCode.set(extension.readyExitCode)
+            smokeTestBaseline.set(extension.smokeTestBaseline)
 
             // Depend on jar task only if no custom input is specified
             if (!extension.inputPath.isPresent) {
@@ -106,6 +127,8 @@ class SlimJrePlugin : Plugin<Project> {
             scanServiceLoaders.set(extension.scanServiceLoaders)
             scanGraalVmMetadata.set(extension.scanGraalVmMetadata)
             verbose.set(extension.verbose)
+            noCache.set(extension.noCache)
+            cacheDirectory.set(extension.cacheDirectory)
 
             // Depend on jar task only if no custom input is specified
             if (!extension.inputPath.isPresent) {
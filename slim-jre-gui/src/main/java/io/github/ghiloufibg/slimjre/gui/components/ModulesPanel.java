@@ -1,6 +1,8 @@
 package io.github.ghiloufibg.slimjre.gui.components;
 
 import io.github.ghiloufibg.slimjre.config.AnalysisResult;
+import io.github.ghiloufibg.slimjre.config.SizeEstimate;
+import io.github.ghiloufibg.slimjre.gui.util.SizeFormatter;
 import java.awt.*;
 import java.nio.file.Path;
 import java.util.*;
@@ -17,7 +19,7 @@ import javax.swing.tree.TreePath;
  * Unified panel showing JAR files tree and their modules in a split view.
  *
  * <p>Left side: Tree of JAR files with module counts Right side: List of modules for selected
- * JAR(s)
+ * JAR(s) with the estimated size each adds to the JRE
  */
 public class ModulesPanel extends JPanel {
 
@@ -44,8 +46,8 @@ public class ModulesPanel extends JPanel {
     jarTree.setShowsRootHandles(true);
     jarTree.addTreeSelectionListener(this::onTreeSelectionChanged);
 
-    // Initialize modules table (right side) - simple single column
-    String[] columns = {"Module"};
+    // Initialize modules table (right side) - module and its estimated size in the JRE
+    String[] columns = {"Module", "Estimated Size"};
     tableModel =
         new DefaultTableModel(columns, 0) {
           @Override
@@ -168,9 +170,11 @@ public class ModulesPanel extends JPanel {
       }
     }
 
-    // Populate table with module names only
+    // Populate table with module names and their estimated cost
+    SizeEstimate estimate = currentResult.sizeEstimate();
     for (String module : modulesToShow) {
-      tableModel.addRow(new Object[] {module});
+      String size = estimate != null ? SizeFormatter.format(estimate.bytesOf(module)) : "-";
+      tableModel.addRow(new Object[] {module, size});
     }
 
     updateStatus();
@@ -182,7 +186,13 @@ public class ModulesPanel extends JPanel {
     if (total == 0) {
       statusLabel.setText("Select JAR file(s) from the tree to view modules");
     } else {
-      statusLabel.setText(String.format("%d modules", total));
+      SizeEstimate estimate = currentResult != null ? currentResult.sizeEstimate() : null;
+      statusLabel.setText(
+          estimate != null
+              ? String.format(
+                  "%d modules, estimated JRE size %s with dependencies",
+                  total, SizeFormatter.format(estimate.totalBytes()))
+              : String.format("%d modules", total));
     }
   }
 
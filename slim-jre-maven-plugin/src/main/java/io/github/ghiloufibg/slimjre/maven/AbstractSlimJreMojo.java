@@ -1,6 +1,10 @@
 package io.github.ghiloufibg.slimjre.maven;
 
 import io.github.ghiloufibg.slimjre.config.CryptoMode;
+import io.github.ghiloufibg.slimjre.config.DependencyEngineMode;
+import io.github.ghiloufibg.slimjre.config.ScanConcurrency;
+import io.github.ghiloufibg.slimjre.core.AnalysisCache;
+import io.github.ghiloufibg.slimjre.core.SlimJre;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -65,10 +69,44 @@ public abstract class AbstractSlimJreMojo extends AbstractMojo {
   @Parameter(property = "slimjre.cryptoMode", defaultValue = "AUTO")
   protected CryptoMode cryptoMode;
 
+  /**
+   * Engine detecting the JDK modules statically referenced by the bytecode.
+   *
+   * <ul>
+   *   <li>{@code JDEPS} (default): Run the jdeps tool
+   *   <li>{@code BYTECODE}: Resolve class references in-process during the shared bytecode pass
+   *   <li>{@code VALIDATE}: Run both, log the modules on which they disagree and use the union
+   * </ul>
+   */
+  @Parameter(property = "slimjre.dependencyEngine", defaultValue = "JDEPS")
+  protected DependencyEngineMode dependencyEngine;
+
+  /** Threads parsing class files. Defaults to one per available processor. */
+  @Parameter(property = "slimjre.scanThreads", defaultValue = "0")
+  protected int scanThreads;
+
+  /**
+   * JARs the scanners hold open at the same time. Defaults to twice the scan threads, at least 8.
+   */
+  @Parameter(property = "slimjre.scanOpenJars", defaultValue = "0")
+  protected int scanOpenJars;
+
   /** Whether to output verbose logging. */
   @Parameter(property = "slimjre.verbose", defaultValue = "false")
   protected boolean verbose;
 
+  /** Whether to disable the persistent analysis cache and re-analyze every JAR. */
+  @Parameter(property = "slimjre.noCache", defaultValue = "false")
+  protected boolean noCache;
+
+  /**
+   * Directory of the persistent analysis cache. Defaults to {@code $XDG_CACHE_HOME/slim-jre} or
+   * {@code ~/.cache/slim-jre}. Entries are keyed by JAR content, so the cache can be shared across
+   * projects.
+   */
+  @Parameter(property = "slimjre.cacheDirectory")
+  protected File cacheDirectory;
+
   /** Skip execution of this plugin. */
   @Parameter(property = "slimjre.skip", defaultValue = "false")
   protected boolean skip;
@@ -142,6 +180,22 @@ public abstract class AbstractSlimJreMojo extends AbstractMojo {
     return jars;
   }
 
+  /** Creates a SlimJre instance backed by the configured analysis cache. */
+  protected SlimJre createSlimJre() {
+    if (noCache) {
+      return new SlimJre();
+    }
+    Path directory =
+        cacheDirectory != null ? cacheDirectory.toPath() : AnalysisCache.defaultDirectory();
+    getLog().debug("Using analysis cache: " + directory);
+    return new SlimJre(new AnalysisCache(directory));
+  }
+
+  /** Returns the configured limits of the JAR scans. */
+  protected ScanConcurrency scanConcurrency() {
+    return new ScanConcurrency(scanThreads, scanOpenJars);
+  }
+
   /** Returns additional modules as a set. */
   protected Set<String> getIncludeModulesSet() {
     if (includeModules == null || includeModules.isEmpty()) {
@@ -52,8 +52,15 @@ public class AnalyzeMojo extends AbstractSlimJreMojo {
       List<Path> jars = collectJars();
 
       // Analyze
-      SlimJre slimJre = new SlimJre();
-      AnalysisResult result = slimJre.analyzeOnly(jars, scanServiceLoaders, scanGraalVmMetadata);
+      SlimJre slimJre = createSlimJre();
+      AnalysisResult result =
+          slimJre.analyzeOnly(
+              jars,
+              scanServiceLoaders,
+              scanGraalVmMetadata,
+              dependencyEngine,
+              null,
+              scanConcurrency());
 
       // Combine with additional/excluded modules
       Set<String> allModules = new java.util.TreeSet<>(result.allModules());
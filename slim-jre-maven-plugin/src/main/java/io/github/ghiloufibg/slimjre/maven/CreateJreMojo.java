@@ -1,11 +1,24 @@
 package io.github.ghiloufibg.slimjre.maven;
 
+import io.github.ghiloufibg.slimjre.config.OciImage;
+import io.github.ghiloufibg.slimjre.config.PipelineMetrics;
+import io.github.ghiloufibg.slimjre.config.ReadinessProbe;
 import io.github.ghiloufibg.slimjre.config.Result;
 import io.github.ghiloufibg.slimjre.config.SlimJreConfig;
+import io.github.ghiloufibg.slimjre.config.SmokeTest;
+import io.github.ghiloufibg.slimjre.config.TrainingRun;
+import io.github.ghiloufibg.slimjre.core.RuntimeStore;
 import io.github.ghiloufibg.slimjre.core.SlimJre;
 import io.github.ghiloufibg.slimjre.exception.SlimJreException;
+import io.github.ghiloufibg.slimjre.exception.SmokeTestException;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -67,6 +80,116 @@ public class CreateJreMojo extends AbstractSlimJreMojo {
   @Parameter(property = "slimjre.noManPages", defaultValue = "true")
   private boolean noManPages;
 
+  /**
+   * Whether to generate the default CDS archive for the linked modules, if the JDK's jlink supports
+   * it.
+   */
+  @Parameter(property = "slimjre.generateCdsArchive", defaultValue = "true")
+  private boolean generateCdsArchive;
+
+  /**
+   * Whether to sample the startup of the created JRE with and without its default CDS archive over
+   * 12 JVM launches instead of one launch of each.
+   */
+  @Parameter(property = "slimjre.measureStartup", defaultValue = "false")
+  private boolean measureStartup;
+
+  /**
+   * Whether to run the application once on the created JRE and store an AppCDS archive of the
+   * classes it loads. The generated {@code bin/java-app-cds} launcher uses the archive.
+   */
+  @Parameter(property = "slimjre.appCds", defaultValue = "false")
+  private boolean appCds;
+
+  /**
+   * Whether to run the application once on the created JRE and store an AOT cache of the classes it
+   * loads and links. Requires JDK 24+ and is skipped on older JDKs. The generated {@code
+   * bin/java-aot} launcher uses the cache.
+   */
+  @Parameter(property = "slimjre.aotCache", defaultValue = "false")
+  private boolean aotCache;
+
+  /** Main class of the training run. If unset, the first JAR is run with {@code -jar}. */
+  @Parameter(property = "slimjre.trainingMainClass")
+  private String trainingMainClass;
+
+  /** Arguments passed to the application in the training run. */
+  @Parameter(property = "slimjre.trainingArguments")
+  private List<String> trainingArguments;
+
+  /** Seconds the training run may take before the application is terminated. */
+  @Parameter(property = "slimjre.trainingTimeout", defaultValue = "60")
+  private long trainingTimeout;
+
+  /**
+   * Whether to start the application on the created JRE and fail the build if it does not become
+   * ready or reports missing classes, modules or providers. The application is started like the
+   * training run.
+   */
+  @Parameter(property = "slimjre.smokeTest", defaultValue = "false")
+  private boolean smokeTest;
+
+  /** Regular expression of an output line signalling the smoke-tested application is ready. */
+  @Parameter(property = "slimjre.readyLogPattern")
+  private String readyLogPattern;
+
+  /** Local port on which the smoke-tested application is ready once it answers HTTP. */
+  @Parameter(property = "slimjre.readyPort")
+  private Integer readyPort;
+
+  /**
+   * Exit code of a smoke-tested application that runs to completion, used when neither {@code
+   * readyLogPattern} nor {@code readyPort} is set.
+   */
+  @Parameter(property = "slimjre.readyExitCode", defaultValue = "0")
+  private int readyExitCode;
+
+  /** Whether to also run the smoke test on the full JDK and compare startup time and memory. */
+  @Parameter(property = "slimjre.smokeTestBaseline", defaultValue = "true")
+  private boolean smokeTestBaseline;
+
+  /**
+   * Whether to link the JRE into a shared runtime store once and create the output directory as
+   * hard links to it, so modules with the same JDK modules and options share their files.
+   */
+  @Parameter(property = "slimjre.runtimeStore", defaultValue = "false")
+  private boolean runtimeStore;
+
+  /**
+   * Directory of the runtime store, implies {@code runtimeStore}. Defaults to {@code runtimes} in
+   * the default analysis cache directory.
+   */
+  @Parameter(property = "slimjre.runtimeStoreDirectory")
+  private File runtimeStoreDirectory;
+
+  /**
+   * File to also write the JRE to as a reproducible OCI image layer (gzipped tar). Not written if
+   * unset.
+   */
+  @Parameter(property = "slimjre.ociLayerFile")
+  private File ociLayerFile;
+
+  /**
+   * Directory to also write an OCI image layout to, with the JRE and the project's JARs as separate
+   * layers and an entrypoint starting the application like the training run. Not written if unset.
+   */
+  @Parameter(property = "slimjre.ociLayoutDirectory")
+  private File ociLayoutDirectory;
+
+  /**
+   * Timestamp of the OCI image entries, as ISO-8601 or seconds since the epoch. Defaults to the
+   * project's reproducible build timestamp, then {@code SOURCE_DATE_EPOCH}, then the epoch.
+   */
+  @Parameter(defaultValue = "${project.build.outputTimestamp}")
+  private String outputTimestamp;
+
+  /**
+   * File to write the timing and counters of every stage to as JSON, e.g. for CI dashboards. Not
+   * written if unset.
+   */
+  @Parameter(property = "slimjre.metricsFile")
+  private File metricsFile;
+
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
     if (skip) {
@@ -95,16 +218,25 @@ public class CreateJreMojo extends AbstractSlimJreMojo {
               .compression(compression)
               .noHeaderFiles(noHeaderFiles)
               .noManPages(noManPages)
+              .generateCdsArchive(generateCdsArchive)
+              .measureStartup(measureStartup)
               .scanServiceLoaders(scanServiceLoaders)
               .scanGraalVmMetadata(scanGraalVmMetadata)
               .cryptoMode(cryptoMode)
+              .dependencyEngine(dependencyEngine)
+              .scanConcurrency(scanConcurrency())
               .includeModules(getIncludeModulesSet())
               .excludeModules(getExcludedModulesSet())
               .verbose(verbose)
+              .appCds(appCds ? trainingRun() : null)
+              .aotCache(aotCache ? trainingRun() : null)
+              .smokeTest(smokeTest ? smokeTest() : null)
+              .runtimeStore(runtimeStoreDirectory())
+              .ociImage(ociImage())
               .build();
 
       // Create the slim JRE
-      SlimJre slimJre = new SlimJre();
+      SlimJre slimJre = createSlimJre();
       Result result = slimJre.createMinimalJre(config);
 
       // Log result
@@ -118,13 +250,139 @@ public class CreateJreMojo extends AbstractSlimJreMojo {
         getLog().info("  Reduction: " + String.format("%.0f%%", result.reductionPercentage()));
       }
 
+      if (result.defaultCdsArchive() != null) {
+        getLog().info("  CDS archive: " + formatSize(result.defaultCdsArchive().size()));
+      }
+      if (result.startup() != null) {
+        getLog()
+            .info(
+                "  Startup: "
+                    + result.startup().withCds().toMillis()
+                    + "ms with CDS, "
+                    + result.startup().withoutCds().toMillis()
+                    + "ms without");
+      }
+      if (result.appCdsArchive() != null) {
+        getLog().info("  AppCDS archive: " + formatSize(result.appCdsArchive().size()));
+      }
+
+      if (result.aotCache() != null) {
+        getLog().info("  AOT cache: " + formatSize(result.aotCache().size()));
+      }
+
+      if (result.smokeTest() != null) {
+        for (String line : result.smokeTest().summary().split("\n")) {
+          getLog().info("  " + line);
+        }
+      }
+
+      if (result.ociImage() != null) {
+        for (String line : result.ociImage().summary().split("\n")) {
+          getLog().info("  " + line);
+        }
+      }
+
       getLog().info("  Time: " + formatDuration(result.duration().toMillis()));
 
+      logMetrics(result.metrics());
+
+    } catch (SmokeTestException e) {
+      throw new MojoFailureException(e.getMessage(), e);
     } catch (SlimJreException e) {
       throw new MojoExecutionException("Failed to create slim JRE: " + e.getMessage(), e);
     }
   }
 
+  /** Creates the configured training run. */
+  private TrainingRun trainingRun() {
+    TrainingRun.Builder builder =
+        TrainingRun.builder()
+            .mainClass(trainingMainClass)
+            .timeout(Duration.ofSeconds(trainingTimeout));
+    if (trainingArguments != null) {
+      builder.arguments(trainingArguments);
+    }
+    return builder.build();
+  }
+
+  /** Returns the configured runtime store directory, or null if the store is not used. */
+  private Path runtimeStoreDirectory() {
+    if (runtimeStoreDirectory != null) {
+      return runtimeStoreDirectory.toPath();
+    }
+    return runtimeStore ? RuntimeStore.defaultDirectory() : null;
+  }
+
+  /** Creates the configured OCI image output, or null if neither a layer nor layout is set. */
+  private OciImage ociImage() throws MojoExecutionException {
+    if (ociLayerFile == null && ociLayoutDirectory == null) {
+      return null;
+    }
+    return OciImage.builder()
+        .layerFile(ociLayerFile != null ? ociLayerFile.toPath() : null)
+        .layoutDirectory(ociLayoutDirectory != null ? ociLayoutDirectory.toPath() : null)
+        .mainClass(trainingMainClass)
+        .created(outputTimestamp())
+        .build();
+  }
+
+  /** Parses the reproducible build timestamp, which Maven allows as ISO-8601 or epoch seconds. */
+  private Instant outputTimestamp() throws MojoExecutionException {
+    // A single character disables reproducible timestamps in Maven
+    if (outputTimestamp == null || outputTimestamp.length() < 2) {
+      return OciImage.sourceDateEpoch();
+    }
+    try {
+      if (outputTimestamp.chars().allMatch(Character::isDigit)) {
+        return Instant.ofEpochSecond(Long.parseLong(outputTimestamp));
+      }
+      return OffsetDateTime.parse(outputTimestamp).toInstant();
+    } catch (DateTimeParseException | NumberFormatException e) {
+      throw new MojoExecutionException("Invalid project.build.outputTimestamp: " + outputTimestamp);
+    }
+  }
+
+  /** Creates the configured smoke test, starting the application like the training run. */
+  private SmokeTest smokeTest() throws MojoExecutionException {
+    if (readyLogPattern != null && readyPort != null) {
+      throw new MojoExecutionException("Set only one of readyLogPattern and readyPort");
+    }
+    ReadinessProbe probe;
+    if (readyLogPattern != null) {
+      probe = ReadinessProbe.logLine(readyLogPattern);
+    } else if (readyPort != null) {
+      probe = ReadinessProbe.httpPort(readyPort);
+    } else {
+      probe = ReadinessProbe.exitCode(readyExitCode);
+    }
+    return SmokeTest.builder()
+        .run(trainingRun())
+        .probe(probe)
+        .compareWithBaseline(smokeTestBaseline)
+        .build();
+  }
+
+  /** Logs the stage metrics, at info level when verbose, and writes them to the metrics file. */
+  private void logMetrics(PipelineMetrics metrics) throws MojoExecutionException {
+    for (String line : metrics.summary().split("\n")) {
+      if (verbose) {
+        getLog().info(line);
+      } else {
+        getLog().debug(line);
+      }
+    }
+
+    if (metricsFile != null) {
+      try {
+        Files.createDirectories(metricsFile.toPath().toAbsolutePath().getParent());
+        Files.writeString(metricsFile.toPath(), metrics.toJson());
+        getLog().info("  Stage metrics: " + metricsFile);
+      } catch (IOException e) {
+        throw new MojoExecutionException("Failed to write stage metrics: " + e.getMessage(), e);
+      }
+    }
+  }
+
   private String formatSize(long bytes) {
     if (bytes < 1024) {
       return bytes + " B";
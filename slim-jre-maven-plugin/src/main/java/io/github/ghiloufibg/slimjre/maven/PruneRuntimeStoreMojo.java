@@ -0,0 +1,60 @@
+package io.github.ghiloufibg.slimjre.maven;
+
+import io.github.ghiloufibg.slimjre.core.JLinkExecutor;
+import io.github.ghiloufibg.slimjre.core.RuntimeStore;
+import io.github.ghiloufibg.slimjre.exception.SlimJreException;
+import java.io.File;
+import java.time.Duration;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Removes JREs from the runtime store that no output directory links to any more.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * mvn slim-jre:prune-runtime-store
+ * }</pre>
+ */
+@Mojo(name = "prune-runtime-store", requiresProject = false, threadSafe = true)
+public class PruneRuntimeStoreMojo extends AbstractMojo {
+
+  /**
+   * Directory of the runtime store. Defaults to {@code runtimes} in the default analysis cache
+   * directory.
+   */
+  @Parameter(property = "slimjre.runtimeStoreDirectory")
+  private File runtimeStoreDirectory;
+
+  /** Minimum number of days a JRE must have been unused to be removed. */
+  @Parameter(property = "slimjre.runtimeStoreMinUnusedDays", defaultValue = "0")
+  private int minUnusedDays;
+
+  /** Whether to skip execution. */
+  @Parameter(property = "slimjre.skip", defaultValue = "false")
+  private boolean skip;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (skip) {
+      getLog().info("Skipping slim-jre:prune-runtime-store");
+      return;
+    }
+
+    try {
+      RuntimeStore store =
+          new RuntimeStore(
+              runtimeStoreDirectory != null
+                  ? runtimeStoreDirectory.toPath()
+                  : RuntimeStore.defaultDirectory(),
+              new JLinkExecutor());
+      int removed = store.gc(Duration.ofDays(minUnusedDays));
+      getLog().info("Removed " + removed + " unreferenced JRE(s) from " + store.directory());
+    } catch (SlimJreException e) {
+      throw new MojoExecutionException("Failed to prune runtime store: " + e.getMessage(), e);
+    }
+  }
+}